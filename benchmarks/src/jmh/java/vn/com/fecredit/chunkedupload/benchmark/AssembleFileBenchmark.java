@@ -0,0 +1,107 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.model.util.StreamingDigest;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the last chunk of an upload, which assembles the file on the request thread.
+ *
+ * <p>
+ * Each invocation writes the last chunk of an upload whose other chunks were written during
+ * setup:
+ * <ul>
+ * <li>The score is one chunk write plus {@code assembleFile}: finishing the checksum,
+ * verifying it and moving the part file into the complete directory</li>
+ * <li>With {@code incrementalChecksum}, the payload was hashed as chunks arrived and assembly
+ * does not depend on the file size; without it, the whole part file is read back</li>
+ * <li>The part file is usually in the page cache, so the non-incremental score is hashing
+ * cost rather than disk throughput</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=AssembleFileBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class AssembleFileBenchmark {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    @Param({"16777216", "268435456"})
+    public long fileSize;
+
+    @Param({"true", "false"})
+    public boolean incrementalChecksum;
+
+    private UploadEngineFixture fixture;
+    private byte[] chunk;
+    private String checksum;
+    private int lastChunk;
+    private String uploadId;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        fixture = new UploadEngineFixture(CHUNK_SIZE);
+        fixture.engine().setIncrementalChecksum(incrementalChecksum);
+        chunk = new byte[CHUNK_SIZE];
+        ThreadLocalRandom.current().nextBytes(chunk);
+        lastChunk = (int) ((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE) - 1;
+        // Every chunk holds the same bytes, so the checksum is computed once
+        MessageDigest digest = StreamingDigest.newSha256();
+        for (long remaining = fileSize; remaining > 0; remaining -= CHUNK_SIZE) {
+            digest.update(chunk, 0, (int) Math.min(CHUNK_SIZE, remaining));
+        }
+        checksum = StreamingDigest.toHex(digest.digest());
+    }
+
+    @Setup(Level.Iteration)
+    public void writeAllButLastChunk() throws Throwable {
+        uploadId = fixture.register(fileSize, checksum);
+        for (int chunkNumber = 0; chunkNumber < lastChunk; chunkNumber++) {
+            fixture.engine().writeChunk(UploadEngineFixture.USERNAME, uploadId, chunkNumber, chunk);
+        }
+    }
+
+    @Benchmark
+    public boolean writeLastChunk() throws Throwable {
+        return fixture.engine().writeChunk(UploadEngineFixture.USERNAME, uploadId, lastChunk, lastChunkData());
+    }
+
+    private byte[] lastChunkData() {
+        int length = (int) (fileSize - (long) lastChunk * CHUNK_SIZE);
+        return length == CHUNK_SIZE ? chunk : java.util.Arrays.copyOf(chunk, length);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUpload() throws IOException {
+        fixture.discard(uploadId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        fixture.close();
+    }
+}
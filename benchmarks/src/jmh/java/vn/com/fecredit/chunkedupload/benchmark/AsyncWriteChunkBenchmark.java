@@ -0,0 +1,139 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.core.DefaultChunkedUpload;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunk writes kept in flight by the blocking {@code writeChunk} and by {@code writeChunkAsync}.
+ *
+ * <p>
+ * Each invocation writes {@code inFlight} chunks of one fresh upload, all submitted at once,
+ * as a server would with that many chunk requests outstanding:
+ * <ul>
+ * <li>{@code blockingPool}: blocking writes on {@code poolSize} threads, so at most
+ * {@code poolSize} chunks are actually in flight</li>
+ * <li>{@code blockingThreadPerWrite}: blocking writes on one thread per chunk, as a
+ * thread-per-request server would</li>
+ * <li>{@code async}: every chunk started from the benchmark thread, completed on
+ * {@code poolSize} threads</li>
+ * </ul>
+ * The last chunk is not written, so assembly is excluded. The score is uploads per second;
+ * multiply by {@code inFlight * chunkSize} for bytes per second.
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=AsyncWriteChunkBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncWriteChunkBenchmark {
+
+    @Param({"64", "1024"})
+    public int inFlight;
+
+    @Param({"8"})
+    public int poolSize;
+
+    @Param({"65536"})
+    public int chunkSize;
+
+    private UploadEngineFixture fixture;
+    private DefaultChunkedUpload engine;
+    private ExecutorService pool;
+    private ExecutorService threadPerWrite;
+    private byte[] chunk;
+    private String uploadId;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        fixture = new UploadEngineFixture(chunkSize);
+        engine = fixture.engine();
+        pool = Executors.newFixedThreadPool(poolSize);
+        threadPerWrite = Executors.newFixedThreadPool(inFlight);
+        engine.setAsyncExecutor(pool);
+        chunk = new byte[chunkSize];
+        ThreadLocalRandom.current().nextBytes(chunk);
+    }
+
+    @Setup(Level.Invocation)
+    public void registerUpload() throws Throwable {
+        uploadId = fixture.register((long) (inFlight + 1) * chunkSize, "checksum");
+    }
+
+    @Benchmark
+    public void blockingPool() throws Exception {
+        writeBlocking(pool);
+    }
+
+    @Benchmark
+    public void blockingThreadPerWrite() throws Exception {
+        writeBlocking(threadPerWrite);
+    }
+
+    @Benchmark
+    public void async() {
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[inFlight];
+        for (int chunkNumber = 0; chunkNumber < inFlight; chunkNumber++) {
+            writes[chunkNumber] = engine.writeChunkAsync(UploadEngineFixture.USERNAME, uploadId, chunkNumber, ByteBuffer.wrap(chunk));
+        }
+        CompletableFuture.allOf(writes).join();
+    }
+
+    private void writeBlocking(ExecutorService executor) throws Exception {
+        List<Callable<Boolean>> writes = new ArrayList<>(inFlight);
+        for (int chunkNumber = 0; chunkNumber < inFlight; chunkNumber++) {
+            int number = chunkNumber;
+            writes.add(() -> {
+                try {
+                    return engine.writeChunk(UploadEngineFixture.USERNAME, uploadId, number, chunk);
+                } catch (Throwable e) {
+                    throw new IllegalStateException("Chunk " + number + " failed", e);
+                }
+            });
+        }
+        for (Future<Boolean> write : executor.invokeAll(writes)) {
+            write.get();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void discardUpload() throws Exception {
+        fixture.discard(uploadId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception {
+        threadPerWrite.shutdownNow();
+        pool.shutdownNow();
+        fixture.close();
+    }
+}
@@ -0,0 +1,86 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.manager.BitsetManager;
+import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.util.BitsetUtil;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@code BitsetManager.markChunkAndCheckComplete} per chunk, by number of chunks.
+ *
+ * <p>
+ * Notes on the results:
+ * <ul>
+ * <li>{@code chunkBitset} marks the {@link ChunkBitset} of a live upload session; completion
+ * is read from its maintained cardinality, so the score should not grow with the chunk count</li>
+ * <li>{@code headerBitset} marks the raw bitset of a {@link Header} and scans it for completion</li>
+ * <li>Every chunk but the last is marked, so the scan never stops early: this is the cost
+ * near the end of an upload, the worst case of the scan</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=BitsetBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitsetBenchmark {
+
+    @Param({"1024", "100000", "1048576", "10485760"})
+    public int totalChunks;
+
+    private ChunkBitset chunkBitset;
+    private Header header;
+    private int nextChunk;
+
+    @Setup
+    public void setUp() {
+        int markedChunks = totalChunks - 1;
+        chunkBitset = new ChunkBitset(totalChunks);
+        chunkBitset.setRange(0, markedChunks);
+        byte[] bitset = new byte[(totalChunks + 7) / 8];
+        BitsetUtil.setUnusedBits(bitset, totalChunks);
+        header = new Header(totalChunks, 1024, (long) totalChunks * 1024, bitset);
+        for (int chunk = 0; chunk < markedChunks; chunk++) {
+            BitsetUtil.setUsedBit(bitset, chunk);
+        }
+    }
+
+    /**
+     * @return The next chunk to mark again, cycling over every chunk but the last
+     */
+    private int nextChunk() {
+        int chunk = nextChunk;
+        nextChunk = chunk + 1 < totalChunks - 1 ? chunk + 1 : 0;
+        return chunk;
+    }
+
+    @Benchmark
+    public boolean chunkBitset() {
+        return BitsetManager.markChunkAndCheckComplete(chunkBitset, nextChunk());
+    }
+
+    @Benchmark
+    public boolean headerBitset() {
+        return BitsetManager.markChunkAndCheckComplete(header, nextChunk());
+    }
+}
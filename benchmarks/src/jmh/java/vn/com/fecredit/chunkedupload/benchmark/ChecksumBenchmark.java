@@ -0,0 +1,102 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.model.util.StreamingDigest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File checksum cost of {@link StreamingDigest} versus the former {@code ChecksumUtil} implementation,
+ * which hashed the result of {@code Files.readAllBytes} and hex-encoded with one {@code String.format} per byte.
+ *
+ * <p>
+ * Notes on the results:
+ * <ul>
+ * <li>{@code readAllBytes} needs a heap larger than the file for its 1 GB runs, hence {@code -Xmx3g},
+ * and cannot read files over 2 GB at all</li>
+ * <li>The file is written once per trial and is usually in the page cache, so the score is
+ * hashing and copying cost rather than disk throughput</li>
+ * <li>Files of 10 GB are opt-in: they need as much free space in {@code java.io.tmpdir} and take minutes
+ * per trial, and their {@code readAllBytes} runs fail by design</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=ChecksumBenchmark
+ * </pre>
+ * and for a 10 GB file, from the benchmark jar:
+ * <pre>
+ * ./gradlew :benchmarks:jmhJar
+ * java -jar benchmarks/build/libs/benchmarks-*-jmh.jar ChecksumBenchmark.streaming -p fileSize=10737418240
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ChecksumBenchmark {
+
+    @Param({"1048576", "1073741824"})
+    public long fileSize;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("checksum-bench", ".bin");
+        byte[] block = new byte[StreamingDigest.BUFFER_SIZE];
+        ThreadLocalRandom.current().nextBytes(block);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            for (long written = 0; written < fileSize; ) {
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, (int) Math.min(block.length, fileSize - written));
+                while (buffer.hasRemaining()) {
+                    written += ch.write(buffer, written);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        return StreamingDigest.sha256Hex(file);
+    }
+
+    @Benchmark
+    public String readAllBytes() throws IOException, NoSuchAlgorithmException {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
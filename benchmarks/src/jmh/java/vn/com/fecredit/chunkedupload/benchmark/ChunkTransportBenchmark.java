@@ -0,0 +1,231 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.client.Chunk;
+import vn.com.fecredit.chunkedupload.client.ChunkedUploadClient;
+import vn.com.fecredit.chunkedupload.core.DefaultChunkedUpload;
+import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultITenantAccountPort;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultIUploadInfoPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Chunk upload cost of multipart requests versus raw {@code application/octet-stream} bodies.
+ *
+ * <p>
+ * Each invocation uploads one chunk over loopback HTTP with the client transports:
+ * <ul>
+ * <li>{@code multipart}: {@link ChunkedUploadClient.DefaultUploadTransport} copies the chunk into a
+ * multipart body; the server reads the whole body and extracts the file part, as a multipart resolver does</li>
+ * <li>{@code octetStream}: {@link ChunkedUploadClient.OctetStreamUploadTransport} sends the chunk array as is;
+ * the server streams the body into the part file after checking {@code Content-Length}</li>
+ * </ul>
+ *
+ * <p>
+ * The server is a minimal JDK {@link HttpServer} in front of {@link DefaultChunkedUpload},
+ * so the difference measured is framing, copying and parsing rather than Spring MVC overhead.
+ * Chunks of one registered upload are written round-robin, never the last one, so
+ * assembly is excluded.
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=ChunkTransportBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkTransportBenchmark {
+    private static final String USERNAME = "bench-user";
+    private static final long TENANT_ID = 1L;
+    private static final String AUTH = "unused";
+
+    @Param({"262144", "1048576"})
+    public int chunkSize;
+
+    @Param({"64"})
+    public int chunksPerUpload;
+
+    private Path workDir;
+    private DefaultChunkedUpload chunkedUpload;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String uploadUrl;
+    private String uploadId;
+    private ChunkedUploadClient.UploadTransport multipart;
+    private ChunkedUploadClient.UploadTransport octetStream;
+    private byte[] data;
+    private int nextChunk;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Throwable {
+        workDir = Files.createTempDirectory("chunked-upload-bench");
+        DefaultITenantAccountPort tenantAccountPort = new DefaultITenantAccountPort();
+        DeafultTenantAccount tenant = new DeafultTenantAccount();
+        tenant.setId(TENANT_ID);
+        tenant.setUsername(USERNAME);
+        tenantAccountPort.addTenant(tenant);
+        chunkedUpload = new DefaultChunkedUpload(new DefaultIUploadInfoPort(), tenantAccountPort,
+                workDir.resolve("in-progress").toString(), workDir.resolve("complete").toString(), chunkSize);
+        uploadId = UUID.randomUUID().toString();
+        chunkedUpload.registerUploadingFile(USERNAME, uploadId, "bench.bin", (long) chunksPerUpload * chunkSize, "checksum");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/upload/chunk", this::handleMultipart);
+        server.createContext("/api/upload/", this::handleOctetStream);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.start();
+        uploadUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/upload";
+
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        multipart = new ChunkedUploadClient.DefaultUploadTransport(httpClient);
+        octetStream = new ChunkedUploadClient.OctetStreamUploadTransport(httpClient);
+        data = new byte[chunkSize];
+        ThreadLocalRandom.current().nextBytes(data);
+    }
+
+    @Benchmark
+    public void multipart() throws InterruptedException, IOException {
+        multipart.uploadSingleChunk(uploadId, new Chunk(data, nextChunk()), uploadUrl, AUTH, 0);
+    }
+
+    @Benchmark
+    public void octetStream() throws InterruptedException, IOException {
+        octetStream.uploadSingleChunk(uploadId, new Chunk(data, nextChunk()), uploadUrl, AUTH, 0);
+    }
+
+    private int nextChunk() {
+        // The last chunk would complete the upload
+        int chunkNumber = nextChunk;
+        nextChunk = (nextChunk + 1) % (chunksPerUpload - 1);
+        return chunkNumber;
+    }
+
+    // PUT /api/upload/{uploadId}/chunks/{chunkNumber}
+    private void handleOctetStream(HttpExchange exchange) throws IOException {
+        try {
+            String[] segments = exchange.getRequestURI().getPath().split("/");
+            int chunkNumber = Integer.parseInt(segments[segments.length - 1]);
+            long contentLength = Long.parseLong(exchange.getRequestHeaders().getFirst("Content-Length"));
+            try (InputStream in = exchange.getRequestBody()) {
+                chunkedUpload.writeChunk(USERNAME, segments[segments.length - 3], chunkNumber, in, contentLength);
+            }
+            respond(exchange, 200, "{\"status\":\"ok\"}");
+        } catch (Throwable e) {
+            respond(exchange, 400, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // POST /api/upload/chunk with the parts uploadId, chunkNumber and file
+    private void handleMultipart(HttpExchange exchange) throws IOException {
+        try {
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            byte[] delimiter = ("\r\n--" + contentType.substring(contentType.indexOf("boundary=") + 9))
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            String partUploadId = null;
+            int chunkNumber = -1;
+            byte[] file = null;
+            // The body starts with the delimiter minus its leading CRLF
+            int partStart = delimiter.length - 2;
+            while (true) {
+                int headersEnd = indexOf(body, new byte[]{'\r', '\n', '\r', '\n'}, partStart);
+                int partEnd = indexOf(body, delimiter, headersEnd);
+                if (headersEnd < 0 || partEnd < 0) {
+                    break;
+                }
+                String headers = new String(body, partStart, headersEnd - partStart, StandardCharsets.UTF_8);
+                int valueStart = headersEnd + 4;
+                if (headers.contains("name=\"uploadId\"")) {
+                    partUploadId = new String(body, valueStart, partEnd - valueStart, StandardCharsets.UTF_8);
+                } else if (headers.contains("name=\"chunkNumber\"")) {
+                    chunkNumber = Integer.parseInt(new String(body, valueStart, partEnd - valueStart, StandardCharsets.UTF_8));
+                } else if (headers.contains("name=\"file\"")) {
+                    file = java.util.Arrays.copyOfRange(body, valueStart, partEnd);
+                }
+                partStart = partEnd + delimiter.length;
+            }
+            chunkedUpload.writeChunk(USERNAME, partUploadId, chunkNumber, new ByteArrayInputStream(file));
+            respond(exchange, 200, "{\"status\":\"ok\"}");
+        } catch (Throwable e) {
+            respond(exchange, 400, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static int indexOf(byte[] array, byte[] target, int from) {
+        if (from < 0) {
+            return -1;
+        }
+        outer:
+        for (int i = from; i <= array.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (array[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        chunkedUpload.releaseUploadResources(uploadId);
+        chunkedUpload.getChannelCache().close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
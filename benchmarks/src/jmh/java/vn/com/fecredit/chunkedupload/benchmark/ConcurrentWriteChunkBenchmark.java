@@ -0,0 +1,140 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.core.DefaultChunkedUpload;
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
+import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultITenantAccountPort;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultIUploadInfoPort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-upload write throughput of {@code writeChunk} as the number of client threads grows.
+ *
+ * <p>
+ * Each invocation uploads the chunks of one fresh upload with {@code threads}
+ * concurrent writers:
+ * <ul>
+ * <li>All chunks except the last are written, so assembly and checksum
+ * verification are excluded and only the chunk write path is measured</li>
+ * <li>The score is uploads per second; multiply by
+ * {@code (chunksPerUpload - 1) * chunkSize} for bytes per second</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=ConcurrentWriteChunkBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentWriteChunkBenchmark {
+    private static final String USERNAME = "bench-user";
+    private static final long TENANT_ID = 1L;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int threads;
+
+    @Param({"262144"})
+    public int chunkSize;
+
+    @Param({"257"})
+    public int chunksPerUpload;
+
+    private Path workDir;
+    private DefaultChunkedUpload chunkedUpload;
+    private ExecutorService executor;
+    private byte[] chunk;
+    private String uploadId;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        workDir = Files.createTempDirectory("chunked-upload-bench");
+        DefaultITenantAccountPort tenantAccountPort = new DefaultITenantAccountPort();
+        DeafultTenantAccount tenant = new DeafultTenantAccount();
+        tenant.setId(TENANT_ID);
+        tenant.setUsername(USERNAME);
+        tenantAccountPort.addTenant(tenant);
+        chunkedUpload = new DefaultChunkedUpload(new DefaultIUploadInfoPort(), tenantAccountPort,
+                workDir.resolve("in-progress").toString(), workDir.resolve("complete").toString(), chunkSize);
+        executor = Executors.newFixedThreadPool(threads);
+        chunk = new byte[chunkSize];
+        ThreadLocalRandom.current().nextBytes(chunk);
+    }
+
+    @Setup(Level.Invocation)
+    public void registerUpload() throws Throwable {
+        uploadId = UUID.randomUUID().toString();
+        chunkedUpload.registerUploadingFile(USERNAME, uploadId, "bench.bin", (long) chunksPerUpload * chunkSize, "checksum");
+    }
+
+    @Benchmark
+    public void writeChunks() throws Exception {
+        int chunksToWrite = chunksPerUpload - 1;
+        List<Callable<Void>> writers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            writers.add(() -> {
+                for (int chunkNumber = first; chunkNumber < chunksToWrite; chunkNumber += threads) {
+                    try {
+                        chunkedUpload.writeChunk(USERNAME, uploadId, chunkNumber, chunk);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException("Chunk " + chunkNumber + " failed", e);
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<Void> writer : executor.invokeAll(writers)) {
+            writer.get();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteUpload() throws IOException {
+        chunkedUpload.releaseUploadResources(uploadId);
+        Path partPath = workDir.resolve("in-progress").resolve(String.valueOf(TENANT_ID)).resolve(uploadId + ".part");
+        Files.deleteIfExists(partPath);
+        Files.deleteIfExists(PartFileLayout.headerPathOf(partPath));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        executor.shutdownNow();
+        chunkedUpload.getChannelCache().close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
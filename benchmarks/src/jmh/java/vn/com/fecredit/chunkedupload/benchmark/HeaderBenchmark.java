@@ -0,0 +1,121 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
+import vn.com.fecredit.chunkedupload.model.Header;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating, validating and reading the header of a part file, by number of chunks.
+ *
+ * <p>
+ * Notes on the results:
+ * <ul>
+ * <li>{@code create} writes a new header and forces it to disk, as upload registration does;
+ * its score is dominated by {@code fsync} latency</li>
+ * <li>{@code validate} reads back an existing header, as resuming an upload does</li>
+ * <li>{@code readActive} reads the header of an upload with an in-memory session, as the
+ * init and status endpoints do during an upload</li>
+ * <li>{@code readReleased} reads it from the header file through the channel cache, as
+ * after a restart or once the session was dropped</li>
+ * <li>The bitset takes one bit per chunk, so 10M chunks make a header of about 1.2 MB</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=HeaderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HeaderBenchmark {
+    private static final int CHUNK_SIZE = 1024;
+
+    @Param({"1024", "1048576", "10485760"})
+    public int totalChunks;
+
+    private UploadEngineFixture fixture;
+    private long fileSize;
+    private Path existingPartPath;
+    private String activeUploadId;
+    private String releasedUploadId;
+
+    /**
+     * A part file path without a header, fresh for each {@code create} invocation.
+     */
+    @State(Scope.Thread)
+    public static class NewPartPath {
+        private int created;
+        private Path path;
+
+        @Setup(Level.Invocation)
+        public void next(HeaderBenchmark benchmark) {
+            path = benchmark.fixture.workDir().resolve("headers").resolve("new-" + created++ + ".part");
+        }
+
+        @TearDown(Level.Invocation)
+        public void delete() throws IOException {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(PartFileLayout.headerPathOf(path));
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Throwable {
+        fixture = new UploadEngineFixture(CHUNK_SIZE);
+        fileSize = (long) totalChunks * CHUNK_SIZE;
+        existingPartPath = fixture.workDir().resolve("headers").resolve("existing.part");
+        fixture.engine().createOrValidateHeader(existingPartPath, totalChunks, CHUNK_SIZE, fileSize);
+        activeUploadId = fixture.register(fileSize, "checksum");
+        // The first chunk opens the in-memory session of the upload
+        fixture.engine().writeChunk(UploadEngineFixture.USERNAME, activeUploadId, 0, new byte[CHUNK_SIZE]);
+        releasedUploadId = fixture.register(fileSize, "checksum");
+        fixture.engine().releaseUploadResources(releasedUploadId);
+    }
+
+    @Benchmark
+    public Header create(NewPartPath newPartPath) throws IOException {
+        return fixture.engine().createOrValidateHeader(newPartPath.path, totalChunks, CHUNK_SIZE, fileSize);
+    }
+
+    @Benchmark
+    public Header validate() throws IOException {
+        return fixture.engine().createOrValidateHeader(existingPartPath, totalChunks, CHUNK_SIZE, fileSize);
+    }
+
+    @Benchmark
+    public Header readActive() throws Throwable {
+        return fixture.engine().readHeader(UploadEngineFixture.USERNAME, activeUploadId);
+    }
+
+    @Benchmark
+    public Header readReleased() throws Throwable {
+        return fixture.engine().readHeader(UploadEngineFixture.USERNAME, releasedUploadId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        fixture.close();
+    }
+}
@@ -0,0 +1,77 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import vn.com.fecredit.chunkedupload.core.DefaultChunkedUpload;
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
+import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultITenantAccountPort;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultIUploadInfoPort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * A {@link DefaultChunkedUpload} with the in-memory ports and one tenant, working in a
+ * temporary directory, shared by the suites that drive the upload engine.
+ */
+final class UploadEngineFixture implements AutoCloseable {
+    static final String USERNAME = "bench-user";
+    static final long TENANT_ID = 1L;
+
+    private final Path workDir;
+    private final DefaultChunkedUpload engine;
+
+    /**
+     * @param chunkSize Chunk size of the uploads registered with the engine
+     */
+    UploadEngineFixture(int chunkSize) throws IOException {
+        workDir = Files.createTempDirectory("chunked-upload-bench");
+        DefaultITenantAccountPort tenantAccountPort = new DefaultITenantAccountPort();
+        DeafultTenantAccount tenant = new DeafultTenantAccount();
+        tenant.setId(TENANT_ID);
+        tenant.setUsername(USERNAME);
+        tenantAccountPort.addTenant(tenant);
+        engine = new DefaultChunkedUpload(new DefaultIUploadInfoPort(), tenantAccountPort,
+                workDir.resolve("in-progress").toString(), workDir.resolve("complete").toString(), chunkSize);
+    }
+
+    DefaultChunkedUpload engine() {
+        return engine;
+    }
+
+    Path workDir() {
+        return workDir;
+    }
+
+    /**
+     * @return The ID of a new registered upload of the given size
+     */
+    String register(long fileSize, String checksum) throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        engine.registerUploadingFile(USERNAME, uploadId, "bench.bin", fileSize, checksum);
+        return uploadId;
+    }
+
+    /**
+     * Releases an upload and deletes its in-progress and complete files.
+     */
+    void discard(String uploadId) throws IOException {
+        engine.releaseUploadResources(uploadId);
+        engine.removeUploadInfo(uploadId);
+        Path partPath = workDir.resolve("in-progress").resolve(String.valueOf(TENANT_ID)).resolve(uploadId + ".part");
+        Files.deleteIfExists(partPath);
+        Files.deleteIfExists(PartFileLayout.headerPathOf(partPath));
+        Files.deleteIfExists(workDir.resolve("complete").resolve(String.valueOf(TENANT_ID)).resolve(uploadId + "_bench.bin"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        engine.getChannelCache().close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package vn.com.fecredit.chunkedupload.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded write throughput of {@code writeChunk} by chunk arrival order.
+ *
+ * <p>
+ * Each invocation writes the chunks of one fresh upload from one thread:
+ * <ul>
+ * <li>{@code sequential} writes chunks in index order, as a single-connection client does</li>
+ * <li>{@code random} writes them in a shuffled order, as out-of-order retries and parallel
+ * clients do; the incremental checksum then hashes from the part file instead of from the
+ * arriving buffers</li>
+ * <li>All chunks except the last are written, so assembly is excluded; see
+ * {@link AssembleFileBenchmark} for it and {@link ConcurrentWriteChunkBenchmark} for
+ * multi-threaded writes</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :benchmarks:jmh -Pjmh.includes=WriteChunkBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteChunkBenchmark {
+
+    @Param({"sequential", "random"})
+    public String order;
+
+    @Param({"65536", "1048576"})
+    public int chunkSize;
+
+    @Param({"129"})
+    public int chunksPerUpload;
+
+    private UploadEngineFixture fixture;
+    private byte[] chunk;
+    private int[] chunkOrder;
+    private String uploadId;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        fixture = new UploadEngineFixture(chunkSize);
+        chunk = new byte[chunkSize];
+        ThreadLocalRandom.current().nextBytes(chunk);
+        chunkOrder = new int[chunksPerUpload - 1];
+        for (int i = 0; i < chunkOrder.length; i++) {
+            chunkOrder[i] = i;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void registerUpload() throws Throwable {
+        uploadId = fixture.register((long) chunksPerUpload * chunkSize, "checksum");
+        if ("random".equals(order)) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = chunkOrder.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = chunkOrder[i];
+                chunkOrder[i] = chunkOrder[j];
+                chunkOrder[j] = swap;
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeChunks() throws Throwable {
+        for (int chunkNumber : chunkOrder) {
+            fixture.engine().writeChunk(UploadEngineFixture.USERNAME, uploadId, chunkNumber, chunk);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteUpload() throws IOException {
+        fixture.discard(uploadId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        fixture.close();
+    }
+}
@@ -0,0 +1,121 @@
+package vn.com.fecredit.chunkedupload.client;
+
+/**
+ * Number of chunk requests an upload keeps in flight, adapted to the latency and throughput it measures.
+ *
+ * <p>
+ * The limit is revised at the end of each round, once as many chunks as the limit have been uploaded:
+ * <ul>
+ * <li>Slow start: the limit doubles while each round brings at least 25% more throughput than the previous one</li>
+ * <li>Additive increase: then it grows by one per round while throughput still improves by 5%, and by one every
+ * {@value #PROBE_ROUNDS} rounds otherwise, to probe for spare capacity</li>
+ * <li>Multiplicative decrease: it is cut by a quarter when the mean latency of a round exceeds twice the baseline,
+ * the lowest mean latency seen, drifting up slowly so that it follows the network</li>
+ * <li>Overload: a 429 or 503 response halves it at once, at most once per round, and ends slow start</li>
+ * </ul>
+ * The limit stays between the configured minimum and maximum. Not thread-safe: an upload calls it under its own lock.
+ */
+final class AdaptiveConcurrency {
+    private static final double SLOW_START_GAIN = 0.25;
+    private static final double MIN_GAIN = 0.05;
+    private static final int PROBE_ROUNDS = 4;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double DECREASE_FACTOR = 0.75;
+    private static final double OVERLOAD_FACTOR = 0.5;
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final int min;
+    private final int max;
+    private int limit;
+    private boolean slowStart = true;
+    private double baselineLatency = Double.NaN;
+    private double previousThroughput;
+    private int roundsWithoutIncrease;
+
+    // Current round
+    private long roundStart;
+    private int roundChunks;
+    private long roundBytes;
+    private long roundLatency;
+    private boolean roundOverloaded;
+
+    /**
+     * @param initial The first limit, clamped between {@code min} and {@code max}
+     * @param now     The {@link System#nanoTime()} the upload starts at
+     */
+    AdaptiveConcurrency(int initial, int min, int max, long now) {
+        this.min = min;
+        this.max = max;
+        this.limit = Math.max(min, Math.min(max, initial));
+        this.roundStart = now;
+    }
+
+    /**
+     * @return The number of chunk requests to keep in flight
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Records an uploaded chunk.
+     *
+     * @param latencyNanos Time from sending the chunk to its response
+     * @param bytes        Size of the chunk
+     * @param now          {@link System#nanoTime()} of the response
+     */
+    void onSuccess(long latencyNanos, int bytes, long now) {
+        roundChunks++;
+        roundBytes += bytes;
+        roundLatency += latencyNanos;
+        if (roundChunks >= limit) {
+            endRound(now);
+        }
+    }
+
+    /**
+     * Records a chunk the server refused because it is overloaded.
+     */
+    void onOverload() {
+        if (!roundOverloaded) {
+            roundOverloaded = true;
+            slowStart = false;
+            limit = Math.max(min, (int) (limit * OVERLOAD_FACTOR));
+        }
+    }
+
+    private void endRound(long now) {
+        double meanLatency = (double) roundLatency / roundChunks;
+        double throughput = roundBytes * 1e9 / Math.max(1, now - roundStart);
+        boolean latencyInflated = !Double.isNaN(baselineLatency) && meanLatency > baselineLatency * LATENCY_TOLERANCE;
+        if (Double.isNaN(baselineLatency) || meanLatency < baselineLatency) {
+            baselineLatency = meanLatency;
+        } else {
+            baselineLatency += (meanLatency - baselineLatency) * BASELINE_DRIFT;
+        }
+
+        if (roundOverloaded) {
+            // Already decreased when the overload was reported
+            roundsWithoutIncrease = 0;
+        } else if (latencyInflated) {
+            slowStart = false;
+            limit = Math.max(min, (int) (limit * DECREASE_FACTOR));
+            roundsWithoutIncrease = 0;
+        } else if (slowStart && throughput >= previousThroughput * (1 + SLOW_START_GAIN)) {
+            limit = Math.min(max, limit * 2);
+        } else {
+            slowStart = false;
+            if (throughput >= previousThroughput * (1 + MIN_GAIN) || ++roundsWithoutIncrease >= PROBE_ROUNDS) {
+                limit = Math.min(max, limit + 1);
+                roundsWithoutIncrease = 0;
+            }
+        }
+        previousThroughput = throughput;
+
+        roundStart = now;
+        roundChunks = 0;
+        roundBytes = 0;
+        roundLatency = 0;
+        roundOverloaded = false;
+    }
+}
@@ -0,0 +1,53 @@
+package vn.com.fecredit.chunkedupload.client;
+
+/**
+ * {@code Authorization} header of the chunk and status requests of an upload: the tenant credentials,
+ * or the upload token issued by initialization.
+ *
+ * <p>
+ * A type of its own rather than a string, so that it cannot be mistaken for the Base64 credentials that
+ * {@link ChunkedUploadClient.UploadTransport#initUpload} and {@link ChunkedUploadClient.UploadTransport#uploadSingleChunk}
+ * receive. {@link #toString()} leaves the credentials out, so the header can be logged.
+ *
+ * @param scheme      {@code Basic} or {@code Bearer}
+ * @param credentials The Base64 {@code username:password}, or the upload token
+ */
+public record AuthorizationHeader(String scheme, String credentials) {
+    private static final String BASIC = "Basic";
+    private static final String BEARER = "Bearer";
+
+    /**
+     * @param encodedCredentials The Base64 {@code username:password}
+     * @return The header sending the tenant credentials
+     */
+    public static AuthorizationHeader basic(String encodedCredentials) {
+        return new AuthorizationHeader(BASIC, encodedCredentials);
+    }
+
+    /**
+     * @param token The upload token
+     * @return The header sending the upload token
+     */
+    public static AuthorizationHeader bearer(String token) {
+        return new AuthorizationHeader(BEARER, token);
+    }
+
+    /**
+     * @return {@code true} for the tenant credentials, {@code false} for an upload token
+     */
+    public boolean isBasic() {
+        return BASIC.equals(scheme);
+    }
+
+    /**
+     * @return The value of the header, e.g. {@code Bearer <token>}
+     */
+    public String value() {
+        return scheme + " " + credentials;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthorizationHeader[scheme=" + scheme + "]";
+    }
+}
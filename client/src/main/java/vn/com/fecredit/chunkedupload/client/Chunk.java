@@ -1,12 +1,18 @@
 package vn.com.fecredit.chunkedupload.client;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
 /**
  * Represents a single chunk of a file being uploaded.
  *
  * <p>
  * A chunk contains:
  * <ul>
- * <li>The actual bytes of a file segment (raw data)</li>
+ * <li>The actual bytes of a file segment (raw data), or the region of the source file holding them</li>
  * <li>The chunk's zero-based index in the overall file</li>
  * <li>Thread-safe immutable state management</li>
  * </ul>
@@ -17,6 +23,7 @@ package vn.com.fecredit.chunkedupload.client;
  * <li>All fields are final for thread-safe publication</li>
  * <li>Byte array data is not defensively copied (for performance)</li>
  * <li>Callers must not modify the byte array after chunk creation</li>
+ * <li>A file region is read with positional reads, so one channel can back the chunks of all workers</li>
  * </ul>
  *
  * <p>
@@ -46,6 +53,21 @@ public class Chunk {
      */
     private final int index;
 
+    /**
+     * Channel of the source file holding this chunk, or {@code null} for a chunk backed by {@link #data}.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Position of this chunk in {@link #channel}.
+     */
+    private final long offset;
+
+    /**
+     * Length of this chunk in bytes.
+     */
+    private final int length;
+
     /**
      * Creates a new chunk with the given data and index.
      *
@@ -55,15 +77,71 @@ public class Chunk {
     public Chunk(byte[] data, int index) {
         this.data = data;
         this.index = index;
+        this.channel = null;
+        this.offset = 0;
+        this.length = data == null ? 0 : data.length;
+    }
+
+    /**
+     * Creates a chunk read from the source file only when it is sent.
+     *
+     * @param channel The open channel of the source file; closed by the caller once the chunk is sent
+     * @param offset  The position of the chunk in the file
+     * @param length  The length of the chunk in bytes
+     * @param index   The zero-based index of this chunk in the file
+     */
+    public Chunk(FileChannel channel, long offset, int length, int index) {
+        this.data = null;
+        this.index = index;
+        this.channel = channel;
+        this.offset = offset;
+        this.length = length;
     }
 
     /**
      * Gets the raw byte data for this chunk.
+     * A chunk backed by a file region is read into a new array on each call;
+     * {@link ChunkBodyPublisher} sends it without this copy.
      *
      * @return The chunk's data as a byte array
+     * @throws UncheckedIOException If the region cannot be read from the file
      */
     public byte[] getData() {
-        return data;
+        if (channel == null) {
+            return data;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Source file ended before chunk " + index + " was read");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return The channel of the source file holding this chunk, or {@code null} for a chunk backed by an array
+     */
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * @return The position of this chunk in {@link #getChannel()}
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return The length of this chunk in bytes
+     */
+    public int getLength() {
+        return length;
     }
 
     /**
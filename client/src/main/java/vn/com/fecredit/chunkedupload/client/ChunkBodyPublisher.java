@@ -0,0 +1,224 @@
+package vn.com.fecredit.chunkedupload.client;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request body made of a preamble, the bytes of one chunk and a footer, streamed without
+ * copying the chunk into a request array.
+ *
+ * <p>
+ * The chunk is sent from where it is:
+ * <ul>
+ * <li>A chunk backed by a {@link FileChannel} region is read straight from the source file,
+ * {@value #BUFFER_SIZE} bytes at a time, into direct buffers taken from a shared pool</li>
+ * <li>A chunk backed by an array is sent as is</li>
+ * <li>The preamble and footer, e.g. the multipart headers, are sent as is</li>
+ * </ul>
+ * A buffer handed to the subscriber is never written again by its subscription: the HTTP client
+ * may still queue it, e.g. for TLS encryption, after requesting the next one. Each piece is read
+ * into a buffer of its own, so a request holds at most one chunk of pooled memory whatever the
+ * HTTP version, and the memory of the client depends on the chunk size and the requests in flight.
+ *
+ * <p>
+ * A request may be sent again on retries, each time through a new subscription. {@link #close()}
+ * returns the buffers of the subscriptions that sent the whole body to the pool once the request
+ * will not be sent anymore; the buffers of cancelled or failed subscriptions, which an exchange may
+ * still be writing, are left to the garbage collector.
+ */
+public final class ChunkBodyPublisher implements HttpRequest.BodyPublisher, AutoCloseable {
+    /** Size of the pooled buffers the chunks of files are read into. */
+    public static final int BUFFER_SIZE = 64 * 1024;
+    // Idle buffers kept for reuse, 16 MB; buffers released beyond it are left to the garbage collector
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final Queue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private final byte[] preamble;
+    private final Chunk chunk;
+    private final byte[] footer;
+    // Buffers of the subscriptions that sent the whole body, returned to the pool on close
+    private final List<ByteBuffer> released = new ArrayList<>();
+
+    private ChunkBodyPublisher(byte[] preamble, Chunk chunk, byte[] footer) {
+        this.preamble = preamble;
+        this.chunk = chunk;
+        this.footer = footer;
+    }
+
+    /**
+     * @return A publisher of the chunk alone, as a raw request body
+     */
+    public static ChunkBodyPublisher ofChunk(Chunk chunk) {
+        return new ChunkBodyPublisher(new byte[0], chunk, new byte[0]);
+    }
+
+    /**
+     * @param preamble Bytes sent before the chunk
+     * @param chunk    The chunk
+     * @param footer   Bytes sent after the chunk
+     * @return A publisher of the chunk surrounded by the given bytes
+     */
+    public static ChunkBodyPublisher ofChunk(byte[] preamble, Chunk chunk, byte[] footer) {
+        return new ChunkBodyPublisher(preamble, chunk, footer);
+    }
+
+    @Override
+    public long contentLength() {
+        return (long) preamble.length + chunk.getLength() + footer.length;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        ChunkSubscription subscription = new ChunkSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Returns the buffers used by the subscriptions to the pool. The request must not be sent anymore.
+     */
+    @Override
+    public void close() {
+        List<ByteBuffer> buffers;
+        synchronized (released) {
+            buffers = new ArrayList<>(released);
+            released.clear();
+        }
+        for (ByteBuffer buffer : buffers) {
+            if (POOLED.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+                POOL.offer(buffer.clear());
+            } else {
+                POOLED.decrementAndGet();
+            }
+        }
+    }
+
+    private static ByteBuffer lease() {
+        ByteBuffer buffer = POOL.poll();
+        if (buffer != null) {
+            POOLED.decrementAndGet();
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Emits the preamble, the chunk and the footer, one buffer per unit of demand.
+     */
+    private final class ChunkSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Serializes emission: only the thread that raised it from 0 emits
+        private final AtomicInteger wip = new AtomicInteger();
+        // Pooled buffers emitted by this subscription, one per piece of the chunk
+        private final List<ByteBuffer> leased = new ArrayList<>();
+        private boolean preambleSent;
+        private long chunkSent;
+        private volatile boolean done;
+
+        private ChunkSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) {
+                return;
+            }
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!done && demand.get() > 0) {
+                    ByteBuffer next;
+                    try {
+                        next = next();
+                    } catch (IOException e) {
+                        done = true;
+                        subscriber.onError(e);
+                        return;
+                    }
+                    if (next == null) {
+                        done = true;
+                        release();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(next);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void release() {
+            synchronized (released) {
+                released.addAll(leased);
+            }
+        }
+
+        /**
+         * @return The next buffer to send, or {@code null} once the footer was sent
+         */
+        private ByteBuffer next() throws IOException {
+            if (!preambleSent) {
+                preambleSent = true;
+                if (preamble.length > 0) {
+                    return ByteBuffer.wrap(preamble).asReadOnlyBuffer();
+                }
+            }
+            long length = chunk.getLength();
+            if (chunkSent < length) {
+                ByteBuffer piece;
+                if (chunk.getChannel() == null) {
+                    piece = ByteBuffer.wrap(chunk.getData()).asReadOnlyBuffer();
+                } else {
+                    piece = read((int) Math.min(BUFFER_SIZE, length - chunkSent));
+                }
+                chunkSent += piece.remaining();
+                return piece;
+            }
+            if (chunkSent == length && footer.length > 0) {
+                // Counted past the chunk length once sent
+                chunkSent++;
+                return ByteBuffer.wrap(footer).asReadOnlyBuffer();
+            }
+            return null;
+        }
+
+        /**
+         * Reads the next piece of the chunk into a buffer of its own.
+         */
+        private ByteBuffer read(int size) throws IOException {
+            ByteBuffer buffer = lease().clear().limit(size);
+            leased.add(buffer);
+            long position = chunk.getOffset() + chunkSent;
+            while (buffer.hasRemaining()) {
+                int read = chunk.getChannel().read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("Source file ended before chunk " + chunk.getIndex() + " was read");
+                }
+            }
+            return buffer.flip().asReadOnlyBuffer();
+        }
+    }
+}
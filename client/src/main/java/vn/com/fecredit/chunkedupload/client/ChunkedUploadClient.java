@@ -4,7 +4,6 @@ package vn.com.fecredit.chunkedupload.client;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import vn.com.fecredit.chunkedupload.model.InitRequest;
 import vn.com.fecredit.chunkedupload.model.InitResponse;
-import vn.com.fecredit.chunkedupload.model.util.BitsetUtil;
 import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
 
 import java.io.IOException;
@@ -12,23 +11,107 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class ChunkedUploadClient {
 
+    /**
+     * Sends the requests of an upload.
+     *
+     * <p>
+     * Credentials are passed in two forms:
+     * <ul>
+     * <li>{@code encodedAuth} is the Base64 {@code username:password} of the tenant, sent as {@code Basic}
+     * credentials, as it always was for initialization and {@link #uploadSingleChunk}</li>
+     * <li>An {@link AuthorizationHeader} is either these credentials or the upload token issued by initialization,
+     * for the chunk and status requests of an upload when the server returned one</li>
+     * </ul>
+     */
     public interface UploadTransport {
         InitResponse initUpload(InitRequest initRequest, String uploadUrl, String encodedAuth)
                 throws IOException, InterruptedException;
 
         void uploadSingleChunk(String sessionId, Chunk chunk, String uploadUrl, String encodedAuth, int retryTimes)
                 throws IOException, InterruptedException;
+
+        /**
+         * Uploads a chunk and tells whether the server finalizes the upload in the background.
+         * The default implementation, for transports written before upload tokens and background finalization:
+         * <ul>
+         * <li>Sends the credentials through {@link #uploadSingleChunk} and returns {@code false}: the client then
+         * does not poll the status</li>
+         * <li>Throws {@link UnauthorizedException} for an upload token, so that the client sends the chunk
+         * and the rest of the upload with the credentials instead</li>
+         * </ul>
+         *
+         * @return {@code true} if the chunk completed the upload and the server finalizes it in the background
+         */
+        default boolean uploadChunk(String sessionId, Chunk chunk, String uploadUrl, AuthorizationHeader authorization,
+                                    int retryTimes) throws IOException, InterruptedException {
+            if (!authorization.isBasic()) {
+                throw new UnauthorizedException("Failed to upload chunkNumber " + chunk.getIndex() + ": "
+                        + getClass().getName() + " does not send upload tokens");
+            }
+            uploadSingleChunk(sessionId, chunk, uploadUrl, authorization.credentials(), retryTimes);
+            return false;
+        }
+
+        /**
+         * Uploads a chunk without blocking the caller, for uploads with an {@linkplain Builder#inFlightWindow in-flight window}.
+         * The default implementation runs {@link #uploadChunk} on a virtual thread.
+         *
+         * @return A future completed with what {@link #uploadChunk} returns, or failed with what it throws
+         */
+        default CompletableFuture<Boolean> uploadChunkAsync(String sessionId, Chunk chunk, String uploadUrl,
+                                                            AuthorizationHeader authorization, int retryTimes) {
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            Thread.startVirtualThread(() -> {
+                try {
+                    result.complete(uploadChunk(sessionId, chunk, uploadUrl, authorization, retryTimes));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Called only once {@link #uploadChunk} returned {@code true}. The default implementation,
+         * for transports that never do, throws {@link UnsupportedOperationException}.
+         *
+         * @return The status reported by the server, e.g. {@code FINALIZING}, {@code COMPLETED} or {@code FAILED}
+         */
+        default String getUploadStatus(String sessionId, String uploadUrl, AuthorizationHeader authorization)
+                throws IOException, InterruptedException {
+            throw new UnsupportedOperationException("Failed to get status of upload " + sessionId
+                    + ": " + getClass().getName() + " does not support background finalization");
+        }
+    }
+
+    /**
+     * Receives the progress of uploads, once per uploaded chunk.
+     * Called on the thread that uploaded the chunk, possibly concurrently for chunks of the same upload;
+     * an exception thrown by the listener fails the upload.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(UploadProgress progress);
     }
 
     public static class DefaultUploadTransport implements UploadTransport {
@@ -61,17 +144,102 @@ public class ChunkedUploadClient {
         public void uploadSingleChunk(String sessionId, Chunk chunk,
                                       String uploadUrl, String encodedAuth, int retryTimes)
                 throws InterruptedException {
-            HttpRequest request = buildMultipartRequest(sessionId, chunk, uploadUrl, encodedAuth);
+            uploadChunk(sessionId, chunk, uploadUrl, AuthorizationHeader.basic(encodedAuth), retryTimes);
+        }
+
+        @Override
+        public boolean uploadChunk(String sessionId, Chunk chunk,
+                                   String uploadUrl, AuthorizationHeader authorization, int retryTimes)
+                throws InterruptedException {
+            HttpRequest request = buildChunkRequest(sessionId, chunk, uploadUrl, authorization);
+            try {
+                return sendChunkRequest(request, chunk, retryTimes);
+            } finally {
+                closeBody(request);
+            }
+        }
+
+        /**
+         * Sends the chunk with {@link HttpClient#sendAsync}, retrying as {@link #uploadChunk} does;
+         * no thread waits for the responses.
+         */
+        @Override
+        public CompletableFuture<Boolean> uploadChunkAsync(String sessionId, Chunk chunk, String uploadUrl,
+                                                           AuthorizationHeader authorization, int retryTimes) {
+            HttpRequest request = buildChunkRequest(sessionId, chunk, uploadUrl, authorization);
+            return sendChunkRequestAsync(request, chunk, retryTimes)
+                    .whenComplete((finalizing, e) -> closeBody(request));
+        }
+
+        private CompletableFuture<Boolean> sendChunkRequestAsync(HttpRequest request, Chunk chunk, int retriesLeft) {
+            return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .handle((response, error) -> {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        IOException failure;
+                        if (error == null) {
+                            Boolean finalizing = chunkAccepted(response, chunk);
+                            if (finalizing != null) {
+                                return CompletableFuture.completedFuture(finalizing);
+                            }
+                            failure = new IOException("Failed to upload chunkNumber " + (chunk.getIndex()) + ": " + response.body());
+                        } else if (cause instanceof IOException e) {
+                            failure = new IOException("Failed to upload chunkNumber " + (chunk.getIndex()), e);
+                        } else {
+                            return CompletableFuture.<Boolean>failedFuture(cause);
+                        }
+                        if (retriesLeft > 0) {
+                            return sendChunkRequestAsync(request, chunk, retriesLeft - 1);
+                        }
+                        return CompletableFuture.<Boolean>failedFuture(new RuntimeException(failure));
+                    })
+                    .thenCompose(Function.identity());
+        }
+
+        /**
+         * @return {@code true} if the chunk completed the upload, {@code false} if it was stored,
+         * or {@code null} if the request may be sent again
+         * @throws ServerBusyException   If the server was too busy to take the chunk
+         * @throws UnauthorizedException If the server did not accept the {@code Authorization} header
+         * @throws RuntimeException      If the server rejected the chunk
+         */
+        private Boolean chunkAccepted(HttpResponse<String> response, Chunk chunk) {
+            if (response.statusCode() == 200) {
+                return false; // Success
+            }
+            if (response.statusCode() == 202) {
+                return true; // Last chunk, the file is assembled in the background
+            }
+            if (response.statusCode() == 429 || response.statusCode() == 503) {
+                Duration retryAfter = response.headers().firstValue("Retry-After")
+                        .filter(value -> value.matches("\\d+"))
+                        .map(value -> Duration.ofSeconds(Long.parseLong(value)))
+                        .orElse(null);
+                throw new ServerBusyException("Failed to upload chunkNumber " + (chunk.getIndex()) + ": " + response.body(), retryAfter);
+            }
+            if (response.statusCode() == 401) {
+                throw new UnauthorizedException("Failed to upload chunkNumber " + (chunk.getIndex()) + ": " + response.body());
+            }
+            if (response.statusCode() >= 400) {
+                throw new RuntimeException("Failed to upload chunkNumber " + (chunk.getIndex()) + ": " + response.body());
+            }
+            return null;
+        }
+
+        private static void closeBody(HttpRequest request) {
+            if (request.bodyPublisher().orElse(null) instanceof ChunkBodyPublisher publisher) {
+                publisher.close();
+            }
+        }
+
+        private boolean sendChunkRequest(HttpRequest request, Chunk chunk, int retryTimes) throws InterruptedException {
             int attempts = 0;
             IOException lastException = null;
             while (attempts <= retryTimes) {
                 try {
                     HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-                    if (response.statusCode() == 200) {
-                        return; // Success
-                    }
-                    if (response.statusCode() >= 400) {
-                        throw new RuntimeException("Failed to upload chunkNumber " + (chunk.getIndex()) + ": " + response.body());
+                    Boolean finalizing = chunkAccepted(response, chunk);
+                    if (finalizing != null) {
+                        return finalizing;
                     }
                     lastException = new IOException("Failed to upload chunkNumber " + (chunk.getIndex()) + ": " + response.body());
                 } catch (IOException e) {
@@ -82,24 +250,53 @@ public class ChunkedUploadClient {
             throw new RuntimeException(lastException);
         }
 
-        private HttpRequest buildMultipartRequest(String sessionId,
-                                                  Chunk chunk, String uploadUrl, String encodedAuth) {
+        @Override
+        public String getUploadStatus(String sessionId, String uploadUrl, AuthorizationHeader authorization)
+                throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(uploadUrl + "/" + sessionId + "/status"))
+                    .header("Authorization", authorization.value())
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Failed to get status of upload " + sessionId + ": " + response.body());
+            }
+            return objectMapper.readTree(response.body()).path("status").asText(null);
+        }
+
+        /**
+         * Builds the request that uploads one chunk; sent again as is on retries.
+         * The chunk is streamed between the multipart headers and footer by a {@link ChunkBodyPublisher},
+         * closed once the request is not sent anymore.
+         */
+        protected HttpRequest buildChunkRequest(String sessionId,
+                                                Chunk chunk, String uploadUrl, AuthorizationHeader authorization) {
             String boundary = "----Boundary" + java.util.UUID.randomUUID();
             String CRLF = "\r\n";
             byte[] header = buildMultipartHeader(boundary, CRLF, sessionId, chunk);
             byte[] footer = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8);
-            byte[] multipartBody = new byte[header.length + chunk.getData().length + footer.length];
-            System.arraycopy(header, 0, multipartBody, 0, header.length);
-            System.arraycopy(chunk.getData(), 0, multipartBody, header.length, chunk.getData().length);
-            System.arraycopy(footer, 0, multipartBody, header.length + chunk.getData().length, footer.length);
             return HttpRequest.newBuilder()
                     .uri(URI.create(uploadUrl + "/chunk"))
                     .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-                    .header("Authorization", "Basic " + encodedAuth)
-                    .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody))
+                    .header("Authorization", authorization.value())
+                    .POST(ChunkBodyPublisher.ofChunk(header, chunk, footer))
                     .build();
         }
 
+        /**
+         * Builds the request that uploads one chunk with the tenant credentials.
+         *
+         * @param encodedAuth The Base64 {@code username:password}
+         * @deprecated Use {@link #buildChunkRequest}, which also sends upload tokens and is the method
+         * {@link OctetStreamUploadTransport} overrides; this one delegates to it.
+         */
+        @Deprecated
+        protected HttpRequest buildMultipartRequest(String sessionId,
+                                                    Chunk chunk, String uploadUrl, String encodedAuth) {
+            return buildChunkRequest(sessionId, chunk, uploadUrl, AuthorizationHeader.basic(encodedAuth));
+        }
+
         private byte[] buildMultipartHeader(String boundary, String CRLF, String sessionId, Chunk chunk) {
             String headerStr = "--" + boundary + CRLF +
                     "Content-Disposition: form-data; name=\"uploadId\"" + CRLF + CRLF + sessionId + CRLF +
@@ -112,18 +309,74 @@ public class ChunkedUploadClient {
         }
     }
 
+    /**
+     * Uploads each chunk as the raw body of {@code PUT {uploadUrl}/{uploadId}/chunks/{chunkNumber}}.
+     *
+     * <p>
+     * Compared to the multipart requests of {@link DefaultUploadTransport}:
+     * <ul>
+     * <li>The chunk is streamed from the file as is, without multipart headers around it</li>
+     * <li>The server streams the body into the part file without parsing or spooling it</li>
+     * <li>{@code Content-Length} is set by the HTTP client and checked by the server before reading</li>
+     * </ul>
+     * Initialization, retries and error reporting are the same as for multipart uploads.
+     */
+    public static class OctetStreamUploadTransport extends DefaultUploadTransport {
+
+        public OctetStreamUploadTransport(HttpClient httpClient) {
+            super(httpClient);
+        }
+
+        @Override
+        protected HttpRequest buildChunkRequest(String sessionId,
+                                                Chunk chunk, String uploadUrl, AuthorizationHeader authorization) {
+            return HttpRequest.newBuilder()
+                    .uri(URI.create(uploadUrl + "/" + sessionId + "/chunks/" + chunk.getIndex()))
+                    .header("Content-Type", "application/octet-stream")
+                    .header("Authorization", authorization.value())
+                    .PUT(ChunkBodyPublisher.ofChunk(chunk))
+                    .build();
+        }
+    }
+
     private final String uploadUrl;
+    /** Margin before the expiry of an upload token after which the credentials are used instead. */
+    private static final long TOKEN_EXPIRY_MARGIN_MILLIS = 30_000;
+    /** Times a chunk refused by a busy server is sent again with adaptive concurrency. */
+    private static final int MAX_BUSY_RETRIES = 8;
+    /** First delay before a chunk refused by a busy server without {@code Retry-After} is sent again; doubles each time. */
+    private static final long BUSY_BACKOFF_MILLIS = 200;
+    private static final long MAX_BUSY_DELAY_MILLIS = 30_000;
+
     private final String encodedAuth;
+    private final AuthorizationHeader basicAuthorization;
     private int retryTimes;
     private int threadCounts;
+    private final int inFlightWindow;
+    private final int minInFlight;
+    private final int maxInFlight;
+    private final ProgressListener progressListener;
+    private final Duration completionTimeout;
     private final UploadTransport transport;
 
     private ChunkedUploadClient(Builder builder) {
         this.uploadUrl = builder.uploadUrl;
         this.retryTimes = builder.retryTimes;
         this.threadCounts = builder.threadCounts;
+        this.inFlightWindow = builder.inFlightWindow;
+        this.minInFlight = builder.minInFlight;
+        this.maxInFlight = builder.maxInFlight;
+        this.progressListener = builder.progressListener;
+        this.completionTimeout = builder.completionTimeout;
         this.encodedAuth = Base64.getEncoder().encodeToString((builder.username + ":" + builder.password).getBytes(StandardCharsets.UTF_8));
-        this.transport = builder.transport != null ? builder.transport : new DefaultUploadTransport(builder.httpClient);
+        this.basicAuthorization = AuthorizationHeader.basic(encodedAuth);
+        if (builder.transport != null) {
+            this.transport = builder.transport;
+        } else if (builder.multipartChunks) {
+            this.transport = new DefaultUploadTransport(builder.httpClient);
+        } else {
+            this.transport = new OctetStreamUploadTransport(builder.httpClient);
+        }
     }
 
     public String upload(Path filePath, Integer retryTimes, Integer threadCounts) {
@@ -157,7 +410,16 @@ public class ChunkedUploadClient {
     }
 
     private void uploadChunks(String sessionId, Path filePath, InitResponse initResponse) throws InterruptedException, IOException {
+        if (inFlightWindow > 0 || maxInFlight > 0) {
+            uploadChunksPipelined(sessionId, filePath, initResponse);
+            return;
+        }
         int numWorkers = Math.min(threadCounts, initResponse.getTotalChunks());
+        AtomicBoolean finalizing = new AtomicBoolean();
+        AtomicInteger uploadedChunks = new AtomicInteger();
+        AtomicLong uploadedBytes = new AtomicLong();
+        int chunkCount = initResponse.missingChunks().size();
+        UploadAuthorization authorization = new UploadAuthorization(initResponse);
         try (ExecutorService executor = Executors.newFixedThreadPool(numWorkers)) {
             BlockingQueue<Chunk> chunkQueue = new LinkedBlockingQueue<>(numWorkers * 2);
             Future<?>[] futures = new Future<?>[numWorkers];
@@ -167,7 +429,13 @@ public class ChunkedUploadClient {
                         while (true) {
                             Chunk chunk = chunkQueue.take();
                             if (chunk.getIndex() == -1) break;
-                            transport.uploadSingleChunk(sessionId, chunk, uploadUrl, encodedAuth, retryTimes);
+                            if (uploadChunk(sessionId, chunk, authorization)) {
+                                finalizing.set(true);
+                            }
+                            if (progressListener != null) {
+                                progressListener.onProgress(new UploadProgress(sessionId, chunk.getIndex(), uploadedChunks.incrementAndGet(),
+                                        chunkCount, uploadedBytes.addAndGet(chunk.getLength()), numWorkers));
+                            }
                         }
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
@@ -178,31 +446,364 @@ public class ChunkedUploadClient {
             }
             long fileSize = initResponse.getFileSize();
             int chunkSize = initResponse.getChunkSize();
+            // Chunks are regions of the file, read by the workers as they send them; the channel stays open until they are done
             try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
-                List<Integer> chunkIndices = BitsetUtil.bitsetToList(BitsetUtil.invertBits(initResponse.getBitsetBytes()));
+                List<Integer> chunkIndices = initResponse.missingChunks();
                 for (Integer chunkIndex : chunkIndices) {
-                    long remainingBytes = fileSize - (long) chunkIndex * chunkSize;
-                    int buffSize = (int) Math.min(chunkSize, remainingBytes);
-                    byte[] buffer = new byte[buffSize];
-                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
-                    fileChannel.read(byteBuffer, (long) chunkIndex * chunkSize);
-                    chunkQueue.put(new Chunk(buffer, chunkIndex));
+                    long offset = (long) chunkIndex * chunkSize;
+                    int length = (int) Math.min(chunkSize, fileSize - offset);
+                    chunkQueue.put(new Chunk(fileChannel, offset, length, chunkIndex));
                 }
                 for (int i = 0; i < numWorkers; i++) {
                     chunkQueue.put(new Chunk(null, -1));
                 }
+                try {
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } catch (Exception e) {
+                    executor.shutdownNow();
+                    propagateRelevantException(e);
+                }
             }
+        }
+        if (finalizing.get()) {
+            awaitFinalization(sessionId, authorization);
+        }
+    }
+
+    /**
+     * Uploads the missing chunks with asynchronous requests, {@link PipelinedUpload#window()} at a time.
+     * The calling thread only waits for the last request to end.
+     */
+    private void uploadChunksPipelined(String sessionId, Path filePath, InitResponse initResponse)
+            throws InterruptedException, IOException {
+        UploadAuthorization authorization = new UploadAuthorization(initResponse);
+        PipelinedUpload upload;
+        try (FileChannel fileChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            upload = new PipelinedUpload(sessionId, authorization, fileChannel, initResponse);
+            upload.dispatch();
+            upload.finishIfDone();
             try {
-                for (Future<?> future : futures) {
-                    future.get();
+                upload.done.get();
+            } catch (InterruptedException e) {
+                upload.fail(e);
+                throw e;
+            } catch (ExecutionException e) {
+                propagateRelevantException(e.getCause());
+            }
+        }
+        if (upload.finalizing.get()) {
+            awaitFinalization(sessionId, authorization);
+        }
+    }
+
+    /**
+     * Chunks of one upload, sent with up to {@link #window()} asynchronous requests in flight.
+     *
+     * <p>
+     * Requests are started by {@link #dispatch()}, first on the calling thread, then on the threads
+     * completing earlier requests:
+     * <ul>
+     * <li>A chunk is taken as soon as the window has room, and read from the file while it is sent</li>
+     * <li>The window is the {@link Builder#inFlightWindow}, or the limit of an {@link AdaptiveConcurrency}
+     * fed with the latency and size of each uploaded chunk</li>
+     * <li>With adaptive concurrency, a chunk refused with {@link ServerBusyException} shrinks the window, pauses
+     * new requests for its {@code Retry-After} delay or a backoff, then is sent again</li>
+     * <li>A failed chunk stops new requests; the upload fails once the requests in flight have ended</li>
+     * </ul>
+     */
+    private final class PipelinedUpload {
+        private final String sessionId;
+        private final UploadAuthorization authorization;
+        private final FileChannel fileChannel;
+        private final List<Integer> chunkIndices;
+        private final long fileSize;
+        private final int chunkSize;
+        private final AdaptiveConcurrency concurrency;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicBoolean finalizing = new AtomicBoolean();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Serializes dispatching: only the thread that raised it from 0 starts requests
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // Guarded by lock
+        private final Deque<Chunk> resend = new ArrayDeque<>();
+        private final Map<Integer, Integer> busyResponses = new HashMap<>();
+        private int next;
+        private int inFlight;
+        // Chunks taken and not uploaded or given up yet, whether in flight or waiting to be sent again
+        private int pending;
+        private long pausedUntil;
+        private int uploadedChunks;
+        private long uploadedBytes;
+        private Throwable failure;
+
+        PipelinedUpload(String sessionId, UploadAuthorization authorization, FileChannel fileChannel, InitResponse initResponse) {
+            this.sessionId = sessionId;
+            this.authorization = authorization;
+            this.fileChannel = fileChannel;
+            this.chunkIndices = initResponse.missingChunks();
+            this.fileSize = initResponse.getFileSize();
+            this.chunkSize = initResponse.getChunkSize();
+            this.concurrency = maxInFlight > 0
+                    ? new AdaptiveConcurrency(inFlightWindow > 0 ? inFlightWindow : threadCounts, minInFlight, maxInFlight, System.nanoTime())
+                    : null;
+        }
+
+        private int window() {
+            return concurrency != null ? concurrency.limit() : inFlightWindow;
+        }
+
+        /**
+         * Sends chunks until the window is full or none is left.
+         */
+        void dispatch() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                Chunk chunk;
+                while ((chunk = take()) != null) {
+                    send(chunk);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        /**
+         * @return The next chunk to send, counted in flight, or {@code null} if the window is full or none is left
+         */
+        private Chunk take() {
+            lock.lock();
+            try {
+                if (failure != null || inFlight >= window() || System.nanoTime() < pausedUntil) {
+                    return null;
+                }
+                Chunk chunk = resend.poll();
+                if (chunk == null) {
+                    if (next >= chunkIndices.size()) {
+                        return null;
+                    }
+                    int chunkIndex = chunkIndices.get(next++);
+                    long offset = (long) chunkIndex * chunkSize;
+                    chunk = new Chunk(fileChannel, offset, (int) Math.min(chunkSize, fileSize - offset), chunkIndex);
+                    pending++;
+                }
+                inFlight++;
+                return chunk;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void send(Chunk chunk) {
+            long start = System.nanoTime();
+            uploadChunkAsync(sessionId, chunk, authorization).whenComplete((completed, error) -> {
+                try {
+                    if (error == null) {
+                        uploaded(chunk, completed, System.nanoTime() - start);
+                    } else {
+                        failed(chunk, error);
+                    }
+                } catch (RuntimeException e) {
+                    // Thrown by the progress listener
+                    fail(e);
+                } finally {
+                    dispatch();
+                    finishIfDone();
+                }
+            });
+        }
+
+        private void uploaded(Chunk chunk, boolean completed, long latencyNanos) {
+            if (completed) {
+                finalizing.set(true);
+            }
+            UploadProgress progress;
+            lock.lock();
+            try {
+                inFlight--;
+                pending--;
+                uploadedChunks++;
+                uploadedBytes += chunk.getLength();
+                if (concurrency != null) {
+                    concurrency.onSuccess(latencyNanos, chunk.getLength(), System.nanoTime());
+                }
+                progress = new UploadProgress(sessionId, chunk.getIndex(), uploadedChunks, chunkIndices.size(), uploadedBytes, window());
+            } finally {
+                lock.unlock();
+            }
+            if (progressListener != null) {
+                progressListener.onProgress(progress);
+            }
+        }
+
+        private void failed(Chunk chunk, Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            long delayMillis;
+            lock.lock();
+            try {
+                inFlight--;
+                int busyResponses = cause instanceof ServerBusyException ? this.busyResponses.merge(chunk.getIndex(), 1, Integer::sum) : 0;
+                if (concurrency == null || failure != null || busyResponses == 0 || busyResponses > MAX_BUSY_RETRIES) {
+                    pending--;
+                    if (failure == null) {
+                        failure = cause;
+                    }
+                    return;
+                }
+                concurrency.onOverload();
+                Duration retryAfter = ((ServerBusyException) cause).getRetryAfter();
+                delayMillis = retryAfter != null
+                        ? Math.min(retryAfter.toMillis(), MAX_BUSY_DELAY_MILLIS)
+                        : Math.min(BUSY_BACKOFF_MILLIS << (busyResponses - 1), MAX_BUSY_DELAY_MILLIS);
+                pausedUntil = Math.max(pausedUntil, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+            } finally {
+                lock.unlock();
+            }
+            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS).execute(() -> {
+                lock.lock();
+                try {
+                    if (failure != null) {
+                        pending--;
+                    } else {
+                        resend.addFirst(chunk);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                dispatch();
+                finishIfDone();
+            });
+        }
+
+        /**
+         * Stops new requests; the upload fails with {@code cause} once the requests in flight have ended.
+         */
+        void fail(Throwable cause) {
+            lock.lock();
+            try {
+                if (failure == null) {
+                    failure = cause;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Completes {@link #done} once no chunk is pending and either all were uploaded or one failed.
+         */
+        void finishIfDone() {
+            Throwable cause;
+            lock.lock();
+            try {
+                if (pending > 0 || (failure == null && next < chunkIndices.size())) {
+                    return;
                 }
-            } catch (Exception e) {
-                executor.shutdownNow();
-                propagateRelevantException(e);
+                cause = failure;
+            } finally {
+                lock.unlock();
+            }
+            if (cause != null) {
+                done.completeExceptionally(cause);
+            } else {
+                done.complete(null);
             }
         }
     }
 
+    /**
+     * Asynchronous {@link #uploadChunk}: falls back to the credentials once the token is rejected with 401.
+     */
+    private CompletableFuture<Boolean> uploadChunkAsync(String sessionId, Chunk chunk, UploadAuthorization authorization) {
+        AuthorizationHeader header = authorization.current();
+        CompletableFuture<Boolean> upload = transport.uploadChunkAsync(sessionId, chunk, uploadUrl, header, retryTimes);
+        if (header.isBasic()) {
+            return upload;
+        }
+        return upload.exceptionallyCompose(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(cause instanceof UnauthorizedException)) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            // The token may be expired or signed with a key the server no longer has
+            authorization.tokenRejected();
+            return transport.uploadChunkAsync(sessionId, chunk, uploadUrl, basicAuthorization, retryTimes);
+        });
+    }
+
+    /**
+     * Uploads a chunk with the upload token, or with the credentials once the token was rejected
+     * with 401 or is about to expire. Other failures are thrown as is and leave the token in use.
+     */
+    private boolean uploadChunk(String sessionId, Chunk chunk, UploadAuthorization authorization)
+            throws IOException, InterruptedException {
+        AuthorizationHeader header = authorization.current();
+        if (header.isBasic()) {
+            return transport.uploadChunk(sessionId, chunk, uploadUrl, header, retryTimes);
+        }
+        try {
+            return transport.uploadChunk(sessionId, chunk, uploadUrl, header, retryTimes);
+        } catch (UnauthorizedException e) {
+            // The token may be expired or signed with a key the server no longer has
+            authorization.tokenRejected();
+            return transport.uploadChunk(sessionId, chunk, uploadUrl, basicAuthorization, retryTimes);
+        }
+    }
+
+    /**
+     * Chooses the {@code Authorization} header of the chunk and status requests of one upload.
+     */
+    private class UploadAuthorization {
+        private final AuthorizationHeader bearer;
+        private final long expiresAt;
+        private volatile boolean rejected;
+
+        UploadAuthorization(InitResponse initResponse) {
+            String token = initResponse.getUploadToken();
+            this.bearer = token != null && !token.isEmpty() ? AuthorizationHeader.bearer(token) : null;
+            Long tokenExpiresAt = initResponse.getUploadTokenExpiresAt();
+            this.expiresAt = tokenExpiresAt != null ? tokenExpiresAt : Long.MAX_VALUE;
+        }
+
+        AuthorizationHeader current() {
+            if (bearer == null || rejected || System.currentTimeMillis() > expiresAt - TOKEN_EXPIRY_MARGIN_MILLIS) {
+                return basicAuthorization;
+            }
+            return bearer;
+        }
+
+        void tokenRejected() {
+            rejected = true;
+        }
+    }
+
+    /**
+     * Waits until the server has assembled an upload whose last chunk it accepted with 202,
+     * polling its status with an increasing interval.
+     *
+     * @throws IOException if the finalization failed or did not finish within the completion timeout
+     */
+    private void awaitFinalization(String sessionId, UploadAuthorization authorization) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + completionTimeout.toNanos();
+        long pollMillis = 100;
+        while (true) {
+            String status = transport.getUploadStatus(sessionId, uploadUrl, authorization.current());
+            if ("COMPLETED".equals(status)) {
+                return;
+            }
+            if (!"FINALIZING".equals(status)) {
+                throw new IOException("Failed to finalize upload " + sessionId + ": " + status);
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Failed to finalize upload " + sessionId + " within " + completionTimeout);
+            }
+            Thread.sleep(pollMillis);
+            pollMillis = Math.min(pollMillis * 2, 2000);
+        }
+    }
+
     public InitResponse startUploadSession(Path filePath) throws IOException, InterruptedException {
         return startResumeSession(null, filePath);
     }
@@ -234,8 +835,14 @@ public class ChunkedUploadClient {
         private String password;
         private int retryTimes = 2;
         private int threadCounts = 4;
+        private int inFlightWindow;
+        private int minInFlight;
+        private int maxInFlight;
+        private ProgressListener progressListener;
         private HttpClient httpClient;
         private UploadTransport transport;
+        private boolean multipartChunks;
+        private Duration completionTimeout = Duration.ofMinutes(10);
 
         public Builder uploadUrl(String uploadUrl) {
             this.uploadUrl = uploadUrl;
@@ -262,11 +869,64 @@ public class ChunkedUploadClient {
             return this;
         }
 
+        /**
+         * Sends the chunks of an upload with up to {@code inFlightWindow} asynchronous requests in flight,
+         * through {@link UploadTransport#uploadChunkAsync}, instead of one blocking request per thread.
+         * {@code threadCounts} is then ignored. 0, the default, keeps the upload threads.
+         *
+         * @see #adaptiveConcurrency
+         */
+        public Builder inFlightWindow(int inFlightWindow) {
+            this.inFlightWindow = inFlightWindow;
+            return this;
+        }
+
+        /**
+         * Adapts the number of chunk requests in flight to the latency and throughput measured during each upload,
+         * between {@code minInFlight} and {@code maxInFlight}, starting from the {@link #inFlightWindow} if set or
+         * else the thread count. Chunks refused with 429 or 503 shrink it and are sent again after the
+         * {@code Retry-After} delay or a backoff. Chunks are then sent as asynchronous requests.
+         *
+         * @see AdaptiveConcurrency
+         */
+        public Builder adaptiveConcurrency(int minInFlight, int maxInFlight) {
+            this.minInFlight = minInFlight;
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Receives the progress of uploads, including the number of chunk requests in flight.
+         */
+        public Builder progressListener(ProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
         public Builder httpClient(HttpClient httpClient) {
             this.httpClient = httpClient;
             return this;
         }
 
+        /**
+         * Sends chunks as multipart requests to {@code POST {uploadUrl}/chunk} instead of raw
+         * {@code PUT} bodies, for servers without the octet-stream endpoint.
+         * Ignored when a {@link #transport(UploadTransport)} is set.
+         */
+        public Builder multipartChunks(boolean multipartChunks) {
+            this.multipartChunks = multipartChunks;
+            return this;
+        }
+
+        /**
+         * Maximum time to wait for the server to assemble an upload after its last chunk was
+         * accepted for background finalization.
+         */
+        public Builder completionTimeout(Duration completionTimeout) {
+            this.completionTimeout = completionTimeout;
+            return this;
+        }
+
         public Builder transport(UploadTransport transport) {
             this.transport = transport;
             return this;
@@ -276,6 +936,9 @@ public class ChunkedUploadClient {
             if (uploadUrl == null || username == null || password == null) {
                 throw new IllegalStateException("uploadUrl, username, and password are required");
             }
+            if (maxInFlight > 0 && (minInFlight < 1 || minInFlight > maxInFlight)) {
+                throw new IllegalStateException("adaptiveConcurrency requires 1 <= minInFlight <= maxInFlight");
+            }
             return new ChunkedUploadClient(this);
         }
     }
@@ -28,14 +28,28 @@ public class ClientApp {
             String password = params.get("password");
             int retryTimes = Integer.parseInt(params.getOrDefault("retryTimes", "3"));
             int threadCounts = Integer.parseInt(params.getOrDefault("threadCounts", "4"));
+            int inFlightWindow = Integer.parseInt(params.getOrDefault("inFlightWindow", "0"));
+            int maxInFlight = Integer.parseInt(params.getOrDefault("maxInFlight", "0"));
+            boolean multipart = Boolean.parseBoolean(params.getOrDefault("multipart", "false"));
 
-            ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+            ChunkedUploadClient.Builder builder = new ChunkedUploadClient.Builder()
                     .uploadUrl(uploadUrl)
                     .username(username)
                     .password(password)
                     .retryTimes(retryTimes)
                     .threadCounts(threadCounts)
-                    .build();
+                    .inFlightWindow(inFlightWindow)
+                    .multipartChunks(multipart);
+            if (maxInFlight > 0) {
+                builder.adaptiveConcurrency(1, maxInFlight)
+                        .progressListener(progress -> {
+                            if (progress.uploadedChunks() == progress.chunkCount() || progress.uploadedChunks() % 100 == 0) {
+                                System.out.println("Uploaded " + progress.uploadedChunks() + "/" + progress.chunkCount()
+                                        + " chunks, " + progress.concurrency() + " in flight");
+                            }
+                        });
+            }
+            ChunkedUploadClient client = builder.build();
 
             System.out.println("Starting upload for file: " + filePath);
             String uploadId = client.upload(filePath, retryTimes, threadCounts);
@@ -73,6 +87,9 @@ public class ClientApp {
         System.out.println("  --password=<pass>          : Required. Password for authentication.");
         System.out.println("  --retryTimes=<num>         : Optional. Number of retries for failed chunks (default: 3).");
         System.out.println("  --threadCounts=<num>       : Optional. Number of parallel upload threads (default: 4).");
+        System.out.println("  --inFlightWindow=<num>     : Optional. Asynchronous chunk requests kept in flight instead of upload threads (default: 0, use threads).");
+        System.out.println("  --maxInFlight=<num>        : Optional. Adapt the requests in flight, up to num, to the measured latency, throughput and 429/503 responses (default: 0, fixed).");
+        System.out.println("  --multipart=<true|false>   : Optional. Send chunks as multipart requests instead of raw bodies (default: false).");
         System.out.println("  --help                     : Print this help message.");
     }
 }
@@ -0,0 +1,31 @@
+package vn.com.fecredit.chunkedupload.client;
+
+import java.time.Duration;
+
+/**
+ * A chunk refused with 429 (Too Many Requests) or 503 (Service Unavailable): the server, or a proxy
+ * in front of it, is overloaded rather than rejecting the chunk.
+ *
+ * <p>
+ * Uploads with {@linkplain ChunkedUploadClient.Builder#adaptiveConcurrency adaptive concurrency} send
+ * fewer chunks at a time and send this one again later; other uploads fail as for any other error status.
+ */
+public class ServerBusyException extends RuntimeException {
+    private final Duration retryAfter;
+
+    /**
+     * @param message    The error message
+     * @param retryAfter The delay asked by the {@code Retry-After} header, or {@code null}
+     */
+    public ServerBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return The delay asked by the {@code Retry-After} header, or {@code null} if the server gave none in seconds
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
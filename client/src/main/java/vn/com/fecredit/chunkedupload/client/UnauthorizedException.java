@@ -0,0 +1,18 @@
+package vn.com.fecredit.chunkedupload.client;
+
+/**
+ * A chunk refused with 401 (Unauthorized): the server did not accept the {@code Authorization} header of the request.
+ *
+ * <p>
+ * A chunk sent with the upload token is sent again with the credentials, which are then used for the rest of
+ * the upload; any other error, including a 400, an I/O failure or a busy server, leaves the token in use.
+ */
+public class UnauthorizedException extends RuntimeException {
+
+    /**
+     * @param message The error message
+     */
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
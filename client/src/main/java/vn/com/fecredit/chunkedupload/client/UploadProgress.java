@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.client;
+
+/**
+ * Progress of an upload, reported to a {@link ChunkedUploadClient.ProgressListener} after each uploaded chunk.
+ *
+ * @param uploadId       The upload
+ * @param chunkNumber    The chunk just uploaded
+ * @param uploadedChunks Chunks uploaded so far by this call, including {@code chunkNumber}
+ * @param chunkCount     Chunks this call uploads, i.e. the chunks missing on the server when it started
+ * @param uploadedBytes  Bytes of the chunks uploaded so far by this call
+ * @param concurrency    Chunk requests the upload keeps in flight: the threads, the in-flight window,
+ *                       or the limit currently chosen by adaptive concurrency
+ */
+public record UploadProgress(String uploadId, int chunkNumber, int uploadedChunks, int chunkCount,
+                             long uploadedBytes, int concurrency) {
+}
@@ -0,0 +1,75 @@
+package vn.com.fecredit.chunkedupload.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyTest {
+    private static final int CHUNK_BYTES = 1024 * 1024;
+    private static final long MILLIS = 1_000_000L;
+
+    private long now;
+
+    /**
+     * Uploads one round of chunks, all answered after {@code latencyMillis}, in {@code roundMillis}.
+     */
+    private void round(AdaptiveConcurrency concurrency, long latencyMillis, long roundMillis) {
+        now += roundMillis * MILLIS;
+        for (int i = concurrency.limit(); i > 0; i--) {
+            concurrency.onSuccess(latencyMillis * MILLIS, CHUNK_BYTES, now);
+        }
+    }
+
+    @Test
+    void testSlowStartDoublesWhileThroughputGrows() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 1, 16, now);
+
+        // Same round duration with twice the chunks: twice the throughput
+        round(concurrency, 10, 10);
+        assertEquals(4, concurrency.limit());
+        round(concurrency, 10, 10);
+        assertEquals(8, concurrency.limit());
+        round(concurrency, 10, 10);
+        assertEquals(16, concurrency.limit());
+        round(concurrency, 10, 10);
+        assertEquals(16, concurrency.limit());
+    }
+
+    @Test
+    void testFlatThroughputGrowsSlowlyThenLatencyInflationDecreases() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(8, 1, 64, now);
+        round(concurrency, 10, 10);
+        assertEquals(16, concurrency.limit());
+
+        // The link is full: twice the chunks take twice as long, slow start ends
+        round(concurrency, 10, 20);
+        assertEquals(16, concurrency.limit());
+        // Without a throughput gain, one more request is probed every few rounds
+        round(concurrency, 10, 20);
+        round(concurrency, 10, 20);
+        round(concurrency, 10, 20);
+        assertEquals(17, concurrency.limit());
+
+        // Requests queue up: latency beyond twice the baseline cuts the limit by a quarter
+        round(concurrency, 30, 20);
+        assertEquals(12, concurrency.limit());
+    }
+
+    @Test
+    void testOverloadHalvesOncePerRound() {
+        AdaptiveConcurrency concurrency = new AdaptiveConcurrency(8, 2, 64, now);
+
+        concurrency.onOverload();
+        concurrency.onOverload();
+        assertEquals(4, concurrency.limit());
+        // No increase in the round of the overload, even with more throughput
+        round(concurrency, 10, 1);
+        assertEquals(4, concurrency.limit());
+
+        concurrency.onOverload();
+        assertEquals(2, concurrency.limit());
+        round(concurrency, 10, 1);
+        concurrency.onOverload();
+        assertEquals(2, concurrency.limit());
+    }
+}
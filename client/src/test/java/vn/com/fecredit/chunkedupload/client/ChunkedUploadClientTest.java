@@ -81,6 +81,102 @@ class ChunkedUploadClientTest {
         verify(httpClient, times(expectedCalls)).send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
     }
 
+    @Test
+    void testOctetStreamTransportPutsRawChunk() throws IOException, InterruptedException {
+        when(httpResponse.statusCode()).thenReturn(200);
+        ChunkedUploadClient.UploadTransport transport = new ChunkedUploadClient.OctetStreamUploadTransport(httpClient);
+        byte[] data = new byte[1024];
+
+        transport.uploadSingleChunk("upload-1", new Chunk(data, 3), UPLOAD_URL, "auth", RETRY_TIMES);
+
+        org.mockito.ArgumentCaptor<HttpRequest> request = org.mockito.ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient).send(request.capture(), any(HttpResponse.BodyHandler.class));
+        assertEquals("PUT", request.getValue().method());
+        assertEquals(UPLOAD_URL + "/upload-1/chunks/3", request.getValue().uri().toString());
+        assertEquals("application/octet-stream", request.getValue().headers().firstValue("Content-Type").orElse(null));
+        assertEquals("Basic auth", request.getValue().headers().firstValue("Authorization").orElse(null));
+        assertEquals(data.length, request.getValue().bodyPublisher().orElseThrow().contentLength());
+    }
+
+    @Test
+    void testChunkBodyPublisherStreamsFileRegion() throws Exception {
+        byte[] data = new byte[ChunkBodyPublisher.BUFFER_SIZE * 3 + 100];
+        new java.util.Random(23).nextBytes(data);
+        java.nio.file.Files.write(tempFile, data);
+        byte[] preamble = "preamble".getBytes();
+        byte[] footer = "footer".getBytes();
+        int offset = 50;
+        int length = ChunkBodyPublisher.BUFFER_SIZE * 2 + 10;
+        byte[] expected = new byte[preamble.length + length + footer.length];
+        System.arraycopy(preamble, 0, expected, 0, preamble.length);
+        System.arraycopy(data, offset, expected, preamble.length, length);
+        System.arraycopy(footer, 0, expected, preamble.length + length, footer.length);
+
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(tempFile);
+             ChunkBodyPublisher publisher = ChunkBodyPublisher.ofChunk(preamble, new Chunk(channel, offset, length, 1), footer)) {
+            assertEquals(expected.length, publisher.contentLength());
+            // Sent again on retries, each time from the file
+            assertArrayEquals(expected, collect(publisher, false));
+            assertArrayEquals(expected, collect(publisher, false));
+            // Buffers queued by the subscriber, as for TLS, are not overwritten by the next pieces
+            assertArrayEquals(expected, collect(publisher, true));
+            assertArrayEquals(java.util.Arrays.copyOfRange(data, offset, offset + length),
+                    new Chunk(channel, offset, length, 1).getData());
+        }
+        try (ChunkBodyPublisher publisher = ChunkBodyPublisher.ofChunk(new Chunk(data, 0))) {
+            assertArrayEquals(data, collect(publisher, false));
+        }
+    }
+
+    /**
+     * Reads a body one buffer at a time, copying each buffer before requesting the next,
+     * or with {@code queued}, requesting all buffers first and copying them once the body is complete.
+     */
+    private static byte[] collect(HttpRequest.BodyPublisher publisher, boolean queued) throws Exception {
+        java.io.ByteArrayOutputStream body = new java.io.ByteArrayOutputStream();
+        java.util.List<java.nio.ByteBuffer> items = new java.util.ArrayList<>();
+        java.util.concurrent.CompletableFuture<byte[]> result = new java.util.concurrent.CompletableFuture<>();
+        publisher.subscribe(new java.util.concurrent.Flow.Subscriber<>() {
+            private java.util.concurrent.Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(java.util.concurrent.Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(queued ? Long.MAX_VALUE : 1);
+            }
+
+            @Override
+            public void onNext(java.nio.ByteBuffer item) {
+                items.add(item);
+                if (!queued) {
+                    drain();
+                    subscription.request(1);
+                }
+            }
+
+            private void drain() {
+                for (java.nio.ByteBuffer item : items) {
+                    byte[] bytes = new byte[item.remaining()];
+                    item.get(bytes);
+                    body.writeBytes(bytes);
+                }
+                items.clear();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                drain();
+                result.complete(body.toByteArray());
+            }
+        });
+        return result.get(10, java.util.concurrent.TimeUnit.SECONDS);
+    }
+
     @Test
     void testUploadInitFails() {
         ChunkedUploadClient client = new ChunkedUploadClient.Builder()
@@ -231,4 +327,285 @@ class ChunkedUploadClientTest {
         RuntimeException ex = assertThrows(RuntimeException.class, () -> client.resumeUpload("sessionId", tempFile));
         assertTrue(ex.getMessage().contains("Checksum mismatch"));
     }
+
+    @Test
+    void testUploadWaitsForBackgroundFinalization() throws IOException, InterruptedException {
+        ChunkedUploadClient.UploadTransport transport = mock(ChunkedUploadClient.UploadTransport.class);
+        ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+                .uploadUrl(UPLOAD_URL)
+                .username(USERNAME)
+                .password(PASSWORD)
+                .transport(transport)
+                .build();
+        int totalChunks = (int) Math.ceil((double) FILE_CONTENT.length / CHUNK_SIZE);
+        InitResponse resp = new InitResponse("sessionId", totalChunks, CHUNK_SIZE, FILE_CONTENT.length, FILENAME);
+        resp.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+        when(transport.initUpload(any(), any(), any())).thenReturn(resp);
+        // The last chunk is answered with 202
+        when(transport.uploadChunk(any(), any(), any(), any(), anyInt())).thenReturn(true);
+        when(transport.getUploadStatus(any(), any(), any())).thenReturn("FINALIZING").thenReturn("COMPLETED");
+
+        assertEquals("sessionId", client.upload(tempFile, null, null));
+        verify(transport, times(totalChunks)).uploadChunk(eq("sessionId"), any(), eq(UPLOAD_URL), any(), anyInt());
+        verify(transport, times(2)).getUploadStatus(eq("sessionId"), eq(UPLOAD_URL), any());
+
+        when(transport.getUploadStatus(any(), any(), any())).thenReturn("FAILED");
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> client.upload(tempFile, null, null));
+        assertTrue(ex.getMessage().contains("Failed to finalize upload sessionId: FAILED"));
+    }
+
+    @Test
+    void testTransportImplementingOnlyTheOriginalMethods() {
+        int totalChunks = (int) Math.ceil((double) FILE_CONTENT.length / CHUNK_SIZE);
+        java.util.Set<Integer> uploaded = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        java.util.Set<String> credentials = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        // Written against the interface before upload tokens, background finalization and asynchronous chunks
+        ChunkedUploadClient.UploadTransport transport = new ChunkedUploadClient.UploadTransport() {
+            @Override
+            public InitResponse initUpload(vn.com.fecredit.chunkedupload.model.InitRequest initRequest, String uploadUrl, String encodedAuth) {
+                InitResponse response = new InitResponse("sessionId", totalChunks, CHUNK_SIZE, FILE_CONTENT.length, FILENAME);
+                response.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+                response.setUploadToken("token");
+                response.setUploadTokenExpiresAt(System.currentTimeMillis() + 3_600_000L);
+                return response;
+            }
+
+            @Override
+            public void uploadSingleChunk(String sessionId, Chunk chunk, String uploadUrl, String encodedAuth, int retryTimes) {
+                uploaded.add(chunk.getIndex());
+                credentials.add(encodedAuth);
+            }
+        };
+
+        for (ChunkedUploadClient.Builder builder : java.util.List.of(new ChunkedUploadClient.Builder(),
+                new ChunkedUploadClient.Builder().inFlightWindow(2))) {
+            uploaded.clear();
+            ChunkedUploadClient client = builder
+                    .uploadUrl(UPLOAD_URL)
+                    .username(USERNAME)
+                    .password(PASSWORD)
+                    .transport(transport)
+                    .build();
+            assertEquals("sessionId", client.upload(tempFile, null, null));
+            assertEquals(java.util.Set.of(0, 1), uploaded);
+            // The upload token is not sent to a transport that cannot tell it from the credentials
+            assertEquals(java.util.Set.of(Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes())), credentials);
+        }
+        assertThrows(UnsupportedOperationException.class,
+                () -> transport.getUploadStatus("sessionId", UPLOAD_URL, AuthorizationHeader.basic("auth")));
+    }
+
+    @Test
+    void testChunksUseUploadTokenAndFallBackToCredentials() throws IOException, InterruptedException {
+        ChunkedUploadClient.UploadTransport transport = mock(ChunkedUploadClient.UploadTransport.class);
+        ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+                .uploadUrl(UPLOAD_URL)
+                .username(USERNAME)
+                .password(PASSWORD)
+                .threadCounts(1)
+                .transport(transport)
+                .build();
+        String encodedAuth = Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes());
+        AuthorizationHeader basic = AuthorizationHeader.basic(encodedAuth);
+        int totalChunks = (int) Math.ceil((double) FILE_CONTENT.length / CHUNK_SIZE);
+        InitResponse resp = new InitResponse("sessionId", totalChunks, CHUNK_SIZE, FILE_CONTENT.length, FILENAME);
+        resp.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+        resp.setUploadToken("token");
+        resp.setUploadTokenExpiresAt(System.currentTimeMillis() + 3_600_000L);
+        when(transport.initUpload(any(), any(), any())).thenReturn(resp);
+        // The first chunk is accepted with the token, which is then rejected with 401
+        when(transport.uploadChunk(any(), any(), any(), eq(AuthorizationHeader.bearer("token")), anyInt()))
+                .thenReturn(false)
+                .thenThrow(new UnauthorizedException("Failed to upload chunkNumber 1: Unauthorized"));
+
+        assertEquals("sessionId", client.upload(tempFile, null, null));
+        verify(transport).initUpload(any(), eq(UPLOAD_URL), eq(encodedAuth));
+        verify(transport, times(2)).uploadChunk(any(), any(), any(), eq(AuthorizationHeader.bearer("token")), anyInt());
+        verify(transport).uploadChunk(any(), any(), any(), eq(basic), anyInt());
+    }
+
+    @Test
+    void testUploadTokenIsKeptAfterOtherFailures() throws IOException, InterruptedException {
+        ChunkedUploadClient.UploadTransport transport = mock(ChunkedUploadClient.UploadTransport.class);
+        String encodedAuth = Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes());
+        AuthorizationHeader basic = AuthorizationHeader.basic(encodedAuth);
+        int totalChunks = (int) Math.ceil((double) FILE_CONTENT.length / CHUNK_SIZE);
+        InitResponse resp = new InitResponse("sessionId", totalChunks, CHUNK_SIZE, FILE_CONTENT.length, FILENAME);
+        resp.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+        resp.setUploadToken("token");
+        resp.setUploadTokenExpiresAt(System.currentTimeMillis() + 3_600_000L);
+        RuntimeException badRequest = new RuntimeException("Failed to upload chunkNumber 0: Bad Request");
+        RuntimeException ioFailure = new RuntimeException(new IOException("Failed to upload chunkNumber 0",
+                new java.net.ConnectException("Connection refused")));
+
+        for (RuntimeException failure : java.util.List.of(badRequest, ioFailure)) {
+            // Blocking uploads
+            ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+                    .uploadUrl(UPLOAD_URL)
+                    .username(USERNAME)
+                    .password(PASSWORD)
+                    .threadCounts(1)
+                    .transport(transport)
+                    .build();
+            reset(transport);
+            when(transport.initUpload(any(), any(), any())).thenReturn(resp);
+            when(transport.uploadChunk(any(), any(), any(), any(), anyInt())).thenThrow(failure);
+
+            RuntimeException ex = assertThrows(RuntimeException.class, () -> client.upload(tempFile, null, null));
+            assertTrue(ex.getMessage().contains("Failed to upload chunkNumber 0"));
+            verify(transport).uploadChunk(any(), any(), any(), eq(AuthorizationHeader.bearer("token")), anyInt());
+            verify(transport, never()).uploadChunk(any(), any(), any(), eq(basic), anyInt());
+
+            // Pipelined uploads
+            ChunkedUploadClient pipelined = new ChunkedUploadClient.Builder()
+                    .uploadUrl(UPLOAD_URL)
+                    .username(USERNAME)
+                    .password(PASSWORD)
+                    .inFlightWindow(1)
+                    .transport(transport)
+                    .build();
+            when(transport.uploadChunkAsync(any(), any(), any(), any(), anyInt()))
+                    .thenReturn(java.util.concurrent.CompletableFuture.failedFuture(failure));
+
+            ex = assertThrows(RuntimeException.class, () -> pipelined.upload(tempFile, null, null));
+            assertTrue(ex.getMessage().contains("Failed to upload chunkNumber 0"));
+            verify(transport).uploadChunkAsync(any(), any(), any(), eq(AuthorizationHeader.bearer("token")), anyInt());
+            verify(transport, never()).uploadChunkAsync(any(), any(), any(), eq(basic), anyInt());
+        }
+    }
+
+    @Test
+    void testPipelinedUploadKeepsWindowInFlight() throws IOException {
+        int chunkSize = 1024;
+        int totalChunks = 11;
+        java.nio.file.Files.write(tempFile, new byte[chunkSize * (totalChunks - 1) + 1]);
+        java.util.concurrent.atomic.AtomicInteger inFlight = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicInteger maxInFlight = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.Map<Integer, Integer> sent = new java.util.concurrent.ConcurrentHashMap<>();
+        ChunkedUploadClient.UploadTransport transport = new ChunkedUploadClient.UploadTransport() {
+            @Override
+            public InitResponse initUpload(vn.com.fecredit.chunkedupload.model.InitRequest initRequest, String uploadUrl, String encodedAuth) {
+                InitResponse response = new InitResponse("sessionId", totalChunks, chunkSize, chunkSize * (totalChunks - 1) + 1, FILENAME);
+                response.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+                return response;
+            }
+
+            @Override
+            public void uploadSingleChunk(String sessionId, Chunk chunk, String uploadUrl, String encodedAuth, int retryTimes) {
+                throw new AssertionError("Chunks are sent asynchronously");
+            }
+
+            @Override
+            public java.util.concurrent.CompletableFuture<Boolean> uploadChunkAsync(String sessionId, Chunk chunk, String uploadUrl,
+                                                                                    AuthorizationHeader authorization, int retryTimes) {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sent.put(chunk.getIndex(), chunk.getLength());
+                return java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+                    inFlight.decrementAndGet();
+                    return false;
+                }, java.util.concurrent.CompletableFuture.delayedExecutor(20, java.util.concurrent.TimeUnit.MILLISECONDS));
+            }
+
+            @Override
+            public String getUploadStatus(String sessionId, String uploadUrl, AuthorizationHeader authorization) {
+                return "COMPLETED";
+            }
+        };
+        ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+                .uploadUrl(UPLOAD_URL)
+                .username(USERNAME)
+                .password(PASSWORD)
+                .inFlightWindow(3)
+                .transport(transport)
+                .build();
+
+        assertEquals("sessionId", client.upload(tempFile, null, null));
+        assertEquals(3, maxInFlight.get());
+        assertEquals(totalChunks, sent.size());
+        assertEquals(1, (int) sent.get(totalChunks - 1));
+    }
+
+    @Test
+    void testAdaptiveUploadBacksOffWhenServerIsBusy() throws IOException {
+        int chunkSize = 1024;
+        int totalChunks = 11;
+        java.nio.file.Files.write(tempFile, new byte[chunkSize * totalChunks]);
+        java.util.Map<Integer, Integer> attempts = new java.util.concurrent.ConcurrentHashMap<>();
+        java.util.List<UploadProgress> progress = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        ChunkedUploadClient.UploadTransport transport = new ChunkedUploadClient.UploadTransport() {
+            @Override
+            public InitResponse initUpload(vn.com.fecredit.chunkedupload.model.InitRequest initRequest, String uploadUrl, String encodedAuth) {
+                InitResponse response = new InitResponse("sessionId", totalChunks, chunkSize, (long) chunkSize * totalChunks, FILENAME);
+                response.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+                return response;
+            }
+
+            @Override
+            public void uploadSingleChunk(String sessionId, Chunk chunk, String uploadUrl, String encodedAuth, int retryTimes) {
+                throw new AssertionError("Chunks are sent asynchronously");
+            }
+
+            @Override
+            public java.util.concurrent.CompletableFuture<Boolean> uploadChunkAsync(String sessionId, Chunk chunk, String uploadUrl,
+                                                                                    AuthorizationHeader authorization, int retryTimes) {
+                // Chunk 3 is refused once by a busy server
+                if (attempts.merge(chunk.getIndex(), 1, Integer::sum) == 1 && chunk.getIndex() == 3) {
+                    return java.util.concurrent.CompletableFuture.failedFuture(
+                            new ServerBusyException("Failed to upload chunkNumber 3: busy", java.time.Duration.ofMillis(50)));
+                }
+                return java.util.concurrent.CompletableFuture.supplyAsync(() -> false,
+                        java.util.concurrent.CompletableFuture.delayedExecutor(5, java.util.concurrent.TimeUnit.MILLISECONDS));
+            }
+
+            @Override
+            public String getUploadStatus(String sessionId, String uploadUrl, AuthorizationHeader authorization) {
+                return "COMPLETED";
+            }
+        };
+        ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+                .uploadUrl(UPLOAD_URL)
+                .username(USERNAME)
+                .password(PASSWORD)
+                .inFlightWindow(4)
+                .adaptiveConcurrency(1, 8)
+                .progressListener(progress::add)
+                .transport(transport)
+                .build();
+
+        assertEquals("sessionId", client.upload(tempFile, null, null));
+        assertEquals(2, (int) attempts.get(3));
+        assertEquals(totalChunks, attempts.size());
+        assertEquals(totalChunks, progress.size());
+        // The busy response halved the window before any chunk was uploaded
+        assertEquals(2, progress.get(0).concurrency());
+        assertTrue(progress.stream().anyMatch(p -> p.uploadedChunks() == totalChunks && p.uploadedBytes() == (long) chunkSize * totalChunks));
+    }
+
+    @Test
+    void testBusyServerDoesNotDisableUploadToken() throws IOException, InterruptedException {
+        ChunkedUploadClient.UploadTransport transport = mock(ChunkedUploadClient.UploadTransport.class);
+        ChunkedUploadClient client = new ChunkedUploadClient.Builder()
+                .uploadUrl(UPLOAD_URL)
+                .username(USERNAME)
+                .password(PASSWORD)
+                .threadCounts(1)
+                .transport(transport)
+                .build();
+        String encodedAuth = Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes());
+        AuthorizationHeader basic = AuthorizationHeader.basic(encodedAuth);
+        int totalChunks = (int) Math.ceil((double) FILE_CONTENT.length / CHUNK_SIZE);
+        InitResponse resp = new InitResponse("sessionId", totalChunks, CHUNK_SIZE, FILE_CONTENT.length, FILENAME);
+        resp.setMissingChunkNumbers(java.util.stream.IntStream.range(0, totalChunks).boxed().toList());
+        resp.setUploadToken("token");
+        resp.setUploadTokenExpiresAt(System.currentTimeMillis() + 3_600_000L);
+        when(transport.initUpload(any(), any(), any())).thenReturn(resp);
+        // Without adaptive concurrency, a busy server fails the blocking upload like any other error status
+        when(transport.uploadChunk(any(), any(), any(), any(), anyInt()))
+                .thenThrow(new ServerBusyException("Failed to upload chunkNumber 0: Service Unavailable", java.time.Duration.ofSeconds(1)));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> client.upload(tempFile, null, null));
+        assertTrue(ex.getMessage().contains("Failed to upload chunkNumber 0: Service Unavailable"));
+        verify(transport).uploadChunk(any(), any(), any(), eq(AuthorizationHeader.bearer("token")), anyInt());
+        verify(transport, never()).uploadChunk(any(), any(), any(), eq(basic), anyInt());
+    }
 }
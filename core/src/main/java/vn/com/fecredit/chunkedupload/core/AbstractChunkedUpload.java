@@ -1,23 +1,57 @@
 package vn.com.fecredit.chunkedupload.core;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.channels.CompletionHandler;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import lombok.Getter;
-import vn.com.fecredit.chunkedupload.manager.BitsetManager;
+import vn.com.fecredit.chunkedupload.jfr.AssemblyCopyEvent;
+import vn.com.fecredit.chunkedupload.jfr.ChecksumVerifyEvent;
+import vn.com.fecredit.chunkedupload.jfr.ChunkWriteEvent;
+import vn.com.fecredit.chunkedupload.jfr.HeaderReadEvent;
+import vn.com.fecredit.chunkedupload.jfr.HeaderWriteEvent;
+import vn.com.fecredit.chunkedupload.jfr.HistoryMoveEvent;
+import vn.com.fecredit.chunkedupload.jfr.LockAcquireEvent;
+import vn.com.fecredit.chunkedupload.manager.FinalizationExecutor;
+import vn.com.fecredit.chunkedupload.manager.IncrementalDigest;
+import vn.com.fecredit.chunkedupload.manager.PartFileChannelCache;
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
+import vn.com.fecredit.chunkedupload.manager.TenantResolutionCache;
+import vn.com.fecredit.chunkedupload.manager.UploadHeartbeatRegistry;
+import vn.com.fecredit.chunkedupload.manager.UploadInfoCache;
+import vn.com.fecredit.chunkedupload.manager.UploadMetrics;
+import vn.com.fecredit.chunkedupload.manager.UploadSession;
+import vn.com.fecredit.chunkedupload.manager.UploadSessionRegistry;
 import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.UploadMetadata;
 import vn.com.fecredit.chunkedupload.model.interfaces.ITenantAccount;
 import vn.com.fecredit.chunkedupload.model.interfaces.IUploadInfo;
 import vn.com.fecredit.chunkedupload.model.util.BitsetUtil;
@@ -28,7 +62,11 @@ import vn.com.fecredit.chunkedupload.port.intefaces.IUploadInfoPort;
 public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends IUploadInfo, U extends IUploadInfoPort<Y>, V extends ITenantAccountPort<T>> {
 
     private static final Logger log = LoggerFactory.getLogger(AbstractChunkedUpload.class);
-    private static final int PART_FILE_HEADER_FIXED_SIZE = 20; // Magic(4) + totalChunks(4) + chunkSize(4) + fileSize(8)
+    private static final String PART_SUFFIX = ".part";
+    private static final int PART_FILE_HEADER_FIXED_SIZE = PartFileLayout.HEADER_FIXED_SIZE; // Magic(4) + totalChunks(4) + chunkSize(4) + fileSize(8)
+    private static final int MAX_REMEMBERED_FINALIZATIONS = 1024;
+    // Time an assembly waits for another assembly of the same upload before failing
+    private static final long ASSEMBLY_LOCK_TIMEOUT_MILLIS = 3000;
 
     @Getter
     private final U iUploadInfoPort;
@@ -38,9 +76,45 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
     private final int defaultChunkSize;
     private final Path inProgressDir;
     private final Path completeDir;
-    private final ConcurrentHashMap<String, IUploadInfo> uploadInfoMap = new ConcurrentHashMap<>();
-    // Locks for concurrent chunk uploads, one per uploadId
-    private final ConcurrentHashMap<String, ReentrantLock> uploadLocks = new ConcurrentHashMap<>();
+    // Upload info of active uploads, read through to the upload info port
+    @Getter
+    private volatile UploadInfoCache<Y> uploadInfoCache = new UploadInfoCache<>();
+    // Open part-file channels reused across chunks of the same upload
+    @Getter
+    private volatile PartFileChannelCache channelCache = new PartFileChannelCache();
+    // Authoritative in-memory headers of active uploads, group-committed to the part files
+    @Getter
+    private volatile UploadSessionRegistry sessionRegistry = new UploadSessionRegistry();
+    // Hash the payload while chunks arrive instead of re-reading the file at assembly
+    @Getter
+    private volatile boolean incrementalChecksum = true;
+    // Assembles complete uploads in the background; null to assemble on the thread writing the last chunk
+    @Getter
+    private volatile FinalizationExecutor finalizationExecutor;
+    // Uploads handed to the finalization executor and not finished yet, with the outcome of their assembly
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> finalizations = new ConcurrentHashMap<>();
+    // Locks of the uploads being assembled or waiting to be
+    private final ConcurrentHashMap<String, AssemblyLock> assemblyLocks = new ConcurrentHashMap<>();
+    // Uploads recently assembled, still reported by finalizeAsync once the ports have moved them to history
+    private final Set<String> finalizedUploads = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_REMEMBERED_FINALIZATIONS;
+                }
+            }));
+    // Runs the completion handlers of asynchronous chunk writes and the blocking steps of the asynchronous API
+    @Getter
+    private volatile ExecutorService asyncExecutor = ForkJoinPool.commonPool();
+    // Chunk activity persisted in batches; null to update the upload info on every chunk
+    @Getter
+    private volatile UploadHeartbeatRegistry heartbeatRegistry;
+    // Tenants resolved by username, so that chunk writes do not look up the account
+    @Getter
+    private volatile TenantResolutionCache<T> tenantCache = new TenantResolutionCache<>();
+    // Receives the timings of chunk writes, lock waits, checksums and assemblies
+    @Getter
+    private volatile UploadMetrics metrics = UploadMetrics.NOOP;
 
     public AbstractChunkedUpload(U iUploadInfoPort, V iTenantAccountPort,
                                  String inProgressDirPath, String completeDirPath,
@@ -54,39 +128,380 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
         Files.createDirectories(this.completeDir);
     }
 
+    /**
+     * Replaces the part-file channel cache, closing the channels held by the previous one.
+     *
+     * @param channelCache The cache to use for subsequent chunk writes
+     */
+    public void setChannelCache(PartFileChannelCache channelCache) {
+        PartFileChannelCache previous = this.channelCache;
+        this.channelCache = channelCache;
+        if (previous != null && previous != channelCache) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Replaces the session registry and its group-commit policy.
+     * Sessions held by the previous registry are flushed first.
+     *
+     * @param sessionRegistry The registry to use for subsequent chunk writes
+     */
+    public void setSessionRegistry(UploadSessionRegistry sessionRegistry) {
+        flushAllSessions();
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Enables or disables incremental checksum verification for sessions loaded from now on.
+     *
+     * <p>
+     * When enabled, each upload keeps a running SHA-256 of its received prefix (see
+     * {@link vn.com.fecredit.chunkedupload.manager.IncrementalDigest}) and assembly compares
+     * it with the expected checksum instead of hashing the assembled file again.
+     *
+     * @param incrementalChecksum {@code false} to always hash the assembled file
+     */
+    public void setIncrementalChecksum(boolean incrementalChecksum) {
+        this.incrementalChecksum = incrementalChecksum;
+    }
+
+    /**
+     * Sets the executor that assembles complete uploads in the background, closing the previous one.
+     *
+     * <p>
+     * With an executor, the write of the last chunk returns as soon as the assembly is
+     * scheduled, and the outcome is reported through {@link #moveToHistory} on success and
+     * {@link #onFinalizationFailed} on failure. Without one, the last chunk write assembles
+     * the file and fails if the assembly fails.
+     *
+     * @param finalizationExecutor The executor, or {@code null} to assemble synchronously
+     */
+    public void setFinalizationExecutor(FinalizationExecutor finalizationExecutor) {
+        FinalizationExecutor previous = this.finalizationExecutor;
+        this.finalizationExecutor = finalizationExecutor;
+        if (previous != null && previous != finalizationExecutor) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Sets the pool used by {@link #writeChunkAsync}, {@link #registerAsync} and {@link #finalizeAsync}.
+     *
+     * <p>
+     * The pool runs the completion handlers of the asynchronous part-file channels and the
+     * steps that have no non-blocking form, such as persisting the upload info:
+     * <ul>
+     * <li>A few threads keep thousands of chunk writes in flight, since no thread waits for the disk</li>
+     * <li>Channels already open keep the pool they were opened with until they are closed</li>
+     * <li>Without a {@link FinalizationExecutor}, complete uploads are assembled on this pool</li>
+     * </ul>
+     *
+     * @param asyncExecutor The pool, or {@code null} for the common fork-join pool
+     */
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor != null ? asyncExecutor : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Replaces the cache of resolved tenants. Tenants cached by the previous one are looked up again.
+     *
+     * @param tenantCache The cache to use for subsequent tenant resolutions
+     */
+    public void setTenantCache(TenantResolutionCache<T> tenantCache) {
+        this.tenantCache = tenantCache;
+    }
+
+    /**
+     * Replaces the cache of upload info. Upload info cached by the previous one is loaded again.
+     *
+     * @param uploadInfoCache The cache to use for subsequent upload info lookups
+     */
+    public void setUploadInfoCache(UploadInfoCache<Y> uploadInfoCache) {
+        this.uploadInfoCache = uploadInfoCache;
+    }
+
+    /**
+     * Sets the receiver of the measurements of chunk writes, lock waits, checksums and assemblies.
+     *
+     * @param metrics The receiver, or {@code null} to discard measurements
+     */
+    public void setMetrics(UploadMetrics metrics) {
+        this.metrics = metrics != null ? metrics : UploadMetrics.NOOP;
+    }
+
+    /**
+     * Sets the registry that batches the last update time of uploads, persisting the activity recorded by the previous one first.
+     *
+     * <p>
+     * With a registry, a chunk write records its upload as active in memory, and
+     * {@link #flushHeartbeats()} persists all uploads active since its previous call
+     * through {@link #saveLastUpdateDateTimes(Set, LocalDateTime)}. It must be called
+     * periodically, at least once per {@link UploadHeartbeatRegistry#getFlushIntervalMillis()}.
+     *
+     * @param heartbeatRegistry The registry, or {@code null} to update the upload info on every chunk
+     */
+    public void setHeartbeatRegistry(UploadHeartbeatRegistry heartbeatRegistry) {
+        flushHeartbeats();
+        this.heartbeatRegistry = heartbeatRegistry;
+    }
+
+    /**
+     * Persists the last update time of the uploads that received chunks since the previous flush.
+     *
+     * @return The number of uploads whose activity was persisted
+     */
+    public int flushHeartbeats() {
+        UploadHeartbeatRegistry registry = heartbeatRegistry;
+        if (registry == null) {
+            return 0;
+        }
+        Set<String> uploadIds = registry.drain();
+        if (uploadIds.isEmpty()) {
+            return 0;
+        }
+        try {
+            saveLastUpdateDateTimes(uploadIds, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            // Keep the activity for the next flush
+            log.warn("Failed to persist activity of {} uploads: {}", uploadIds.size(), e.getMessage());
+            uploadIds.forEach(registry::record);
+            return 0;
+        }
+        return uploadIds.size();
+    }
+
+    private void recordActivity(String uploadId) {
+        UploadHeartbeatRegistry registry = heartbeatRegistry;
+        if (registry != null) {
+            registry.record(uploadId);
+        } else {
+            updateUploadInfoLastUpdateTime(uploadId);
+        }
+    }
+
+    /**
+     * Releases the in-memory resources held for an upload, such as its session state and open part-file channels.
+     * Must be called before the part file of a completed, aborted or timed-out upload is moved or deleted.
+     *
+     * @param uploadId The upload ID whose resources should be released
+     */
+    public void releaseUploadResources(String uploadId) {
+        sessionRegistry.remove(uploadId);
+        UploadHeartbeatRegistry registry = heartbeatRegistry;
+        if (registry != null) {
+            registry.remove(uploadId);
+        }
+        channelCache.invalidate(uploadId);
+        channelCache.invalidate(PartFileLayout.headerKey(uploadId));
+        uploadInfoCache.invalidate(uploadId);
+    }
+
+    /**
+     * Flushes the sessions whose group-commit interval has elapsed and drops idle sessions.
+     *
+     * @return The number of sessions flushed
+     */
+    public int flushDueSessions() {
+        return flushSessions(false);
+    }
+
+    /**
+     * Flushes every dirty session. Intended for shutdown.
+     *
+     * @return The number of sessions flushed
+     */
+    public int flushAllSessions() {
+        return flushSessions(true);
+    }
+
+    private int flushSessions(boolean all) {
+        int flushed = 0;
+        long now = System.currentTimeMillis();
+        for (UploadSession session : sessionRegistry.sessions()) {
+            String uploadId = session.getUploadId();
+            try {
+                if (all ? session.isDirty() : sessionRegistry.isFlushDue(session, now)) {
+                    try (PartFileChannelCache.Lease lease = channelCache.acquire(uploadId, session.getPartPath())) {
+                        flushSession(session, lease.channel());
+                        flushed++;
+                    }
+                } else if (!all) {
+                    sessionRegistry.evictIfIdle(session, now);
+                }
+            } catch (IOException e) {
+                // The part file is gone or unwritable; unflushed chunks will be reported missing
+                log.warn("Failed to flush header for uploadId={}: {}", uploadId, e.getMessage());
+                sessionRegistry.remove(session);
+            }
+        }
+        return flushed;
+    }
+
+    private void flushSession(UploadSession session, FileChannel dataChannel) throws IOException {
+        flushSession(session, dataChannel, true);
+    }
+
+    /**
+     * Flushes the dirty bitset bytes of a session to its header file.
+     *
+     * @param blocking {@code false} to skip the flush if another thread is already flushing the session
+     */
+    private void flushSession(UploadSession session, FileChannel dataChannel, boolean blocking) throws IOException {
+        HeaderWriteEvent event = new HeaderWriteEvent();
+        event.begin();
+        PartFileLayout layout = session.getLayout();
+        int written;
+        if (layout.isLegacy()) {
+            written = blocking
+                    ? session.flush(dataChannel, PART_FILE_HEADER_FIXED_SIZE)
+                    : session.tryFlush(dataChannel, PART_FILE_HEADER_FIXED_SIZE);
+        } else {
+            try (PartFileChannelCache.Lease headerLease = channelCache.acquire(
+                    layout.headerChannelKey(session.getUploadId()), layout.getHeaderPath())) {
+                FileChannel headerChannel = headerLease.channel();
+                written = blocking
+                        ? session.flush(dataChannel, headerChannel, PART_FILE_HEADER_FIXED_SIZE)
+                        : session.tryFlush(dataChannel, headerChannel, PART_FILE_HEADER_FIXED_SIZE);
+            }
+        }
+        sessionRegistry.recordFlush(written);
+        if (written > 0) {
+            event.commit(session.getUploadId(), session.getTenant(), -1, written);
+        }
+    }
+
+    /**
+     * Returns the session of an upload registered for a chunk write, loading it from the header file if needed.
+     * The caller must call {@link UploadSession#endWrite()} when done.
+     */
+    private UploadSession beginSessionWrite(String username, String uploadId, Path partPath) throws IOException {
+        while (true) {
+            UploadSession session = sessionRegistry.get(uploadId);
+            if (session == null) {
+                // Chunks received but not flushed before a crash are missing from the persisted bitset and get re-sent
+                session = sessionRegistry.register(loadSession(username, uploadId, partPath));
+            }
+            if (session.beginWrite()) {
+                return session;
+            }
+            // Retired as idle concurrently: its state is on disk, reload it
+            sessionRegistry.remove(session);
+        }
+    }
+
+    private UploadSession loadSession(String username, String uploadId, Path partPath) throws IOException {
+        PartFileLayout layout = PartFileLayout.of(partPath);
+        // Go through the channel cache: the cached channel holds the file lock
+        try (PartFileChannelCache.Lease lease = channelCache.acquire(layout.headerChannelKey(uploadId), layout.getHeaderPath())) {
+            Header header = readHeader(lease.channel(), username, uploadId);
+            // An earlier session dropped while idle may have hashed a prefix of the payload already
+            IncrementalDigest digest = incrementalChecksum ? sessionRegistry.digestFor(uploadId, header) : null;
+            return new UploadSession(uploadId, username, layout, header, digest);
+        }
+    }
+
     public Y findUploadInfoByTenantAndUploadId(String username, String uploadId) {
-        return iTenantAccountPort.findByUsername(username).flatMap(
-                tenant -> iUploadInfoPort.findByTenantAndUploadId(tenant, uploadId)
-        ).orElse(null);
+        return resolveTenant(username).flatMap(tenant -> findUploadInfo(tenant, username, uploadId)).orElse(null);
+    }
+
+    /**
+     * Returns the metadata of an active upload of a tenant. Served from memory once the
+     * tenant and the upload are cached, e.g. for every chunk after registration.
+     *
+     * @param username The tenant username
+     * @param uploadId The upload ID
+     * @return The upload metadata, or empty if the tenant has no such active upload
+     */
+    public Optional<UploadMetadata> getUploadMetadata(String username, String uploadId) {
+        return resolveTenant(username).flatMap(tenant -> findUploadInfo(tenant, username, uploadId)
+                .map(info -> new UploadMetadata(uploadId, info.getChecksum(), info.getFilename(), username, tenant.id())));
+    }
+
+    private Optional<Y> findUploadInfo(TenantResolutionCache.Tenant<T> tenant, String username, String uploadId) {
+        return uploadInfoCache.get(uploadId, username, id -> iUploadInfoPort.findByTenantAndUploadId(tenant.account(), id));
+    }
+
+    /**
+     * Resolves the tenant of a username through the tenant cache.
+     *
+     * @param username The tenant username
+     * @return The tenant, or empty if no account has this username
+     */
+    public Optional<TenantResolutionCache.Tenant<T>> resolveTenant(String username) {
+        return tenantCache.resolve(username, name -> iTenantAccountPort.findByUsername(name)
+                .map(account -> new TenantResolutionCache.Tenant<>(account, inProgressDir.resolve(String.valueOf(account.getId())))));
+    }
+
+    /**
+     * Drops the cached tenant of a username. Must be called when the account is updated or deleted.
+     *
+     * @param username The tenant username
+     */
+    public void invalidateTenant(String username) {
+        tenantCache.invalidate(username);
+    }
+
+    private TenantResolutionCache.Tenant<T> requireTenant(String username) {
+        return resolveTenant(username).orElseThrow(() -> new IllegalStateException("Tenant not found for username: " + username));
     }
 
     public byte[] readBitsetBytesFromHeader(Path partPath) throws IOException {
-        try (FileChannel ch = FileChannel.open(partPath, StandardOpenOption.READ)) {
-            var header = readHeader(ch);
-            return header.bitset;
+        PartFileLayout layout = PartFileLayout.of(partPath);
+        // Go through the channel cache: closing another channel of the file would drop the lock of the cached one
+        try (PartFileChannelCache.Lease lease = channelCache.acquire(layout.headerChannelKey(uploadIdOf(partPath)), layout.getHeaderPath())) {
+            return readHeader(lease.channel()).bitset;
         }
     }
 
-    protected IUploadInfo getUploadInfo(String uploadId) {
-        return uploadInfoMap.get(uploadId);
+    /**
+     * Returns the upload info of an active upload of any tenant, through the upload info cache.
+     *
+     * @param uploadId The upload ID
+     * @return The upload info, or {@code null} if there is no such active upload
+     */
+    protected Y getUploadInfo(String uploadId) {
+        return uploadInfoCache.get(uploadId, null, iUploadInfoPort::findByUploadId).orElse(null);
     }
 
     public void removeUploadInfo(String uploadId) {
-        uploadInfoMap.remove(uploadId);
+        uploadInfoCache.invalidate(uploadId);
     }
 
     private Path getPartPath(String username, String uploadId) throws Throwable {
-        T tenantAccount = iTenantAccountPort.findByUsername(username).orElseThrow(() -> new IllegalStateException("Tenant not found for username: " + username));
-        Long dbId = tenantAccount.getId();
-        return inProgressDir.resolve(String.valueOf(dbId)).resolve(uploadId + ".part");
+        return requireTenant(username).uploadDir().resolve(uploadId + PART_SUFFIX);
+    }
+
+    private static String uploadIdOf(Path partPath) {
+        String name = partPath.getFileName().toString();
+        return name.endsWith(PART_SUFFIX) ? name.substring(0, name.length() - PART_SUFFIX.length()) : name;
     }
 
     private Path getFinalPath(String username, String uploadId) throws Throwable {
-        T tenantAccount = iTenantAccountPort.findByUsername(username).orElseThrow(() -> new IllegalStateException("Tenant not found for username: " + username));
-        Y uploadInfo = iUploadInfoPort.findByTenantAndUploadId(tenantAccount, uploadId).orElseThrow(() -> new IllegalStateException("UploadInfo not found for tenant id: " + tenantAccount.getId()));
-        return completeDir.resolve(String.valueOf(tenantAccount.getId())).resolve(uploadId + "_" + uploadInfo.getFilename());
+        TenantResolutionCache.Tenant<T> tenant = requireTenant(username);
+        Y uploadInfo = findUploadInfo(tenant, username, uploadId).orElseThrow(() -> new IllegalStateException("UploadInfo not found for tenant id: " + tenant.id()));
+        return getFinalPath(tenant, uploadId, uploadInfo);
     }
 
+    private Path getFinalPath(TenantResolutionCache.Tenant<T> tenant, String uploadId, Y uploadInfo) {
+        return completeDir.resolve(String.valueOf(tenant.id())).resolve(uploadId + "_" + uploadInfo.getFilename());
+    }
+
+    /**
+     * Creates the files of a new upload, or validates the header of an existing one.
+     *
+     * <p>
+     * New uploads use the split layout of {@link PartFileLayout}: an empty part file that
+     * receives exactly the payload, and a sidecar header file. Existing single-file uploads
+     * are validated in place and keep their layout until they complete.
+     *
+     * @param partPath    The part file of the upload
+     * @param totalChunks Number of chunks
+     * @param chunkSize   Chunk size in bytes
+     * @param fileSize    Payload size in bytes
+     * @return The persisted header
+     * @throws IllegalStateException if an existing upload has different parameters
+     */
     public Header createOrValidateHeader(Path partPath, int totalChunks, int chunkSize, long fileSize) throws IOException {
         int bitsetBytes = (totalChunks + 7) / 8;
         int headerSize = PART_FILE_HEADER_FIXED_SIZE + bitsetBytes;
@@ -94,13 +509,33 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
         createParentDirectory(partPath);
         log.debug("Creating or validating upload part file: {}", partPath);
 
-        try (FileChannel ch = FileChannel.open(partPath, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+        PartFileLayout layout = PartFileLayout.of(partPath);
+        if (!layout.isLegacy()) {
+            try {
+                // The part file first: an empty part file without a header file is a new upload, never a legacy one
+                Files.newByteChannel(partPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW).close();
+            } catch (FileAlreadyExistsException e) {
+                // Resumed upload
+            }
+            try (FileChannel ch = FileChannel.open(layout.getHeaderPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+                Header header = createHeader(ch, headerSize, totalChunks, chunkSize, fileSize, bitsetBytes);
+                ch.force(true);
+                return header;
+            } catch (FileAlreadyExistsException e) {
+                // Resumed upload: validated below
+            }
+        }
+        // Existing files are only opened through the channel cache: on POSIX systems, closing another
+        // channel of a file drops the lock held by its cached channel
+        try (PartFileChannelCache.Lease lease = channelCache.acquire(layout.headerChannelKey(uploadIdOf(partPath)), layout.getHeaderPath())) {
+            FileChannel ch = lease.channel();
             if (ch.size() == 0) {
-                ch.truncate(headerSize + fileSize);
-                return createHeader(ch, headerSize, totalChunks, chunkSize, fileSize, bitsetBytes);
-            } else {
-                return validateHeader(ch, totalChunks, chunkSize, fileSize);
+                // Created by a registration interrupted before the header was written
+                Header header = createHeader(ch, headerSize, totalChunks, chunkSize, fileSize, bitsetBytes);
+                ch.force(true);
+                return header;
             }
+            return validateHeader(ch, totalChunks, chunkSize, fileSize);
         }
     }
 
@@ -136,11 +571,26 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
 
     public Header readHeader(String usename, String uploadId) throws Throwable {
         Path filePath = getPartPath(usename, uploadId);
-        try (FileChannel ch = FileChannel.open(filePath, StandardOpenOption.READ)) {
-            return readHeader(ch);
+        // The in-memory session is ahead of the header file until its next flush
+        UploadSession session = sessionRegistry.get(uploadId);
+        if (session != null) {
+            return session.snapshot();
+        }
+        PartFileLayout layout = PartFileLayout.of(filePath);
+        // Go through the channel cache: the cached channel holds the file lock
+        try (PartFileChannelCache.Lease lease = channelCache.acquire(layout.headerChannelKey(uploadId), layout.getHeaderPath())) {
+            return readHeader(lease.channel(), usename, uploadId);
         }
     }
 
+    private Header readHeader(FileChannel ch, String username, String uploadId) throws IOException {
+        HeaderReadEvent event = new HeaderReadEvent();
+        event.begin();
+        Header header = readHeader(ch);
+        event.commit(uploadId, username, -1, PART_FILE_HEADER_FIXED_SIZE + header.bitset.length);
+        return header;
+    }
+
     private Header readHeader(FileChannel ch) throws IOException {
         ByteBuffer fixed = ByteBuffer.allocate(PART_FILE_HEADER_FIXED_SIZE).order(java.nio.ByteOrder.BIG_ENDIAN);
         ch.read(fixed, 0);
@@ -159,7 +609,10 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
     }
 
     private void validateChunkSize(int chunkNumber, Header header, byte[] file) {
-        long actualChunkLength = file != null ? file.length : -1;
+        validateChunkSize(chunkNumber, header, file != null ? file.length : -1);
+    }
+
+    private void validateChunkSize(int chunkNumber, Header header, long actualChunkLength) {
         boolean isLastChunk = (chunkNumber == header.totalChunks - 1);
         long expectedLastChunkSize = header.fileSize % header.chunkSize;
         if (expectedLastChunkSize == 0) {
@@ -188,7 +641,10 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
         if (checksum == null || checksum.isEmpty())
             throw new IllegalArgumentException("checksum is required");
 
+        HeaderWriteEvent event = new HeaderWriteEvent();
+        event.begin();
         Header header = createOrValidateHeader(getPartPath(username, uploadId), (int) Math.ceil((double) fileSize / defaultChunkSize), defaultChunkSize, fileSize);
+        event.commit(uploadId, username, -1, PART_FILE_HEADER_FIXED_SIZE + header.bitset.length);
         Y uploadInfo = createUploadInfo(username, uploadId, header, fileName, checksum);
         try {
             log.debug("Saving upload info to file:" + uploadInfo.getClass().getName());
@@ -198,10 +654,30 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
         } catch (Exception e) {
             log.debug("Could not save upload info to file: {}", e.getMessage());
         }
-        this.uploadInfoMap.put(uploadId, uploadInfo);
+        uploadInfoCache.put(uploadId, uploadInfo, username);
         return uploadInfo;
     }
 
+    /**
+     * Registers an upload without blocking the calling thread.
+     *
+     * <p>
+     * Creating the header and persisting the upload info have no non-blocking form, so the
+     * registration runs on the {@linkplain #setAsyncExecutor(ExecutorService) asynchronous pool}.
+     *
+     * @return A future of the registered upload info, failed as {@link #registerUploadingFile} would throw
+     * @see #registerUploadingFile(String, String, String, long, String)
+     */
+    public CompletableFuture<Y> registerAsync(String username, String uploadId, String fileName, long fileSize, String checksum) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return registerUploadingFile(username, uploadId, fileName, fileSize, checksum);
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor);
+    }
+
     abstract protected Y createUploadInfo(String username, String uploadId, Header header, String fileName, String checksum) throws Throwable;
 
     /**
@@ -221,9 +697,8 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
      */
     public void updateUploadInfoLastUpdateTime(String uploadId) {
         try {
-            iUploadInfoPort.findByUploadId(uploadId).ifPresent(info -> {
+            uploadInfoCache.get(uploadId, null, iUploadInfoPort::findByUploadId).ifPresent(uploadInfo -> {
                 try {
-                    Y uploadInfo = (Y) info;
                     // Update lastUpdateDateTime - concrete implementation should handle this
                     updateLastUpdateDateTime(uploadInfo);
                     // Use the abstract save method to avoid interface conflicts
@@ -238,6 +713,17 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
         }
     }
 
+    /**
+     * Persists the last update time of several uploads at once.
+     * The default updates them one by one; implementations should issue a single batched update.
+     *
+     * @param uploadIds          The uploads that received chunks since the previous flush
+     * @param lastUpdateDateTime The time to record
+     */
+    protected void saveLastUpdateDateTimes(Set<String> uploadIds, LocalDateTime lastUpdateDateTime) {
+        uploadIds.forEach(this::updateUploadInfoLastUpdateTime);
+    }
+
     /**
      * Abstract method to update the lastUpdateDateTime field.
      * Concrete implementations should provide the specific logic for their entity type.
@@ -254,155 +740,983 @@ public abstract class AbstractChunkedUpload<T extends ITenantAccount, Y extends
      */
     protected abstract void moveToHistory(Y uploadInfo);
 
-    public void writeChunk(String username, String uploadId, int chunkNumber, byte[] data) throws Throwable {
+    /**
+     * Writes one chunk of an upload and finalizes the upload when it was the last missing chunk.
+     *
+     * <p>
+     * Chunks of the same upload may be written concurrently:
+     * <ul>
+     * <li>Each chunk targets its own byte range, so data writes to the shared part-file channel are not serialized</li>
+     * <li>Only marking the chunk in the in-memory bitset and detecting completion are serialized</li>
+     * <li>Exactly one writer observes completion and assembles the file, or hands it to the
+     * {@link FinalizationExecutor} if one is set and returns without waiting for it</li>
+     * </ul>
+     *
+     * @return {@code true} if the chunk completed the upload
+     */
+    public boolean writeChunk(String username, String uploadId, int chunkNumber, byte[] data) throws Throwable {
+        return writeChunk(username, uploadId, chunkNumber, (ch, header, offset) -> {
+            validateChunkSize(chunkNumber, header, data);
+            log.debug("Writing chunk: uploadId={}, chunkNumber={}, data.length={}", uploadId, chunkNumber, data.length);
+            writeFully(ch, ByteBuffer.wrap(data), offset);
+            return ByteBuffer.wrap(data);
+        });
+    }
+
+    /**
+     * Streams one chunk from a channel straight into the part file, without buffering it on the heap.
+     *
+     * <p>
+     * The chunk size is enforced while streaming:
+     * <ul>
+     * <li>At most the expected chunk length is written, at the chunk offset</li>
+     * <li>Data left in the source after that, or an early end of stream, fails the chunk</li>
+     * <li>A failed chunk is not marked as received, so it can simply be sent again</li>
+     * </ul>
+     *
+     * @param username    The tenant username
+     * @param uploadId    The upload ID
+     * @param chunkNumber The 0-based chunk index
+     * @param src         Channel positioned at the start of the chunk body; read to its end but not closed
+     * @return {@code true} if the chunk completed the upload
+     * @throws IllegalArgumentException if the chunk number or the streamed length is invalid
+     */
+    public boolean writeChunk(String username, String uploadId, int chunkNumber, ReadableByteChannel src) throws Throwable {
+        return writeChunk(username, uploadId, chunkNumber, (ch, header, offset) -> {
+            transferChunk(uploadId, chunkNumber, src, ch, header, offset);
+            return null;
+        });
+    }
+
+    /**
+     * Streams one chunk whose length is declared up front, e.g. by a {@code Content-Length} header.
+     *
+     * <p>
+     * The declared length is checked against the expected chunk length before any byte
+     * is read, so a wrongly sized request is rejected without consuming its body. The
+     * streamed length is still enforced as in {@link #writeChunk(String, String, int, ReadableByteChannel)}.
+     *
+     * @param username       The tenant username
+     * @param uploadId       The upload ID
+     * @param chunkNumber    The 0-based chunk index
+     * @param in             Stream positioned at the start of the chunk body; read to its end but not closed
+     * @param declaredLength The length announced by the client
+     * @return {@code true} if the chunk completed the upload
+     * @throws IllegalArgumentException if the chunk number, the declared or the streamed length is invalid
+     */
+    public boolean writeChunk(String username, String uploadId, int chunkNumber, InputStream in, long declaredLength) throws Throwable {
+        return writeChunk(username, uploadId, chunkNumber, (ch, header, offset) -> {
+            validateChunkSize(chunkNumber, header, declaredLength);
+            transferChunk(uploadId, chunkNumber, Channels.newChannel(in), ch, header, offset);
+            return null;
+        });
+    }
+
+    /**
+     * Streams one chunk from an input stream straight into the part file.
+     *
+     * @param username    The tenant username
+     * @param uploadId    The upload ID
+     * @param chunkNumber The 0-based chunk index
+     * @param in          Stream positioned at the start of the chunk body; read to its end but not closed
+     * @return {@code true} if the chunk completed the upload
+     * @throws IllegalArgumentException if the chunk number or the streamed length is invalid
+     * @see #writeChunk(String, String, int, ReadableByteChannel)
+     */
+    public boolean writeChunk(String username, String uploadId, int chunkNumber, InputStream in) throws Throwable {
+        return writeChunk(username, uploadId, chunkNumber, Channels.newChannel(in));
+    }
+
+    private void transferChunk(String uploadId, int chunkNumber, ReadableByteChannel src,
+                               FileChannel ch, Header header, long offset) throws IOException {
+        long expected = expectedChunkLength(chunkNumber, header);
+        log.debug("Streaming chunk: uploadId={}, chunkNumber={}, expectedLength={}", uploadId, chunkNumber, expected);
+        long transferred = 0;
+        while (transferred < expected) {
+            long n = ch.transferFrom(src, offset + transferred, expected - transferred);
+            if (n <= 0) {
+                break; // end of stream
+            }
+            transferred += n;
+        }
+        if (transferred == expected && src.read(ByteBuffer.allocate(1)) > 0) {
+            transferred++; // more data than the chunk can hold
+        }
+        validateChunkSize(chunkNumber, header, transferred);
+    }
+
+    private static long expectedChunkLength(int chunkNumber, Header header) {
+        return chunkNumber == header.totalChunks - 1
+                ? header.fileSize - (long) chunkNumber * header.chunkSize
+                : header.chunkSize;
+    }
+
+    /**
+     * Writes the data of one chunk at its offset in the part file.
+     */
+    @FunctionalInterface
+    private interface ChunkDataWriter {
+        /**
+         * @return The chunk data if it was held in memory, {@code null} if it was streamed
+         */
+        ByteBuffer write(FileChannel ch, Header header, long offset) throws IOException;
+    }
+
+    private boolean writeChunk(String username, String uploadId, int chunkNumber, ChunkDataWriter dataWriter) throws Throwable {
+        if (finalizations.containsKey(uploadId)) {
+            // Every chunk was received: a re-sent chunk, e.g. after a lost response, has nothing left to write
+            log.debug("Ignoring chunk {} of uploadId={}, the upload is being finalized", chunkNumber, uploadId);
+            return true;
+        }
         Path partPath = getPartPath(username, uploadId);
-        // Use a per-uploadId lock to serialize access to the file/channel
-        ReentrantLock lock = uploadLocks.computeIfAbsent(uploadId, k -> new ReentrantLock());
-        lock.lock();
-        Header headerRef = null;
-        boolean needAssemble = false;
+        UploadMetrics metrics = this.metrics;
+        boolean completed;
+        UploadSession session = beginSessionWrite(username, uploadId, partPath);
         try {
-            // Open and lock the part file, write the chunk, update header, then close channel/lock
-            try (FileChannel ch = FileChannel.open(partPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
-                log.debug("Attempting to acquire file lock for uploadId={}, chunkNumber={}, partPath={}", uploadId, chunkNumber, partPath);
-                try (FileLock fileLock = ch.lock()) {
-                    log.debug("Acquired file lock for uploadId={}, chunkNumber={}, partPath={}", uploadId, chunkNumber, partPath);
-                    Header header = readHeader(ch);
-                    // Validate chunk number bounds
-                    if (chunkNumber < 0 || chunkNumber >= header.totalChunks) {
-                        throw new IllegalArgumentException("Invalid chunk number: " + chunkNumber + ", totalChunks: " + header.totalChunks);
-                    }
-                    validateChunkSize(chunkNumber, header, data);
+            LockAcquireEvent lockEvent = new LockAcquireEvent(UploadMetrics.LOCK_PART_FILE);
+            lockEvent.begin();
+            long started = System.nanoTime();
+            // Reuse the cached channel of the part file; its file lock is held while the channel stays cached
+            try (PartFileChannelCache.Lease lease = channelCache.acquire(uploadId, session.getPartPath())) {
+                long acquired = System.nanoTime();
+                lockEvent.commit(uploadId, username, chunkNumber, 0);
+                metrics.lockWaited(UploadMetrics.LOCK_PART_FILE, acquired - started);
+                FileChannel ch = lease.channel();
+                Header header = session.getHeader();
+                long offset = chunkOffset(session, chunkNumber);
+                ChunkWriteEvent writeEvent = new ChunkWriteEvent();
+                writeEvent.begin();
+                ByteBuffer arrived = dataWriter.write(ch, header, offset);
+                long written = System.nanoTime();
+                writeEvent.commit(uploadId, username, chunkNumber, expectedChunkLength(chunkNumber, header));
+                completed = markChunkWritten(username, session, ch, chunkNumber, arrived, metrics, written - acquired);
+            }
+        } finally {
+            session.endWrite();
+        }
+        return completeChunk(username, uploadId, completed ? session : null, metrics);
+    }
+
+    /**
+     * Writes one chunk through the asynchronous channel of the part file, without blocking the calling thread.
+     *
+     * <p>
+     * The write is handed to the part file with a completion handler:
+     * <ul>
+     * <li>The calling thread only validates the chunk and starts the write; the session of an
+     * upload is loaded on the calling thread the first time it is used after a restart</li>
+     * <li>Marking the chunk, the incremental checksum and the header group commit run in the
+     * completion handler, on the {@linkplain #setAsyncExecutor(ExecutorService) asynchronous pool}</li>
+     * <li>The chunk that completes the upload is assembled on that pool, or handed to the
+     * {@link FinalizationExecutor} if one is set, as by {@link #writeChunk(String, String, int, byte[])}</li>
+     * </ul>
+     * Chunks written with this method and with the blocking ones can be mixed within an upload.
+     *
+     * @param username    The tenant username
+     * @param uploadId    The upload ID
+     * @param chunkNumber The 0-based chunk index
+     * @param data        The chunk data, from its position to its limit; must not be modified until the future completes
+     * @return A future completed with {@code true} if the chunk completed the upload, or failed
+     * as the blocking {@code writeChunk} would throw
+     * @see #finalizeAsync(String, String)
+     * @see #openChunkStream(String, String, int, long)
+     */
+    public CompletableFuture<Boolean> writeChunkAsync(String username, String uploadId, int chunkNumber, ByteBuffer data) {
+        if (finalizations.containsKey(uploadId)) {
+            log.debug("Ignoring chunk {} of uploadId={}, the upload is being finalized", chunkNumber, uploadId);
+            return CompletableFuture.completedFuture(true);
+        }
+        PartFileChunkStream stream;
+        try {
+            stream = openPartFileChunkStream(username, uploadId, chunkNumber, data.remaining());
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        ByteBuffer chunk = data.slice();
+        log.debug("Writing chunk asynchronously: uploadId={}, chunkNumber={}, length={}", uploadId, chunkNumber, chunk.remaining());
+        // Marked in the completion handler of the write; the chunk held in memory feeds the checksum
+        return stream.write(chunk.duplicate()).thenCompose(written -> stream.complete(chunk));
+    }
+
+    /**
+     * Opens one chunk whose body arrives in pieces, such as the buffers of a non-blocking HTTP request,
+     * and writes each piece through the asynchronous channel of the part file as it arrives.
+     *
+     * <p>
+     * Compared to {@link #writeChunk(String, String, int, InputStream, long)}:
+     * <ul>
+     * <li>No thread waits for the body: the caller writes the next piece once the previous one is written</li>
+     * <li>The chunk size is enforced the same way: a piece going past the chunk fails its write, and
+     * completing a shorter chunk fails</li>
+     * <li>The part file stays leased until the stream is completed or aborted, so a stream must always end</li>
+     * </ul>
+     *
+     * @param username       The tenant username
+     * @param uploadId       The upload ID
+     * @param chunkNumber    The 0-based chunk index
+     * @param declaredLength The length announced by the client, checked before any piece is written; negative if unknown
+     * @return The stream of the chunk; if the upload is being finalized, a stream discarding the pieces
+     * and completing with {@code true}
+     * @throws IllegalArgumentException if the chunk number or the declared length is invalid
+     */
+    public ChunkStream openChunkStream(String username, String uploadId, int chunkNumber, long declaredLength) throws Throwable {
+        if (finalizations.containsKey(uploadId)) {
+            log.debug("Ignoring chunk {} of uploadId={}, the upload is being finalized", chunkNumber, uploadId);
+            return DISCARDED_CHUNK;
+        }
+        return openPartFileChunkStream(username, uploadId, chunkNumber, declaredLength);
+    }
+
+    /**
+     * Stream of a chunk re-sent while its upload is finalized: every chunk was received, so its data is dropped.
+     */
+    private static final ChunkStream DISCARDED_CHUNK = new ChunkStream() {
+        @Override
+        public CompletableFuture<Void> write(ByteBuffer data) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> complete() {
+            return CompletableFuture.completedFuture(true);
+        }
 
-                    log.debug("Writing chunk: uploadId={}, chunkNumber={}, data.length={}, partPath={}", uploadId, chunkNumber, data != null ? data.length : -1, partPath);
+        @Override
+        public void abort() {
+        }
+    };
 
-                    long headerSize = PART_FILE_HEADER_FIXED_SIZE + header.bitset.length;
-                    long offset = headerSize + (long) chunkNumber * header.chunkSize;
-                    ch.write(ByteBuffer.wrap(data), offset);
+    private PartFileChunkStream openPartFileChunkStream(String username, String uploadId, int chunkNumber, long declaredLength) throws Throwable {
+        UploadMetrics metrics = this.metrics;
+        UploadSession session = beginSessionWrite(username, uploadId, getPartPath(username, uploadId));
+        PartFileChannelCache.Lease lease = null;
+        try {
+            LockAcquireEvent lockEvent = new LockAcquireEvent(UploadMetrics.LOCK_PART_FILE);
+            lockEvent.begin();
+            long started = System.nanoTime();
+            lease = channelCache.acquire(uploadId, session.getPartPath());
+            long acquired = System.nanoTime();
+            lockEvent.commit(uploadId, username, chunkNumber, 0);
+            metrics.lockWaited(UploadMetrics.LOCK_PART_FILE, acquired - started);
+            long offset = chunkOffset(session, chunkNumber);
+            Header header = session.getHeader();
+            if (declaredLength >= 0) {
+                validateChunkSize(chunkNumber, header, declaredLength);
+            }
+            return new PartFileChunkStream(username, uploadId, chunkNumber, session, lease,
+                    lease.asyncChannel(asyncExecutor), offset, expectedChunkLength(chunkNumber, header), metrics);
+        } catch (Throwable e) {
+            if (lease != null) {
+                lease.close();
+            }
+            session.endWrite();
+            throw e;
+        }
+    }
 
-                    boolean isCompleted = BitsetManager.markChunkAndCheckComplete(header, chunkNumber);
-                    writeHeader(ch, header);
+    /**
+     * Chunk being written piece by piece through the asynchronous channel of its part file.
+     * The lease and the session write registration are released once the chunk is marked or given up,
+     * and never while a piece is in flight.
+     */
+    private final class PartFileChunkStream implements ChunkStream, CompletionHandler<Integer, ByteBuffer> {
+        private final String username;
+        private final String uploadId;
+        private final int chunkNumber;
+        private final UploadSession session;
+        private final PartFileChannelCache.Lease lease;
+        private final AsynchronousFileChannel ach;
+        private final long offset;
+        private final long length;
+        private final UploadMetrics metrics;
+        private long written;
+        private long diskWriteNanos;
+        private long pieceStarted;
+        private long pieceLength;
+        private ChunkWriteEvent writeEvent;
+        private CompletableFuture<Void> pendingWrite;
+        private boolean closed;
+        private boolean released;
 
-                    // Update lastUpdateDateTime in database
-                    updateUploadInfoLastUpdateTime(uploadId);
+        private PartFileChunkStream(String username, String uploadId, int chunkNumber, UploadSession session,
+                                    PartFileChannelCache.Lease lease, AsynchronousFileChannel ach,
+                                    long offset, long length, UploadMetrics metrics) {
+            this.username = username;
+            this.uploadId = uploadId;
+            this.chunkNumber = chunkNumber;
+            this.session = session;
+            this.lease = lease;
+            this.ach = ach;
+            this.offset = offset;
+            this.length = length;
+            this.metrics = metrics;
+        }
 
-                    // preserve header and assembly decision after channel/lock are closed
-                    if (isCompleted) {
-                        needAssemble = true;
-                        headerRef = header;
-                        log.debug("All chunks received for uploadId={}, will assemble after releasing file lock", uploadId);
+        @Override
+        public synchronized CompletableFuture<Void> write(ByteBuffer data) {
+            IllegalStateException notWritable = checkWritable();
+            if (notWritable != null) {
+                return CompletableFuture.failedFuture(notWritable);
+            }
+            try {
+                if (written + data.remaining() > length) {
+                    validateChunkSize(chunkNumber, session.getHeader(), written + data.remaining()); // always throws: longer than the chunk
+                }
+                pendingWrite = new CompletableFuture<>();
+                CompletableFuture<Void> piece = pendingWrite;
+                pieceLength = data.remaining();
+                writeEvent = new ChunkWriteEvent();
+                writeEvent.begin();
+                pieceStarted = System.nanoTime();
+                ach.write(data, offset + written, data, this);
+                return piece;
+            } catch (RuntimeException e) {
+                pendingWrite = null;
+                release();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @Override
+        public void completed(Integer count, ByteBuffer src) {
+            CompletableFuture<Void> piece;
+            synchronized (this) {
+                written += count;
+                if (src.hasRemaining()) {
+                    // Short write: continue from where it stopped
+                    try {
+                        ach.write(src, offset + written, src, this);
+                    } catch (RuntimeException e) {
+                        failed(e, src);
                     }
+                    return;
                 }
-                // fileLock and ch are closed here (exiting try-with-resources for ch)
+                diskWriteNanos += System.nanoTime() - pieceStarted;
+                writeEvent.commit(uploadId, username, chunkNumber, pieceLength);
+                piece = pendingWrite;
+                pendingWrite = null;
+                if (closed) {
+                    release(); // aborted while the piece was in flight
+                }
+            }
+            piece.complete(null);
+        }
+
+        @Override
+        public void failed(Throwable cause, ByteBuffer src) {
+            // Not marked: the chunk can simply be sent again
+            log.debug("Asynchronous write of chunk {} of uploadId={} failed: {}", chunkNumber, uploadId, cause.getMessage());
+            CompletableFuture<Void> piece;
+            synchronized (this) {
+                piece = pendingWrite;
+                pendingWrite = null;
+                release();
             }
+            piece.completeExceptionally(cause);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> complete() {
+            // Marking may flush the header and assemble the upload, too slow for an event loop thread
+            return CompletableFuture.supplyAsync(() -> complete(null), asyncExecutor).thenCompose(Function.identity());
+        }
 
-            if (needAssemble) {
-                // assemble while still holding the ReentrantLock to prevent concurrent writers
+        /**
+         * @param arrived The whole chunk if it was held in memory, {@code null} if it arrived in pieces
+         */
+        private CompletableFuture<Boolean> complete(ByteBuffer arrived) {
+            boolean completed;
+            synchronized (this) {
+                IllegalStateException notWritable = checkWritable();
+                if (notWritable != null) {
+                    return CompletableFuture.failedFuture(notWritable);
+                }
                 try {
-                    assembleFile(username, uploadId, partPath, headerRef);
+                    if (written != length) {
+                        validateChunkSize(chunkNumber, session.getHeader(), written); // always throws: shorter than the chunk
+                    }
+                    completed = markChunkWritten(username, session, lease.channel(), chunkNumber, arrived, metrics, diskWriteNanos);
+                } catch (Throwable e) {
+                    return CompletableFuture.failedFuture(e);
                 } finally {
-                    // Clean up lock map after assembly completes
-                    uploadLocks.remove(uploadId);
+                    release();
                 }
             }
+            try {
+                return CompletableFuture.completedFuture(completeChunk(username, uploadId, completed ? session : null, metrics));
+            } catch (Throwable e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @Override
+        public synchronized void abort() {
+            if (pendingWrite == null) {
+                release();
+            } else {
+                closed = true; // released when the piece in flight ends
+            }
+        }
+
+        /**
+         * @return Why the stream cannot take a piece or be completed now, {@code null} if it can
+         */
+        private IllegalStateException checkWritable() {
+            if (closed) {
+                return new IllegalStateException("Chunk " + chunkNumber + " of uploadId=" + uploadId + " is no longer open");
+            }
+            if (pendingWrite != null) {
+                return new IllegalStateException("A write of chunk " + chunkNumber + " of uploadId=" + uploadId + " is still in flight");
+            }
+            return null;
+        }
+
+        private void release() {
+            closed = true;
+            if (!released) {
+                released = true;
+                lease.close();
+                session.endWrite();
+            }
+        }
+    }
+
+    /**
+     * @return The offset of a chunk in the data file of the session
+     * @throws IllegalArgumentException if the chunk number is out of bounds
+     */
+    private static long chunkOffset(UploadSession session, int chunkNumber) {
+        Header header = session.getHeader();
+        if (chunkNumber < 0 || chunkNumber >= header.totalChunks) {
+            throw new IllegalArgumentException("Invalid chunk number: " + chunkNumber + ", totalChunks: " + header.totalChunks);
+        }
+        return session.getLayout().dataOffset(header.bitset.length) + (long) chunkNumber * header.chunkSize;
+    }
+
+    /**
+     * Marks a chunk whose data was written, advances the checksum and flushes the header when due.
+     *
+     * @param arrived        The chunk data if it was held in memory, {@code null} if it was streamed
+     * @param diskWriteNanos Time spent writing the chunk data
+     * @return {@code true} if the chunk completed the upload, whose full bitset was then flushed
+     */
+    private boolean markChunkWritten(String username, UploadSession session, FileChannel ch, int chunkNumber,
+                                     ByteBuffer arrived, UploadMetrics metrics, long diskWriteNanos) throws IOException {
+        long written = System.nanoTime();
+        boolean isCompleted = session.markChunk(chunkNumber);
+        long marked = System.nanoTime();
+        long hashed = session.advanceDigest(chunkNumber, arrived, ch);
+        long digested = System.nanoTime();
+        if (isCompleted) {
+            // Always persist the full bitset before finalizing
+            flushSession(session, ch);
+            log.debug("All chunks received for uploadId={}, will assemble after releasing the channel", session.getUploadId());
+        } else if (sessionRegistry.isFlushDue(session, System.currentTimeMillis())) {
+            // Group commit: persist the dirty bitset bytes every N chunks / T ms
+            flushSession(session, ch, false);
+        }
+        long flushed = System.nanoTime();
+
+        metrics.chunkWritten(username, expectedChunkLength(chunkNumber, session.getHeader()),
+                diskWriteNanos, (marked - written) + (flushed - digested));
+        if (hashed > 0) {
+            metrics.checksumComputed(hashed, digested - marked);
+        }
+        return isCompleted;
+    }
+
+    /**
+     * Records the activity of a written chunk and finalizes the upload if the chunk completed it.
+     * Called once the part-file channel is released.
+     *
+     * @param completed The session of the upload if the chunk completed it, {@code null} otherwise
+     * @return {@code true} if the chunk completed the upload
+     */
+    private boolean completeChunk(String username, String uploadId, UploadSession completed, UploadMetrics metrics) throws Throwable {
+        // Update lastUpdateDateTime in database, or in the next batch
+        long activityStarted = System.nanoTime();
+        recordActivity(uploadId);
+        metrics.activityRecorded(System.nanoTime() - activityStarted);
+
+        if (completed == null) {
+            return false;
+        }
+        FinalizationExecutor executor = finalizationExecutor;
+        if (executor == null) {
+            assembleFile(username, uploadId, completed);
+        } else {
+            scheduleFinalization(executor, username, uploadId, completed);
+        }
+        return true;
+    }
+
+    /**
+     * Hands the assembly of a complete upload to the finalization executor.
+     * At most one assembly per upload is pending at a time.
+     *
+     * @return The outcome of the pending assembly of the upload
+     */
+    private CompletableFuture<Boolean> scheduleFinalization(FinalizationExecutor executor, String username, String uploadId, UploadSession session) {
+        CompletableFuture<Boolean> finalization = new CompletableFuture<>();
+        CompletableFuture<Boolean> pending = finalizations.putIfAbsent(uploadId, finalization);
+        if (pending != null) {
+            log.debug("Finalization of uploadId={} is already pending", uploadId);
+            return pending;
+        }
+        try {
+            onFinalizationScheduled(uploadId);
+            executor.submit(session.getPartPath(), () -> runFinalization(username, uploadId, session));
+        } catch (RuntimeException e) {
+            finalizations.remove(uploadId);
+            finalization.completeExceptionally(e);
+            throw e;
+        }
+        return finalization;
+    }
+
+    private void runFinalization(String username, String uploadId, UploadSession session) {
+        Throwable failure = null;
+        try {
+            assembleFile(username, uploadId, session);
+            log.debug("Finalized uploadId={} on thread={}", uploadId, Thread.currentThread().getName());
+        } catch (Throwable e) {
+            failure = e;
+            log.error("Finalization failed for uploadId={}: {}", uploadId, e.getMessage(), e);
+            onFinalizationFailed(uploadId, e);
         } finally {
-            lock.unlock();
+            // Removed before completion: code waiting for the outcome no longer sees the upload as finalizing
+            CompletableFuture<Boolean> finalization = finalizations.remove(uploadId);
+            if (finalization != null) {
+                if (failure == null) {
+                    finalization.complete(true);
+                } else {
+                    finalization.completeExceptionally(failure);
+                }
+            }
         }
     }
 
-    private void writeHeader(FileChannel ch, Header h) throws IOException {
-        int bitsetBytes = h.bitset.length;
-        int headerSize = PART_FILE_HEADER_FIXED_SIZE + bitsetBytes;
-        ByteBuffer headerBuf = ByteBuffer.allocate(headerSize).order(java.nio.ByteOrder.BIG_ENDIAN);
-        headerBuf.putInt(0xCAFECAFE);
-        headerBuf.putInt(h.totalChunks);
-        headerBuf.putInt(h.chunkSize);
-        headerBuf.putLong(h.fileSize);
-        headerBuf.put(h.bitset);
-        headerBuf.flip();
-        ch.write(headerBuf, 0);
+    /**
+     * Finalizes an upload whose finalization was scheduled but did not finish, e.g. because the process stopped.
+     *
+     * <p>
+     * The upload is reloaded from its header file:
+     * <ul>
+     * <li>If every chunk is recorded, it is finalized as if its last chunk had just arrived:
+     * on the finalization executor if one is set, on the calling thread otherwise</li>
+     * <li>If the part file was already moved to its final path, the upload is moved to history</li>
+     * <li>Otherwise nothing is done, and the missing chunks have to be sent again</li>
+     * </ul>
+     * A lock file left by an assembly interrupted by a crash is not held anymore and does not block it.
+     *
+     * @param username The tenant username
+     * @param uploadId The upload ID
+     * @return {@code true} if the finalization was resumed, {@code false} if chunks are missing
+     * @throws IOException if neither the part file nor the final file of the upload exists
+     */
+    public boolean resumeFinalization(String username, String uploadId) throws Throwable {
+        return startFinalization(username, uploadId) != null;
     }
 
-    private void assembleFile(String username, String uploadId, Path partPath, Header header) throws Throwable {
-        Path finalPath = getFinalPath(username, uploadId);
+    /**
+     * Finalizes an upload without blocking the calling thread, and reports the outcome of its assembly.
+     *
+     * <p>
+     * Intended once the last chunk was written, or for an upload recovered after a restart:
+     * <ul>
+     * <li>If the assembly of the upload is pending, its outcome is returned; an upload among the
+     * last {@value #MAX_REMEMBERED_FINALIZATIONS} assembled is reported as such</li>
+     * <li>Otherwise the upload is reloaded and finalized as by {@link #resumeFinalization},
+     * on the {@linkplain #setAsyncExecutor(ExecutorService) asynchronous pool} if no
+     * {@link FinalizationExecutor} is set</li>
+     * </ul>
+     *
+     * @param username The tenant username
+     * @param uploadId The upload ID
+     * @return A future completed with {@code true} once the file is assembled and verified,
+     * {@code false} if chunks are missing; failed if the assembly failed, or with an
+     * {@link IOException} if the upload is unknown
+     */
+    public CompletableFuture<Boolean> finalizeAsync(String username, String uploadId) {
+        CompletableFuture<Boolean> pending = finalizations.get(uploadId);
+        if (pending != null) {
+            return pending;
+        }
+        if (finalizedUploads.contains(uploadId)) {
+            // Assembled before the call, e.g. by the thread that wrote the last chunk
+            return CompletableFuture.completedFuture(true);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return startFinalization(username, uploadId);
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor).thenCompose(finalization -> finalization != null ? finalization : CompletableFuture.completedFuture(false));
+    }
+
+    /**
+     * Reloads an upload and finalizes it if every chunk is recorded.
+     *
+     * @return The outcome of its assembly, or {@code null} if chunks are missing
+     */
+    private CompletableFuture<Boolean> startFinalization(String username, String uploadId) throws Throwable {
+        Path partPath = getPartPath(username, uploadId);
+        if (!Files.exists(partPath)) {
+            if (finalizedUploads.contains(uploadId) || completeMovedUpload(username, uploadId, partPath)) {
+                return CompletableFuture.completedFuture(true);
+            }
+            throw new IOException("Part file not found for uploadId=" + uploadId + ": " + partPath);
+        }
+        UploadSession session = beginSessionWrite(username, uploadId, partPath);
+        boolean complete;
+        try {
+            complete = session.claimCompletion();
+        } finally {
+            session.endWrite();
+        }
+        if (!complete) {
+            log.warn("Cannot resume finalization of uploadId={}: {} chunks missing", uploadId, session.getRemainingChunks());
+            return null;
+        }
+        FinalizationExecutor executor = finalizationExecutor;
+        if (executor != null) {
+            return scheduleFinalization(executor, username, uploadId, session);
+        }
+        CompletableFuture<Boolean> finalization = new CompletableFuture<>();
+        CompletableFuture<Boolean> pending = finalizations.putIfAbsent(uploadId, finalization);
+        if (pending != null) {
+            return pending;
+        }
+        runFinalization(username, uploadId, session);
+        return finalization;
+    }
+
+    /**
+     * Completes an upload whose part file was already moved to its final path, e.g. because the
+     * process stopped before the upload was moved to history.
+     *
+     * <p>
+     * The part file is only moved once its checksum was verified, so the final file is complete:
+     * the header file left behind, if any, is deleted and the upload is moved to history.
+     *
+     * @return {@code true} if the final file exists and the upload was completed
+     */
+    private boolean completeMovedUpload(String username, String uploadId, Path partPath) throws Throwable {
+        TenantResolutionCache.Tenant<T> tenant = requireTenant(username);
+        Y uploadInfo = findUploadInfo(tenant, username, uploadId).orElse(null);
+        if (uploadInfo == null || !Files.exists(getFinalPath(tenant, uploadId, uploadInfo))) {
+            return false;
+        }
+        Path lockPath = partPath.resolveSibling(partPath.getFileName() + ".lock");
+        AssemblyLock assemblyLock = acquireAssemblyLock(uploadId, lockPath);
+        try {
+            if (finalizedUploads.contains(uploadId)) {
+                return true;
+            }
+            log.info("Part file of uploadId={} was already moved to its final path, moving the upload to history", uploadId);
+            releaseUploadResources(uploadId);
+            Files.deleteIfExists(PartFileLayout.headerPathOf(partPath));
+            moveToHistory(uploadInfo);
+            iUploadInfoPort.delete(uploadInfo);
+            uploadInfoCache.invalidate(uploadId);
+            Files.deleteIfExists(lockPath);
+            finalizedUploads.add(uploadId);
+            return true;
+        } finally {
+            releaseAssemblyLock(uploadId, assemblyLock);
+        }
+    }
+
+    /**
+     * @param uploadId The upload ID
+     * @return {@code true} while the upload is waiting for or undergoing asynchronous finalization
+     */
+    public boolean isFinalizing(String uploadId) {
+        return finalizations.containsKey(uploadId);
+    }
+
+    /** @return Number of uploads waiting for or undergoing asynchronous finalization */
+    public int getFinalizingCount() {
+        return finalizations.size();
+    }
+
+    /**
+     * Called on the request thread before a complete upload is handed to the finalization executor.
+     * Implementations persist the state so that status queries report it and it can be resumed
+     * with {@link #resumeFinalization(String, String)} after a restart. The default does nothing.
+     *
+     * @param uploadId The upload ID
+     */
+    protected void onFinalizationScheduled(String uploadId) {
+    }
+
+    /**
+     * Called on the finalization thread when an upload could not be assembled or failed its
+     * checksum verification. The part file is kept. The default does nothing.
+     *
+     * @param uploadId The upload ID
+     * @param cause    The failure
+     */
+    protected void onFinalizationFailed(String uploadId, Throwable cause) {
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            position += ch.write(src, position);
+        }
+    }
+
+    /**
+     * Assembles a complete upload and reports the duration and outcome to the metrics.
+     */
+    private void assembleFile(String username, String uploadId, UploadSession session) throws Throwable {
+        UploadMetrics metrics = this.metrics;
+        long started = System.nanoTime();
+        boolean success = false;
+        try {
+            assembleFile(username, uploadId, session, metrics);
+            finalizedUploads.add(uploadId);
+            success = true;
+        } finally {
+            metrics.assembled(session.getHeader().fileSize, System.nanoTime() - started, success);
+        }
+    }
+
+    /**
+     * Turns the part file of a complete upload into the final file and verifies its checksum.
+     *
+     * <p>
+     * In the split layout the part file already holds exactly the payload: it is verified in
+     * place and atomically moved into the complete directory, so no payload byte is copied.
+     * Legacy single-file uploads still have their payload copied out of the part file.
+     */
+    private void assembleFile(String username, String uploadId, UploadSession session, UploadMetrics metrics) throws Throwable {
+        PartFileLayout layout = session.getLayout();
+        Header header = session.getHeader();
+        // Read before the upload resources, including its cached upload info, are released
+        TenantResolutionCache.Tenant<T> tenant = requireTenant(username);
+        Y uploadInfo = findUploadInfo(tenant, username, uploadId)
+                .orElseThrow(() -> new IllegalStateException("UploadInfo not found for tenant id: " + tenant.id()));
+        Path finalPath = getFinalPath(tenant, uploadId, uploadInfo);
+        Path partPath = layout.getDataPath();
 
         long fileSize = header.fileSize;
-        long headerSize = PART_FILE_HEADER_FIXED_SIZE + header.bitset.length;
         createParentDirectory(finalPath);
 
         Path lockPath = partPath.resolveSibling(partPath.getFileName() + ".lock");
 
-        log.debug("Assembling file for uploadId={}, partPath={}, finalPath={}, lockPath={}, fileSize={}, thread={}, time={}",
-                uploadId, partPath, finalPath, lockPath, fileSize, Thread.currentThread().getName(), System.currentTimeMillis());
+        log.debug("Assembling file for uploadId={}, partPath={}, finalPath={}, lockPath={}, fileSize={}, legacy={}, thread={}, time={}",
+                uploadId, partPath, finalPath, lockPath, fileSize, layout.isLegacy(), Thread.currentThread().getName(), System.currentTimeMillis());
         // DEBUG: Print actual final file path for comparison with test
         System.out.println("[DEBUG] Server assembled file path: " + finalPath.toAbsolutePath());
 
-        // Acquire lock file for chunk assembly
-        int maxAttempts = 30;
-        int attempt = 0;
-        while (true) {
-            try {
-                java.nio.file.Files.createFile(lockPath);
-                log.debug("Acquired lock file {} for uploadId={}, attempt={}, thread={}, time={}",
-                        lockPath, uploadId, attempt, Thread.currentThread().getName(), System.currentTimeMillis());
-                break;
-            } catch (java.nio.file.FileAlreadyExistsException e) {
-                attempt++;
-                if (attempt >= maxAttempts) {
-                    log.error("Failed to acquire lock file {} for uploadId={} after {} attempts", lockPath, uploadId, attempt);
-                    throw new IOException("Could not acquire lock file for chunk assembly: " + lockPath);
-                }
-                log.debug("Lock file {} exists, waiting... uploadId={}, attempt={}, thread={}, time={}",
-                        lockPath, uploadId, attempt, Thread.currentThread().getName(), System.currentTimeMillis());
-                Thread.sleep(100);
-            }
+        // Assemblies of one upload in this JVM wait for each other on a lock, the lock file keeps other processes out
+        LockAcquireEvent lockEvent = new LockAcquireEvent(UploadMetrics.LOCK_ASSEMBLY);
+        lockEvent.begin();
+        long lockStarted = System.nanoTime();
+        AssemblyLock assemblyLock = acquireAssemblyLock(uploadId, lockPath);
+        FileChannel lockChannel;
+        try {
+            lockChannel = lockAssemblyFile(uploadId, lockPath);
+        } catch (IOException e) {
+            releaseAssemblyLock(uploadId, assemblyLock);
+            throw e;
         }
+        log.debug("Acquired lock file {} for uploadId={}, thread={}, time={}",
+                lockPath, uploadId, Thread.currentThread().getName(), System.currentTimeMillis());
+        metrics.lockWaited(UploadMetrics.LOCK_ASSEMBLY, System.nanoTime() - lockStarted);
+        lockEvent.commit(uploadId, username, -1, 0);
 
         try {
-            try (FileChannel src = FileChannel.open(partPath, StandardOpenOption.READ); FileChannel dst = FileChannel.open(finalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                log.debug("Opened partPath for assembly, uploadId={}, thread={}, time={}",
-                        uploadId, Thread.currentThread().getName(), System.currentTimeMillis());
-                src.transferTo(headerSize, fileSize, dst);
+            // Normally ready: the prefix was hashed as chunks arrived
+            ChecksumVerifyEvent checksumEvent = new ChecksumVerifyEvent();
+            checksumEvent.begin();
+            String payloadChecksum;
+            long digestedBytes = session.getDigestedBytes();
+            long hashStarted = System.nanoTime();
+            try (PartFileChannelCache.Lease lease = channelCache.acquire(uploadId, partPath)) {
+                payloadChecksum = session.finishDigest(lease.channel());
+            }
+            if (payloadChecksum != null && fileSize > digestedBytes) {
+                metrics.checksumComputed(fileSize - digestedBytes, System.nanoTime() - hashStarted);
             }
 
-            iUploadInfoPort.findByUploadId(uploadId).ifPresent(info -> {
-                try {
-                    String expectedChecksum = ((Y) info).getChecksum();
-                    String actualChecksum = ChecksumUtil.generateChecksum(finalPath);
-                    log.debug("Verifying checksum for uploadId={}: expected={}, actual={}, thread={}, time={}",
-                            uploadId, expectedChecksum, actualChecksum, Thread.currentThread().getName(), System.currentTimeMillis());
-                    if (!expectedChecksum.equals(actualChecksum)) {
-                        log.error("Checksum mismatch for uploadId={}: expected={}, actual={}", uploadId, expectedChecksum, actualChecksum);
-                        throw new IOException("Checksum mismatch after file assembly");
-                    }
+            Path assembledPath;
+            if (layout.isLegacy()) {
+                AssemblyCopyEvent copyEvent = new AssemblyCopyEvent();
+                copyEvent.begin();
+                copyLegacyPayload(uploadId, partPath, finalPath, PART_FILE_HEADER_FIXED_SIZE + header.bitset.length, fileSize);
+                copyEvent.commit(uploadId, username, -1, fileSize);
+                assembledPath = finalPath;
+            } else {
+                // The upload is either complete or unrecoverable: release the file handles before moving the part file
+                releaseUploadResources(uploadId);
+                assembledPath = partPath;
+            }
+
+            String expectedChecksum = uploadInfo.getChecksum();
+            String actualChecksum = payloadChecksum;
+            long verifiedBytes = Math.max(0, fileSize - digestedBytes);
+            if (actualChecksum == null) {
+                hashStarted = System.nanoTime();
+                actualChecksum = ChecksumUtil.generateChecksum(assembledPath);
+                metrics.checksumComputed(fileSize, System.nanoTime() - hashStarted);
+                verifiedBytes = fileSize;
+            }
+            log.debug("Verifying checksum for uploadId={}: expected={}, actual={}, thread={}, time={}",
+                    uploadId, expectedChecksum, actualChecksum, Thread.currentThread().getName(), System.currentTimeMillis());
+            if (!expectedChecksum.equals(actualChecksum)) {
+                log.error("Checksum mismatch for uploadId={}: expected={}, actual={}", uploadId, expectedChecksum, actualChecksum);
+                throw new RuntimeException(new IOException("Checksum mismatch after file assembly"));
+            }
+            checksumEvent.commit(uploadId, username, -1, verifiedBytes);
 
-                    // Move upload to history with COMPLETED status
-                    Y uploadInfo = (Y) info;
-                    moveToHistory(uploadInfo);
+            if (!layout.isLegacy()) {
+                AssemblyCopyEvent copyEvent = new AssemblyCopyEvent();
+                copyEvent.begin();
+                movePartFile(partPath, finalPath);
+                Files.deleteIfExists(layout.getHeaderPath());
+                copyEvent.commit(uploadId, username, -1, fileSize);
+            }
 
-                    // Delete the original upload info and part file
-                    iUploadInfoPort.delete(uploadInfo);
-                    Files.deleteIfExists(partPath);
+            // Move upload to history with COMPLETED status
+            HistoryMoveEvent historyEvent = new HistoryMoveEvent();
+            historyEvent.begin();
+            moveToHistory(uploadInfo);
 
-                    log.debug("Successfully moved uploadId={} to history and cleaned up files", uploadId);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+            // Delete the original upload info and part file
+            iUploadInfoPort.delete(uploadInfo);
+            uploadInfoCache.invalidate(uploadId);
+            historyEvent.commit(uploadId, username, -1, 0);
+            Files.deleteIfExists(partPath);
+
+            log.debug("Successfully moved uploadId={} to history and cleaned up files", uploadId);
         } finally {
             try {
+                // Deleted while still locked, so that no other process locks the file about to disappear
                 Files.deleteIfExists(lockPath);
                 log.debug("Released lock file {} for uploadId={}, thread={}, time={}",
                         lockPath, uploadId, Thread.currentThread().getName(), System.currentTimeMillis());
             } catch (IOException e) {
                 log.warn("Failed to delete lock file {} for uploadId={}: {}", lockPath, uploadId, e.getMessage());
+            } finally {
+                try {
+                    lockChannel.close();
+                } catch (IOException e) {
+                    log.warn("Failed to release lock file {} for uploadId={}: {}", lockPath, uploadId, e.getMessage());
+                }
+                releaseAssemblyLock(uploadId, assemblyLock);
+            }
+        }
+    }
+
+    /**
+     * Takes the operating system lock of the lock file of an upload, which keeps the assemblies of other processes out.
+     *
+     * <p>
+     * The lock is released with the returned channel, and by the operating system if the process dies:
+     * a lock file left behind by a crash during assembly does not block the resumed finalization.
+     *
+     * @return The open channel of the lock file, holding its lock until closed
+     * @throws IOException if another process is assembling the upload, or the lock file cannot be opened
+     */
+    private static FileChannel lockAssemblyFile(String uploadId, Path lockPath) throws IOException {
+        FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() != null) {
+                return channel;
+            }
+        } catch (java.nio.channels.OverlappingFileLockException e) {
+            // Held by another upload engine of this JVM
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        log.error("Lock file {} for uploadId={} is held by another process", lockPath, uploadId);
+        throw new IOException("Could not acquire lock file for chunk assembly: " + lockPath);
+    }
+
+    /**
+     * Waits for the assembly of an upload running on another thread of this JVM, if any.
+     * The waiting thread parks: a virtual thread unmounts instead of polling or pinning its carrier.
+     *
+     * @return The lock, held by the caller until {@link #releaseAssemblyLock}
+     * @throws IOException if the other assembly did not end within {@link #ASSEMBLY_LOCK_TIMEOUT_MILLIS}
+     */
+    private AssemblyLock acquireAssemblyLock(String uploadId, Path lockPath) throws IOException, InterruptedException {
+        AssemblyLock lock = assemblyLocks.compute(uploadId, (id, existing) -> {
+            AssemblyLock used = existing != null ? existing : new AssemblyLock();
+            used.users++;
+            return used;
+        });
+        boolean acquired = false;
+        try {
+            acquired = lock.tryLock(ASSEMBLY_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } finally {
+            if (!acquired) {
+                forgetAssemblyLock(uploadId);
             }
         }
+        if (!acquired) {
+            log.error("Failed to acquire the assembly lock of uploadId={} within {} ms", uploadId, ASSEMBLY_LOCK_TIMEOUT_MILLIS);
+            throw new IOException("Could not acquire lock file for chunk assembly: " + lockPath);
+        }
+        return lock;
+    }
+
+    private void releaseAssemblyLock(String uploadId, AssemblyLock lock) {
+        lock.unlock();
+        forgetAssemblyLock(uploadId);
+    }
+
+    private void forgetAssemblyLock(String uploadId) {
+        assemblyLocks.computeIfPresent(uploadId, (id, lock) -> --lock.users == 0 ? null : lock);
+    }
+
+    /**
+     * Lock serializing the assemblies of one upload, dropped once no thread holds or waits for it.
+     */
+    private static final class AssemblyLock extends ReentrantLock {
+        // Threads holding or waiting for the lock, updated within the map computations only
+        private int users;
+    }
+
+    private void copyLegacyPayload(String uploadId, Path partPath, Path finalPath, long headerSize, long fileSize) throws IOException {
+        try (PartFileChannelCache.Lease lease = channelCache.acquire(uploadId, partPath);
+             FileChannel dst = FileChannel.open(finalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            log.debug("Opened partPath for assembly, uploadId={}, thread={}, time={}",
+                    uploadId, Thread.currentThread().getName(), System.currentTimeMillis());
+            FileChannel src = lease.channel();
+            long transferred = 0;
+            while (transferred < fileSize) {
+                transferred += src.transferTo(headerSize + transferred, fileSize - transferred, dst);
+            }
+        } finally {
+            // The upload is either complete or unrecoverable: release the part-file handle before deleting it
+            releaseUploadResources(uploadId);
+        }
+    }
+
+    /**
+     * Renames the part file to the final file, atomically when both are on the same file store.
+     */
+    private static void movePartFile(Path partPath, Path finalPath) throws IOException {
+        try {
+            Files.move(partPath, finalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (java.nio.file.AtomicMoveNotSupportedException e) {
+            // In-progress and complete directories on different file stores: fall back to copy and delete
+            log.warn("Atomic move not supported from {} to {}, copying instead", partPath, finalPath);
+            Files.move(partPath, finalPath, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     public void deleteUploadFile(String username, String uploadId) throws Throwable {
         Path partPath = getPartPath(username, uploadId);
+        releaseUploadResources(uploadId);
         Files.deleteIfExists(partPath);
+        Files.deleteIfExists(PartFileLayout.headerPathOf(partPath));
         System.out.println("[DEBUG] deleteUploadFile called for uploadId=" + uploadId + ", tenant=" + username);
         System.out.println("[DEBUG] UploadInfoPort.findByUploadId(" + uploadId + ") exists: " + iUploadInfoPort.findByUploadId(uploadId).isPresent());
         Path completePath = getFinalPath(username, uploadId);
@@ -0,0 +1,41 @@
+package vn.com.fecredit.chunkedupload.core;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Body of one chunk arriving in pieces, written to the part file as the pieces arrive.
+ *
+ * <p>
+ * Opened by {@link AbstractChunkedUpload#openChunkStream}; the pieces are written one at a time:
+ * <ul>
+ * <li>{@link #write} writes a piece after the previous ones; the next piece may be written once its
+ * future completes, so a caller reading pieces only then applies backpressure to its source</li>
+ * <li>{@link #complete} checks that the whole chunk arrived, then marks it as {@code writeChunk} does</li>
+ * <li>{@link #abort} gives up the chunk, which is not marked and can simply be sent again</li>
+ * </ul>
+ * A failed write or completion releases the part file as {@link #abort} does.
+ */
+public interface ChunkStream {
+
+    /**
+     * @param data The next piece of the chunk, from its position to its limit; must not be modified
+     *             or released until the future completes
+     * @return A future completed once the piece is written, or failed if it does not fit in the chunk
+     */
+    CompletableFuture<Void> write(ByteBuffer data);
+
+    /**
+     * Marks the chunk on the asynchronous pool of the upload engine, never on the calling thread.
+     *
+     * @return A future completed with {@code true} if the chunk completed the upload, or failed
+     * if the written length is not the chunk length
+     */
+    CompletableFuture<Boolean> complete();
+
+    /**
+     * Releases the part file without marking the chunk, once a write in flight ends.
+     * Does nothing if the stream is already completed or aborted.
+     */
+    void abort();
+}
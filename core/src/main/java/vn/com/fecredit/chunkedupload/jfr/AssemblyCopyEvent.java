@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Move or copy of the payload of a complete upload to its final file
+ */
+@Name(UploadEvent.NAME_PREFIX + "AssemblyCopy")
+@Label("Assembly Copy")
+@Description("Move or copy of the payload of a complete upload to its final file")
+@Threshold("0 ms")
+public class AssemblyCopyEvent extends UploadEvent {
+}
@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Completion of the payload checksum of a complete upload and its comparison
+ */
+@Name(UploadEvent.NAME_PREFIX + "ChecksumVerify")
+@Label("Checksum Verify")
+@Description("Completion of the payload checksum of a complete upload and its comparison")
+@Threshold("0 ms")
+public class ChecksumVerifyEvent extends UploadEvent {
+}
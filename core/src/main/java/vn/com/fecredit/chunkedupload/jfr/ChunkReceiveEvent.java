@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Handling of a chunk request, from the controller to the response
+ */
+@Name(UploadEvent.NAME_PREFIX + "ChunkReceive")
+@Label("Chunk Receive")
+@Description("Handling of a chunk request, from the controller to the response")
+@Threshold("50 ms")
+public class ChunkReceiveEvent extends UploadEvent {
+}
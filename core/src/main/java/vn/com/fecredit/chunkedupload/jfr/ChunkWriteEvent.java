@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Write of the data of a chunk into the part file
+ */
+@Name(UploadEvent.NAME_PREFIX + "ChunkWrite")
+@Label("Chunk Write")
+@Description("Write of the data of a chunk into the part file")
+@Threshold("20 ms")
+public class ChunkWriteEvent extends UploadEvent {
+}
@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Read of the header of an upload from its header file
+ */
+@Name(UploadEvent.NAME_PREFIX + "HeaderRead")
+@Label("Header Read")
+@Description("Read of the header of an upload from its header file")
+@Threshold("20 ms")
+public class HeaderReadEvent extends UploadEvent {
+}
@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Creation of the header of an upload, or write of its dirty bitset bytes
+ */
+@Name(UploadEvent.NAME_PREFIX + "HeaderWrite")
+@Label("Header Write")
+@Description("Creation of the header of an upload, or write of its dirty bitset bytes")
+@Threshold("20 ms")
+public class HeaderWriteEvent extends UploadEvent {
+}
@@ -0,0 +1,16 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Recording of a complete upload in the history and removal of its upload info
+ */
+@Name(UploadEvent.NAME_PREFIX + "HistoryMove")
+@Label("History Move")
+@Description("Recording of a complete upload in the history and removal of its upload info")
+@Threshold("0 ms")
+public class HistoryMoveEvent extends UploadEvent {
+}
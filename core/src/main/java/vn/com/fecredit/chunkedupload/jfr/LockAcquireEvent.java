@@ -0,0 +1,27 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Wait for a lock: the part file, opened and locked on a channel cache miss, or the lock file
+ * serializing the assemblies of an upload.
+ */
+@Name(UploadEvent.NAME_PREFIX + "LockAcquire")
+@Label("Lock Acquire")
+@Description("Wait for the part file or the assembly lock file of an upload")
+@Threshold("10 ms")
+public class LockAcquireEvent extends UploadEvent {
+    @Label("Lock")
+    @Description("part-file or assembly")
+    private String lock;
+
+    /**
+     * @param lock The lock being acquired, e.g. {@code UploadMetrics.LOCK_PART_FILE}
+     */
+    public LockAcquireEvent(String lock) {
+        this.lock = lock;
+    }
+}
@@ -0,0 +1,69 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the Flight Recorder events of the upload pipeline.
+ *
+ * <p>
+ * Every event identifies the work it timed:
+ * <ul>
+ * <li>{@code uploadId} and {@code tenant}, the username owning the upload</li>
+ * <li>{@code chunkNumber}, or {@code -1} when the work is not about a single chunk</li>
+ * <li>{@code bytes} read, written or hashed</li>
+ * </ul>
+ *
+ * <p>
+ * Usage, which costs nothing beyond the allocation when the event is disabled:
+ * <pre>
+ * ChunkWriteEvent event = new ChunkWriteEvent();
+ * event.begin();
+ * // ... timed work ...
+ * event.commit(uploadId, username, chunkNumber, bytes);
+ * </pre>
+ */
+@Category("Chunked Upload")
+@StackTrace(false)
+public abstract class UploadEvent extends Event {
+    /** Name prefix of the event types, as used in {@code .jfc} profiles. */
+    public static final String NAME_PREFIX = "vn.com.fecredit.chunkedupload.";
+
+    // Not private: Flight Recorder ignores private fields of event superclasses
+    @Label("Upload ID")
+    protected String uploadId;
+
+    @Label("Tenant")
+    @Description("Username owning the upload")
+    protected String tenant;
+
+    @Label("Chunk Number")
+    @Description("0-based chunk index, -1 when not about a single chunk")
+    protected int chunkNumber;
+
+    @Label("Bytes")
+    @DataAmount
+    protected long bytes;
+
+    /**
+     * Ends the timed work and commits the event if it is enabled and above its threshold.
+     *
+     * @param uploadId    The upload ID
+     * @param tenant      The username owning the upload, or {@code null} if unknown
+     * @param chunkNumber The 0-based chunk index, or {@code -1}
+     * @param bytes       The bytes read, written or hashed
+     */
+    public void commit(String uploadId, String tenant, int chunkNumber, long bytes) {
+        if (shouldCommit()) {
+            this.uploadId = uploadId;
+            this.tenant = tenant;
+            this.chunkNumber = chunkNumber;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
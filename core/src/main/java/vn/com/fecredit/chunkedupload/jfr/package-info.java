@@ -0,0 +1,5 @@
+/**
+ * This package contains the JDK Flight Recorder events of the upload pipeline, enabled at
+ * low overhead by the bundled {@code jfr/chunked-upload.jfc} profile.
+ */
+package vn.com.fecredit.chunkedupload.jfr;
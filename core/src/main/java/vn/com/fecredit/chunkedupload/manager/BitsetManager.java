@@ -2,6 +2,7 @@ package vn.com.fecredit.chunkedupload.manager;
 
 import vn.com.fecredit.chunkedupload.model.Header;
 import vn.com.fecredit.chunkedupload.model.util.BitsetUtil;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
 
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -23,7 +24,8 @@ import java.util.concurrent.ConcurrentHashMap;
  * <li>Each bit represents one chunk (1 = received, 0 = pending)</li>
  * <li>Uses 1 bit per chunk (8 chunks per byte)</li>
  * <li>Supports concurrent uploads via {@link ConcurrentHashMap}</li>
- * <li>Provides O(1) chunk marking and O(n/8) completion checking</li>
+ * <li>Provides O(1) chunk marking and completion checking on a {@link ChunkBitset},
+ * and O(n/8) completion checking on a raw header bitset</li>
  * </ul>
  *
  * <p>
@@ -31,7 +33,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * <pre>
  * BitsetManager manager = new BitsetManager();
  * // After receiving chunk 5:
- * boolean isComplete = manager.markChunkAndCheckComplete(filePath, 5, header);
+ * boolean isComplete = BitsetManager.markChunkAndCheckComplete(chunkBitset, 5);
  * if (isComplete) {
  *     // Handle upload completion
  * }
@@ -58,7 +60,23 @@ public class BitsetManager {
      * </ul>
      */
     public static boolean markChunkAndCheckComplete(Header header, int chunkNumber) {
+        // Scans the whole bitset; live uploads track their chunks in a ChunkBitset instead
         BitsetUtil.setUsedBit(header.bitset, chunkNumber);
         return BitsetUtil.isUsedBitSetFull(header.bitset);
     }
+
+    /**
+     * Marks a chunk as received and checks if the entire file upload is complete.
+     * Thread-safe and lock-free; completion is read from the maintained cardinality
+     * instead of scanning the bitset.
+     *
+     * @param bitset      The chunk bitset of the upload
+     * @param chunkNumber The 0-based index of the chunk that was just uploaded.
+     * @return {@code true} if all chunks have been uploaded, {@code false}
+     * otherwise.
+     */
+    public static boolean markChunkAndCheckComplete(ChunkBitset bitset, int chunkNumber) {
+        bitset.set(chunkNumber);
+        return bitset.isFull();
+    }
 }
@@ -0,0 +1,17 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+/**
+ * Point-in-time counters of an in-memory cache.
+ *
+ * @param hitCount      Lookups served from the cache
+ * @param missCount     Lookups that went to the persistence layer
+ * @param evictionCount Entries dropped because they expired, went idle or the cache was full
+ * @param size          Number of cached entries
+ */
+public record CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+    /** @return Ratio of lookups served from the cache, {@code 1.0} before any lookup */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
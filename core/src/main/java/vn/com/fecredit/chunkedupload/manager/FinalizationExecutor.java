@@ -0,0 +1,159 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the assembly of complete uploads off the request threads.
+ *
+ * <p>
+ * Assembly hashes what is left of the payload and moves or copies the part file, so its
+ * cost is dominated by the disk holding the in-progress directory:
+ * <ul>
+ * <li>Each file store gets its own pool of at most {@code maxConcurrentPerDisk} threads,
+ * so a slow disk does not hold back assemblies on the others</li>
+ * <li>Each pool queues at most {@code queueCapacityPerDisk} pending assemblies; once full,
+ * the submitting thread assembles the upload itself, which slows down the clients
+ * completing uploads instead of growing the backlog without bound</li>
+ * <li>{@link #close()} lets queued assemblies finish for a bounded time; assemblies that do
+ * not are resumed from the persisted state after a restart</li>
+ * <li>Assemblies may run on virtual threads; the per-disk limit still applies, since it
+ * protects the disk rather than the threads</li>
+ * </ul>
+ */
+public class FinalizationExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(FinalizationExecutor.class);
+
+    /** Default number of assemblies running at the same time on one file store. */
+    public static final int DEFAULT_MAX_CONCURRENT_PER_DISK = 2;
+    /** Default number of assemblies waiting for a thread on one file store. */
+    public static final int DEFAULT_QUEUE_CAPACITY_PER_DISK = 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final int maxConcurrentPerDisk;
+    private final int queueCapacityPerDisk;
+    private final boolean virtualThreads;
+    private final ConcurrentHashMap<Object, ThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+    private final AtomicInteger diskCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    public FinalizationExecutor() {
+        this(DEFAULT_MAX_CONCURRENT_PER_DISK, DEFAULT_QUEUE_CAPACITY_PER_DISK);
+    }
+
+    /**
+     * @param maxConcurrentPerDisk Maximum number of assemblies running at the same time on one file store
+     * @param queueCapacityPerDisk Maximum number of assemblies waiting for a thread on one file store
+     */
+    public FinalizationExecutor(int maxConcurrentPerDisk, int queueCapacityPerDisk) {
+        this(maxConcurrentPerDisk, queueCapacityPerDisk, false);
+    }
+
+    /**
+     * @param maxConcurrentPerDisk Maximum number of assemblies running at the same time on one file store
+     * @param queueCapacityPerDisk Maximum number of assemblies waiting for a thread on one file store
+     * @param virtualThreads       {@code true} to run assemblies on virtual threads instead of platform threads
+     */
+    public FinalizationExecutor(int maxConcurrentPerDisk, int queueCapacityPerDisk, boolean virtualThreads) {
+        if (maxConcurrentPerDisk <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPerDisk must be > 0");
+        }
+        if (queueCapacityPerDisk <= 0) {
+            throw new IllegalArgumentException("queueCapacityPerDisk must be > 0");
+        }
+        this.maxConcurrentPerDisk = maxConcurrentPerDisk;
+        this.queueCapacityPerDisk = queueCapacityPerDisk;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Schedules the assembly of an upload on the pool of the file store holding its part file.
+     *
+     * @param partPath The part file of the upload
+     * @param task     The assembly
+     * @throws RejectedExecutionException if the executor is closed
+     */
+    public void submit(Path partPath, Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("Finalization executor is closed");
+        }
+        executors.computeIfAbsent(diskOf(partPath), this::newExecutor).execute(task);
+    }
+
+    /** @return Number of assemblies running or waiting for a thread, over all file stores */
+    public int getPendingCount() {
+        int pending = 0;
+        for (ThreadPoolExecutor executor : executors.values()) {
+            pending += executor.getActiveCount() + executor.getQueue().size();
+        }
+        return pending;
+    }
+
+    public int getMaxConcurrentPerDisk() {
+        return maxConcurrentPerDisk;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private static Object diskOf(Path partPath) {
+        try {
+            return Files.getFileStore(partPath);
+        } catch (IOException e) {
+            // Not created yet or not accessible: group by file system root
+            return partPath.toAbsolutePath().getRoot();
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(Object disk) {
+        int diskIndex = diskCount.getAndIncrement();
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = Thread.ofVirtual().name("upload-finalizer-" + diskIndex + "-", 1).factory();
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "upload-finalizer-" + diskIndex + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+        log.info("Finalization pool {} created for {}: maxConcurrent={}, queueCapacity={}, virtualThreads={}",
+                diskIndex, disk instanceof FileStore store ? store.name() : disk, maxConcurrentPerDisk, queueCapacityPerDisk, virtualThreads);
+        return new ThreadPoolExecutor(maxConcurrentPerDisk, maxConcurrentPerDisk, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacityPerDisk), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Stops accepting assemblies and waits for the pending ones to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executors.values().forEach(ThreadPoolExecutor::shutdown);
+        try {
+            for (ThreadPoolExecutor executor : executors.values()) {
+                if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("Finalization still running after {}s, remaining uploads are resumed on restart", CLOSE_TIMEOUT_SECONDS);
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
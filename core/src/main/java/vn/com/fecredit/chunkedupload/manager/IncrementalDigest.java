@@ -0,0 +1,154 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
+import vn.com.fecredit.chunkedupload.model.util.StreamingDigest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running SHA-256 of the payload of an upload, advanced over the contiguous prefix of received chunks.
+ *
+ * <p>
+ * The digest makes the checksum available when the last chunk lands instead of
+ * re-reading the whole file at assembly:
+ * <ul>
+ * <li>A chunk that extends the prefix is hashed from the buffer it arrived in, if any</li>
+ * <li>Chunks received out of order are hashed from the data file once the prefix reaches
+ * them, normally while their pages are still cached</li>
+ * <li>Chunk writers never wait for each other: a writer that finds the digest busy leaves
+ * its chunk to the current holder or to a later writer</li>
+ * <li>At most {@link #MAX_CATCH_UP_CHUNKS} chunks are read back per write, so a session
+ * reloaded after a restart does not hash the whole received prefix in one request</li>
+ * </ul>
+ *
+ * <p>
+ * {@link #finish(ChunkBitset, FileChannel, long)} hashes whatever is left and returns the
+ * checksum. A digest that failed to read the data file is abandoned and returns
+ * {@code null}, in which case the caller falls back to hashing the assembled file.
+ */
+public class IncrementalDigest {
+    private static final Logger log = LoggerFactory.getLogger(IncrementalDigest.class);
+
+    /** Maximum number of chunks read back from the data file by a single {@link #advance} call. */
+    public static final int MAX_CATCH_UP_CHUNKS = 64;
+
+    private final int totalChunks;
+    private final int chunkSize;
+    private final long fileSize;
+    private final MessageDigest digest = StreamingDigest.newSha256();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by "lock"
+    private int hashedChunks;
+    private boolean broken;
+    private String checksum;
+
+    /**
+     * @param header Header of the upload; only its fixed fields are used
+     */
+    public IncrementalDigest(Header header) {
+        this.totalChunks = header.totalChunks;
+        this.chunkSize = header.chunkSize;
+        this.fileSize = header.fileSize;
+    }
+
+    /**
+     * Extends the digest after a chunk was written and marked as received.
+     *
+     * @param chunkNumber The chunk just written
+     * @param data        The chunk data as received, or {@code null} if it was streamed to disk
+     * @param received    The received chunks of the upload
+     * @param ch          Open channel of the data file
+     * @param dataOffset  Position of the first payload byte in the data file
+     * @return The number of payload bytes hashed by this call
+     */
+    public long advance(int chunkNumber, ByteBuffer data, ChunkBitset received, FileChannel ch, long dataOffset) {
+        if (!lock.tryLock()) {
+            return 0;
+        }
+        long hashed = 0;
+        try {
+            if (broken || checksum != null) {
+                return 0;
+            }
+            if (data != null && chunkNumber == hashedChunks) {
+                hashed += data.remaining();
+                digest.update(data);
+                hashedChunks++;
+            }
+            hashed += catchUp(received, ch, dataOffset, MAX_CATCH_UP_CHUNKS);
+            return hashed;
+        } catch (IOException e) {
+            log.warn("Abandoning incremental checksum after chunk {}: {}", chunkNumber, e.getMessage());
+            broken = true;
+            return hashed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hashes the chunks not hashed yet and completes the digest. Must be called once every chunk is received.
+     *
+     * @param received   The received chunks of the upload
+     * @param ch         Open channel of the data file
+     * @param dataOffset Position of the first payload byte in the data file
+     * @return The payload checksum as a hex string, or {@code null} if the digest was abandoned
+     */
+    public String finish(ChunkBitset received, FileChannel ch, long dataOffset) {
+        lock.lock();
+        try {
+            if (checksum == null && !broken) {
+                catchUp(received, ch, dataOffset, Integer.MAX_VALUE);
+                if (hashedChunks < totalChunks) {
+                    throw new IllegalStateException("Chunk " + hashedChunks + " was not received");
+                }
+                checksum = StreamingDigest.toHex(digest.digest());
+            }
+            return checksum;
+        } catch (IOException e) {
+            log.warn("Abandoning incremental checksum at completion: {}", e.getMessage());
+            broken = true;
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long catchUp(ChunkBitset received, FileChannel ch, long dataOffset, int maxChunks) throws IOException {
+        int end = hashedChunks;
+        while (end < totalChunks && end - hashedChunks < maxChunks && received.get(end)) {
+            end++;
+        }
+        if (end == hashedChunks) {
+            return 0;
+        }
+        long from = (long) hashedChunks * chunkSize;
+        long to = Math.min((long) end * chunkSize, fileSize);
+        StreamingDigest.update(digest, ch, dataOffset + from, to - from);
+        hashedChunks = end;
+        return to - from;
+    }
+
+    /** @return Number of payload bytes of the prefix hashed so far */
+    public long getHashedBytes() {
+        return Math.min((long) getHashedChunks() * chunkSize, fileSize);
+    }
+
+    /** @return Number of chunks of the prefix hashed so far */
+    public int getHashedChunks() {
+        lock.lock();
+        try {
+            return hashedChunks;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of open part-file channels, keyed by uploadId.
+ *
+ * <p>
+ * The cache keeps the {@link FileChannel} of an active upload open between
+ * chunks so that a steady-state chunk write does not have to open, lock and
+ * close the part file again:
+ * <ul>
+ * <li>The exclusive part-file lock is taken once when the channel is opened and
+ * held for as long as the channel stays cached</li>
+ * <li>Concurrent misses on one upload open its part file once: the other threads
+ * wait for that channel instead of opening their own, since closing any channel
+ * of the file would drop the lock on POSIX systems</li>
+ * <li>At most {@code maxOpenChannels} channels are kept; the least recently
+ * used idle channel is evicted first</li>
+ * <li>Channels not used for {@code idleTimeoutMillis} are closed on the next
+ * cache access or by {@link #evictIdle()}</li>
+ * <li>Channels in use are pinned by a {@link Lease} and are never closed under a
+ * writer; an evicted or invalidated channel is closed when its last lease is
+ * released</li>
+ * <li>An {@link AsynchronousFileChannel} on the same part file is opened on the
+ * first {@link Lease#asyncChannel(ExecutorService)} and shares the lifecycle of
+ * the entry</li>
+ * </ul>
+ *
+ * <p>
+ * Callers must invalidate the entry of an upload when it completes, is aborted
+ * or times out so that the file handle is released before the part file is
+ * moved or deleted.
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * try (PartFileChannelCache.Lease lease = cache.acquire(uploadId, partPath)) {
+ *     lease.channel().write(buffer, offset);
+ * }
+ * // After completion:
+ * cache.invalidate(uploadId);
+ * </pre>
+ */
+public class PartFileChannelCache implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(PartFileChannelCache.class);
+
+    /** Default maximum number of part files kept open at the same time. */
+    public static final int DEFAULT_MAX_OPEN_CHANNELS = 256;
+    /** Default idle time after which an unused channel is closed. */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000L;
+    // Byte range standing for the whole part file in the exclusive lock
+    private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    private final int maxOpenChannels;
+    private final long idleTimeoutMillis;
+    // Guards the entries and their reference counts; every chunk write takes it twice, so it is a
+    // lock rather than a monitor: a virtual thread waiting for it unmounts instead of pinning its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    // Access-ordered: iteration starts at the least recently used entry. Guarded by "lock".
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Part files being opened, completed once their entry is cached. Guarded by "lock".
+    private final Map<String, CompletableFuture<Entry>> opening = new HashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicInteger openHandleCount = new AtomicInteger();
+
+    /**
+     * Creates a cache with the default limits.
+     */
+    public PartFileChannelCache() {
+        this(DEFAULT_MAX_OPEN_CHANNELS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a cache with the given limits.
+     *
+     * @param maxOpenChannels   Maximum number of channels kept open when idle
+     * @param idleTimeoutMillis Idle time after which an unused channel is closed
+     */
+    public PartFileChannelCache(int maxOpenChannels, long idleTimeoutMillis) {
+        if (maxOpenChannels <= 0) {
+            throw new IllegalArgumentException("maxOpenChannels must be > 0");
+        }
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis must be > 0");
+        }
+        this.maxOpenChannels = maxOpenChannels;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Returns a lease on the open channel of the given upload, opening and locking
+     * the part file on a cache miss.
+     *
+     * @param uploadId The upload the channel belongs to
+     * @param partPath The part file of the upload
+     * @return A lease that must be closed once the caller is done with the channel
+     * @throws IOException if the part file cannot be opened or is locked by another process
+     */
+    public Lease acquire(String uploadId, Path partPath) throws IOException {
+        while (true) {
+            List<Entry> evicted = new ArrayList<>();
+            Entry entry;
+            CompletableFuture<Entry> pending;
+            boolean opener = false;
+            lock.lock();
+            try {
+                entry = entries.get(uploadId);
+                pending = null;
+                if (entry != null) {
+                    entry.pin();
+                    collectIdle(evicted);
+                } else {
+                    pending = opening.get(uploadId);
+                    if (pending == null) {
+                        pending = new CompletableFuture<>();
+                        opening.put(uploadId, pending);
+                        opener = true;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (entry != null) {
+                hitCount.incrementAndGet();
+                retireAll(evicted);
+                return new Lease(entry);
+            }
+            if (opener) {
+                return openAndCache(uploadId, partPath, pending);
+            }
+            // Another thread is opening the part file: take its channel once cached, or open it again if it failed
+            pending.exceptionally(e -> null).join();
+        }
+    }
+
+    private Lease openAndCache(String uploadId, Path partPath, CompletableFuture<Entry> pending) throws IOException {
+        missCount.incrementAndGet();
+        Entry opened;
+        try {
+            opened = open(uploadId, partPath);
+        } catch (IOException | RuntimeException e) {
+            lock.lock();
+            try {
+                opening.remove(uploadId);
+            } finally {
+                lock.unlock();
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        List<Entry> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            opening.remove(uploadId);
+            opened.pin();
+            if (opened.fileLock != null) {
+                // Only the thread registered in "opening" caches an entry for the upload: none can be there
+                entries.put(uploadId, opened);
+                collectIdle(evicted);
+                collectOverflow(evicted);
+            } else {
+                // Not cached: closed when this lease is released
+                opened.retired = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        pending.complete(opened);
+        retireAll(evicted);
+        return new Lease(opened);
+    }
+
+    /**
+     * Removes the channel of the given upload from the cache and closes it as soon
+     * as no lease is using it. Must be called on completion, abort and timeout.
+     *
+     * @param uploadId The upload whose channel should be released
+     */
+    public void invalidate(String uploadId) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = entries.remove(uploadId);
+        } finally {
+            lock.unlock();
+        }
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    /**
+     * Closes all channels that have been idle for longer than the idle timeout.
+     *
+     * @return The number of channels evicted
+     */
+    public int evictIdle() {
+        List<Entry> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            collectIdle(evicted);
+        } finally {
+            lock.unlock();
+        }
+        retireAll(evicted);
+        return evicted.size();
+    }
+
+    /**
+     * Closes every cached channel. Channels still leased are closed when released.
+     */
+    @Override
+    public void close() {
+        List<Entry> all;
+        lock.lock();
+        try {
+            all = new ArrayList<>(entries.values());
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+        for (Entry entry : all) {
+            retire(entry);
+        }
+    }
+
+    /** @return Number of acquisitions served by an already open channel */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /** @return Number of acquisitions that had to open the part file */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /** @return Number of channels closed because of the size limit or idle timeout */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /** @return Number of part-file handles currently open, including evicted channels still leased */
+    public int getOpenHandleCount() {
+        return openHandleCount.get();
+    }
+
+    /** @return Number of channels currently held in the cache */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry open(String uploadId, Path partPath) throws IOException {
+        FileChannel channel = FileChannel.open(partPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            // Lock a byte past any data rather than the whole file: other processes are still kept out,
+            // while writes through the asynchronous channel of this JVM are not (mandatory locks on Windows)
+            fileLock = channel.tryLock(LOCK_POSITION, 1, false);
+            if (fileLock == null) {
+                throw new IOException("Part file is locked by another process: " + partPath);
+            }
+        } catch (OverlappingFileLockException e) {
+            // Another channel of this JVM holds the lock: an invalidated entry still leased, or another cache.
+            // The entry is then used for one lease only; cached, it would outlive that lock
+            fileLock = null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        openHandleCount.incrementAndGet();
+        log.debug("Opened part file channel for uploadId={}, partPath={}", uploadId, partPath);
+        return new Entry(uploadId, partPath, channel, fileLock);
+    }
+
+    private void collectIdle(List<Entry> evicted) {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (now - entry.lastAccessMillis < idleTimeoutMillis) {
+                break; // access order: every later entry was used more recently
+            }
+            if (entry.refCount == 0) {
+                it.remove();
+                evicted.add(entry);
+            }
+        }
+    }
+
+    private void collectOverflow(List<Entry> evicted) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxOpenChannels && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.refCount == 0) {
+                it.remove();
+                evicted.add(entry);
+            }
+        }
+    }
+
+    private void retireAll(List<Entry> evicted) {
+        for (Entry entry : evicted) {
+            evictionCount.incrementAndGet();
+            retire(entry);
+        }
+    }
+
+    private void retire(Entry entry) {
+        boolean closeNow;
+        lock.lock();
+        try {
+            entry.retired = true;
+            closeNow = entry.refCount == 0;
+        } finally {
+            lock.unlock();
+        }
+        if (closeNow) {
+            entry.closeChannel();
+        }
+    }
+
+    private void release(Entry entry) {
+        boolean closeNow;
+        lock.lock();
+        try {
+            entry.refCount--;
+            closeNow = entry.retired && entry.refCount == 0;
+        } finally {
+            lock.unlock();
+        }
+        if (closeNow) {
+            entry.closeChannel();
+        }
+    }
+
+    /**
+     * Pinned reference to a cached channel. Closing the lease releases the pin but
+     * leaves the channel open in the cache.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean released;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        /** @return The open channel of the part file */
+        public FileChannel channel() {
+            return entry.channel;
+        }
+
+        /**
+         * Returns the asynchronous channel of the part file, opening it on first use.
+         *
+         * @param executor Pool running the completion handlers of the channel; only used when
+         *                 the channel is opened, {@code null} for the default pool
+         * @return The asynchronous channel, open as long as this lease is
+         * @throws IOException if the part file cannot be opened
+         */
+        public AsynchronousFileChannel asyncChannel(ExecutorService executor) throws IOException {
+            return entry.asyncChannel(executor);
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(entry);
+            }
+        }
+    }
+
+    private final class Entry {
+        private final String uploadId;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+        private final Path partPath;
+        // Held while the asynchronous channel is opened, so that it is opened once: closing a
+        // redundant one would drop the part-file lock on POSIX systems
+        private final ReentrantLock asyncOpenLock = new ReentrantLock();
+        // Opened on demand, guarded by the lock of the enclosing cache
+        private AsynchronousFileChannel asyncChannel;
+        // Guarded by the lock of the enclosing cache
+        private int refCount;
+        private boolean retired;
+        private boolean closed;
+        private long lastAccessMillis;
+
+        private Entry(String uploadId, Path partPath, FileChannel channel, FileLock fileLock) {
+            this.uploadId = uploadId;
+            this.partPath = partPath;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        private AsynchronousFileChannel asyncChannel(ExecutorService executor) throws IOException {
+            AsynchronousFileChannel current = currentAsyncChannel();
+            if (current != null) {
+                return current;
+            }
+            asyncOpenLock.lock();
+            try {
+                current = currentAsyncChannel();
+                if (current != null) {
+                    return current;
+                }
+                AsynchronousFileChannel opened = AsynchronousFileChannel.open(partPath,
+                        Set.of(StandardOpenOption.READ, StandardOpenOption.WRITE), executor);
+                lock.lock();
+                try {
+                    if (!closed) {
+                        asyncChannel = opened;
+                        openHandleCount.incrementAndGet();
+                        return opened;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // The entry was closed meanwhile, and its lock released with it
+                opened.close();
+                throw new IOException("Part file channel closed for uploadId=" + uploadId);
+            } finally {
+                asyncOpenLock.unlock();
+            }
+        }
+
+        private AsynchronousFileChannel currentAsyncChannel() {
+            lock.lock();
+            try {
+                return asyncChannel;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void pin() {
+            refCount++;
+            lastAccessMillis = System.currentTimeMillis();
+        }
+
+        private void closeChannel() {
+            AsynchronousFileChannel async;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                async = asyncChannel;
+            } finally {
+                lock.unlock();
+            }
+            if (async != null) {
+                try {
+                    async.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close asynchronous part file channel for uploadId={}: {}", uploadId, e.getMessage());
+                } finally {
+                    openHandleCount.decrementAndGet();
+                }
+            }
+            try {
+                if (fileLock != null && fileLock.isValid()) {
+                    fileLock.release();
+                }
+                channel.close();
+                log.debug("Closed part file channel for uploadId={}", uploadId);
+            } catch (IOException e) {
+                log.warn("Failed to close part file channel for uploadId={}: {}", uploadId, e.getMessage());
+            } finally {
+                openHandleCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Location of the header and of the chunk data of an in-progress upload.
+ *
+ * <p>
+ * Two layouts are supported:
+ * <ul>
+ * <li>Split (current): {@code <uploadId>.part} holds exactly the payload bytes and the
+ * header, i.e. the fixed fields followed by the chunk bitset, lives in the sidecar
+ * {@code <uploadId>.part.meta}. A complete upload is finalized by moving the part file</li>
+ * <li>Legacy: {@code <uploadId>.part} holds the header followed by the payload, which
+ * has to be copied out of it on completion</li>
+ * </ul>
+ *
+ * <p>
+ * The bitset starts at {@link #HEADER_FIXED_SIZE} in the header file of both layouts.
+ * A part file without a sidecar is legacy only if it is not empty: the split layout
+ * creates the part file before the sidecar, so an empty part file without a sidecar is
+ * a registration interrupted before the header was written.
+ */
+public final class PartFileLayout {
+    /** Magic(4) + totalChunks(4) + chunkSize(4) + fileSize(8). */
+    public static final int HEADER_FIXED_SIZE = 20;
+    /** Suffix appended to the part-file name to form the sidecar header name. */
+    public static final String HEADER_SUFFIX = ".meta";
+
+    private final Path dataPath;
+    private final Path headerPath;
+    private final boolean legacy;
+
+    private PartFileLayout(Path dataPath, Path headerPath, boolean legacy) {
+        this.dataPath = dataPath;
+        this.headerPath = headerPath;
+        this.legacy = legacy;
+    }
+
+    /**
+     * Detects the layout of an upload from the files present on disk.
+     *
+     * @param partPath The part file of the upload
+     * @return The legacy layout for an existing single-file upload, the split layout otherwise
+     * @throws IOException if the part file cannot be inspected
+     */
+    public static PartFileLayout of(Path partPath) throws IOException {
+        Path headerPath = headerPathOf(partPath);
+        if (!Files.exists(headerPath) && Files.exists(partPath) && Files.size(partPath) > 0) {
+            return legacy(partPath);
+        }
+        return new PartFileLayout(partPath, headerPath, false);
+    }
+
+    /**
+     * @param partPath A part file holding the header followed by the payload
+     * @return The legacy single-file layout
+     */
+    public static PartFileLayout legacy(Path partPath) {
+        return new PartFileLayout(partPath, partPath, true);
+    }
+
+    /** @return The sidecar header file of a part file in the split layout */
+    public static Path headerPathOf(Path partPath) {
+        return partPath.resolveSibling(partPath.getFileName() + HEADER_SUFFIX);
+    }
+
+    /** @return Channel cache key of the header file of the given upload */
+    public static String headerKey(String uploadId) {
+        return uploadId + HEADER_SUFFIX;
+    }
+
+    /** @return The file holding the payload */
+    public Path getDataPath() {
+        return dataPath;
+    }
+
+    /** @return The file holding the header and bitset; the data file itself for the legacy layout */
+    public Path getHeaderPath() {
+        return headerPath;
+    }
+
+    public boolean isLegacy() {
+        return legacy;
+    }
+
+    /**
+     * @param uploadId The upload ID
+     * @return Channel cache key of the header file; the data file key for the legacy layout
+     */
+    public String headerChannelKey(String uploadId) {
+        return legacy ? uploadId : headerKey(uploadId);
+    }
+
+    /**
+     * @param bitsetLength Length of the chunk bitset in bytes
+     * @return Position of the first payload byte in the data file
+     */
+    public long dataOffset(int bitsetLength) {
+        return legacy ? HEADER_FIXED_SIZE + bitsetLength : 0;
+    }
+}
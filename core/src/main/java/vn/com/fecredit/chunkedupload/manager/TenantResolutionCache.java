@@ -0,0 +1,193 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import vn.com.fecredit.chunkedupload.model.interfaces.ITenantAccount;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded, expiring cache of tenant accounts, keyed by username.
+ *
+ * <p>
+ * Every chunk write needs the tenant of the caller to locate its part file. The cache
+ * resolves a username once and serves the following chunks from memory:
+ * <ul>
+ * <li>Hits are lock-free reads; only a miss calls the account lookup</li>
+ * <li>Entries expire {@code ttlMillis} after they were loaded, which bounds how long a
+ * change made outside this process stays unnoticed</li>
+ * <li>At most {@code maxEntries} usernames are kept; expired entries are dropped first,
+ * then the oldest ones</li>
+ * <li>Unknown usernames are not cached, so a new account is usable immediately</li>
+ * <li>{@link #invalidate(String)} and {@link #invalidateAll()} must be called when an
+ * account changes; a lookup running at that time does not store its result</li>
+ * </ul>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * Optional&lt;TenantResolutionCache.Tenant&lt;T&gt;&gt; tenant = cache.resolve(username,
+ *         name -> port.findByUsername(name).map(account -> new TenantResolutionCache.Tenant&lt;&gt;(account, dir)));
+ * // After the account was updated or deleted:
+ * cache.invalidate(username);
+ * </pre>
+ *
+ * @param <T> The tenant account type
+ */
+public class TenantResolutionCache<T extends ITenantAccount> {
+    /** Default maximum number of cached usernames. */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    /** Default time after which a cached account is looked up again. */
+    public static final long DEFAULT_TTL_MILLIS = 300_000L;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    // Incremented by each invalidation; lookups that started before it do not store their result
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * A resolved tenant account.
+     *
+     * @param account   The tenant account
+     * @param uploadDir The directory holding the in-progress uploads of the tenant
+     * @param <T>       The tenant account type
+     */
+    public record Tenant<T extends ITenantAccount>(T account, Path uploadDir) {
+        /** @return Database ID of the tenant account */
+        public Long id() {
+            return account.getId();
+        }
+    }
+
+    private record Entry<T extends ITenantAccount>(Tenant<T> tenant, long expiresAt) {
+    }
+
+    public TenantResolutionCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param maxEntries Maximum number of cached usernames
+     * @param ttlMillis  Time after which a cached account is looked up again
+     */
+    public TenantResolutionCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be > 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the cached tenant of a username, calling {@code lookup} on a miss.
+     *
+     * @param username The username
+     * @param lookup   Resolves a username that is not cached; returns empty for unknown usernames
+     * @return The tenant, or empty if the username is unknown
+     */
+    public Optional<Tenant<T>> resolve(String username, Function<String, Optional<Tenant<T>>> lookup) {
+        long now = System.currentTimeMillis();
+        Entry<T> entry = entries.get(username);
+        if (entry != null && entry.expiresAt() > now) {
+            hitCount.incrementAndGet();
+            return Optional.of(entry.tenant());
+        }
+        missCount.incrementAndGet();
+        long startGeneration = generation.get();
+        Optional<Tenant<T>> tenant = lookup.apply(username);
+        if (tenant.isPresent()) {
+            store(username, new Entry<>(tenant.get(), now + ttlMillis), startGeneration);
+        } else if (entry != null && entries.remove(username, entry)) {
+            evictionCount.incrementAndGet();
+        }
+        return tenant;
+    }
+
+    private void store(String username, Entry<T> entry, long startGeneration) {
+        entries.put(username, entry);
+        if (generation.get() != startGeneration) {
+            // Invalidated while looking up: the result may predate the change
+            entries.remove(username, entry);
+            return;
+        }
+        if (entries.size() > maxEntries) {
+            evictExpired();
+            while (entries.size() > maxEntries && evictOldest()) {
+                // Keep evicting until back within bounds
+            }
+        }
+    }
+
+    /**
+     * Drops the cached account of a username, e.g. after it was updated or deleted.
+     *
+     * @param username The username
+     */
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        entries.remove(username);
+    }
+
+    /**
+     * Drops all cached accounts, e.g. after a change whose username is not known.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Drops the entries whose time to live elapsed.
+     *
+     * @return Number of entries dropped
+     */
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (Map.Entry<String, Entry<T>> e : entries.entrySet()) {
+            if (e.getValue().expiresAt() <= now && entries.remove(e.getKey(), e.getValue())) {
+                evicted++;
+            }
+        }
+        evictionCount.addAndGet(evicted);
+        return evicted;
+    }
+
+    private boolean evictOldest() {
+        Map.Entry<String, Entry<T>> oldest = null;
+        for (Map.Entry<String, Entry<T>> e : entries.entrySet()) {
+            if (oldest == null || e.getValue().expiresAt() < oldest.getValue().expiresAt()) {
+                oldest = e;
+            }
+        }
+        if (oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+            evictionCount.incrementAndGet();
+            return true;
+        }
+        return oldest != null;
+    }
+
+    /** @return Current counters of the cache */
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.get(), missCount.get(), evictionCount.get(), entries.size());
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+}
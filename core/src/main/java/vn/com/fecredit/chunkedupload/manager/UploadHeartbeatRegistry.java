@@ -0,0 +1,91 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory record of upload activity, persisted in batches instead of once per chunk.
+ *
+ * <p>
+ * Each chunk write only records the time it was received:
+ * <ul>
+ * <li>{@link #drain()} hands the uploads active since the previous drain to a single
+ * batched update of their last update time</li>
+ * <li>An upload that keeps receiving chunks is persisted once per flush interval,
+ * whatever its chunk rate</li>
+ * <li>{@link #getLastActivity(String)} exposes activity not persisted yet, e.g. to a
+ * timeout check running between two flushes</li>
+ * </ul>
+ */
+public class UploadHeartbeatRegistry {
+    /** Default interval between two batched updates. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 5_000L;
+
+    private final long flushIntervalMillis;
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+
+    public UploadHeartbeatRegistry() {
+        this(DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param flushIntervalMillis Interval between two batched updates, i.e. the maximum age of unpersisted activity
+     */
+    public UploadHeartbeatRegistry(long flushIntervalMillis) {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("flushIntervalMillis must be > 0");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Records activity on an upload.
+     *
+     * @param uploadId The upload ID
+     */
+    public void record(String uploadId) {
+        pending.put(uploadId, System.currentTimeMillis());
+    }
+
+    /**
+     * @param uploadId The upload ID
+     * @return Time of the latest activity not persisted yet, in epoch milliseconds, or {@code null} if none
+     */
+    public Long getLastActivity(String uploadId) {
+        return pending.get(uploadId);
+    }
+
+    /**
+     * Removes the uploads active since the previous drain. Activity recorded while
+     * draining is kept for the next drain.
+     *
+     * @return The IDs of the uploads to persist
+     */
+    public Set<String> drain() {
+        Set<String> uploadIds = new HashSet<>();
+        for (var entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                uploadIds.add(entry.getKey());
+            }
+        }
+        return uploadIds;
+    }
+
+    /**
+     * Forgets an upload that completed, was aborted or timed out.
+     *
+     * @param uploadId The upload ID
+     */
+    public void remove(String uploadId) {
+        pending.remove(uploadId);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+}
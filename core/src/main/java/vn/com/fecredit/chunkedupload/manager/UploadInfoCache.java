@@ -0,0 +1,213 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import vn.com.fecredit.chunkedupload.model.interfaces.IUploadInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of the upload info of active uploads, keyed by uploadId.
+ *
+ * <p>
+ * The upload info is written once when an upload is registered and read by the chunk
+ * writes and the assembly that follow. The cache keeps it in memory for the life of the
+ * upload:
+ * <ul>
+ * <li>Registration puts the saved upload info, so a steady-state upload never reads it back</li>
+ * <li>A miss, e.g. after a restart, loads it through the given lookup; unknown uploads are not cached</li>
+ * <li>Each entry records the username it was loaded for; a lookup for another username
+ * is a miss, so one tenant cannot read the upload info of another from the cache</li>
+ * <li>Entries not accessed for {@code idleTimeoutMillis} are dropped on the next insert
+ * or by {@link #evictIdle()}</li>
+ * <li>At most {@code maxEntries} uploads are kept; beyond that, idle entries are dropped
+ * first, then the least recently used ones down to 90% of the limit</li>
+ * </ul>
+ *
+ * <p>
+ * Callers must {@link #invalidate(String)} the entry of an upload when it completes, is
+ * aborted or times out. A lookup running at that time does not store its result, so an
+ * upload deleted concurrently is not cached again.
+ *
+ * @param <Y> The upload info type
+ */
+public class UploadInfoCache<Y extends IUploadInfo> {
+    /** Default maximum number of cached uploads. */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    /** Default idle time after which an upload info is dropped. */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 600_000L;
+
+    private final int maxEntries;
+    private final long idleTimeoutMillis;
+    private final ConcurrentHashMap<String, Entry<Y>> entries = new ConcurrentHashMap<>();
+    // Incremented by each invalidation; lookups that started before it do not store their result
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    private static final class Entry<Y> {
+        final Y info;
+        // Username the entry was loaded for, or null if loaded by uploadId alone
+        final String username;
+        volatile long lastAccess;
+
+        Entry(Y info, String username, long now) {
+            this.info = info;
+            this.username = username;
+            this.lastAccess = now;
+        }
+    }
+
+    public UploadInfoCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param maxEntries        Maximum number of cached uploads
+     * @param idleTimeoutMillis Idle time after which an upload info is dropped
+     */
+    public UploadInfoCache(int maxEntries, long idleTimeoutMillis) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis must be > 0");
+        }
+        this.maxEntries = maxEntries;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Returns the cached upload info, calling {@code lookup} on a miss.
+     *
+     * @param uploadId The upload ID
+     * @param username The tenant username the upload must belong to, or {@code null} to accept any tenant
+     * @param lookup   Loads an upload info that is not cached; returns empty for unknown uploads
+     * @return The upload info, or empty if the upload is unknown
+     */
+    public Optional<Y> get(String uploadId, String username, Function<String, Optional<Y>> lookup) {
+        long now = System.currentTimeMillis();
+        Entry<Y> entry = entries.get(uploadId);
+        if (entry != null && (username == null || username.equals(entry.username))) {
+            entry.lastAccess = now;
+            hitCount.incrementAndGet();
+            return Optional.of(entry.info);
+        }
+        missCount.incrementAndGet();
+        long startGeneration = generation.get();
+        Optional<Y> info = lookup.apply(uploadId);
+        info.ifPresent(loaded -> store(uploadId, new Entry<>(loaded, username, now), startGeneration));
+        return info;
+    }
+
+    /**
+     * @param uploadId The upload ID
+     * @return The cached upload info, or empty if not cached; never calls the persistence layer
+     */
+    public Optional<Y> getIfPresent(String uploadId) {
+        Entry<Y> entry = entries.get(uploadId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return Optional.of(entry.info);
+    }
+
+    /**
+     * Caches the upload info of a newly registered upload.
+     *
+     * @param uploadId The upload ID
+     * @param info     The saved upload info
+     * @param username The tenant username owning the upload
+     */
+    public void put(String uploadId, Y info, String username) {
+        entries.put(uploadId, new Entry<>(info, username, System.currentTimeMillis()));
+        trim();
+    }
+
+    private void store(String uploadId, Entry<Y> entry, long startGeneration) {
+        entries.put(uploadId, entry);
+        if (generation.get() != startGeneration) {
+            // Invalidated while looking up: the upload may have completed or been deleted
+            entries.remove(uploadId, entry);
+            return;
+        }
+        trim();
+    }
+
+    private void trim() {
+        if (entries.size() > maxEntries) {
+            evictIdle();
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Drops the cached upload info of an upload that completed, was aborted or timed out.
+     *
+     * @param uploadId The upload ID
+     */
+    public void invalidate(String uploadId) {
+        generation.incrementAndGet();
+        entries.remove(uploadId);
+    }
+
+    /**
+     * Drops the entries not accessed within the idle timeout.
+     *
+     * @return Number of entries dropped
+     */
+    public int evictIdle() {
+        long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+        int evicted = 0;
+        for (Map.Entry<String, Entry<Y>> e : entries.entrySet()) {
+            if (e.getValue().lastAccess <= idleSince && entries.remove(e.getKey(), e.getValue())) {
+                evicted++;
+            }
+        }
+        evictionCount.addAndGet(evicted);
+        return evicted;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        int target = maxEntries - maxEntries / 10;
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        // Snapshot the access times: they keep changing while sorting
+        List<Candidate<Y>> candidates = new ArrayList<>(entries.size());
+        entries.forEach((uploadId, entry) -> candidates.add(new Candidate<>(uploadId, entry, entry.lastAccess)));
+        candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+        for (Candidate<Y> candidate : candidates) {
+            if (entries.size() <= target) {
+                break;
+            }
+            if (entries.remove(candidate.uploadId(), candidate.entry())) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private record Candidate<Y>(String uploadId, Entry<Y> entry, long lastAccess) {
+    }
+
+    /** @return Current counters of the cache */
+    public CacheStats getStats() {
+        return new CacheStats(hitCount.get(), missCount.get(), evictionCount.get(), entries.size());
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+}
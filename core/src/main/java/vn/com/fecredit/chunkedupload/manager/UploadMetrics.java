@@ -0,0 +1,81 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+/**
+ * Receives measurements of the upload pipeline, e.g. to publish them to a metrics registry.
+ *
+ * <p>
+ * Every method has an empty default, so implementations only override what they publish:
+ * <ul>
+ * <li>Methods are called on the chunk path and must not block; they receive raw
+ * {@link System#nanoTime()} durations and do no formatting</li>
+ * <li>They must be thread-safe: chunks of one upload are written concurrently</li>
+ * <li>{@link #NOOP} is used until {@code setMetrics} is called on the upload engine</li>
+ * </ul>
+ */
+public interface UploadMetrics {
+
+    /** Discards every measurement. */
+    UploadMetrics NOOP = new UploadMetrics() {
+    };
+
+    /** Lock waited for by {@link #lockWaited}: the part file, opened and locked on a channel cache miss. */
+    String LOCK_PART_FILE = "part-file";
+    /** Lock waited for by {@link #lockWaited}: the lock file serializing assemblies of one upload. */
+    String LOCK_ASSEMBLY = "assembly";
+
+    /**
+     * Called after a chunk was written and marked as received.
+     *
+     * @param username          The tenant username
+     * @param bytes             The chunk length
+     * @param diskWriteNanos    Time spent writing the chunk data to the part file
+     * @param headerUpdateNanos Time spent marking the chunk in the bitset, including a due header flush
+     */
+    default void chunkWritten(String username, long bytes, long diskWriteNanos, long headerUpdateNanos) {
+    }
+
+    /**
+     * Called after the activity of a chunk was recorded: persisted, or batched in memory.
+     *
+     * @param nanos Time spent recording the activity
+     */
+    default void activityRecorded(long nanos) {
+    }
+
+    /**
+     * Called after a lock was acquired.
+     *
+     * @param lock  {@link #LOCK_PART_FILE} or {@link #LOCK_ASSEMBLY}
+     * @param nanos Time spent waiting for the lock
+     */
+    default void lockWaited(String lock, long nanos) {
+    }
+
+    /**
+     * Called after payload bytes were hashed, incrementally or by re-reading the assembled file.
+     *
+     * @param bytes Number of bytes hashed
+     * @param nanos Time spent hashing them
+     */
+    default void checksumComputed(long bytes, long nanos) {
+    }
+
+    /**
+     * Called after a complete upload was assembled, or failed to be.
+     *
+     * @param fileSize The payload size
+     * @param nanos    Time spent assembling, verifying and recording the upload
+     * @param success  {@code false} if the assembly or the checksum verification failed
+     */
+    default void assembled(long fileSize, long nanos, boolean success) {
+    }
+
+    /**
+     * Called after a run of the cleanup of timed-out uploads.
+     *
+     * @param cleaned Number of uploads moved to history as timed out
+     * @param failed  Number of timed-out uploads that could not be cleaned up
+     */
+    default void timeoutCleanup(int cleaned, int failed) {
+    }
+}
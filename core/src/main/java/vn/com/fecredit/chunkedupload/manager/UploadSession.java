@@ -0,0 +1,394 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live state of an active upload, kept in memory between chunks.
+ *
+ * <p>
+ * The session owns the authoritative chunk bitset of the upload:
+ * <ul>
+ * <li>Received chunks are marked in an in-memory {@link ChunkBitset} only</li>
+ * <li>Its cardinality counter detects completion without scanning the bitset</li>
+ * <li>The 64-chunk words changed since the last flush are tracked</li>
+ * <li>{@link #flush(FileChannel, FileChannel, long)} writes just the dirty bytes back to the header file</li>
+ * <li>Optionally, an {@link IncrementalDigest} hashes the payload as its received prefix grows</li>
+ * </ul>
+ *
+ * <p>
+ * Chunk data of one upload is written concurrently by any number of threads.
+ * Marking a chunk and detecting completion are lock-free; exactly one caller of
+ * {@link #markChunk(int)} observes completion. Flushes are serialized with each
+ * other but not with chunk writes.
+ *
+ * <p>
+ * Chunk data is forced to disk before the bitset bytes that describe it are
+ * written, so a persisted bit always refers to durable data. After a crash the
+ * header on disk may lag behind the chunks that were received; those chunks are
+ * reported as missing and uploaded again.
+ */
+public class UploadSession {
+    private final String uploadId;
+    // Username owning the upload, for diagnostics; null if unknown
+    private final String tenant;
+    private final PartFileLayout layout;
+    private final Header header;
+    private final ChunkBitset received;
+    // One bit per 64-chunk word of "received" written since the last flush
+    private final ChunkBitset dirtyWords;
+    private final AtomicInteger unflushedChunks = new AtomicInteger();
+    private final AtomicBoolean completionClaimed = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Guards the writer count and the retired flag; a lock rather than a monitor, so that a
+    // virtual thread waiting for it unmounts instead of pinning its carrier
+    private final ReentrantLock writersLock = new ReentrantLock();
+    // Running payload checksum, null when incremental verification is disabled
+    private final IncrementalDigest digest;
+
+    // Guarded by writersLock
+    private int activeWriters;
+    private boolean retired;
+    private volatile long lastFlushMillis;
+    private volatile long lastAccessMillis;
+
+    /**
+     * Creates a session for an upload stored in a single part file.
+     *
+     * @param uploadId The upload ID
+     * @param partPath The part file of the upload, holding the header and the payload
+     * @param header   The header as currently persisted
+     */
+    public UploadSession(String uploadId, Path partPath, Header header) {
+        this(uploadId, PartFileLayout.legacy(partPath), header, false);
+    }
+
+    /**
+     * Creates a session from the header read from the header file of the upload.
+     *
+     * @param uploadId The upload ID
+     * @param layout   The files of the upload
+     * @param header   The header as currently persisted
+     * @param incrementalDigest {@code true} to compute the payload checksum while chunks arrive
+     */
+    public UploadSession(String uploadId, PartFileLayout layout, Header header, boolean incrementalDigest) {
+        this(uploadId, null, layout, header, incrementalDigest);
+    }
+
+    /**
+     * Creates a session from the header read from the header file of the upload.
+     *
+     * @param uploadId The upload ID
+     * @param tenant   The username owning the upload, or {@code null} if unknown
+     * @param layout   The files of the upload
+     * @param header   The header as currently persisted
+     * @param incrementalDigest {@code true} to compute the payload checksum while chunks arrive
+     */
+    public UploadSession(String uploadId, String tenant, PartFileLayout layout, Header header, boolean incrementalDigest) {
+        this(uploadId, tenant, layout, header, incrementalDigest ? new IncrementalDigest(header) : null);
+    }
+
+    /**
+     * Creates a session continuing the payload checksum of an earlier session of the upload.
+     *
+     * @param uploadId The upload ID
+     * @param tenant   The username owning the upload, or {@code null} if unknown
+     * @param layout   The files of the upload
+     * @param header   The header as currently persisted
+     * @param digest   The running payload checksum of the upload, or {@code null} to disable incremental verification
+     * @see UploadSessionRegistry#digestFor(String, Header)
+     */
+    public UploadSession(String uploadId, String tenant, PartFileLayout layout, Header header, IncrementalDigest digest) {
+        this.uploadId = uploadId;
+        this.tenant = tenant;
+        this.layout = layout;
+        this.header = header;
+        this.digest = digest;
+        this.received = ChunkBitset.fromByteArray(header.bitset, header.totalChunks);
+        this.dirtyWords = new ChunkBitset((header.totalChunks + 63) >>> 6);
+        this.lastFlushMillis = System.currentTimeMillis();
+        this.lastAccessMillis = lastFlushMillis;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    /** @return The username owning the upload, or {@code null} if unknown */
+    public String getTenant() {
+        return tenant;
+    }
+
+    public Path getPartPath() {
+        return layout.getDataPath();
+    }
+
+    public PartFileLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Returns the header as loaded from the part file. Its fixed fields describe the
+     * upload; its bitset is not updated, use {@link #snapshot()} for the current state.
+     *
+     * @return The header the session was created from
+     */
+    public Header getHeader() {
+        return header;
+    }
+
+    /**
+     * Registers a chunk writer on this session.
+     *
+     * @return {@code false} if the session was retired and must be reloaded from the part file
+     */
+    public boolean beginWrite() {
+        writersLock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            activeWriters++;
+            lastAccessMillis = System.currentTimeMillis();
+            return true;
+        } finally {
+            writersLock.unlock();
+        }
+    }
+
+    /**
+     * Unregisters a chunk writer previously registered by {@link #beginWrite()}.
+     */
+    public void endWrite() {
+        writersLock.lock();
+        try {
+            activeWriters--;
+        } finally {
+            writersLock.unlock();
+        }
+    }
+
+    /**
+     * Marks a chunk as received in memory. Must be called after the chunk data was written.
+     *
+     * @param chunkNumber The 0-based chunk index
+     * @return {@code true} for exactly one caller: the one that observes the upload
+     * complete and is responsible for finalizing it
+     */
+    public boolean markChunk(int chunkNumber) {
+        if (received.set(chunkNumber)) {
+            // Bit first, dirty flag second: a flush that clears the flag re-reads the word
+            dirtyWords.set(chunkNumber >>> 6);
+            unflushedChunks.incrementAndGet();
+        }
+        // A re-sent chunk of an upload recovered as complete also claims finalization
+        return claimCompletion();
+    }
+
+    /**
+     * Claims the finalization of an upload whose chunks were all received, e.g. one
+     * recovered from its header after a restart while it was being finalized.
+     *
+     * @return {@code true} for exactly one caller, and only once every chunk is received
+     */
+    public boolean claimCompletion() {
+        return received.isFull() && completionClaimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Advances the incremental payload checksum after a chunk was marked, if enabled.
+     *
+     * @param chunkNumber The chunk just written
+     * @param data        The chunk data as received, or {@code null} if it was streamed to disk
+     * @param ch          Open channel of the data file
+     * @return The number of payload bytes hashed, {@code 0} if incremental verification is disabled
+     * @see IncrementalDigest#advance(int, ByteBuffer, ChunkBitset, FileChannel, long)
+     */
+    public long advanceDigest(int chunkNumber, ByteBuffer data, FileChannel ch) {
+        return digest != null ? digest.advance(chunkNumber, data, received, ch, layout.dataOffset(header.bitset.length)) : 0;
+    }
+
+    /** @return Number of payload bytes already hashed by the incremental checksum, {@code 0} if disabled */
+    public long getDigestedBytes() {
+        return digest != null ? digest.getHashedBytes() : 0;
+    }
+
+    /**
+     * Completes the incremental payload checksum. Must be called once every chunk is received.
+     *
+     * @param ch Open channel of the data file
+     * @return The payload checksum, or {@code null} if incremental verification is disabled or was abandoned
+     */
+    public String finishDigest(FileChannel ch) {
+        return digest != null ? digest.finish(received, ch, layout.dataOffset(header.bitset.length)) : null;
+    }
+
+    /**
+     * Returns a copy of the header that is safe to hand out while chunks keep arriving.
+     *
+     * @return A header whose bitset reflects every chunk received so far
+     */
+    public Header snapshot() {
+        return new Header(header.totalChunks, header.chunkSize, header.fileSize, received.toByteArray());
+    }
+
+    /**
+     * Persists the dirty bitset bytes to a single-file upload, waiting for a flush in progress.
+     *
+     * @param ch           Open channel of the part file
+     * @param bitsetOffset Position of the bitset within the part file
+     * @return The number of bitset bytes written, {@code 0} if nothing was dirty
+     * @throws IOException if the part file cannot be written
+     */
+    public int flush(FileChannel ch, long bitsetOffset) throws IOException {
+        return flush(ch, ch, bitsetOffset);
+    }
+
+    /**
+     * Persists the dirty bitset bytes to the header file, waiting for a flush in progress.
+     *
+     * @param dataChannel   Open channel of the data file, forced before the bitset is written
+     * @param headerChannel Open channel of the header file; may be {@code dataChannel}
+     * @param bitsetOffset  Position of the bitset within the header file
+     * @return The number of bitset bytes written, {@code 0} if nothing was dirty
+     * @throws IOException if a file cannot be written
+     */
+    public int flush(FileChannel dataChannel, FileChannel headerChannel, long bitsetOffset) throws IOException {
+        flushLock.lock();
+        try {
+            return flushLocked(dataChannel, headerChannel, bitsetOffset);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Persists the dirty bitset bytes of a single-file upload unless another thread is already flushing.
+     *
+     * @see #tryFlush(FileChannel, FileChannel, long)
+     */
+    public int tryFlush(FileChannel ch, long bitsetOffset) throws IOException {
+        return tryFlush(ch, ch, bitsetOffset);
+    }
+
+    /**
+     * Persists the dirty bitset bytes unless another thread is already flushing.
+     * The flush in progress or the next one picks up the bytes skipped here.
+     *
+     * @param dataChannel   Open channel of the data file, forced before the bitset is written
+     * @param headerChannel Open channel of the header file; may be {@code dataChannel}
+     * @param bitsetOffset  Position of the bitset within the header file
+     * @return The number of bitset bytes written, {@code 0} if skipped or nothing was dirty
+     * @throws IOException if a file cannot be written
+     */
+    public int tryFlush(FileChannel dataChannel, FileChannel headerChannel, long bitsetOffset) throws IOException {
+        if (!flushLock.tryLock()) {
+            return 0;
+        }
+        try {
+            return flushLocked(dataChannel, headerChannel, bitsetOffset);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushLocked(FileChannel dataChannel, FileChannel headerChannel, long bitsetOffset) throws IOException {
+        unflushedChunks.set(0);
+        // Snapshot runs of dirty words; each run is {firstWord, lastWord}
+        List<int[]> runs = new ArrayList<>();
+        List<byte[]> bytes = new ArrayList<>();
+        int byteCount = header.bitset.length;
+        for (int w = dirtyWords.nextSetBit(0); w >= 0; ) {
+            int last = w;
+            while (last + 1 < dirtyWords.size() && dirtyWords.get(last + 1)) {
+                last++;
+            }
+            dirtyWords.clearRange(w, last + 1);
+            int fromByte = w << 3;
+            int toByte = Math.min((last + 1) << 3, byteCount);
+            byte[] run = new byte[toByte - fromByte];
+            received.copyBytes(fromByte, toByte, run, 0);
+            runs.add(new int[]{w, last});
+            bytes.add(run);
+            w = last + 1 < dirtyWords.size() ? dirtyWords.nextSetBit(last + 1) : -1;
+        }
+        if (runs.isEmpty()) {
+            lastFlushMillis = System.currentTimeMillis();
+            return 0;
+        }
+        int written = 0;
+        try {
+            // Data first: every bit copied above was marked after its chunk was written
+            dataChannel.force(false);
+            for (int i = 0; i < runs.size(); i++) {
+                ByteBuffer buf = ByteBuffer.wrap(bytes.get(i));
+                long position = bitsetOffset + ((long) runs.get(i)[0] << 3);
+                while (buf.hasRemaining()) {
+                    position += headerChannel.write(buf, position);
+                }
+                written += bytes.get(i).length;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep the words dirty so that a later flush retries them
+            for (int[] run : runs) {
+                dirtyWords.setRange(run[0], run[1] + 1);
+            }
+            throw e;
+        }
+        lastFlushMillis = System.currentTimeMillis();
+        return written;
+    }
+
+    /**
+     * Retires the session if it is clean, has no active writer and was not used
+     * for the given time. A retired session is never used again.
+     *
+     * @param idleMillis Minimum idle time
+     * @param now        Current time in milliseconds
+     * @return {@code true} if the session was retired
+     */
+    public boolean retireIfIdle(long idleMillis, long now) {
+        writersLock.lock();
+        try {
+            if (activeWriters == 0 && !isDirty() && now - lastAccessMillis >= idleMillis) {
+                retired = true;
+            }
+            return retired;
+        } finally {
+            writersLock.unlock();
+        }
+    }
+
+    /** @return {@code true} if chunks were marked since the last flush */
+    public boolean isDirty() {
+        return dirtyWords.cardinality() > 0;
+    }
+
+    /** @return Number of chunks marked since the last flush */
+    public int getUnflushedChunks() {
+        return unflushedChunks.get();
+    }
+
+    /** @return Number of chunks not received yet */
+    public int getRemainingChunks() {
+        return received.size() - received.cardinality();
+    }
+
+    public long getLastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+}
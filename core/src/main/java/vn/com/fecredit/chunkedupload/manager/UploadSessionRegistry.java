@@ -0,0 +1,195 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import vn.com.fecredit.chunkedupload.model.Header;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the {@link UploadSession}s of active uploads and their group-commit policy.
+ *
+ * <p>
+ * Header updates are group-committed: the in-memory bitset of a session is
+ * written back to the part file when
+ * <ul>
+ * <li>{@code flushEveryChunks} chunks have been marked since the last flush, or</li>
+ * <li>the session is dirty and {@code flushIntervalMillis} have passed since the last flush, or</li>
+ * <li>the upload completes</li>
+ * </ul>
+ *
+ * <p>
+ * A session that is clean, has no chunk write in progress and has not been used
+ * for {@code flushIntervalMillis} is idle: its state is fully persisted and it
+ * can be dropped and reloaded from the part file on the next chunk.
+ *
+ * <p>
+ * The running payload checksum of an upload is not persisted, so it is kept here rather than
+ * in the session: a session reloaded after a pause between chunks resumes hashing where the
+ * dropped one stopped. It is released with the upload by {@link #remove(String)}.
+ */
+public class UploadSessionRegistry {
+    /** Default number of chunks marked before the header is flushed. */
+    public static final int DEFAULT_FLUSH_EVERY_CHUNKS = 64;
+    /** Default maximum time a marked chunk stays unflushed. */
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1_000L;
+
+    private final int flushEveryChunks;
+    private final long flushIntervalMillis;
+    private final ConcurrentHashMap<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    // Outlive the sessions dropped while idle
+    private final ConcurrentHashMap<String, IncrementalDigest> digests = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedBytes = new AtomicLong();
+
+    /**
+     * Creates a registry with the default group-commit policy.
+     */
+    public UploadSessionRegistry() {
+        this(DEFAULT_FLUSH_EVERY_CHUNKS, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a registry with the given group-commit policy.
+     *
+     * @param flushEveryChunks    Number of marked chunks after which the header is flushed; {@code 1} flushes every chunk
+     * @param flushIntervalMillis Maximum time a marked chunk stays unflushed
+     */
+    public UploadSessionRegistry(int flushEveryChunks, long flushIntervalMillis) {
+        if (flushEveryChunks <= 0) {
+            throw new IllegalArgumentException("flushEveryChunks must be > 0");
+        }
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("flushIntervalMillis must be > 0");
+        }
+        this.flushEveryChunks = flushEveryChunks;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public UploadSession get(String uploadId) {
+        return sessions.get(uploadId);
+    }
+
+    /**
+     * Registers a session unless another thread registered one for the same upload first.
+     *
+     * @param session The freshly loaded session
+     * @return The registered session, which may not be the one passed in
+     */
+    public UploadSession register(UploadSession session) {
+        UploadSession existing = sessions.putIfAbsent(session.getUploadId(), session);
+        return existing != null ? existing : session;
+    }
+
+    /**
+     * Releases the session and the running checksum of an upload that completed, was aborted or timed out.
+     *
+     * @param uploadId The upload ID
+     * @return The removed session, or {@code null} if none was loaded
+     */
+    public UploadSession remove(String uploadId) {
+        digests.remove(uploadId);
+        return sessions.remove(uploadId);
+    }
+
+    /**
+     * Returns the running payload checksum of an upload, shared by every session loaded for it.
+     *
+     * @param uploadId The upload ID
+     * @param header   Header of the upload; only its fixed fields are used
+     * @return The checksum in progress, created on the first call
+     */
+    public IncrementalDigest digestFor(String uploadId, Header header) {
+        return digests.computeIfAbsent(uploadId, id -> new IncrementalDigest(header));
+    }
+
+    /**
+     * @param uploadId The upload ID
+     * @return The running payload checksum of the upload, or {@code null} if none was started
+     */
+    public IncrementalDigest getDigest(String uploadId) {
+        return digests.get(uploadId);
+    }
+
+    /**
+     * Removes a session only if it is still the registered one for its upload.
+     * The running checksum of the upload is kept for the next session.
+     *
+     * @param session The session to remove
+     * @return {@code true} if the session was removed
+     */
+    public boolean remove(UploadSession session) {
+        return sessions.remove(session.getUploadId(), session);
+    }
+
+    /** @return Snapshot of the currently registered sessions */
+    public List<UploadSession> sessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Checks the group-commit policy for a session.
+     *
+     * @param session The session to check
+     * @param now     Current time in milliseconds
+     * @return {@code true} if the dirty bitset bytes should be written now
+     */
+    public boolean isFlushDue(UploadSession session, long now) {
+        return session.getUnflushedChunks() >= flushEveryChunks
+                || (session.isDirty() && now - session.getLastFlushMillis() >= flushIntervalMillis);
+    }
+
+    /**
+     * Drops a session that is clean, has no active writer and was unused for the flush interval.
+     * Its state is fully persisted and is reloaded from the part file on the next chunk;
+     * its running checksum stays in the registry.
+     *
+     * @param session The session to check
+     * @param now     Current time in milliseconds
+     * @return {@code true} if the session was dropped
+     */
+    public boolean evictIfIdle(UploadSession session, long now) {
+        if (session.retireIfIdle(flushIntervalMillis, now)) {
+            sessions.remove(session.getUploadId(), session);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a completed flush.
+     *
+     * @param bytes Number of bitset bytes written
+     */
+    public void recordFlush(int bytes) {
+        if (bytes > 0) {
+            flushCount.incrementAndGet();
+            flushedBytes.addAndGet(bytes);
+        }
+    }
+
+    public int getFlushEveryChunks() {
+        return flushEveryChunks;
+    }
+
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /** @return Number of header flushes that wrote at least one byte */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /** @return Total number of bitset bytes written by flushes */
+    public long getFlushedBytes() {
+        return flushedBytes.get();
+    }
+
+    /** @return Number of sessions held in memory */
+    public int size() {
+        return sessions.size();
+    }
+}
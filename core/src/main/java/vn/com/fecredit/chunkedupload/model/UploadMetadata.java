@@ -0,0 +1,13 @@
+package vn.com.fecredit.chunkedupload.model;
+
+/**
+ * Immutable view of the metadata of an active upload, served from memory.
+ *
+ * @param uploadId The upload ID
+ * @param checksum Expected SHA-256 of the payload, as a hex string
+ * @param filename Original file name
+ * @param username Username of the tenant owning the upload
+ * @param tenantId Database ID of the tenant owning the upload
+ */
+public record UploadMetadata(String uploadId, String checksum, String filename, String username, Long tenantId) {
+}
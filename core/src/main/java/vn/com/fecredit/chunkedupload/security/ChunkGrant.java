@@ -0,0 +1,30 @@
+package vn.com.fecredit.chunkedupload.security;
+
+/**
+ * Claims of a pre-signed chunk URL: which chunks of which upload may be sent, until when.
+ *
+ * @param username        Username of the tenant owning the upload
+ * @param uploadId        The upload the chunks belong to
+ * @param firstChunk      First chunk index the URL authorizes (0-based, inclusive)
+ * @param lastChunk       Last chunk index the URL authorizes (inclusive)
+ * @param expiresAtMillis Expiry time, in epoch milliseconds
+ */
+public record ChunkGrant(String username, String uploadId, int firstChunk, int lastChunk, long expiresAtMillis) {
+
+    /**
+     * @param uploadId    The upload a request targets
+     * @param chunkNumber The chunk a request sends
+     * @return {@code true} if the grant authorizes that chunk
+     */
+    public boolean covers(String uploadId, int chunkNumber) {
+        return this.uploadId.equals(uploadId) && chunkNumber >= firstChunk && chunkNumber <= lastChunk;
+    }
+
+    /**
+     * @param nowMillis The current time, in epoch milliseconds
+     * @return {@code true} if the grant is no longer valid at that time
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
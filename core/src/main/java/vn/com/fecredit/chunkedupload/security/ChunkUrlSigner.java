@@ -0,0 +1,150 @@
+package vn.com.fecredit.chunkedupload.security;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Signs and verifies pre-signed chunk URLs.
+ *
+ * <p>
+ * A pre-signed URL lets a process without tenant credentials send some chunks of an existing
+ * upload:
+ * <ul>
+ * <li>The signature is an HMAC-SHA256 over the tenant, the upload ID, the chunk range and the
+ * expiry time, carried in the query string of the chunk URL</li>
+ * <li>Verification needs the key only: no account, upload or session is looked up</li>
+ * <li>A URL cannot be used for another upload, for a chunk outside its range, or after it expires</li>
+ * </ul>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * ChunkUrlSigner signer = new ChunkUrlSigner(hmac, 900_000L);
+ * ChunkGrant grant = signer.newGrant("user", uploadId, 0, 9, null);
+ * String url = "/api/upload/" + uploadId + "/chunks/3?" + signer.toQuery(grant);
+ * ChunkGrant verified = signer.verify("user", uploadId, 0, 9, grant.expiresAtMillis(), signer.sign(grant));
+ * </pre>
+ */
+public class ChunkUrlSigner {
+    /** Default validity of a pre-signed URL. */
+    public static final long DEFAULT_TTL_MILLIS = 900_000L;
+    /** Query parameter names of a pre-signed URL. */
+    public static final String PARAM_TENANT = "tenant";
+    public static final String PARAM_FROM = "from";
+    public static final String PARAM_TO = "to";
+    public static final String PARAM_EXPIRES = "expires";
+    public static final String PARAM_SIGNATURE = "signature";
+
+    /** Keeps chunk URL signatures distinct from other signatures made with the same key. */
+    private static final String DOMAIN = "chunk-url/v1";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final HmacSha256 hmac;
+    private final long defaultTtlMillis;
+
+    /**
+     * @param hmac             The signing key, shared by every instance verifying the URLs
+     * @param defaultTtlMillis Validity of a URL when none is requested, and maximum validity
+     */
+    public ChunkUrlSigner(HmacSha256 hmac, long defaultTtlMillis) {
+        if (defaultTtlMillis <= 0) {
+            throw new IllegalArgumentException("defaultTtlMillis must be > 0");
+        }
+        this.hmac = hmac;
+        this.defaultTtlMillis = defaultTtlMillis;
+    }
+
+    /**
+     * @param username   Username of the tenant owning the upload
+     * @param uploadId   The upload the chunks belong to
+     * @param firstChunk First chunk index to authorize
+     * @param lastChunk  Last chunk index to authorize, inclusive
+     * @param ttlMillis  Requested validity, capped to the default validity; {@code null} for the default
+     * @return A grant valid from now
+     */
+    public ChunkGrant newGrant(String username, String uploadId, int firstChunk, int lastChunk, Long ttlMillis) {
+        if (firstChunk < 0 || lastChunk < firstChunk) {
+            throw new IllegalArgumentException("Invalid chunk range: " + firstChunk + "-" + lastChunk);
+        }
+        if (!isField(username) || !isField(uploadId)) {
+            throw new IllegalArgumentException("username and uploadId are required and cannot contain line breaks");
+        }
+        if (ttlMillis != null && ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be > 0");
+        }
+        long ttl = ttlMillis == null ? defaultTtlMillis : Math.min(ttlMillis, defaultTtlMillis);
+        return new ChunkGrant(username, uploadId, firstChunk, lastChunk, System.currentTimeMillis() + ttl);
+    }
+
+    /**
+     * @param grant The grant to sign
+     * @return The signature of the grant, URL-safe Base64
+     */
+    public String sign(ChunkGrant grant) {
+        return ENCODER.encodeToString(hmac.sign(canonical(grant)));
+    }
+
+    /**
+     * Builds the query string carrying a grant and its signature; the upload ID and chunk number
+     * are in the path of the chunk URL.
+     *
+     * @param grant The grant to sign
+     * @return The query string, without the leading {@code ?}
+     */
+    public String toQuery(ChunkGrant grant) {
+        return PARAM_TENANT + "=" + URLEncoder.encode(grant.username(), StandardCharsets.UTF_8)
+                + "&" + PARAM_FROM + "=" + grant.firstChunk()
+                + "&" + PARAM_TO + "=" + grant.lastChunk()
+                + "&" + PARAM_EXPIRES + "=" + grant.expiresAtMillis()
+                + "&" + PARAM_SIGNATURE + "=" + sign(grant);
+    }
+
+    /**
+     * Checks the signature and expiry of a pre-signed URL.
+     *
+     * @param username        The {@code tenant} parameter
+     * @param uploadId        The upload ID in the path
+     * @param firstChunk      The {@code from} parameter
+     * @param lastChunk       The {@code to} parameter
+     * @param expiresAtMillis The {@code expires} parameter
+     * @param signature       The {@code signature} parameter
+     * @return The verified grant
+     * @throws SecurityException if the signature does not match or the URL expired
+     */
+    public ChunkGrant verify(String username, String uploadId, int firstChunk, int lastChunk,
+                             long expiresAtMillis, String signature) {
+        if (!isField(username) || !isField(uploadId) || signature == null) {
+            throw new SecurityException("Malformed chunk URL");
+        }
+        ChunkGrant grant = new ChunkGrant(username, uploadId, firstChunk, lastChunk, expiresAtMillis);
+        byte[] expected;
+        try {
+            expected = DECODER.decode(signature);
+        } catch (IllegalArgumentException e) {
+            throw new SecurityException("Malformed chunk URL");
+        }
+        if (!hmac.verify(canonical(grant), expected)) {
+            throw new SecurityException("Invalid chunk URL signature");
+        }
+        if (grant.isExpired(System.currentTimeMillis())) {
+            throw new SecurityException("Chunk URL expired");
+        }
+        return grant;
+    }
+
+    public long getDefaultTtlMillis() {
+        return defaultTtlMillis;
+    }
+
+    private static boolean isField(String value) {
+        return value != null && value.indexOf('\n') < 0;
+    }
+
+    private static byte[] canonical(ChunkGrant grant) {
+        // Fields are checked to contain no line break, so none can be shifted into another
+        return (DOMAIN + "\n" + grant.username() + "\n" + grant.uploadId() + "\n" + grant.firstChunk()
+                + "\n" + grant.lastChunk() + "\n" + grant.expiresAtMillis()).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+package vn.com.fecredit.chunkedupload.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * HMAC-SHA256 with a fixed key, safe for use by concurrent threads.
+ *
+ * <p>
+ * Initialized {@link Mac}s are pooled and reused by whichever thread needs one, so signing or
+ * verifying costs one HMAC computation, without key setup or locking. Unlike one {@code Mac}
+ * per thread, the pool stays as small as the peak concurrency when every request runs on a new
+ * virtual thread. Signatures are compared in constant time.
+ */
+public final class HmacSha256 {
+    private static final String ALGORITHM = "HmacSHA256";
+    /** Size of generated keys and of signatures, in bytes. */
+    public static final int KEY_SIZE = 32;
+
+    private final SecretKeySpec key;
+    // Idle initialized instances; grows to the number of threads signing at the same time
+    private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param key The secret key; at least {@link #KEY_SIZE} bytes are recommended
+     */
+    public HmacSha256(byte[] key) {
+        if (key == null || key.length == 0) {
+            throw new IllegalArgumentException("key is required");
+        }
+        this.key = new SecretKeySpec(key.clone(), ALGORITHM);
+    }
+
+    /**
+     * @param base64Key The secret key, Base64 encoded
+     * @return A signer using the decoded key
+     */
+    public static HmacSha256 fromBase64(String base64Key) {
+        return new HmacSha256(Base64.getDecoder().decode(base64Key.trim()));
+    }
+
+    /** @return A new random key of {@link #KEY_SIZE} bytes */
+    public static byte[] generateKey() {
+        byte[] key = new byte[KEY_SIZE];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    /**
+     * @param data The data to sign
+     * @return The signature of the data
+     */
+    public byte[] sign(byte[] data) {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        try {
+            return mac.doFinal(data);
+        } finally {
+            // doFinal leaves the instance reset, ready for the next signature
+            macs.offer(mac);
+        }
+    }
+
+    /**
+     * @param data      The signed data
+     * @param signature The signature to check
+     * @return {@code true} if the signature is the signature of the data under this key
+     */
+    public boolean verify(byte[] data, byte[] signature) {
+        return MessageDigest.isEqual(sign(data), signature);
+    }
+}
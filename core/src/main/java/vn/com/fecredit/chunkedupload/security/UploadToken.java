@@ -0,0 +1,21 @@
+package vn.com.fecredit.chunkedupload.security;
+
+/**
+ * Claims of an upload token: which tenant may send chunks of which upload, until when.
+ *
+ * @param username        Username of the tenant owning the upload
+ * @param tenantId        Database ID of the tenant owning the upload
+ * @param uploadId        The only upload the token authorizes
+ * @param fileSize        Size of the upload; no chunk request may be larger
+ * @param expiresAtMillis Expiry time, in epoch milliseconds
+ */
+public record UploadToken(String username, Long tenantId, String uploadId, long fileSize, long expiresAtMillis) {
+
+    /**
+     * @param nowMillis The current time, in epoch milliseconds
+     * @return {@code true} if the token is no longer valid at that time
+     */
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
@@ -0,0 +1,167 @@
+package vn.com.fecredit.chunkedupload.security;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Issues and verifies compact HMAC-signed upload tokens.
+ *
+ * <p>
+ * A token is issued when an upload is initialized, and authorizes the chunk requests of
+ * that upload instead of the tenant credentials:
+ * <ul>
+ * <li>Verification is one HMAC-SHA256 over a few dozen bytes, instead of a password hash
+ * and an account lookup per chunk</li>
+ * <li>The token binds the tenant, the upload ID, the file size and an expiry time; it
+ * cannot be used for another upload or after it expires</li>
+ * <li>No server-side state is kept: any instance sharing the key verifies the token</li>
+ * </ul>
+ *
+ * <p>
+ * Tokens have the form {@code base64url(claims) "." base64url(signature)}, where the
+ * claims are binary-encoded. Tokens issued under another key, altered or truncated are
+ * rejected with a {@link SecurityException}.
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * UploadTokenSigner signer = new UploadTokenSigner(HmacSha256.generateKey(), 3_600_000L);
+ * String token = signer.issue("user", 1L, uploadId, fileSize);
+ * UploadToken claims = signer.verify(token);
+ * </pre>
+ */
+public class UploadTokenSigner {
+    /** Default validity of an issued token. */
+    public static final long DEFAULT_TTL_MILLIS = 3_600_000L;
+    private static final byte VERSION = 1;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final HmacSha256 hmac;
+    private final long ttlMillis;
+
+    /**
+     * @param key       The signing key, shared by every instance verifying the tokens
+     * @param ttlMillis Validity of an issued token
+     */
+    public UploadTokenSigner(byte[] key, long ttlMillis) {
+        this(new HmacSha256(key), ttlMillis);
+    }
+
+    /**
+     * @param hmac      The signing key
+     * @param ttlMillis Validity of an issued token
+     */
+    public UploadTokenSigner(HmacSha256 hmac, long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be > 0");
+        }
+        this.hmac = hmac;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Issues a token for the chunks of an upload, valid from now for the configured time to live.
+     *
+     * @param username Username of the tenant owning the upload
+     * @param tenantId Database ID of the tenant owning the upload
+     * @param uploadId The upload the token authorizes
+     * @param fileSize Size of the upload
+     * @return The signed token
+     */
+    public String issue(String username, Long tenantId, String uploadId, long fileSize) {
+        return sign(newClaims(username, tenantId, uploadId, fileSize));
+    }
+
+    /**
+     * @param username Username of the tenant owning the upload
+     * @param tenantId Database ID of the tenant owning the upload
+     * @param uploadId The upload the token authorizes
+     * @param fileSize Size of the upload
+     * @return Claims valid from now for the configured time to live, to pass to {@link #sign(UploadToken)}
+     */
+    public UploadToken newClaims(String username, Long tenantId, String uploadId, long fileSize) {
+        return new UploadToken(username, tenantId, uploadId, fileSize, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * @param claims The claims to sign
+     * @return The signed token
+     */
+    public String sign(UploadToken claims) {
+        byte[] payload = encode(claims);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(hmac.sign(payload));
+    }
+
+    /**
+     * Checks the signature and expiry of a token.
+     *
+     * @param token The token sent by the client
+     * @return The claims of the token
+     * @throws SecurityException if the token is malformed, not signed with this key, or expired
+     */
+    public UploadToken verify(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            throw new SecurityException("Malformed upload token");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new SecurityException("Malformed upload token");
+        }
+        if (!hmac.verify(payload, signature)) {
+            throw new SecurityException("Invalid upload token signature");
+        }
+        UploadToken claims = decode(payload);
+        if (claims.isExpired(System.currentTimeMillis())) {
+            throw new SecurityException("Upload token expired");
+        }
+        return claims;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    private static byte[] encode(UploadToken claims) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(VERSION);
+            out.writeLong(claims.expiresAtMillis());
+            out.writeLong(claims.fileSize());
+            out.writeLong(claims.tenantId());
+            out.writeUTF(claims.username());
+            out.writeUTF(claims.uploadId());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UploadToken decode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (in.readByte() != VERSION) {
+                throw new SecurityException("Unsupported upload token version");
+            }
+            long expiresAtMillis = in.readLong();
+            long fileSize = in.readLong();
+            long tenantId = in.readLong();
+            String username = in.readUTF();
+            String uploadId = in.readUTF();
+            return new UploadToken(username, tenantId, uploadId, fileSize, expiresAtMillis);
+        } catch (IOException e) {
+            throw new SecurityException("Malformed upload token");
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the signed credentials that authorize chunk requests without
+ * password verification or account lookups.
+ */
+package vn.com.fecredit.chunkedupload.security;
@@ -2,22 +2,32 @@ package vn.com.fecredit.chunkedupload.core;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.manager.FinalizationExecutor;
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
+import vn.com.fecredit.chunkedupload.manager.UploadMetrics;
+import vn.com.fecredit.chunkedupload.manager.UploadSessionRegistry;
 import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
 import vn.com.fecredit.chunkedupload.model.impl.DefaultUploadInfo;
 import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
 import vn.com.fecredit.chunkedupload.port.impl.DefaultITenantAccountPort;
 import vn.com.fecredit.chunkedupload.port.impl.DefaultIUploadInfoPort;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -222,4 +232,375 @@ class DefaultChunkedUploadIntegratingTest {
 
         Files.delete(sourceFile);
     }
+
+    @Test
+    void testHeaderGroupCommitAndCrashRecovery() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        long fileSize = CHUNK_SIZE * 4L; // 4 chunks, bits 4-7 of the single bitset byte are unused
+        chunkedUpload.setSessionRegistry(new UploadSessionRegistry(2, 60_000));
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "temp/group-commit.bin", fileSize, "checksum");
+        Path partPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + ".part");
+
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, new byte[CHUNK_SIZE]);
+        assertEquals((byte) 0xF1, chunkedUpload.readHeader(TEST_USERNAME, uploadId).bitset[0], "In-memory header should be current");
+        assertEquals((byte) 0xF0, chunkedUpload.readBitsetBytesFromHeader(partPath)[0], "First chunk should not be flushed yet");
+
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, new byte[CHUNK_SIZE]);
+        assertEquals((byte) 0xF3, chunkedUpload.readBitsetBytesFromHeader(partPath)[0], "Second chunk should trigger a flush");
+
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 2, new byte[CHUNK_SIZE]);
+
+        // Simulate a crash: a fresh instance only sees what was flushed, so chunk 2 is reported missing
+        InMemoryChunkedUpload restarted = new InMemoryChunkedUpload(
+                uploadInfoPort, tenantAccountPort, inProgressDir.toString(), completeDir.toString(), CHUNK_SIZE);
+        assertEquals((byte) 0xF3, restarted.readHeader(TEST_USERNAME, uploadId).bitset[0]);
+        restarted.releaseUploadResources(uploadId);
+
+        // A clean shutdown flushes the remaining chunk
+        assertEquals(1, chunkedUpload.flushAllSessions());
+        assertEquals((byte) 0xF7, chunkedUpload.readBitsetBytesFromHeader(partPath)[0]);
+        chunkedUpload.deleteUploadFile(TEST_USERNAME, uploadId);
+    }
+
+    @Test
+    void testIdleSessionKeepsChecksumPrefix() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        byte[] fileData = new byte[CHUNK_SIZE * 4];
+        for (int i = 0; i < fileData.length; i++) {
+            fileData[i] = (byte) (i % 247);
+        }
+        AtomicLong hashedBytes = new AtomicLong();
+        chunkedUpload.setMetrics(new UploadMetrics() {
+            @Override
+            public void checksumComputed(long bytes, long nanos) {
+                hashedBytes.addAndGet(bytes);
+            }
+        });
+        UploadSessionRegistry registry = new UploadSessionRegistry(1, 1);
+        chunkedUpload.setSessionRegistry(registry);
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "temp/paused.bin", fileData.length, ChecksumUtil.generateChecksum(fileData));
+
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, Arrays.copyOfRange(fileData, 0, CHUNK_SIZE));
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, Arrays.copyOfRange(fileData, CHUNK_SIZE, CHUNK_SIZE * 2));
+        assertEquals(2, registry.getDigest(uploadId).getHashedChunks());
+
+        // The client pauses longer than the flush interval: the clean session is dropped
+        Thread.sleep(20);
+        chunkedUpload.flushDueSessions();
+        assertNull(registry.get(uploadId), "The idle session should be retired");
+        assertEquals(2, registry.getDigest(uploadId).getHashedChunks());
+
+        // The reloaded session continues the checksum instead of hashing chunks 0 and 1 again
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 2, Arrays.copyOfRange(fileData, CHUNK_SIZE * 2, CHUNK_SIZE * 3));
+        assertEquals(3, registry.getDigest(uploadId).getHashedChunks());
+        assertTrue(chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 3, Arrays.copyOfRange(fileData, CHUNK_SIZE * 3, fileData.length)));
+        assertEquals(fileData.length, hashedBytes.get(), "Each payload byte is hashed once");
+        assertNull(registry.getDigest(uploadId), "The checksum is released with the upload");
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_temp/paused.bin");
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+    }
+
+    @Test
+    void testCompletionMovesPartFile() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/moved.bin";
+        byte[] fileData = new byte[CHUNK_SIZE + 100];
+        for (int i = 0; i < fileData.length; i++) {
+            fileData[i] = (byte) (i % 251);
+        }
+        Path sourceFile = Files.createTempFile("moved-", ".bin");
+        Files.write(sourceFile, fileData);
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(sourceFile));
+        Path partPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + ".part");
+        Path headerPath = PartFileLayout.headerPathOf(partPath);
+        assertEquals(0, Files.size(partPath), "The part file holds only the payload");
+        assertTrue(Files.exists(headerPath), "The header lives in a sidecar file");
+
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, Arrays.copyOfRange(fileData, CHUNK_SIZE, fileData.length));
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, Arrays.copyOfRange(fileData, 0, CHUNK_SIZE));
+
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+        assertFalse(Files.exists(partPath), "The part file is renamed, not copied");
+        assertFalse(Files.exists(headerPath));
+        Files.delete(sourceFile);
+    }
+
+    @Test
+    void testStaleLockFileDoesNotBlockResumedFinalization() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/stale-lock.bin";
+        byte[] fileData = new byte[CHUNK_SIZE * 2];
+        Arrays.fill(fileData, (byte) 5);
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(fileData));
+        Path partPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + ".part");
+        Path lockPath = partPath.resolveSibling(uploadId + ".part.lock");
+
+        // The process stopped during assembly: every chunk is recorded and the lock file is left behind
+        chunkedUpload.setSessionRegistry(new UploadSessionRegistry(1, 60_000));
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, Arrays.copyOfRange(fileData, 0, CHUNK_SIZE));
+        Files.createFile(lockPath);
+        chunkedUpload.releaseUploadResources(uploadId);
+        InMemoryChunkedUpload restarted = new InMemoryChunkedUpload(
+                uploadInfoPort, tenantAccountPort, inProgressDir.toString(), completeDir.toString(), CHUNK_SIZE);
+        restarted.writeChunk(TEST_USERNAME, uploadId, 1, Arrays.copyOfRange(fileData, CHUNK_SIZE, fileData.length));
+
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+        assertFalse(Files.exists(lockPath));
+        assertTrue(uploadInfoPort.findByUploadId(uploadId).isEmpty());
+    }
+
+    @Test
+    void testResumeCompletesUploadWhosePartFileWasMoved() throws Throwable {
+        List<String> history = java.util.Collections.synchronizedList(new ArrayList<>());
+        InMemoryChunkedUpload restarted = new InMemoryChunkedUpload(uploadInfoPort, tenantAccountPort,
+                inProgressDir.toString(), completeDir.toString(), CHUNK_SIZE) {
+            @Override
+            protected void moveToHistory(DefaultUploadInfo uploadInfo) {
+                history.add(uploadInfo.getUploadId());
+            }
+        };
+        restarted.setUploadInfoPort(uploadInfoPort);
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/moved-before-crash.bin";
+        byte[] fileData = new byte[CHUNK_SIZE + 10];
+        restarted.registerUploadingFile(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(fileData));
+        Path partPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + ".part");
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+
+        // The process stopped after the verified part file was moved, before the upload was moved to history
+        restarted.releaseUploadResources(uploadId);
+        Files.createDirectories(finalPath.getParent());
+        Files.write(finalPath, fileData);
+        Files.delete(partPath);
+
+        assertTrue(restarted.resumeFinalization(TEST_USERNAME, uploadId));
+        assertEquals(List.of(uploadId), history);
+        assertTrue(uploadInfoPort.findByUploadId(uploadId).isEmpty());
+        assertFalse(Files.exists(PartFileLayout.headerPathOf(partPath)), "The header file left behind is deleted");
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+    }
+
+    @Test
+    void testLegacyPartFileIsCompleted() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/legacy.bin";
+        byte[] fileData = new byte[CHUNK_SIZE * 2];
+        Arrays.fill(fileData, CHUNK_SIZE, fileData.length, (byte) 9);
+        Path sourceFile = Files.createTempFile("legacy-", ".bin");
+        Files.write(sourceFile, fileData);
+
+        // In-flight upload written by a previous version: header, bitset with chunk 0 received, then the payload
+        Path partPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + ".part");
+        Files.createDirectories(partPath.getParent());
+        ByteBuffer legacy = ByteBuffer.allocate(20 + 1 + CHUNK_SIZE);
+        legacy.putInt(0xCAFECAFE).putInt(2).putInt(CHUNK_SIZE).putLong(fileData.length);
+        legacy.put((byte) 0xFD);
+        legacy.put(fileData, 0, CHUNK_SIZE);
+        Files.write(partPath, legacy.array());
+
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(sourceFile));
+        assertEquals(List.of(1), ChunkBitset.fromByteArray(chunkedUpload.readHeader(TEST_USERNAME, uploadId).bitset, 2).clearBits(),
+                "Only chunk 1 is missing");
+        assertFalse(Files.exists(PartFileLayout.headerPathOf(partPath)), "A legacy upload keeps its layout");
+
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, Arrays.copyOfRange(fileData, CHUNK_SIZE, fileData.length));
+
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+        assertFalse(Files.exists(partPath));
+        Files.delete(sourceFile);
+    }
+
+    @Test
+    void testAsyncFinalizationReportsOutcome() throws Throwable {
+        List<String> events = java.util.Collections.synchronizedList(new ArrayList<>());
+        InMemoryChunkedUpload asyncUpload = new InMemoryChunkedUpload(uploadInfoPort, tenantAccountPort,
+                inProgressDir.toString(), completeDir.toString(), CHUNK_SIZE) {
+            @Override
+            protected void onFinalizationScheduled(String uploadId) {
+                events.add("scheduled:" + uploadId);
+            }
+
+            @Override
+            protected void onFinalizationFailed(String uploadId, Throwable cause) {
+                events.add("failed:" + uploadId);
+            }
+        };
+        asyncUpload.setUploadInfoPort(uploadInfoPort);
+        asyncUpload.setFinalizationExecutor(new FinalizationExecutor(1, 4));
+
+        byte[] fileData = "Assembled in the background".getBytes();
+        Path sourceFile = Files.createTempFile("async-", ".bin");
+        Files.write(sourceFile, fileData);
+        String goodId = UUID.randomUUID().toString();
+        String badId = UUID.randomUUID().toString();
+        asyncUpload.registerUploadingFile(TEST_USERNAME, goodId, "temp/async.txt", fileData.length, ChecksumUtil.generateChecksum(sourceFile));
+        asyncUpload.registerUploadingFile(TEST_USERNAME, badId, "temp/async-bad.txt", fileData.length, "invalid-checksum");
+
+        // A checksum mismatch no longer fails the request that sent the last chunk
+        assertTrue(asyncUpload.writeChunk(TEST_USERNAME, goodId, 0, fileData));
+        assertTrue(asyncUpload.writeChunk(TEST_USERNAME, badId, 0, fileData));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((asyncUpload.isFinalizing(goodId) || asyncUpload.isFinalizing(badId)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        asyncUpload.getFinalizationExecutor().close();
+
+        assertEquals(List.of("scheduled:" + goodId, "scheduled:" + badId, "failed:" + badId), events);
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(goodId + "_temp/async.txt");
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+        Path badPartPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(badId + ".part");
+        assertTrue(Files.exists(badPartPath), "Part file should not be deleted on checksum mismatch.");
+        Files.delete(sourceFile);
+    }
+
+    @Test
+    void testAsyncApiKeepsAllChunksInFlight() throws Throwable {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        chunkedUpload.setAsyncExecutor(pool);
+        byte[] fileData = new byte[CHUNK_SIZE * 40 + 100];
+        new java.util.Random(7).nextBytes(fileData);
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/async-api.bin";
+        chunkedUpload.registerAsync(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(fileData)).get();
+
+        // A wrongly sized chunk fails its future and is not marked
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> chunkedUpload.writeChunkAsync(TEST_USERNAME, uploadId, 0, ByteBuffer.allocate(10)).get());
+        assertInstanceOf(IllegalArgumentException.class, rejected.getCause());
+
+        // Every chunk is started from this thread before any completes, last chunk first
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+        for (int chunk = 40; chunk >= 0; chunk--) {
+            int from = chunk * CHUNK_SIZE;
+            ByteBuffer data = ByteBuffer.wrap(fileData, from, Math.min(CHUNK_SIZE, fileData.length - from));
+            writes.add(chunkedUpload.writeChunkAsync(TEST_USERNAME, uploadId, chunk, data));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(1, writes.stream().filter(CompletableFuture::join).count(), "Exactly one chunk completes the upload");
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+        assertEquals(0, chunkedUpload.getChannelCache().size(), "The channels are released once assembled");
+    }
+
+    @Test
+    void testFinalizeAsyncReportsAssemblyOutcome() throws Throwable {
+        chunkedUpload.setFinalizationExecutor(new FinalizationExecutor(1, 4));
+        byte[] fileData = "Finalized without blocking".getBytes();
+        String goodId = UUID.randomUUID().toString();
+        String badId = UUID.randomUUID().toString();
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, goodId, "temp/finalize.txt", fileData.length, ChecksumUtil.generateChecksum(fileData));
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, badId, "temp/finalize-bad.txt", fileData.length, "invalid-checksum");
+        String missingId = UUID.randomUUID().toString();
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, missingId, "temp/finalize-missing.txt", CHUNK_SIZE * 2L, "checksum");
+
+        assertTrue(chunkedUpload.writeChunkAsync(TEST_USERNAME, goodId, 0, ByteBuffer.wrap(fileData)).get());
+        assertTrue(chunkedUpload.writeChunkAsync(TEST_USERNAME, badId, 0, ByteBuffer.wrap(fileData)).get());
+
+        assertTrue(chunkedUpload.finalizeAsync(TEST_USERNAME, goodId).get(10, TimeUnit.SECONDS));
+        ExecutionException failed = assertThrows(ExecutionException.class,
+                () -> chunkedUpload.finalizeAsync(TEST_USERNAME, badId).get(10, TimeUnit.SECONDS));
+        assertTrue(failed.getCause().getMessage().contains("Checksum mismatch"));
+        assertFalse(chunkedUpload.finalizeAsync(TEST_USERNAME, missingId).get(10, TimeUnit.SECONDS), "Chunks are missing");
+        chunkedUpload.getFinalizationExecutor().close();
+
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(goodId + "_temp/finalize.txt");
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+    }
+
+    @Test
+    void testVirtualThreadUploadsDoNotPinCarriers() throws Throwable {
+        chunkedUpload.setFinalizationExecutor(new FinalizationExecutor(1, 4, true));
+        byte[] fileData = new byte[CHUNK_SIZE * 200 + 10];
+        new java.util.Random(22).nextBytes(fileData);
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/virtual.bin";
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(fileData));
+
+        Path dump = Files.createTempFile("pinned", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            // Every park of a virtual thread holding a monitor, however short
+            recording.enable("jdk.VirtualThreadPinned").withoutThreshold().withStackTrace();
+            recording.start();
+            try (ExecutorService requests = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 0).factory())) {
+                List<java.util.concurrent.Future<Boolean>> writes = new ArrayList<>();
+                for (int chunk = 0; chunk <= 200; chunk++) {
+                    int from = chunk * CHUNK_SIZE;
+                    byte[] data = Arrays.copyOfRange(fileData, from, Math.min(from + CHUNK_SIZE, fileData.length));
+                    int chunkNumber = chunk;
+                    writes.add(requests.submit(() -> {
+                        try {
+                            return chunkedUpload.writeChunk(TEST_USERNAME, uploadId, chunkNumber, data);
+                        } catch (Throwable e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }));
+                }
+                for (java.util.concurrent.Future<Boolean> write : writes) {
+                    write.get(10, TimeUnit.SECONDS);
+                }
+            }
+            assertTrue(chunkedUpload.finalizeAsync(TEST_USERNAME, uploadId).get(10, TimeUnit.SECONDS));
+            recording.stop();
+            recording.dump(dump);
+        }
+        chunkedUpload.getFinalizationExecutor().close();
+
+        List<jdk.jfr.consumer.RecordedEvent> pinned = jdk.jfr.consumer.RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals("jdk.VirtualThreadPinned"))
+                .filter(e -> e.getThread() != null && e.getThread().getJavaName() != null)
+                .filter(e -> e.getThread().getJavaName().startsWith("request-") || e.getThread().getJavaName().startsWith("upload-finalizer-"))
+                .toList();
+        assertEquals(List.of(), pinned, "No virtual thread parks while holding a monitor");
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+    }
+
+    @Test
+    void testChunkStreamWritesPiecesAsTheyArrive() throws Throwable {
+        byte[] fileData = new byte[CHUNK_SIZE + 300];
+        new java.util.Random(11).nextBytes(fileData);
+        String uploadId = UUID.randomUUID().toString();
+        String filename = "temp/chunk-stream.bin";
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, filename, fileData.length, ChecksumUtil.generateChecksum(fileData));
+
+        // A wrong declared length is rejected before any piece is written
+        assertThrows(IllegalArgumentException.class, () -> chunkedUpload.openChunkStream(TEST_USERNAME, uploadId, 0, 10));
+
+        // A piece going past the chunk fails and releases the part file
+        ChunkStream tooLong = chunkedUpload.openChunkStream(TEST_USERNAME, uploadId, 1, -1);
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> tooLong.write(ByteBuffer.allocate(301)).get());
+        assertInstanceOf(IllegalArgumentException.class, rejected.getCause());
+
+        // A chunk completed short is not marked, an aborted one neither
+        ChunkStream tooShort = chunkedUpload.openChunkStream(TEST_USERNAME, uploadId, 1, -1);
+        tooShort.write(ByteBuffer.wrap(fileData, CHUNK_SIZE, 100)).get();
+        assertThrows(ExecutionException.class, () -> tooShort.complete().get());
+        ChunkStream aborted = chunkedUpload.openChunkStream(TEST_USERNAME, uploadId, 0, CHUNK_SIZE);
+        aborted.write(ByteBuffer.wrap(fileData, 0, 512)).get();
+        aborted.abort();
+        assertThrows(ExecutionException.class, () -> aborted.complete().get(), "An aborted stream cannot be completed");
+
+        // Both chunks sent again in pieces of 100 bytes complete the upload
+        boolean completed = false;
+        for (int chunk = 1; chunk >= 0; chunk--) {
+            int from = chunk * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, fileData.length);
+            ChunkStream stream = chunkedUpload.openChunkStream(TEST_USERNAME, uploadId, chunk, to - from);
+            for (int piece = from; piece < to; piece += 100) {
+                stream.write(ByteBuffer.wrap(fileData, piece, Math.min(100, to - piece))).get();
+            }
+            completed = stream.complete().get(10, TimeUnit.SECONDS);
+        }
+
+        assertTrue(completed, "The last stream completes the upload");
+        Path finalPath = completeDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + "_" + filename);
+        assertArrayEquals(fileData, Files.readAllBytes(finalPath));
+        assertEquals(0, chunkedUpload.getChannelCache().size(), "The channels are released once assembled");
+    }
 }
@@ -2,15 +2,21 @@ package vn.com.fecredit.chunkedupload.core;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.manager.UploadMetrics;
 import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
 import vn.com.fecredit.chunkedupload.model.impl.DefaultUploadInfo;
+import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
 import vn.com.fecredit.chunkedupload.port.impl.DefaultITenantAccountPort;
 import vn.com.fecredit.chunkedupload.port.impl.DefaultIUploadInfoPort;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -114,6 +120,107 @@ class DefaultChunkedUploadTest {
                 chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, data));
         assertTrue(ex.getMessage().contains("Invalid last chunk size"));
     }
+    @Test
+    void testWriteChunk_StreamTooLong() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        long fileSize = 2048; // 2 chunks
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "test.txt", fileSize, "checksum");
+
+        // Chunk 0 should have size 1024, but the stream carries one more byte
+        Exception ex = assertThrows(IllegalArgumentException.class, () ->
+                chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, new ByteArrayInputStream(new byte[1025])));
+        assertTrue(ex.getMessage().contains("Invalid chunk size"));
+        assertEquals((byte) 0xFC, chunkedUpload.readHeader(TEST_USERNAME, uploadId).bitset[0], "Rejected chunk must not be marked");
+    }
+
+    @Test
+    void testWriteChunk_StreamTooShort() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        long fileSize = 1536; // chunk 1 should have size 512
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "test.txt", fileSize, "checksum");
+
+        Exception ex = assertThrows(IllegalArgumentException.class, () ->
+                chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, new ByteArrayInputStream(new byte[256])));
+        assertTrue(ex.getMessage().contains("Invalid last chunk size"));
+    }
+
+    @Test
+    void testWriteChunk_DeclaredLengthRejectedBeforeReading() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        long fileSize = 2048; // 2 chunks
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "test.txt", fileSize, "checksum");
+
+        ByteArrayInputStream body = new ByteArrayInputStream(new byte[1024]);
+        Exception ex = assertThrows(IllegalArgumentException.class, () ->
+                chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, body, 1000));
+        assertTrue(ex.getMessage().contains("Invalid chunk size"));
+        assertEquals(1024, body.available(), "The body must not be consumed");
+    }
+
+    @Test
+    void testWriteChunk_StreamWritesChunkAtOffset() throws Throwable {
+        String uploadId = UUID.randomUUID().toString();
+        long fileSize = 2048; // 2 chunks
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "test.txt", fileSize, "checksum");
+
+        byte[] data = new byte[1024];
+        Arrays.fill(data, (byte) 7);
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, new ByteArrayInputStream(data));
+
+        assertEquals((byte) 0xFE, chunkedUpload.readHeader(TEST_USERNAME, uploadId).bitset[0]);
+        Path partPath = inProgressDir.resolve(String.valueOf(TEST_TENANT_ID)).resolve(uploadId + ".part");
+        chunkedUpload.flushAllSessions();
+        byte[] part = Files.readAllBytes(partPath);
+        int chunkOffset = 1024; // the part file holds only the payload, chunk 1 follows chunk 0
+        assertArrayEquals(data, Arrays.copyOfRange(part, chunkOffset, chunkOffset + 1024));
+    }
+
+    @Test
+    void testMetricsReportChunksChecksumAndAssembly() throws Throwable {
+        AtomicLong chunkBytes = new AtomicLong();
+        AtomicLong hashedBytes = new AtomicLong();
+        AtomicLong partFileLocks = new AtomicLong();
+        AtomicBoolean assembled = new AtomicBoolean();
+        chunkedUpload.setMetrics(new UploadMetrics() {
+            @Override
+            public void chunkWritten(String username, long bytes, long diskWriteNanos, long headerUpdateNanos) {
+                assertEquals(TEST_USERNAME, username);
+                chunkBytes.addAndGet(bytes);
+            }
+
+            @Override
+            public void lockWaited(String lock, long nanos) {
+                if (UploadMetrics.LOCK_PART_FILE.equals(lock)) {
+                    partFileLocks.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void checksumComputed(long bytes, long nanos) {
+                hashedBytes.addAndGet(bytes);
+            }
+
+            @Override
+            public void assembled(long fileSize, long nanos, boolean success) {
+                assertEquals(1536, fileSize);
+                assembled.set(success);
+            }
+        });
+        byte[] payload = new byte[1536];
+        Arrays.fill(payload, (byte) 3);
+        String uploadId = UUID.randomUUID().toString();
+        chunkedUpload.registerUploadingFile(TEST_USERNAME, uploadId, "test.txt", payload.length, ChecksumUtil.generateChecksum(payload));
+
+        // Out of order: chunk 1 is hashed when chunk 0 arrives
+        chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 1, Arrays.copyOfRange(payload, 1024, 1536));
+        assertTrue(chunkedUpload.writeChunk(TEST_USERNAME, uploadId, 0, Arrays.copyOfRange(payload, 0, 1024)));
+
+        assertEquals(Long.valueOf(1536), Long.valueOf(chunkBytes.get()));
+        assertEquals(Long.valueOf(1536), Long.valueOf(hashedBytes.get()), "Each payload byte is hashed once");
+        assertEquals(Long.valueOf(2), Long.valueOf(partFileLocks.get()));
+        assertTrue(assembled.get());
+    }
+
     @Test
     void testRegisterUploadingFile_InvalidParameters() throws Throwable {
         String validUploadId = UUID.randomUUID().toString();
@@ -0,0 +1,82 @@
+package vn.com.fecredit.chunkedupload.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.core.InMemoryChunkedUpload;
+import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
+import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultITenantAccountPort;
+import vn.com.fecredit.chunkedupload.port.impl.DefaultIUploadInfoPort;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadEventTest {
+    private static final String USERNAME = "jfr-user";
+
+    @Test
+    void testUploadIsRecordedWithTheBundledProfile() throws Throwable {
+        DefaultIUploadInfoPort uploadInfoPort = new DefaultIUploadInfoPort();
+        DefaultITenantAccountPort tenantAccountPort = new DefaultITenantAccountPort();
+        DeafultTenantAccount tenant = new DeafultTenantAccount();
+        tenant.setId(1L);
+        tenant.setUsername(USERNAME);
+        tenantAccountPort.addTenant(tenant);
+        InMemoryChunkedUpload upload = new InMemoryChunkedUpload(uploadInfoPort, tenantAccountPort,
+                Files.createTempDirectory("inprogress").toString(), Files.createTempDirectory("complete").toString(), 1024);
+        upload.setUploadInfoPort(uploadInfoPort);
+        byte[] payload = new byte[2500];
+        Arrays.fill(payload, (byte) 5);
+        String uploadId = UUID.randomUUID().toString();
+
+        Configuration profile;
+        try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/jfr/chunked-upload.jfc"), StandardCharsets.UTF_8)) {
+            profile = Configuration.create(reader);
+        }
+        Path dump = Files.createTempFile("upload", ".jfr");
+        try (Recording recording = new Recording(profile)) {
+            // The profile only keeps slow chunks; keep every event of this fast upload
+            recording.enable(ChunkWriteEvent.class).withoutThreshold();
+            recording.enable(HeaderWriteEvent.class).withoutThreshold();
+            recording.start();
+            upload.registerUploadingFile(USERNAME, uploadId, "jfr.bin", payload.length, ChecksumUtil.generateChecksum(payload));
+            for (int chunk = 2; chunk >= 0; chunk--) {
+                upload.writeChunk(USERNAME, uploadId, chunk, Arrays.copyOfRange(payload, chunk * 1024, Math.min((chunk + 1) * 1024, payload.length)));
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().startsWith(UploadEvent.NAME_PREFIX))
+                .filter(e -> uploadId.equals(e.getString("uploadId")))
+                .toList();
+        List<RecordedEvent> chunkWrites = named(events, "ChunkWrite");
+        assertEquals(3, chunkWrites.size());
+        for (RecordedEvent event : chunkWrites) {
+            assertEquals(USERNAME, event.getString("tenant"));
+            int chunk = event.getInt("chunkNumber");
+            assertEquals(chunk == 2 ? 452L : 1024L, event.getLong("bytes"));
+        }
+        assertFalse(named(events, "HeaderWrite").isEmpty(), "Registration and completion write the header");
+        assertEquals(1, named(events, "ChecksumVerify").size());
+        assertEquals(1, named(events, "AssemblyCopy").size());
+        assertEquals(1, named(events, "HistoryMove").size());
+        assertEquals(2500L, named(events, "AssemblyCopy").get(0).getLong("bytes"));
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(UploadEvent.NAME_PREFIX + name)).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalDigestTest {
+    private static final int CHUNK_SIZE = 100;
+
+    private static byte[] payload(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 13 + 1);
+        }
+        return data;
+    }
+
+    private static ByteBuffer chunk(byte[] payload, int chunkNumber) {
+        int from = chunkNumber * CHUNK_SIZE;
+        return ByteBuffer.wrap(Arrays.copyOfRange(payload, from, Math.min(from + CHUNK_SIZE, payload.length)));
+    }
+
+    @Test
+    void testOutOfOrderChunksMatchWholeFileChecksum() throws Exception {
+        byte[] payload = payload(450); // 5 chunks, the last one short
+        int dataOffset = 21; // legacy layout: header before the payload
+        Path file = Files.createTempFile("digest", ".part");
+        Header header = new Header(5, CHUNK_SIZE, payload.length, new byte[1]);
+        IncrementalDigest digest = new IncrementalDigest(header);
+        ChunkBitset received = new ChunkBitset(5);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int chunkNumber : new int[]{0, 2, 3, 1, 4}) {
+                ch.write(chunk(payload, chunkNumber), dataOffset + (long) chunkNumber * CHUNK_SIZE);
+                received.set(chunkNumber);
+                digest.advance(chunkNumber, chunk(payload, chunkNumber), received, ch, dataOffset);
+            }
+            assertEquals(5, digest.getHashedChunks(), "Chunks 2 and 3 are read back once chunk 1 arrives");
+            assertEquals(ChecksumUtil.generateChecksum(payload), digest.finish(received, ch, dataOffset));
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    void testFinishHashesStreamedChunksFromFile() throws Exception {
+        byte[] payload = payload(300);
+        Path file = Files.createTempFile("digest", ".part");
+        Files.write(file, payload);
+        Header header = new Header(3, CHUNK_SIZE, payload.length, new byte[1]);
+        IncrementalDigest digest = new IncrementalDigest(header);
+        ChunkBitset received = new ChunkBitset(3);
+        received.setRange(0, 3);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(ChecksumUtil.generateChecksum(payload), digest.finish(received, ch, 0));
+        }
+        Files.delete(file);
+    }
+
+    @Test
+    void testUnreadableDataAbandonsDigest() throws Exception {
+        Path file = Files.createTempFile("digest", ".part"); // empty: chunk data is missing
+        Header header = new Header(2, CHUNK_SIZE, 200, new byte[1]);
+        IncrementalDigest digest = new IncrementalDigest(header);
+        ChunkBitset received = new ChunkBitset(2);
+        received.setRange(0, 2);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertNull(digest.finish(received, ch, 0));
+        }
+        Files.delete(file);
+    }
+}
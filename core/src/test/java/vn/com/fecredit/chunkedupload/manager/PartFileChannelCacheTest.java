@@ -0,0 +1,174 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartFileChannelCacheTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("channel-cache");
+    }
+
+    private Path partFile(String name) throws IOException {
+        Path path = dir.resolve(name + ".part");
+        Files.write(path, new byte[64]);
+        return path;
+    }
+
+    @Test
+    void testSecondAcquireReusesOpenChannel() throws IOException {
+        PartFileChannelCache cache = new PartFileChannelCache(4, 60_000);
+        Path part = partFile("a");
+
+        FileChannel first;
+        try (PartFileChannelCache.Lease lease = cache.acquire("a", part)) {
+            first = lease.channel();
+        }
+        try (PartFileChannelCache.Lease lease = cache.acquire("a", part)) {
+            assertSame(first, lease.channel());
+            assertTrue(lease.channel().isOpen());
+        }
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getOpenHandleCount());
+        cache.close();
+        assertEquals(0, cache.getOpenHandleCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedChannelIsEvictedWhenFull() throws IOException {
+        PartFileChannelCache cache = new PartFileChannelCache(2, 60_000);
+
+        FileChannel a;
+        try (PartFileChannelCache.Lease lease = cache.acquire("a", partFile("a"))) {
+            a = lease.channel();
+        }
+        cache.acquire("b", partFile("b")).close();
+        cache.acquire("c", partFile("c")).close();
+
+        assertFalse(a.isOpen(), "Least recently used channel should be closed");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getOpenHandleCount());
+        cache.close();
+    }
+
+    @Test
+    void testInvalidatedChannelStaysOpenUntilLeaseIsReleased() throws IOException {
+        PartFileChannelCache cache = new PartFileChannelCache(4, 60_000);
+        Path part = partFile("a");
+
+        PartFileChannelCache.Lease lease = cache.acquire("a", part);
+        cache.invalidate("a");
+        assertTrue(lease.channel().isOpen(), "Channel in use must not be closed under the writer");
+        assertEquals(0, cache.size());
+
+        lease.close();
+        assertFalse(lease.channel().isOpen());
+        assertEquals(0, cache.getOpenHandleCount());
+    }
+
+    @Test
+    void testIdleChannelsAreEvicted() throws Exception {
+        PartFileChannelCache cache = new PartFileChannelCache(4, 1);
+        cache.acquire("a", partFile("a")).close();
+        Thread.sleep(5);
+
+        assertEquals(1, cache.evictIdle());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getOpenHandleCount());
+    }
+
+    @Test
+    void testAsyncChannelSharesTheEntryAndItsLock() throws Exception {
+        PartFileChannelCache cache = new PartFileChannelCache(4, 60_000);
+        Path part = partFile("a");
+
+        AsynchronousFileChannel async;
+        try (PartFileChannelCache.Lease lease = cache.acquire("a", part)) {
+            async = lease.asyncChannel(null);
+            // Not kept out by the lock held through the blocking channel of the same entry
+            assertEquals(Integer.valueOf(4), async.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), 8).get());
+        }
+        try (PartFileChannelCache.Lease lease = cache.acquire("a", part)) {
+            assertSame(async, lease.asyncChannel(null));
+            assertEquals(2, cache.getOpenHandleCount());
+        }
+
+        cache.invalidate("a");
+        assertFalse(async.isOpen(), "The asynchronous channel is closed with its entry");
+        assertEquals(0, cache.getOpenHandleCount());
+        assertEquals(3, Files.readAllBytes(part)[10]);
+    }
+
+    @Test
+    void testConcurrentMissesOpenThePartFileOnce() throws Exception {
+        PartFileChannelCache cache = new PartFileChannelCache(4, 60_000);
+        Path part = partFile("a");
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PartFileChannelCache.Lease>> leases = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                leases.add(executor.submit(() -> {
+                    start.await();
+                    return cache.acquire("a", part);
+                }));
+            }
+            start.countDown();
+            FileChannel channel = leases.get(0).get().channel();
+            for (Future<PartFileChannelCache.Lease> lease : leases) {
+                assertSame(channel, lease.get().channel());
+                lease.get().close();
+            }
+            assertTrue(channel.isOpen());
+        }
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(threads - 1, cache.getHitCount());
+        assertEquals(1, cache.getOpenHandleCount());
+        cache.close();
+    }
+
+    @Test
+    void testChannelWithoutTheLockIsNotCached() throws IOException {
+        PartFileChannelCache cache = new PartFileChannelCache(4, 60_000);
+        Path part = partFile("a");
+
+        PartFileChannelCache.Lease lease = cache.acquire("a", part);
+        cache.invalidate("a");
+        // The invalidated channel still holds the lock: the new one is only used by its lease
+        PartFileChannelCache.Lease unlocked = cache.acquire("a", part);
+        assertNotSame(lease.channel(), unlocked.channel());
+        assertEquals(0, cache.size());
+        unlocked.close();
+        assertFalse(unlocked.channel().isOpen());
+
+        lease.close();
+        try (PartFileChannelCache.Lease reopened = cache.acquire("a", part)) {
+            assertTrue(reopened.channel().isOpen());
+        }
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getOpenHandleCount());
+        cache.close();
+    }
+}
@@ -0,0 +1,70 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.model.impl.DeafultTenantAccount;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantResolutionCacheTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final Function<String, Optional<TenantResolutionCache.Tenant<DeafultTenantAccount>>> lookup = username -> {
+        lookups.incrementAndGet();
+        if (username.startsWith("unknown")) {
+            return Optional.empty();
+        }
+        DeafultTenantAccount account = new DeafultTenantAccount();
+        account.setId((long) lookups.get());
+        account.setUsername(username);
+        return Optional.of(new TenantResolutionCache.Tenant<>(account, Path.of("uploads", String.valueOf(account.getId()))));
+    };
+
+    @Test
+    void testRepeatedResolutionsLookUpOnce() {
+        TenantResolutionCache<DeafultTenantAccount> cache = new TenantResolutionCache<>();
+        for (int chunk = 0; chunk < 100; chunk++) {
+            assertEquals(Path.of("uploads", "1"), cache.resolve("user", lookup).orElseThrow().uploadDir());
+        }
+        assertEquals(1, lookups.get());
+        assertEquals(99, cache.getStats().hitCount());
+        assertEquals(0.99, cache.getStats().hitRate(), 1e-9);
+
+        assertTrue(cache.resolve("unknown", lookup).isEmpty());
+        assertTrue(cache.resolve("unknown", lookup).isEmpty());
+        assertEquals(3, lookups.get(), "Unknown usernames are not cached");
+    }
+
+    @Test
+    void testInvalidatedTenantIsLookedUpAgain() {
+        TenantResolutionCache<DeafultTenantAccount> cache = new TenantResolutionCache<>();
+        assertEquals(Long.valueOf(1), cache.resolve("user", lookup).orElseThrow().id());
+
+        cache.invalidate("user");
+        assertEquals(Long.valueOf(2), cache.resolve("user", lookup).orElseThrow().id());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.getStats().size());
+        assertEquals(Long.valueOf(3), cache.resolve("user", lookup).orElseThrow().id());
+    }
+
+    @Test
+    void testExpiredAndExcessEntriesAreEvicted() throws InterruptedException {
+        TenantResolutionCache<DeafultTenantAccount> cache = new TenantResolutionCache<>(2, 50);
+        cache.resolve("user1", lookup);
+        cache.resolve("user2", lookup);
+        cache.resolve("user3", lookup);
+        assertEquals(2, cache.getStats().size());
+        assertEquals(1, cache.getStats().evictionCount());
+
+        Thread.sleep(60);
+        assertEquals(2, cache.evictExpired());
+        cache.resolve("user3", lookup);
+        assertEquals(4, lookups.get());
+    }
+}
@@ -0,0 +1,38 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadHeartbeatRegistryTest {
+
+    @Test
+    void testDrainReturnsEachActiveUploadOnce() {
+        UploadHeartbeatRegistry registry = new UploadHeartbeatRegistry();
+        for (int chunk = 0; chunk < 100; chunk++) {
+            registry.record("upload-1");
+        }
+        registry.record("upload-2");
+        assertNotNull(registry.getLastActivity("upload-1"));
+
+        assertEquals(Set.of("upload-1", "upload-2"), registry.drain());
+        assertTrue(registry.drain().isEmpty(), "No activity since the previous drain");
+        assertNull(registry.getLastActivity("upload-1"));
+
+        registry.record("upload-2");
+        assertEquals(Set.of("upload-2"), registry.drain());
+    }
+
+    @Test
+    void testRemovedUploadIsNotPersisted() {
+        UploadHeartbeatRegistry registry = new UploadHeartbeatRegistry(1_000);
+        registry.record("completed");
+        registry.record("active");
+        registry.remove("completed");
+
+        assertEquals(Set.of("active"), registry.drain());
+        assertEquals(0, registry.size());
+    }
+}
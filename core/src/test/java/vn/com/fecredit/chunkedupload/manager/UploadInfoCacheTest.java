@@ -0,0 +1,75 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.model.impl.DefaultUploadInfo;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadInfoCacheTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final Function<String, Optional<DefaultUploadInfo>> lookup = uploadId -> {
+        lookups.incrementAndGet();
+        return uploadId.startsWith("unknown") ? Optional.empty() : Optional.of(uploadInfo(uploadId));
+    };
+
+    private static DefaultUploadInfo uploadInfo(String uploadId) {
+        DefaultUploadInfo info = new DefaultUploadInfo();
+        info.setUploadId(uploadId);
+        info.setChecksum("checksum-" + uploadId);
+        info.setFilename(uploadId + ".bin");
+        return info;
+    }
+
+    @Test
+    void testRegisteredUploadIsServedWithoutLookup() {
+        UploadInfoCache<DefaultUploadInfo> cache = new UploadInfoCache<>();
+        DefaultUploadInfo registered = uploadInfo("upload-1");
+        cache.put("upload-1", registered, "user");
+
+        for (int chunk = 0; chunk < 100; chunk++) {
+            assertSame(registered, cache.get("upload-1", "user", lookup).orElseThrow());
+        }
+        assertSame(registered, cache.get("upload-1", null, lookup).orElseThrow());
+        assertEquals(0, lookups.get());
+
+        assertTrue(cache.get("unknown", "user", lookup).isEmpty());
+        assertTrue(cache.get("unknown", "user", lookup).isEmpty());
+        assertEquals(2, lookups.get(), "Unknown uploads are not cached");
+    }
+
+    @Test
+    void testOtherTenantMissesAndInvalidatedUploadIsLoadedAgain() {
+        UploadInfoCache<DefaultUploadInfo> cache = new UploadInfoCache<>();
+        cache.put("upload-1", uploadInfo("upload-1"), "user");
+
+        assertTrue(cache.get("upload-1", "other", id -> Optional.empty()).isEmpty());
+        assertTrue(cache.getIfPresent("upload-1").isPresent(), "The owner's entry is kept");
+
+        cache.invalidate("upload-1");
+        assertTrue(cache.getIfPresent("upload-1").isEmpty());
+        assertEquals("upload-1.bin", cache.get("upload-1", "user", lookup).orElseThrow().getFilename());
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void testIdleAndExcessEntriesAreEvicted() throws InterruptedException {
+        UploadInfoCache<DefaultUploadInfo> cache = new UploadInfoCache<>(10, 50);
+        for (int i = 0; i < 11; i++) {
+            cache.put("upload-" + i, uploadInfo("upload-" + i), "user");
+            Thread.sleep(2);
+        }
+        assertEquals(9, cache.getStats().size(), "Trimmed to 90% of the limit");
+        assertTrue(cache.getIfPresent("upload-10").isPresent(), "The most recent entry is kept");
+
+        Thread.sleep(60);
+        cache.getIfPresent("upload-10");
+        assertEquals(8, cache.evictIdle());
+        assertEquals(1, cache.getStats().size());
+    }
+}
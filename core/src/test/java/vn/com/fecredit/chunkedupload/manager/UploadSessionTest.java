@@ -0,0 +1,85 @@
+package vn.com.fecredit.chunkedupload.manager;
+
+import org.junit.jupiter.api.Test;
+import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.util.BitsetUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadSessionTest {
+
+    private static Header newHeader(int totalChunks) {
+        byte[] bitset = new byte[(totalChunks + 7) / 8];
+        BitsetUtil.setUnusedBits(bitset, totalChunks);
+        return new Header(totalChunks, 1024, totalChunks * 1024L, bitset);
+    }
+
+    @Test
+    void testExactlyOneWriterClaimsCompletion() throws Exception {
+        int totalChunks = 1000;
+        UploadSession session = new UploadSession("upload", Path.of("upload.part"), newHeader(totalChunks));
+        AtomicInteger completions = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < totalChunks; i++) {
+            int chunkNumber = i;
+            // Every chunk is marked twice to simulate client retries
+            for (int attempt = 0; attempt < 2; attempt++) {
+                executor.submit(() -> {
+                    if (session.markChunk(chunkNumber)) {
+                        completions.incrementAndGet();
+                    }
+                });
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, completions.get(), "Only one writer may finalize the upload");
+        assertEquals(0, session.getRemainingChunks());
+    }
+
+    @Test
+    void testFlushWritesOnlyDirtyWords() throws Exception {
+        int totalChunks = 256; // 32 bitset bytes, 4 words of 64 chunks
+        Path partPath = Files.createTempFile("session", ".part");
+        Files.write(partPath, new byte[32]);
+        UploadSession session = new UploadSession("upload", partPath, newHeader(totalChunks));
+
+        session.markChunk(17);  // word 0, byte 2
+        session.markChunk(200); // word 3, byte 25
+        assertEquals(2, session.getUnflushedChunks());
+
+        try (FileChannel ch = FileChannel.open(partPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            assertEquals(16, session.flush(ch, 0), "Words 0 and 3 are dirty");
+            assertFalse(session.isDirty());
+            assertEquals(0, session.flush(ch, 0), "Nothing left to flush");
+
+            ByteBuffer persisted = ByteBuffer.allocate(32);
+            ch.read(persisted, 0);
+            assertEquals((byte) 0x02, persisted.get(2));
+            assertEquals((byte) 0x01, persisted.get(25));
+        }
+    }
+
+    @Test
+    void testRecoveredCompleteUploadCanBeFinalizedByResentChunk() {
+        Header header = newHeader(3);
+        header.bitset[0] = (byte) 0xFF; // every chunk flushed before a crash
+        UploadSession session = new UploadSession("upload", Path.of("upload.part"), header);
+
+        assertTrue(session.markChunk(2));
+        assertFalse(session.markChunk(1));
+        assertFalse(session.isDirty(), "Re-sent chunks do not dirty the bitset");
+    }
+}
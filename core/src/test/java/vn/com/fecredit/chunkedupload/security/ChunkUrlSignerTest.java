@@ -0,0 +1,53 @@
+package vn.com.fecredit.chunkedupload.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkUrlSignerTest {
+
+    private final HmacSha256 hmac = new HmacSha256(HmacSha256.generateKey());
+
+    @Test
+    void testSignedRangeIsVerifiedAndCoversItsChunks() {
+        ChunkUrlSigner signer = new ChunkUrlSigner(hmac, ChunkUrlSigner.DEFAULT_TTL_MILLIS);
+        ChunkGrant grant = signer.newGrant("user", "upload-1", 2, 5, 60_000L);
+
+        ChunkGrant verified = signer.verify("user", "upload-1", 2, 5, grant.expiresAtMillis(), signer.sign(grant));
+        assertEquals(grant, verified);
+        assertTrue(verified.covers("upload-1", 2));
+        assertTrue(verified.covers("upload-1", 5));
+        assertFalse(verified.covers("upload-1", 6));
+        assertFalse(verified.covers("upload-2", 3));
+
+        String query = signer.toQuery(grant);
+        assertTrue(query.startsWith("tenant=user&from=2&to=5&expires=" + grant.expiresAtMillis() + "&signature="));
+
+        // The requested validity is capped to the default validity
+        ChunkGrant capped = signer.newGrant("user", "upload-1", 0, 0, Long.MAX_VALUE);
+        assertTrue(capped.expiresAtMillis() <= System.currentTimeMillis() + ChunkUrlSigner.DEFAULT_TTL_MILLIS);
+        assertThrows(IllegalArgumentException.class, () -> signer.newGrant("user", "upload-1", 3, 2, null));
+    }
+
+    @Test
+    void testWidenedForeignAndExpiredUrlsAreRejected() {
+        ChunkUrlSigner signer = new ChunkUrlSigner(hmac, ChunkUrlSigner.DEFAULT_TTL_MILLIS);
+        ChunkGrant grant = signer.newGrant("user", "upload-1", 2, 5, null);
+        String signature = signer.sign(grant);
+        long expires = grant.expiresAtMillis();
+
+        assertThrows(SecurityException.class, () -> signer.verify("user", "upload-1", 0, 5, expires, signature));
+        assertThrows(SecurityException.class, () -> signer.verify("user", "upload-2", 2, 5, expires, signature));
+        assertThrows(SecurityException.class, () -> signer.verify("other", "upload-1", 2, 5, expires, signature));
+        assertThrows(SecurityException.class, () -> signer.verify("user", "upload-1", 2, 5, expires + 60_000, signature));
+        assertThrows(SecurityException.class, () -> signer.verify("user", "upload-1", 2, 5, expires, "%%%"));
+
+        ChunkUrlSigner otherKey = new ChunkUrlSigner(new HmacSha256(HmacSha256.generateKey()), ChunkUrlSigner.DEFAULT_TTL_MILLIS);
+        assertThrows(SecurityException.class, () -> otherKey.verify("user", "upload-1", 2, 5, expires, signature));
+
+        ChunkGrant expired = new ChunkGrant("user", "upload-1", 2, 5, System.currentTimeMillis() - 1);
+        SecurityException e = assertThrows(SecurityException.class,
+                () -> signer.verify("user", "upload-1", 2, 5, expired.expiresAtMillis(), signer.sign(expired)));
+        assertEquals("Chunk URL expired", e.getMessage());
+    }
+}
@@ -0,0 +1,44 @@
+package vn.com.fecredit.chunkedupload.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadTokenSignerTest {
+
+    private final byte[] key = HmacSha256.generateKey();
+
+    @Test
+    void testIssuedTokenCarriesItsClaims() {
+        UploadTokenSigner signer = new UploadTokenSigner(key, UploadTokenSigner.DEFAULT_TTL_MILLIS);
+        String token = signer.issue("user", 7L, "upload-1", 1_048_576L);
+
+        UploadToken claims = new UploadTokenSigner(key, 1_000L).verify(token);
+        assertEquals("user", claims.username());
+        assertEquals(Long.valueOf(7), claims.tenantId());
+        assertEquals("upload-1", claims.uploadId());
+        assertEquals(1_048_576L, claims.fileSize());
+        assertFalse(claims.isExpired(System.currentTimeMillis()));
+        assertTrue(token.length() < 200, "Token should stay compact: " + token);
+    }
+
+    @Test
+    void testTamperedForeignAndExpiredTokensAreRejected() {
+        UploadTokenSigner signer = new UploadTokenSigner(key, UploadTokenSigner.DEFAULT_TTL_MILLIS);
+        String token = signer.issue("user", 7L, "upload-1", 1024L);
+
+        // Claims of another upload with the original signature
+        String forgedClaims = signer.issue("user", 7L, "upload-2", 1024L).split("\\.")[0];
+        assertThrows(SecurityException.class, () -> signer.verify(forgedClaims + token.substring(token.indexOf('.'))));
+
+        UploadTokenSigner otherKey = new UploadTokenSigner(HmacSha256.generateKey(), UploadTokenSigner.DEFAULT_TTL_MILLIS);
+        assertThrows(SecurityException.class, () -> otherKey.verify(token));
+
+        String expired = signer.sign(new UploadToken("user", 7L, "upload-1", 1024L, System.currentTimeMillis() - 1));
+        SecurityException e = assertThrows(SecurityException.class, () -> signer.verify(expired));
+        assertEquals("Upload token expired", e.getMessage());
+
+        assertThrows(SecurityException.class, () -> signer.verify("not-a-token"));
+        assertThrows(SecurityException.class, () -> signer.verify("!!!.???"));
+    }
+}
@@ -0,0 +1,78 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the results of a run with stored baseline results.
+ *
+ * <p>
+ * A metric regresses when it is worse than the baseline by more than the tolerance:
+ * <ul>
+ * <li>Throughput ({@code throughputMBps}, {@code chunksPerSecond}) lower than the baseline</li>
+ * <li>Latency percentiles p50, p95 and p99 of each operation higher than the baseline;
+ * p99.9 and max are reported in the results but too noisy to gate on</li>
+ * </ul>
+ */
+final class BaselineComparison {
+    private static final String[] OPERATIONS = {"init", "chunk", "completion", "upload"};
+    private static final String[] PERCENTILES = {"p50", "p95", "p99"};
+
+    private final double tolerance;
+    private final List<String> lines = new ArrayList<>();
+    private int regressions;
+
+    private BaselineComparison(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @param baseline  The stored results
+     * @param current   The results of this run
+     * @param tolerance Relative degradation tolerated, e.g. 0.10 for 10%
+     */
+    static BaselineComparison compare(JsonNode baseline, JsonNode current, double tolerance) {
+        BaselineComparison comparison = new BaselineComparison(tolerance);
+        if (!baseline.path("config").equals(current.path("config"))) {
+            comparison.lines.add("WARNING: the baseline was recorded with another load: " + baseline.path("config"));
+        }
+        JsonNode baseResults = baseline.path("results");
+        JsonNode results = current.path("results");
+        comparison.check("throughputMBps", baseResults.path("throughputMBps"), results.path("throughputMBps"), false);
+        comparison.check("chunksPerSecond", baseResults.path("chunksPerSecond"), results.path("chunksPerSecond"), false);
+        for (String operation : OPERATIONS) {
+            for (String percentile : PERCENTILES) {
+                comparison.check(operation + "." + percentile,
+                        baseResults.path("latencyMillis").path(operation).path(percentile),
+                        results.path("latencyMillis").path(operation).path(percentile), true);
+            }
+        }
+        return comparison;
+    }
+
+    private void check(String metric, JsonNode baseNode, JsonNode currentNode, boolean lowerIsBetter) {
+        if (!baseNode.isNumber() || !currentNode.isNumber()) {
+            lines.add(String.format("%-20s %12s %12s", metric, "n/a", currentNode.asText("n/a")));
+            return;
+        }
+        double base = baseNode.asDouble();
+        double value = currentNode.asDouble();
+        double change = base == 0 ? 0 : (value - base) / base;
+        boolean regressed = lowerIsBetter ? change > tolerance : change < -tolerance;
+        if (regressed) {
+            regressions++;
+        }
+        lines.add(String.format("%-20s %12.3f %12.3f %+8.1f%% %s", metric, base, value, change * 100,
+                regressed ? "REGRESSION" : "ok"));
+    }
+
+    int regressions() {
+        return regressions;
+    }
+
+    List<String> lines() {
+        return lines;
+    }
+}
@@ -0,0 +1,394 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares how many slow chunk uploads each {@link ServerStack} holds at once, what each one costs,
+ * and how fast the server still accepts chunks from other clients meanwhile.
+ *
+ * <p>
+ * For each {@link ServerStack}, started in-process one after the other:
+ * <ul>
+ * <li>One upload is initialized, large enough for a chunk per connection of the last step</li>
+ * <li>Connections are opened step by step, each sending the headers of a
+ * {@code PUT /api/upload/{id}/chunks/{n}} and then one byte of its body every
+ * {@code --trickle-ms}, as a client on a slow link would; no chunk ever completes</li>
+ * <li>After each step: the connections still held by the server, the latency of a status request
+ * and the throughput of a burst of {@code --burst-chunks} whole chunks sent alongside them, the
+ * heap used after a full GC and the live thread count, both also divided by the connections held</li>
+ * <li>The ramp stops at the first step whose requests time out or whose connections are refused</li>
+ * </ul>
+ * The heap and threads of the client side are counted too, but they are the same for both stacks.
+ * The results are printed side by side and written as JSON.
+ *
+ * <p>
+ * Every connection takes two file descriptors in this process, so raise the limit first:
+ * <pre>
+ * ulimit -n 65536
+ * ./gradlew :loadtest:capacityTest --args="--steps=1000,2500,5000,10000"
+ * </pre>
+ * Options:
+ * <ul>
+ * <li>{@code --stacks} (servlet,servlet-virtual,reactive): servers compared</li>
+ * <li>{@code --steps} (1000,2500,5000,10000): total connections held at each step</li>
+ * <li>{@code --chunk-size} (64KB): chunk size configured on the servers, i.e. the body length announced</li>
+ * <li>{@code --trickle-ms} (1000): interval between the bytes sent on each connection</li>
+ * <li>{@code --settle-ms} (2000): wait after opening the connections of a step before measuring</li>
+ * <li>{@code --burst-chunks} (32): chunks sent at once, on a second upload, to measure throughput</li>
+ * <li>{@code --probe-timeout-ms} (5000): timeout of the status request and of each chunk of the burst</li>
+ * <li>{@code --report} (build/loadtest/capacity.json): where the results are written</li>
+ * </ul>
+ */
+public final class ConnectionCapacityTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String PASSWORD = "loadtest";
+
+    /**
+     * Measurements taken once the connections of a step are open.
+     *
+     * @param connections  Connections opened so far
+     * @param held         Connections still open with no response from the server
+     * @param probeMillis  Latency of the status request, or {@code -1} if it timed out
+     * @param bytesPerSecond Throughput of the chunk burst, or {@code -1} if a chunk timed out
+     * @param heapBytes    Heap used after a full GC, above the heap used before the first step
+     * @param threads      Live threads, above the threads alive before the first step
+     * @param refused      Whether some connections of the step could not be opened
+     */
+    record Step(int connections, int held, long probeMillis, double bytesPerSecond, long heapBytes, int threads, boolean refused) {
+
+        long heapPerConnection() {
+            return held == 0 ? 0 : heapBytes / held;
+        }
+
+        double threadsPerConnection() {
+            return held == 0 ? 0 : (double) threads / held;
+        }
+
+        boolean saturated() {
+            return refused || probeMillis < 0 || bytesPerSecond < 0;
+        }
+    }
+
+    private final int[] steps;
+    private final int chunkSize;
+    private final long trickleMillis;
+    private final long settleMillis;
+    private final int burstChunks;
+    private final Duration probeTimeout;
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private ConnectionCapacityTest(Map<String, String> options) {
+        this.steps = Arrays.stream(options.getOrDefault("steps", "1000,2500,5000,10000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).sorted().toArray();
+        this.chunkSize = (int) WeightedChoice.parseSize(options.getOrDefault("chunk-size", "64KB"));
+        this.trickleMillis = Long.parseLong(options.getOrDefault("trickle-ms", "1000"));
+        this.settleMillis = Long.parseLong(options.getOrDefault("settle-ms", "2000"));
+        this.burstChunks = Integer.parseInt(options.getOrDefault("burst-chunks", "32"));
+        this.probeTimeout = Duration.ofMillis(Long.parseLong(options.getOrDefault("probe-timeout-ms", "5000")));
+        if (steps.length == 0 || steps[0] <= 0 || chunkSize <= 1 || burstChunks <= 0) {
+            throw new IllegalArgumentException("steps and burst-chunks must be > 0 and chunk-size > 1");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestConfig.options(args);
+        ConnectionCapacityTest test = new ConnectionCapacityTest(options);
+        Map<String, List<Step>> results = new LinkedHashMap<>();
+        for (String stack : options.getOrDefault("stacks", "servlet,servlet-virtual,reactive").split(",")) {
+            ServerStack serverStack = ServerStack.parse(stack);
+            results.put(serverStack.label(), test.run(serverStack));
+        }
+        test.report(results, Path.of(options.getOrDefault("report", "build/loadtest/capacity.json")));
+        System.exit(0);
+    }
+
+    private List<Step> run(ServerStack stack) throws Exception {
+        Map<String, String> serverOptions = new LinkedHashMap<>();
+        serverOptions.put("tenants", "1");
+        serverOptions.put("chunk-size", String.valueOf(chunkSize));
+        serverOptions.put("password", PASSWORD);
+        List<Step> results = new ArrayList<>();
+        List<SocketChannel> connections = new CopyOnWriteArrayList<>();
+        ScheduledExecutorService trickle = Executors.newSingleThreadScheduledExecutor();
+        try (EmbeddedServer server = new EmbeddedServer(LoadTestConfig.parse(serverOptions), stack)) {
+            JsonNode upload = init(server.uploadUrl(), (long) (steps[steps.length - 1] + 1) * chunkSize);
+            String uploadId = upload.get("uploadId").asText();
+            String token = upload.get("uploadToken").asText();
+            // Chunks of the bursts, each step sending the next ones; the last chunk is never sent
+            JsonNode burstUpload = init(server.uploadUrl(), ((long) steps.length * burstChunks + 1) * chunkSize);
+            byte[] chunk = new byte[chunkSize];
+            // Warm the status path up, so that the first probe does not pay for class loading
+            probe(server.uploadUrl(), uploadId, token);
+
+            long baseHeap = usedHeapAfterGc();
+            int baseThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+            trickle.scheduleWithFixedDelay(() -> trickle(connections), trickleMillis, trickleMillis, TimeUnit.MILLISECONDS);
+            System.out.printf("%s: ramping up to %d connections%n", stack.label(), steps[steps.length - 1]);
+            for (int stepIndex = 0; stepIndex < steps.length; stepIndex++) {
+                int target = steps[stepIndex];
+                boolean refused = false;
+                try {
+                    while (connections.size() < target) {
+                        connections.add(open(server.port(), uploadId, token, connections.size()));
+                    }
+                } catch (IOException e) {
+                    System.out.printf("%s: connection %d refused: %s%n", stack.label(), connections.size() + 1, e.getMessage());
+                    refused = true;
+                }
+                Thread.sleep(settleMillis);
+                long probeMillis = probe(server.uploadUrl(), uploadId, token);
+                double bytesPerSecond = burst(server.uploadUrl(), burstUpload, stepIndex * burstChunks, chunk);
+                Step step = new Step(connections.size(), held(connections), probeMillis, bytesPerSecond,
+                        usedHeapAfterGc() - baseHeap, ManagementFactory.getThreadMXBean().getThreadCount() - baseThreads, refused);
+                results.add(step);
+                System.out.printf("%s: %d connections, %d held, probe %s, burst %s, %d KB heap and %.2f threads per connection%n",
+                        stack.label(), step.connections(), step.held(), probeMillis < 0 ? "timed out" : probeMillis + " ms",
+                        bytesPerSecond < 0 ? "timed out" : String.format("%.1f MB/s", bytesPerSecond / (1024 * 1024)),
+                        step.heapPerConnection() / 1024, step.threadsPerConnection());
+                if (step.saturated()) {
+                    break;
+                }
+            }
+        } finally {
+            trickle.shutdownNow();
+            for (SocketChannel connection : connections) {
+                connection.close();
+            }
+        }
+        return results;
+    }
+
+    private JsonNode init(String uploadUrl, long fileSize) throws Exception {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("filename", "capacity.bin");
+        body.put("fileSize", fileSize);
+        body.put("checksum", "capacity");
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uploadUrl + "/init"))
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                        (LoadTestApp.username(1) + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Init failed with status " + response.statusCode() + ": " + response.body());
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    /**
+     * Opens a connection sending the headers and the first byte of one chunk.
+     */
+    private SocketChannel open(int port, String uploadId, String token, int chunkNumber) throws IOException {
+        SocketChannel connection = SocketChannel.open(new InetSocketAddress("localhost", port));
+        try {
+            String headers = "PUT /api/upload/" + uploadId + "/chunks/" + chunkNumber + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Authorization: Bearer " + token + "\r\n"
+                    + "Content-Type: application/octet-stream\r\n"
+                    + "Content-Length: " + chunkSize + "\r\n"
+                    + "\r\n";
+            byte[] bytes = headers.getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer request = ByteBuffer.allocate(bytes.length + 1).put(bytes).put((byte) 0).flip();
+            while (request.hasRemaining()) {
+                connection.write(request);
+            }
+            connection.configureBlocking(false);
+            return connection;
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends one more byte on every connection.
+     */
+    private void trickle(List<SocketChannel> connections) {
+        ByteBuffer oneByte = ByteBuffer.allocate(1);
+        for (SocketChannel connection : connections) {
+            if (connection.isOpen()) {
+                try {
+                    connection.write(oneByte.clear());
+                } catch (IOException e) {
+                    // Closed by the server: not counted as held anymore
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The connections the server neither closed nor answered
+     */
+    private static int held(List<SocketChannel> connections) {
+        ByteBuffer response = ByteBuffer.allocate(1024);
+        int held = 0;
+        for (SocketChannel connection : connections) {
+            try {
+                if (connection.read(response.clear()) == 0) {
+                    held++;
+                }
+            } catch (IOException e) {
+                // Reset by the server
+            }
+        }
+        return held;
+    }
+
+    /**
+     * @return The latency in milliseconds of a status request, or {@code -1} if it timed out
+     */
+    private long probe(String uploadUrl, String uploadId, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uploadUrl + "/" + uploadId + "/status"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(probeTimeout)
+                .GET()
+                .build();
+        long started = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Status request failed with status " + response.statusCode());
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        } catch (HttpTimeoutException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Sends whole chunks of the burst upload all at once and waits for every response.
+     *
+     * @return The chunk bytes accepted per second, or {@code -1} if a chunk timed out
+     */
+    private double burst(String uploadUrl, JsonNode upload, int firstChunk, byte[] chunk) throws Exception {
+        String uploadId = upload.get("uploadId").asText();
+        String token = upload.get("uploadToken").asText();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int chunkNumber = firstChunk; chunkNumber < firstChunk + burstChunks; chunkNumber++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(uploadUrl + "/" + uploadId + "/chunks/" + chunkNumber))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/octet-stream")
+                    .timeout(probeTimeout)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(chunk))
+                    .build();
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        try {
+            for (CompletableFuture<HttpResponse<Void>> response : responses) {
+                int status = response.join().statusCode();
+                if (status != 200) {
+                    throw new IllegalStateException("Chunk request failed with status " + status);
+                }
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof HttpTimeoutException) {
+                return -1;
+            }
+            throw e;
+        }
+        return (double) burstChunks * chunk.length * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - started);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private void report(Map<String, List<Step>> results, Path path) throws IOException {
+        System.out.println();
+        System.out.printf("%-12s", "connections");
+        for (String stack : results.keySet()) {
+            System.out.printf(" | %-15s %6s %9s %8s %8s %8s", stack, "held", "probe ms", "MB/s", "KB/conn", "thr/conn");
+        }
+        System.out.println();
+        for (int target : steps) {
+            StringBuilder row = new StringBuilder(String.format("%-12d", target));
+            boolean measured = false;
+            for (List<Step> stackSteps : results.values()) {
+                Step step = stackSteps.stream().filter(s -> s.connections() >= target).findFirst()
+                        .filter(s -> s.connections() == target || s.refused()).orElse(null);
+                if (step == null) {
+                    row.append(String.format(" | %-15s %6s %9s %8s %8s %8s", "", "-", "-", "-", "-", "-"));
+                } else {
+                    measured = true;
+                    row.append(String.format(" | %-15s %6d %9s %8s %8d %8.2f", "", step.held(),
+                            step.probeMillis() < 0 ? "timeout" : String.valueOf(step.probeMillis()),
+                            step.bytesPerSecond() < 0 ? "timeout" : String.format("%.1f", step.bytesPerSecond() / (1024 * 1024)),
+                            step.heapPerConnection() / 1024, step.threadsPerConnection()));
+                }
+            }
+            if (measured) {
+                System.out.println(row);
+            }
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("steps", steps);
+        config.put("chunkSize", chunkSize);
+        config.put("trickleMillis", trickleMillis);
+        config.put("settleMillis", settleMillis);
+        config.put("burstChunks", burstChunks);
+        config.put("probeTimeoutMillis", probeTimeout.toMillis());
+        Map<String, Object> stacks = new LinkedHashMap<>();
+        results.forEach((stack, stackSteps) -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Step step : stackSteps) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("connections", step.connections());
+                row.put("held", step.held());
+                row.put("probeMillis", step.probeMillis());
+                row.put("bytesPerSecond", step.bytesPerSecond());
+                row.put("heapBytes", step.heapBytes());
+                row.put("threads", step.threads());
+                row.put("heapBytesPerConnection", step.heapPerConnection());
+                row.put("threadsPerConnection", step.threadsPerConnection());
+                row.put("refused", step.refused());
+                rows.add(row);
+            }
+            stacks.put(stack, rows);
+        });
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("config", config);
+        report.put("results", stacks);
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        Files.writeString(path, MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+}
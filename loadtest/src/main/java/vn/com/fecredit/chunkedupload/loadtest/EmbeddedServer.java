@@ -0,0 +1,91 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import vn.com.fecredit.chunkedupload.model.TenantAccount;
+import vn.com.fecredit.chunkedupload.model.TenantAccountRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * An upload server of either {@link ServerStack}, started in-process on a free localhost port.
+ *
+ * <p>
+ * The server runs with its default configuration except for:
+ * <ul>
+ * <li>An in-memory database, with the load test tenants created at startup</li>
+ * <li>Upload directories in a temporary directory, deleted on close</li>
+ * <li>The chunk size of the load test, and warning-level logging</li>
+ * <li>No Tomcat connection limit short of the operating system's, and the properties of the stack</li>
+ * </ul>
+ */
+final class EmbeddedServer implements AutoCloseable {
+    private final Path workDir;
+    private final ConfigurableApplicationContext context;
+    private final Map<String, Long> tenantIds = new HashMap<>();
+
+    EmbeddedServer(LoadTestConfig config, ServerStack stack) throws IOException {
+        workDir = Files.createTempDirectory("chunked-upload-loadtest");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("chunkedupload.chunk-size", config.chunkSize());
+        properties.put("chunkedupload.inprogress-dir", workDir.resolve("in-progress").toString());
+        properties.put("chunkedupload.complete-dir", workDir.resolve("complete").toString());
+        // Tomcat refuses connections beyond 8192 by default; the operating system limit applies instead
+        properties.put("server.tomcat.max-connections", 100_000);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest-" + stack.label() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("logging.level.org.springframework.security", "WARN");
+        properties.put("logging.level.vn.com.fecredit.chunkedupload", "WARN");
+        properties.putAll(stack.properties());
+        context = new SpringApplicationBuilder(stack.application()).web(stack.webApplicationType()).properties(properties).run();
+
+        TenantAccountRepository tenants = context.getBean(TenantAccountRepository.class);
+        PasswordEncoder passwordEncoder = context.getBean(PasswordEncoder.class);
+        for (int i = 1; i <= config.tenants(); i++) {
+            TenantAccount account = new TenantAccount();
+            account.setTenantId("loadtest-" + i);
+            account.setUsername(LoadTestApp.username(i));
+            account.setPassword(passwordEncoder.encode(config.password()));
+            tenantIds.put(account.getUsername(), tenants.save(account).getId());
+        }
+    }
+
+    String uploadUrl() {
+        return "http://localhost:" + port() + "/api/upload";
+    }
+
+    int port() {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    /**
+     * Deletes the assembled file of a completed upload, so that long runs do not fill the disk.
+     */
+    void deleteCompletedFile(String username, String uploadId) throws IOException {
+        Path tenantDir = workDir.resolve("complete").resolve(String.valueOf(tenantIds.get(username)));
+        if (!Files.isDirectory(tenantDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(tenantDir)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.getFileName().toString().startsWith(uploadId + "_"))::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
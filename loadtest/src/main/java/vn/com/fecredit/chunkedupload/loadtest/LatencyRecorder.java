@@ -0,0 +1,66 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records latencies of one kind of operation and summarizes them as percentiles.
+ *
+ * <p>
+ * Every sample is kept, so percentiles are exact; a run of a few million chunks takes a few
+ * tens of megabytes. Recording is synchronized, which costs far less than the HTTP request
+ * being measured.
+ */
+final class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    /**
+     * @param nanos The latency of one operation, in nanoseconds
+     */
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @return Count, p50, p95, p99, p99.9 and max, in milliseconds
+     */
+    Map<String, Object> summarize() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sorted.length);
+        summary.put("p50", millis(percentile(sorted, 0.50)));
+        summary.put("p95", millis(percentile(sorted, 0.95)));
+        summary.put("p99", millis(percentile(sorted, 0.99)));
+        summary.put("p999", millis(percentile(sorted, 0.999)));
+        summary.put("max", millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        return summary;
+    }
+
+    /**
+     * Nearest-rank percentile.
+     */
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
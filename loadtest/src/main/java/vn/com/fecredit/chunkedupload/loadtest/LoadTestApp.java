@@ -0,0 +1,220 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import vn.com.fecredit.chunkedupload.client.ChunkedUploadClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test of the upload server on localhost.
+ *
+ * <p>
+ * A run:
+ * <ul>
+ * <li>Starts the server in-process, unless {@code --server-url} is given, and creates the
+ * tenants {@code loadtest-1..N}</li>
+ * <li>Runs {@code uploads-per-tenant} concurrent uploaders per tenant, each uploading
+ * {@code rounds} files one after another with its own {@link ChunkedUploadClient}, drawing
+ * the file size and client thread count of each upload from the configured distributions</li>
+ * <li>Reports throughput and p50/p95/p99/p99.9 latencies of init, chunk and completion,
+ * measured through {@link TimingUploadTransport}, and writes them as JSON</li>
+ * <li>Compares them with the stored baseline, and exits with status 1 on a regression
+ * beyond the tolerance</li>
+ * </ul>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * ./gradlew :loadtest:run --args="--tenants=8 --uploads-per-tenant=4 --file-sizes=1MB:3,64MB:1 --threads=1,4"
+ * ./gradlew :loadtest:run --args="--update-baseline"
+ * </pre>
+ * See {@link LoadTestConfig} for every option.
+ */
+public final class LoadTestApp {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_REPORTED_ERRORS = 5;
+
+    private final LoadTestConfig config;
+    private final EmbeddedServer server;
+    private final String uploadUrl;
+    private final TimingUploadTransport transport;
+    private final Map<Long, Path> files = new HashMap<>();
+
+    private LoadTestApp(LoadTestConfig config, EmbeddedServer server, String uploadUrl) {
+        this.config = config;
+        this.server = server;
+        this.uploadUrl = uploadUrl;
+        HttpClient httpClient = HttpClient.newHttpClient();
+        ChunkedUploadClient.UploadTransport delegate = config.multipart()
+                ? new ChunkedUploadClient.DefaultUploadTransport(httpClient)
+                : new ChunkedUploadClient.OctetStreamUploadTransport(httpClient);
+        this.transport = new TimingUploadTransport(delegate, new LoadTestMetrics());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        int status;
+        try (EmbeddedServer server = config.serverUrl() == null ? new EmbeddedServer(config, config.stack()) : null) {
+            String uploadUrl = server != null ? server.uploadUrl() : config.serverUrl();
+            status = new LoadTestApp(config, server, uploadUrl).run();
+        }
+        System.exit(status);
+    }
+
+    static String username(int tenant) {
+        return "loadtest-" + tenant;
+    }
+
+    private int run() throws Exception {
+        Path filesDir = Files.createTempDirectory("chunked-upload-loadtest-files");
+        try {
+            for (long size : config.fileSizes().values()) {
+                files.put(size, writeRandomFile(filesDir.resolve("file-" + size + ".bin"), size));
+            }
+            if (config.warmupRounds() > 0) {
+                System.out.println("Warming up: " + config.warmupRounds() + " round(s)");
+                runPhase(config.warmupRounds(), new LoadTestMetrics(), config.seed() - 1);
+            }
+            System.out.println("Measuring: " + config.rounds() + " round(s) of " + config.tenants() + " tenants x "
+                    + config.uploadsPerTenant() + " concurrent uploads against " + uploadUrl);
+            LoadTestMetrics metrics = new LoadTestMetrics();
+            long elapsed = runPhase(config.rounds(), metrics, config.seed());
+            return report(metrics.summarize(elapsed), metrics.failures.sum());
+        } finally {
+            try (Stream<Path> paths = Files.walk(filesDir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Runs every uploader for the given number of rounds.
+     *
+     * @return The wall-clock duration of the phase, in nanoseconds
+     */
+    private long runPhase(int rounds, LoadTestMetrics metrics, long seed) throws Exception {
+        transport.setMetrics(metrics);
+        int uploaders = config.tenants() * config.uploadsPerTenant();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(uploaders)) {
+            List<Future<?>> futures = new ArrayList<>(uploaders);
+            for (int tenant = 1; tenant <= config.tenants(); tenant++) {
+                for (int uploader = 0; uploader < config.uploadsPerTenant(); uploader++) {
+                    String username = username(tenant);
+                    Random random = new Random(seed * 31 + (long) tenant * config.uploadsPerTenant() + uploader);
+                    futures.add(executor.submit(() -> runUploader(username, random, rounds, metrics)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void runUploader(String username, Random random, int rounds, LoadTestMetrics metrics) {
+        ChunkedUploadClient.Builder builder = new ChunkedUploadClient.Builder()
+                .uploadUrl(uploadUrl)
+                .username(username)
+                .password(config.password())
+                .inFlightWindow(config.inFlightWindow())
+                .transport(transport);
+        if (config.maxInFlight() > 0) {
+            builder.adaptiveConcurrency(1, config.maxInFlight());
+        }
+        ChunkedUploadClient client = builder.build();
+        for (int round = 0; round < rounds; round++) {
+            Path file = files.get(config.fileSizes().pick(random));
+            int threads = config.threads().pick(random);
+            long start = System.nanoTime();
+            try {
+                String uploadId = client.upload(file, null, threads);
+                long end = System.nanoTime();
+                metrics.upload.record(end - start);
+                Long lastChunkResponse = transport.takeLastChunkResponse(uploadId);
+                if (lastChunkResponse != null) {
+                    metrics.completion.record(end - lastChunkResponse);
+                }
+                if (server != null) {
+                    server.deleteCompletedFile(username, uploadId);
+                }
+            } catch (Exception e) {
+                metrics.failures.increment();
+                if (metrics.failures.sum() <= MAX_REPORTED_ERRORS) {
+                    System.err.println("Upload by " + username + " failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private int report(Map<String, Object> results, long failures) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        report.put("config", config.describe());
+        report.put("results", results);
+        JsonNode current = MAPPER.valueToTree(report);
+        String json = MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(current);
+        System.out.println(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(current.path("results")));
+        write(config.report(), json);
+        System.out.println("Report written to " + config.report().toAbsolutePath());
+
+        int status = failures > 0 ? 1 : 0;
+        if (failures > 0) {
+            System.out.println(failures + " upload(s) failed");
+        }
+        if (config.updateBaseline()) {
+            write(config.baseline(), json);
+            System.out.println("Baseline updated: " + config.baseline().toAbsolutePath());
+        } else if (Files.exists(config.baseline())) {
+            BaselineComparison comparison = BaselineComparison.compare(
+                    MAPPER.readTree(config.baseline().toFile()), current, config.tolerance());
+            System.out.println(String.format("%-20s %12s %12s %9s", "metric", "baseline", "current", "change"));
+            comparison.lines().forEach(System.out::println);
+            if (comparison.regressions() > 0) {
+                System.out.println(comparison.regressions() + " metric(s) regressed by more than "
+                        + Math.round(config.tolerance() * 100) + "%");
+                status = 1;
+            }
+        } else {
+            System.out.println("No baseline at " + config.baseline().toAbsolutePath()
+                    + "; run with --update-baseline to record one");
+        }
+        return status;
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        Files.writeString(path, content);
+    }
+
+    private static Path writeRandomFile(Path path, long size) throws IOException {
+        byte[] block = new byte[1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(path)) {
+            for (long written = 0; written < size; written += block.length) {
+                ThreadLocalRandom.current().nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+        return path;
+    }
+}
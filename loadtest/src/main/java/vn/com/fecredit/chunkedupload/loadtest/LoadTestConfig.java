@@ -0,0 +1,111 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, parsed from {@code --name=value} arguments.
+ *
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code --tenants} (4): tenants uploading at the same time</li>
+ * <li>{@code --uploads-per-tenant} (4): concurrent uploads per tenant</li>
+ * <li>{@code --rounds} (5): uploads run one after another by each concurrent uploader</li>
+ * <li>{@code --warmup-rounds} (1): rounds run first and left out of the results</li>
+ * <li>{@code --file-sizes} (8MB): file size distribution, e.g. {@code 1MB:3,64MB:1}</li>
+ * <li>{@code --chunk-size} (512KB): chunk size configured on the embedded server</li>
+ * <li>{@code --threads} (4): distribution of client threads per upload, e.g. {@code 1:1,8:1}</li>
+ * <li>{@code --in-flight-window} (0): asynchronous chunk requests in flight per upload instead of
+ * {@code --threads}; 0 keeps the upload threads</li>
+ * <li>{@code --max-in-flight} (0): adapt the chunk requests in flight per upload between 1 and this maximum,
+ * starting from {@code --in-flight-window} or {@code --threads}; 0 keeps them fixed</li>
+ * <li>{@code --multipart} (false): send chunks as multipart requests instead of raw bodies</li>
+ * <li>{@code --stack} (servlet): server started in-process, {@code servlet}, {@code servlet-virtual} or {@code reactive}</li>
+ * <li>{@code --server-url}: load an already running server instead of an embedded one; its
+ * tenants {@code loadtest-1..N} must exist with password {@code --password}</li>
+ * <li>{@code --password} (loadtest): password of the load test tenants</li>
+ * <li>{@code --baseline} (baseline.json): stored results to compare against</li>
+ * <li>{@code --update-baseline} (false): store the results of this run as the baseline</li>
+ * <li>{@code --tolerance} (0.10): relative degradation tolerated before a metric is reported as a regression</li>
+ * <li>{@code --report} (build/loadtest/report.json): where the results of this run are written</li>
+ * <li>{@code --seed} (42): seed of the file size and thread count draws</li>
+ * </ul>
+ */
+record LoadTestConfig(int tenants, int uploadsPerTenant, int rounds, int warmupRounds,
+                      WeightedChoice<Long> fileSizes, int chunkSize, WeightedChoice<Integer> threads,
+                      int inFlightWindow, int maxInFlight, boolean multipart, ServerStack stack, String serverUrl, String password,
+                      Path baseline, boolean updateBaseline, double tolerance, Path report, long seed) {
+
+    static LoadTestConfig parse(String[] args) {
+        return parse(options(args));
+    }
+
+    /**
+     * @return The {@code --name=value} arguments by name; a bare {@code --name} is {@code true}
+     */
+    static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    static LoadTestConfig parse(Map<String, String> options) {
+        LoadTestConfig config = new LoadTestConfig(
+                Integer.parseInt(options.getOrDefault("tenants", "4")),
+                Integer.parseInt(options.getOrDefault("uploads-per-tenant", "4")),
+                Integer.parseInt(options.getOrDefault("rounds", "5")),
+                Integer.parseInt(options.getOrDefault("warmup-rounds", "1")),
+                WeightedChoice.parse(options.getOrDefault("file-sizes", "8MB"), WeightedChoice::parseSize),
+                (int) WeightedChoice.parseSize(options.getOrDefault("chunk-size", "512KB")),
+                WeightedChoice.parse(options.getOrDefault("threads", "4"), Integer::valueOf),
+                Integer.parseInt(options.getOrDefault("in-flight-window", "0")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "0")),
+                Boolean.parseBoolean(options.getOrDefault("multipart", "false")),
+                ServerStack.parse(options.getOrDefault("stack", "servlet")),
+                options.get("server-url"),
+                options.getOrDefault("password", "loadtest"),
+                Path.of(options.getOrDefault("baseline", "baseline.json")),
+                Boolean.parseBoolean(options.getOrDefault("update-baseline", "false")),
+                Double.parseDouble(options.getOrDefault("tolerance", "0.10")),
+                Path.of(options.getOrDefault("report", "build/loadtest/report.json")),
+                Long.parseLong(options.getOrDefault("seed", "42")));
+        if (config.tenants <= 0 || config.uploadsPerTenant <= 0 || config.rounds <= 0 || config.chunkSize <= 0) {
+            throw new IllegalArgumentException("tenants, uploads-per-tenant, rounds and chunk-size must be > 0");
+        }
+        return config;
+    }
+
+    /**
+     * @return The options that shape the load, stored with the results to tell comparable runs apart
+     */
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("tenants", tenants);
+        description.put("uploadsPerTenant", uploadsPerTenant);
+        description.put("rounds", rounds);
+        description.put("fileSizes", fileSizes.describe());
+        description.put("chunkSize", chunkSize);
+        description.put("threads", threads.describe());
+        if (inFlightWindow > 0) {
+            description.put("inFlightWindow", inFlightWindow);
+        }
+        if (maxInFlight > 0) {
+            description.put("maxInFlight", maxInFlight);
+        }
+        description.put("multipart", multipart);
+        description.put("embeddedServer", serverUrl == null);
+        if (serverUrl == null) {
+            description.put("stack", stack.label());
+        }
+        return description;
+    }
+}
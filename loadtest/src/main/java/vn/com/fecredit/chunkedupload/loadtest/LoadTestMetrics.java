@@ -0,0 +1,55 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters of one phase of a load test.
+ *
+ * <p>
+ * The recorded operations are:
+ * <ul>
+ * <li>{@code init}: one upload initialization request</li>
+ * <li>{@code chunk}: one chunk request, retries included</li>
+ * <li>{@code completion}: from the response to the last chunk of an upload until the client
+ * sees it completed; with asynchronous finalization this is the background assembly and the
+ * status polling, otherwise the assembly is part of the last chunk's latency</li>
+ * <li>{@code upload}: one whole upload, from checksum computation to completion</li>
+ * </ul>
+ */
+final class LoadTestMetrics {
+    final LatencyRecorder init = new LatencyRecorder();
+    final LatencyRecorder chunk = new LatencyRecorder();
+    final LatencyRecorder completion = new LatencyRecorder();
+    final LatencyRecorder upload = new LatencyRecorder();
+    final LongAdder chunkBytes = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    /**
+     * @param elapsedNanos Wall-clock duration of the phase
+     * @return Throughput and latency summary of the phase
+     */
+    Map<String, Object> summarize(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("uploads", upload.count());
+        summary.put("failures", failures.sum());
+        summary.put("chunks", chunk.count());
+        summary.put("bytes", chunkBytes.sum());
+        summary.put("durationSeconds", round(seconds));
+        summary.put("throughputMBps", round(chunkBytes.sum() / (1024.0 * 1024.0) / seconds));
+        summary.put("chunksPerSecond", round(chunk.count() / seconds));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("init", init.summarize());
+        latency.put("chunk", chunk.summarize());
+        latency.put("completion", completion.summarize());
+        latency.put("upload", upload.summarize());
+        summary.put("latencyMillis", latency);
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
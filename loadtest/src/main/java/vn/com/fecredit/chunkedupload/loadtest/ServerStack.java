@@ -0,0 +1,56 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import org.springframework.boot.WebApplicationType;
+import vn.com.fecredit.chunkedupload.UploadApplication;
+import vn.com.fecredit.chunkedupload.reactive.ReactiveUploadApplication;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The upload servers that can be started in-process, all serving the same {@code /api/upload} contract.
+ */
+enum ServerStack {
+    /** Spring MVC on Tomcat, from the {@code server} module: one platform thread per request. */
+    SERVLET(UploadApplication.class, WebApplicationType.SERVLET, Map.of()),
+    /** Spring MVC on Tomcat with {@code spring.threads.virtual.enabled}: one virtual thread per request. */
+    SERVLET_VIRTUAL(UploadApplication.class, WebApplicationType.SERVLET, Map.of("spring.threads.virtual.enabled", true)),
+    /** Spring WebFlux on Netty, from the {@code server-reactive} module: chunk bodies are written as they arrive. */
+    REACTIVE(ReactiveUploadApplication.class, WebApplicationType.REACTIVE, Map.of());
+
+    private final Class<?> application;
+    private final WebApplicationType webApplicationType;
+    private final Map<String, Object> properties;
+
+    ServerStack(Class<?> application, WebApplicationType webApplicationType, Map<String, Object> properties) {
+        this.application = application;
+        this.webApplicationType = webApplicationType;
+        this.properties = properties;
+    }
+
+    Class<?> application() {
+        return application;
+    }
+
+    WebApplicationType webApplicationType() {
+        return webApplicationType;
+    }
+
+    /**
+     * @return Properties set on the server on top of the load test ones
+     */
+    Map<String, Object> properties() {
+        return properties;
+    }
+
+    /**
+     * @return The name of the stack in options and reports, e.g. {@code servlet-virtual}
+     */
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    static ServerStack parse(String label) {
+        return valueOf(label.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
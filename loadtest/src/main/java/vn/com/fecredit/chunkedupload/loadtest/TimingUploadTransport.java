@@ -0,0 +1,94 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import vn.com.fecredit.chunkedupload.client.AuthorizationHeader;
+import vn.com.fecredit.chunkedupload.client.Chunk;
+import vn.com.fecredit.chunkedupload.client.ChunkedUploadClient;
+import vn.com.fecredit.chunkedupload.model.InitRequest;
+import vn.com.fecredit.chunkedupload.model.InitResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the requests of another {@link ChunkedUploadClient.UploadTransport}.
+ *
+ * <p>
+ * Latencies are recorded into the metrics of the current phase, which the load test swaps
+ * between warm-up and measurement. The time of the last chunk response of each upload is kept
+ * until the upload completes, to measure its completion latency.
+ */
+final class TimingUploadTransport implements ChunkedUploadClient.UploadTransport {
+    private final ChunkedUploadClient.UploadTransport delegate;
+    private final Map<String, Long> lastChunkResponse = new ConcurrentHashMap<>();
+    private volatile LoadTestMetrics metrics;
+
+    TimingUploadTransport(ChunkedUploadClient.UploadTransport delegate, LoadTestMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    void setMetrics(LoadTestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param uploadId An upload that returned from {@code upload}
+     * @return The {@link System#nanoTime()} of its last chunk response, or {@code null} if no chunk was sent
+     */
+    Long takeLastChunkResponse(String uploadId) {
+        return lastChunkResponse.remove(uploadId);
+    }
+
+    @Override
+    public InitResponse initUpload(InitRequest initRequest, String uploadUrl, String encodedAuth)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        InitResponse response = delegate.initUpload(initRequest, uploadUrl, encodedAuth);
+        metrics.init.record(System.nanoTime() - start);
+        return response;
+    }
+
+    @Override
+    public void uploadSingleChunk(String sessionId, Chunk chunk, String uploadUrl, String encodedAuth, int retryTimes)
+            throws IOException, InterruptedException {
+        uploadChunk(sessionId, chunk, uploadUrl, AuthorizationHeader.basic(encodedAuth), retryTimes);
+    }
+
+    @Override
+    public boolean uploadChunk(String sessionId, Chunk chunk, String uploadUrl, AuthorizationHeader authorization,
+                               int retryTimes)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        boolean finalizing = delegate.uploadChunk(sessionId, chunk, uploadUrl, authorization, retryTimes);
+        long end = System.nanoTime();
+        LoadTestMetrics current = metrics;
+        current.chunk.record(end - start);
+        current.chunkBytes.add(chunk.getLength());
+        lastChunkResponse.merge(sessionId, end, Math::max);
+        return finalizing;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> uploadChunkAsync(String sessionId, Chunk chunk, String uploadUrl,
+                                                       AuthorizationHeader authorization, int retryTimes) {
+        long start = System.nanoTime();
+        LoadTestMetrics current = metrics;
+        return delegate.uploadChunkAsync(sessionId, chunk, uploadUrl, authorization, retryTimes)
+                .thenApply(finalizing -> {
+                    long end = System.nanoTime();
+                    current.chunk.record(end - start);
+                    current.chunkBytes.add(chunk.getLength());
+                    lastChunkResponse.merge(sessionId, end, Math::max);
+                    return finalizing;
+                });
+    }
+
+    @Override
+    public String getUploadStatus(String sessionId, String uploadUrl, AuthorizationHeader authorization)
+            throws IOException, InterruptedException {
+        // Polling is part of the completion latency
+        return delegate.getUploadStatus(sessionId, uploadUrl, authorization);
+    }
+}
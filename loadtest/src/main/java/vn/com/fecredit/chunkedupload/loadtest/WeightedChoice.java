@@ -0,0 +1,91 @@
+package vn.com.fecredit.chunkedupload.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * A distribution over a few values, such as file sizes or thread counts.
+ *
+ * <p>
+ * Parsed from {@code value[:weight],...}, e.g. {@code 1MB:3,64MB:1} picks 1 MB three times
+ * as often as 64 MB. A value without a weight has weight 1.
+ *
+ * @param <T> The type of the values
+ */
+final class WeightedChoice<T> {
+    private final List<T> values = new ArrayList<>();
+    private final List<Double> cumulativeWeights = new ArrayList<>();
+    private double totalWeight;
+
+    static <T> WeightedChoice<T> parse(String spec, Function<String, T> parser) {
+        WeightedChoice<T> choice = new WeightedChoice<>();
+        for (String item : spec.split(",")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.lastIndexOf(':');
+            T value = parser.apply(colon < 0 ? trimmed : trimmed.substring(0, colon).trim());
+            double weight = colon < 0 ? 1 : Double.parseDouble(trimmed.substring(colon + 1).trim());
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be > 0: " + trimmed);
+            }
+            choice.totalWeight += weight;
+            choice.values.add(value);
+            choice.cumulativeWeights.add(choice.totalWeight);
+        }
+        if (choice.values.isEmpty()) {
+            throw new IllegalArgumentException("No value in " + spec);
+        }
+        return choice;
+    }
+
+    /**
+     * @param size A size in bytes, with an optional {@code KB}, {@code MB} or {@code GB} suffix
+     * @return The size in bytes
+     */
+    static long parseSize(String size) {
+        String upper = size.trim().toUpperCase();
+        long unit = 1;
+        if (upper.endsWith("KB")) {
+            unit = 1024L;
+        } else if (upper.endsWith("MB")) {
+            unit = 1024L * 1024;
+        } else if (upper.endsWith("GB")) {
+            unit = 1024L * 1024 * 1024;
+        }
+        String digits = unit == 1 ? upper : upper.substring(0, upper.length() - 2);
+        return Long.parseLong(digits.trim()) * unit;
+    }
+
+    T pick(Random random) {
+        double target = random.nextDouble() * totalWeight;
+        for (int i = 0; i < values.size(); i++) {
+            if (target < cumulativeWeights.get(i)) {
+                return values.get(i);
+            }
+        }
+        return values.get(values.size() - 1);
+    }
+
+    List<T> values() {
+        return values;
+    }
+
+    /**
+     * @return The values and their weights, for the report
+     */
+    Map<String, Double> describe() {
+        Map<String, Double> description = new LinkedHashMap<>();
+        double previous = 0;
+        for (int i = 0; i < values.size(); i++) {
+            description.put(String.valueOf(values.get(i)), cumulativeWeights.get(i) - previous);
+            previous = cumulativeWeights.get(i);
+        }
+        return description;
+    }
+}
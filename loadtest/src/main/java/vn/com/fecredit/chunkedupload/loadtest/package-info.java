@@ -0,0 +1,6 @@
+/**
+ * This package contains the end-to-end load test: an in-process server, concurrent
+ * {@code ChunkedUploadClient} uploads, latency percentiles and baseline comparison, and the
+ * connection capacity comparison of the servlet and reactive servers.
+ */
+package vn.com.fecredit.chunkedupload.loadtest;
@@ -2,6 +2,7 @@ package vn.com.fecredit.chunkedupload.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import vn.com.fecredit.chunkedupload.model.util.ChunkBitset;
 
 import java.util.List;
 
@@ -56,6 +57,17 @@ public class InitResponse {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Integer> missingChunkNumbers;
 
+    /**
+     * Optional signed token authorizing the chunk requests of this upload, sent as
+     * {@code Authorization: Bearer <token>} instead of the tenant credentials.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String uploadToken;
+
+    /** Expiry time of {@link #uploadToken}, in epoch milliseconds. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long uploadTokenExpiresAt;
+
     /**
      * Creates a new upload session response with bitset tracking.
      *
@@ -132,4 +144,37 @@ public class InitResponse {
     public void setChecksum(String checksum) { this.checksum = checksum; }
     public List<Integer> getMissingChunkNumbers() { return missingChunkNumbers; }
     public void setMissingChunkNumbers(List<Integer> missingChunkNumbers) { this.missingChunkNumbers = missingChunkNumbers; }
+    public String getUploadToken() { return uploadToken; }
+    public void setUploadToken(String uploadToken) { this.uploadToken = uploadToken; }
+    public Long getUploadTokenExpiresAt() { return uploadTokenExpiresAt; }
+    public void setUploadTokenExpiresAt(Long uploadTokenExpiresAt) { this.uploadTokenExpiresAt = uploadTokenExpiresAt; }
+
+    /**
+     * Decodes the chunk bitset of this response.
+     *
+     * @return The received chunks, empty if the server sent no bitset
+     */
+    public ChunkBitset toChunkBitset() {
+        return ChunkBitset.fromByteArray(bitsetBytes, totalChunks);
+    }
+
+    /**
+     * Returns the chunks the client still has to upload.
+     *
+     * <p>
+     * The list is taken from:
+     * <ul>
+     * <li>the clear bits of the bitset, when the server sent one</li>
+     * <li>otherwise {@link #getMissingChunkNumbers()}, if present</li>
+     * <li>otherwise nothing</li>
+     * </ul>
+     *
+     * @return Missing chunk indices in ascending order
+     */
+    public List<Integer> missingChunks() {
+        if (bitsetBytes != null) {
+            return toChunkBitset().clearBits();
+        }
+        return missingChunkNumbers != null ? missingChunkNumbers : List.of();
+    }
 }
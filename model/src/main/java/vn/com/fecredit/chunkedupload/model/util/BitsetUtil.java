@@ -5,6 +5,11 @@ import java.util.List;
 
 /**
  * Utility class for managing bitset operations in chunked file uploads.
+ *
+ * <p>
+ * These helpers work on the raw part-file byte layout. For tracking the chunks
+ * of a live upload use {@link ChunkBitset}, which keeps a cardinality counter
+ * and supports lock-free updates.
  */
 public class BitsetUtil {
 
@@ -14,8 +19,13 @@ public class BitsetUtil {
      */
     public static void setUnusedBits(byte[] bitset, int totalChunks) {
         if (bitset == null) return;
-        for (int i = totalChunks; i < bitset.length * 8; i++) {
-            setUsedBit(bitset, i);
+        int first = Math.max(totalChunks, 0);
+        int byteIndex = first >>> 3;
+        if (byteIndex >= bitset.length) return;
+        // Partial byte holding the last chunks, then whole bytes
+        bitset[byteIndex] |= (byte) (0xFF << (first & 7));
+        for (int i = byteIndex + 1; i < bitset.length; i++) {
+            bitset[i] = (byte) 0xFF;
         }
     }
 
@@ -51,10 +61,11 @@ public class BitsetUtil {
         List<Integer> indices = new ArrayList<>();
         if (bitset != null) {
             for (int byteIdx = 0; byteIdx < bitset.length; byteIdx++) {
-                for (int bit = 0; bit < 8; bit++) {
-                    if ((bitset[byteIdx] & (1 << bit)) != 0) {
-                        indices.add(byteIdx * 8 + bit);
-                    }
+                // Visit only the set bits of each byte
+                int bits = bitset[byteIdx] & 0xFF;
+                while (bits != 0) {
+                    indices.add(byteIdx * 8 + Integer.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
                 }
             }
         }
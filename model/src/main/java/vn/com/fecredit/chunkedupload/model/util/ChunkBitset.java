@@ -0,0 +1,330 @@
+package vn.com.fecredit.chunkedupload.model.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe bitset tracking the received chunks of an upload.
+ *
+ * <p>
+ * Compared to the raw byte arrays handled by {@link BitsetUtil}:
+ * <ul>
+ * <li>Bits are stored in 64-bit words of an {@link AtomicLongArray} and set with CAS, without locking</li>
+ * <li>The number of set bits is maintained on every change, so completion is checked in O(1)</li>
+ * <li>{@link #nextClearBit(int)} and {@link #nextSetBit(int)} skip whole words</li>
+ * <li>Range operations work a word at a time</li>
+ * </ul>
+ *
+ * <p>
+ * The serialized form is the part-file bitset layout: {@code (size + 7) / 8}
+ * bytes, chunk {@code i} at bit {@code i % 8} of byte {@code i / 8}, and the
+ * unused bits after the last chunk set to 1.
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * ChunkBitset received = ChunkBitset.fromByteArray(header.bitset, header.totalChunks);
+ * received.set(5);
+ * for (int i = received.nextClearBit(0); i &gt;= 0; i = received.nextClearBit(i + 1)) {
+ *     // chunk i is still missing
+ * }
+ * </pre>
+ */
+public final class ChunkBitset {
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+    private final int size;
+    private final AtomicLongArray words;
+    private final AtomicInteger cardinality = new AtomicInteger();
+
+    /**
+     * Creates an empty bitset for the given number of chunks.
+     *
+     * @param size Number of chunks tracked
+     */
+    public ChunkBitset(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must be >= 0");
+        }
+        this.size = size;
+        this.words = new AtomicLongArray(wordCount(size));
+    }
+
+    /**
+     * Reads a bitset from its serialized form. Bits beyond {@code size} are ignored;
+     * a shorter array leaves the remaining chunks clear.
+     *
+     * @param bytes Serialized bitset, may be {@code null} for an empty bitset
+     * @param size  Number of chunks tracked
+     * @return The deserialized bitset
+     */
+    public static ChunkBitset fromByteArray(byte[] bytes, int size) {
+        ChunkBitset bitset = new ChunkBitset(size);
+        if (bytes == null) {
+            return bitset;
+        }
+        int byteCount = Math.min(bytes.length, byteCount(size));
+        int count = 0;
+        for (int w = 0; w << 3 < byteCount; w++) {
+            long word = 0;
+            int base = w << 3;
+            for (int b = 0; b < 8 && base + b < byteCount; b++) {
+                word |= (bytes[base + b] & 0xFFL) << (b << 3);
+            }
+            word &= validMask(size, w);
+            bitset.words.set(w, word);
+            count += Long.bitCount(word);
+        }
+        bitset.cardinality.set(count);
+        return bitset;
+    }
+
+    /** @return Number of bytes of the serialized form of a bitset with the given size */
+    public static int byteCount(int size) {
+        return (size + 7) >>> 3;
+    }
+
+    private static int wordCount(int size) {
+        return (size + 63) >>> ADDRESS_BITS_PER_WORD;
+    }
+
+    // Mask of the bits of word w that correspond to chunks
+    private static long validMask(int size, int wordIndex) {
+        int remaining = size - (wordIndex << ADDRESS_BITS_PER_WORD);
+        return remaining >= 64 ? WORD_MASK : (1L << remaining) - 1;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Chunk index " + index + " out of range [0, " + size + ")");
+        }
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param index The chunk index
+     * @return {@code true} if the bit was clear before, i.e. this call changed the bitset
+     */
+    public boolean set(int index) {
+        checkIndex(index);
+        int w = index >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(w);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(w, current, current | mask)) {
+                cardinality.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Clears a bit.
+     *
+     * @param index The chunk index
+     * @return {@code true} if the bit was set before
+     */
+    public boolean clear(int index) {
+        checkIndex(index);
+        int w = index >>> ADDRESS_BITS_PER_WORD;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(w);
+            if ((current & mask) == 0) {
+                return false;
+            }
+            if (words.compareAndSet(w, current, current & ~mask)) {
+                cardinality.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param index The chunk index
+     * @return {@code true} if the bit is set
+     */
+    public boolean get(int index) {
+        checkIndex(index);
+        return (words.get(index >>> ADDRESS_BITS_PER_WORD) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets every bit in {@code [fromIndex, toIndex)}.
+     *
+     * @param fromIndex First chunk index, inclusive
+     * @param toIndex   Last chunk index, exclusive
+     */
+    public void setRange(int fromIndex, int toIndex) {
+        updateRange(fromIndex, toIndex, true);
+    }
+
+    /**
+     * Clears every bit in {@code [fromIndex, toIndex)}.
+     *
+     * @param fromIndex First chunk index, inclusive
+     * @param toIndex   Last chunk index, exclusive
+     */
+    public void clearRange(int fromIndex, int toIndex) {
+        updateRange(fromIndex, toIndex, false);
+    }
+
+    private void updateRange(int fromIndex, int toIndex, boolean value) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") out of range [0, " + size + ")");
+        }
+        if (fromIndex == toIndex) {
+            return;
+        }
+        int startWord = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        int endWord = (toIndex - 1) >>> ADDRESS_BITS_PER_WORD;
+        for (int w = startWord; w <= endWord; w++) {
+            long mask = WORD_MASK;
+            if (w == startWord) {
+                mask &= WORD_MASK << fromIndex;
+            }
+            if (w == endWord) {
+                mask &= WORD_MASK >>> -toIndex;
+            }
+            while (true) {
+                long current = words.get(w);
+                long updated = value ? current | mask : current & ~mask;
+                if (words.compareAndSet(w, current, updated)) {
+                    cardinality.addAndGet(Long.bitCount(updated) - Long.bitCount(current));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first clear bit at or after {@code fromIndex}.
+     *
+     * @param fromIndex Index to start from, inclusive
+     * @return The index of the next missing chunk, or {@code -1} if there is none
+     */
+    public int nextClearBit(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        if (fromIndex >= size) {
+            return -1;
+        }
+        int w = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        long word = ~words.get(w) & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index = (w << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++w == words.length()) {
+                return -1;
+            }
+            word = ~words.get(w);
+        }
+    }
+
+    /**
+     * Returns the index of the first set bit at or after {@code fromIndex}.
+     *
+     * @param fromIndex Index to start from, inclusive
+     * @return The index of the next received chunk, or {@code -1} if there is none
+     */
+    public int nextSetBit(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex < 0: " + fromIndex);
+        }
+        if (fromIndex >= size) {
+            return -1;
+        }
+        int w = fromIndex >>> ADDRESS_BITS_PER_WORD;
+        long word = words.get(w) & (WORD_MASK << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (w << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length()) {
+                return -1;
+            }
+            word = words.get(w);
+        }
+    }
+
+    /** @return Indices of all clear bits, i.e. the missing chunks, in ascending order */
+    public List<Integer> clearBits() {
+        List<Integer> indices = new ArrayList<>(size - cardinality());
+        for (int i = nextClearBit(0); i >= 0; i = nextClearBit(i + 1)) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    /** @return Indices of all set bits, i.e. the received chunks, in ascending order */
+    public List<Integer> setBits() {
+        List<Integer> indices = new ArrayList<>(cardinality());
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    /** @return Number of chunks tracked */
+    public int size() {
+        return size;
+    }
+
+    /** @return Number of set bits */
+    public int cardinality() {
+        return cardinality.get();
+    }
+
+    /** @return {@code true} if every bit is set */
+    public boolean isFull() {
+        return cardinality.get() == size;
+    }
+
+    /**
+     * Serializes the bitset into the part-file layout.
+     *
+     * @return A new array of {@link #byteCount(int)} bytes
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[byteCount(size)];
+        copyBytes(0, bytes.length, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Serializes the byte range {@code [fromByte, toByte)} of the part-file layout,
+     * for example to persist only the bytes that changed.
+     *
+     * @param fromByte  First byte, inclusive
+     * @param toByte    Last byte, exclusive
+     * @param dst       Destination array
+     * @param dstOffset Position in {@code dst} of byte {@code fromByte}
+     */
+    public void copyBytes(int fromByte, int toByte, byte[] dst, int dstOffset) {
+        int byteCount = byteCount(size);
+        if (fromByte < 0 || toByte > byteCount || fromByte > toByte) {
+            throw new IndexOutOfBoundsException("Byte range [" + fromByte + ", " + toByte + ") out of range [0, " + byteCount + ")");
+        }
+        long word = 0;
+        int loadedWord = -1;
+        for (int i = fromByte; i < toByte; i++) {
+            int w = i >>> 3;
+            if (w != loadedWord) {
+                // Unused bits after the last chunk are serialized as received
+                word = words.get(w) | ~validMask(size, w);
+                loadedWord = w;
+            }
+            dst[dstOffset + i - fromByte] = (byte) (word >>> ((i & 7) << 3));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package vn.com.fecredit.chunkedupload.model.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Constant-memory SHA-256 over files of any size.
+ *
+ * <p>
+ * Compared to hashing the result of {@code Files.readAllBytes}:
+ * <ul>
+ * <li>Files are read through a {@link FileChannel} into pooled direct buffers of
+ * {@link #BUFFER_SIZE} bytes, so heap usage does not grow with the file size and
+ * files larger than 2 GB are supported</li>
+ * <li>Direct buffers are filled by the kernel without the temporary buffer and copy
+ * that {@code FileChannel} uses for heap buffers</li>
+ * <li>A byte range of an open channel can be hashed, e.g. the payload inside a part file</li>
+ * <li>Hex encoding uses {@link HexFormat} instead of a {@code String.format} per byte</li>
+ * </ul>
+ *
+ * <p>
+ * Example usage:
+ * <pre>
+ * String checksum = StreamingDigest.sha256Hex(path);
+ *
+ * MessageDigest digest = StreamingDigest.newSha256();
+ * StreamingDigest.update(digest, channel, offset, length);
+ * String rangeChecksum = StreamingDigest.toHex(digest.digest());
+ * </pre>
+ */
+public final class StreamingDigest {
+    /** Size of each pooled read buffer. */
+    public static final int BUFFER_SIZE = 1 << 20;
+    // Buffers kept for reuse; more are allocated under contention and dropped on release
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final ArrayBlockingQueue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+    private static final HexFormat HEX = HexFormat.of();
+
+    private StreamingDigest() {
+    }
+
+    /** @return A new SHA-256 digest */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    /**
+     * Computes the SHA-256 of a whole file.
+     *
+     * @param file The file to hash
+     * @return The checksum as a lower-case hex string
+     * @throws IOException if the file cannot be read
+     */
+    public static String sha256Hex(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = newSha256();
+            update(digest, ch, 0, ch.size());
+            return toHex(digest.digest());
+        }
+    }
+
+    /**
+     * Feeds a byte range of a channel into a digest. The channel position is not changed.
+     *
+     * @param digest   The digest to update
+     * @param ch       The channel to read
+     * @param position First byte of the range
+     * @param length   Number of bytes to hash
+     * @throws IOException if the channel cannot be read or ends before the range does
+     */
+    public static void update(MessageDigest digest, FileChannel ch, long position, long length) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            long end = position + length;
+            while (position < end) {
+                buffer.clear();
+                if (end - position < buffer.capacity()) {
+                    buffer.limit((int) (end - position));
+                }
+                int n = ch.read(buffer, position);
+                if (n < 0) {
+                    throw new IOException("Unexpected end of file at " + position + ", expected " + end + " bytes");
+                }
+                buffer.flip();
+                digest.update(buffer);
+                position += n;
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * @param hash Digest bytes
+     * @return Lower-case hex encoding of the bytes
+     */
+    public static String toHex(byte[] hash) {
+        return HEX.formatHex(hash);
+    }
+
+    private static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = BUFFER_POOL.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        BUFFER_POOL.offer(buffer);
+    }
+}
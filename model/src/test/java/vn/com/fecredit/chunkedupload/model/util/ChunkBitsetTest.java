@@ -0,0 +1,114 @@
+package vn.com.fecredit.chunkedupload.model.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkBitsetTest {
+
+    @Test
+    void testSetTracksCardinalityAndCompletion() {
+        ChunkBitset bitset = new ChunkBitset(3);
+        assertTrue(bitset.set(0));
+        assertFalse(bitset.set(0), "Setting a set bit does not change the bitset");
+        assertTrue(bitset.set(2));
+        assertEquals(2, bitset.cardinality());
+        assertFalse(bitset.isFull());
+        assertTrue(bitset.set(1));
+        assertTrue(bitset.isFull());
+    }
+
+    @Test
+    void testSetOutOfRange() {
+        ChunkBitset bitset = new ChunkBitset(10);
+        assertThrows(IndexOutOfBoundsException.class, () -> bitset.set(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> bitset.set(-1));
+    }
+
+    @Test
+    void testSerializedFormMatchesPartFileLayout() {
+        int totalChunks = 73;
+        byte[] expected = new byte[ChunkBitset.byteCount(totalChunks)];
+        BitsetUtil.setUnusedBits(expected, totalChunks);
+        ChunkBitset bitset = new ChunkBitset(totalChunks);
+        for (int chunk : new int[]{0, 9, 63, 64, 72}) {
+            BitsetUtil.setUsedBit(expected, chunk);
+            bitset.set(chunk);
+        }
+
+        assertArrayEquals(expected, bitset.toByteArray());
+
+        ChunkBitset decoded = ChunkBitset.fromByteArray(expected, totalChunks);
+        assertEquals(5, decoded.cardinality(), "Unused padding bits must not be counted");
+        assertEquals(List.of(0, 9, 63, 64, 72), decoded.setBits());
+    }
+
+    @Test
+    void testCopyBytesRange() {
+        ChunkBitset bitset = new ChunkBitset(20);
+        bitset.set(9);
+        bitset.set(17);
+        byte[] range = new byte[2];
+        bitset.copyBytes(1, 3, range, 0);
+        assertEquals((byte) 0x02, range[0]);
+        assertEquals((byte) 0xF2, range[1], "Bits after chunk 19 are serialized as set");
+    }
+
+    @Test
+    void testNextClearBitSkipsFullWords() {
+        ChunkBitset bitset = new ChunkBitset(200);
+        bitset.setRange(0, 150);
+        bitset.clear(70);
+        assertEquals(70, bitset.nextClearBit(0));
+        assertEquals(150, bitset.nextClearBit(71));
+        assertEquals(199, bitset.nextClearBit(199));
+        assertEquals(51, bitset.clearBits().size());
+
+        bitset.setRange(150, 200);
+        bitset.set(70);
+        assertEquals(-1, bitset.nextClearBit(0));
+        assertTrue(bitset.isFull());
+    }
+
+    @Test
+    void testRangeOperationsUpdateCardinality() {
+        ChunkBitset bitset = new ChunkBitset(300);
+        bitset.set(5);
+        bitset.setRange(3, 130);
+        assertEquals(127, bitset.cardinality());
+        bitset.clearRange(64, 128);
+        assertEquals(63, bitset.cardinality());
+        assertEquals(128, bitset.nextSetBit(64));
+        assertEquals(-1, bitset.nextSetBit(130));
+    }
+
+    @Test
+    void testConcurrentSetCountsEachBitOnce() throws InterruptedException {
+        int size = 100_000;
+        ChunkBitset bitset = new ChunkBitset(size);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < size; i++) {
+                    bitset.set(i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(size, bitset.cardinality());
+        assertTrue(bitset.isFull());
+    }
+
+    @Test
+    void testFromNullByteArrayIsEmpty() {
+        ChunkBitset bitset = ChunkBitset.fromByteArray(null, 4);
+        assertEquals(0, bitset.cardinality());
+        assertEquals(List.of(0, 1, 2, 3), bitset.clearBits());
+    }
+}
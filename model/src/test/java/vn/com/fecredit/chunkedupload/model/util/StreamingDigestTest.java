@@ -0,0 +1,64 @@
+package vn.com.fecredit.chunkedupload.model.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingDigestTest {
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        return data;
+    }
+
+    private static String expected(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+
+    @Test
+    void testFileLargerThanBuffer() throws Exception {
+        byte[] data = data(StreamingDigest.BUFFER_SIZE * 2 + 123);
+        Path file = Files.createTempFile("digest", ".bin");
+        Files.write(file, data);
+
+        assertEquals(expected(data), StreamingDigest.sha256Hex(file));
+        assertEquals(expected(data), ChecksumUtil.generateChecksum(file));
+        Files.delete(file);
+    }
+
+    @Test
+    void testEmptyFile() throws Exception {
+        Path file = Files.createTempFile("digest", ".bin");
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", StreamingDigest.sha256Hex(file));
+        Files.delete(file);
+    }
+
+    @Test
+    void testRangeOfChannel() throws Exception {
+        byte[] data = data(10_000);
+        Path file = Files.createTempFile("digest", ".bin");
+        Files.write(file, data);
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = StreamingDigest.newSha256();
+            StreamingDigest.update(digest, ch, 21, 5_000);
+            assertEquals(expected(Arrays.copyOfRange(data, 21, 5_021)), StreamingDigest.toHex(digest.digest()));
+            assertEquals(0, ch.position(), "The channel position is not changed");
+
+            assertThrows(IOException.class, () -> StreamingDigest.update(StreamingDigest.newSha256(), ch, 9_000, 2_000));
+        }
+        Files.delete(file);
+    }
+}
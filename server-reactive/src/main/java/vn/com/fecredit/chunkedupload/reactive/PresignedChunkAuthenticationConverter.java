@@ -0,0 +1,95 @@
+package vn.com.fecredit.chunkedupload.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import vn.com.fecredit.chunkedupload.security.ChunkGrant;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates chunks sent to pre-signed URLs, as the servlet {@code PresignedChunkAuthenticationFilter} does.
+ *
+ * <p>
+ * Applies to {@link #PRESIGNED_CHUNKS}: {@code PUT} chunk requests with a signature parameter and
+ * no {@code Authorization} header:
+ * <ul>
+ * <li>The signature, expiry and chunk range are verified without database access</li>
+ * <li>A malformed, tampered or expired URL, or a chunk outside its range, fails the authentication</li>
+ * <li>The grant is set as the authentication details, to scope the request to its chunks</li>
+ * </ul>
+ */
+public class PresignedChunkAuthenticationConverter implements ServerAuthenticationConverter {
+    private static final Logger log = LoggerFactory.getLogger(PresignedChunkAuthenticationConverter.class);
+    private static final Pattern CHUNK_PATH = Pattern.compile("^/api/upload/([^/]+)/chunks/(\\d+)$");
+
+    public static final ServerWebExchangeMatcher PRESIGNED_CHUNKS = exchange -> {
+        ServerHttpRequest request = exchange.getRequest();
+        return HttpMethod.PUT.equals(request.getMethod())
+                && request.getQueryParams().getFirst(ChunkUrlSigner.PARAM_SIGNATURE) != null
+                && !request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                ? ServerWebExchangeMatcher.MatchResult.match()
+                : ServerWebExchangeMatcher.MatchResult.notMatch();
+    };
+
+    private final ChunkUrlSigner signer;
+
+    /**
+     * @param signer Verifies the URL signatures
+     */
+    public PresignedChunkAuthenticationConverter(ChunkUrlSigner signer) {
+        this.signer = signer;
+    }
+
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        Matcher path = CHUNK_PATH.matcher(request.getPath().pathWithinApplication().value());
+        if (!path.matches()) {
+            return Mono.empty();
+        }
+
+        MultiValueMap<String, String> params = request.getQueryParams();
+        ChunkGrant grant;
+        try {
+            String uploadId = path.group(1);
+            grant = signer.verify(
+                    params.getFirst(ChunkUrlSigner.PARAM_TENANT),
+                    uploadId,
+                    Integer.parseInt(params.getFirst(ChunkUrlSigner.PARAM_FROM)),
+                    Integer.parseInt(params.getFirst(ChunkUrlSigner.PARAM_TO)),
+                    Long.parseLong(params.getFirst(ChunkUrlSigner.PARAM_EXPIRES)),
+                    params.getFirst(ChunkUrlSigner.PARAM_SIGNATURE));
+            if (!grant.covers(uploadId, Integer.parseInt(path.group(2)))) {
+                throw new SecurityException("Chunk not covered by the chunk URL");
+            }
+        } catch (NumberFormatException e) {
+            return reject(request, "Malformed chunk URL");
+        } catch (SecurityException e) {
+            return reject(request, e.getMessage());
+        }
+
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                grant.username(), null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        authentication.setDetails(grant);
+        return Mono.just(authentication);
+    }
+
+    private static Mono<Authentication> reject(ServerHttpRequest request, String message) {
+        log.debug("Rejected chunk URL {}: {}", request.getPath(), message);
+        return Mono.error(new BadCredentialsException(message));
+    }
+}
@@ -0,0 +1,425 @@
+package vn.com.fecredit.chunkedupload.reactive;
+
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import vn.com.fecredit.chunkedupload.core.ChunkStream;
+import vn.com.fecredit.chunkedupload.jfr.ChunkReceiveEvent;
+import vn.com.fecredit.chunkedupload.model.Header;
+import vn.com.fecredit.chunkedupload.model.InitRequest;
+import vn.com.fecredit.chunkedupload.model.InitResponse;
+import vn.com.fecredit.chunkedupload.model.TenantAccountRepository;
+import vn.com.fecredit.chunkedupload.model.UploadInfo;
+import vn.com.fecredit.chunkedupload.security.ChunkGrant;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+import vn.com.fecredit.chunkedupload.security.UploadToken;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
+import vn.com.fecredit.chunkedupload.service.ChunkedUploadService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * REST controller of the reactive server, with the {@code /api/upload} contract of the servlet
+ * {@code ChunkedUploadController}: same endpoints, parameters, responses and status codes.
+ *
+ * <p>
+ * No event loop thread waits for the disk or the database:
+ * <ul>
+ * <li>A chunk body is written to the part file buffer by buffer, through the {@link ChunkStream}
+ * of the upload engine, as the buffers arrive</li>
+ * <li>The next buffer is requested once the previous one is written, so a client faster than the
+ * disk is slowed down by TCP flow control instead of being buffered in memory</li>
+ * <li>Database and header reads, and the chunk lookup on a cold upload, run on the bounded elastic scheduler</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/api/upload")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChunkedUploadController {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChunkedUploadController.class);
+
+    @Autowired
+    private ChunkedUploadService uploadService;
+    @Autowired
+    private TenantAccountRepository tenantAccountRepository;
+    @Autowired
+    private UploadTokenSigner uploadTokenSigner;
+    @Autowired
+    private ChunkUrlSigner chunkUrlSigner;
+    @Value("${chunkedupload.presign.max-chunks:1024}")
+    private int maxPresignedChunks;
+
+    /**
+     * Lists all users (for demo or multi-tenant support).
+     *
+     * @return List of users in the system.
+     */
+    @GetMapping("/users")
+    public Mono<ResponseEntity<?>> listUsers() {
+        return blocking(() -> ResponseEntity.ok(tenantAccountRepository.findAll()));
+    }
+
+    /**
+     * Initializes a new upload session or resumes a broken upload.
+     *
+     * @param req       The initialization request containing file details and optional broken upload ID
+     * @param principal The authenticated user principal
+     * @return InitResponse with session details, or 400 with the validation error
+     */
+    @PostMapping("/init")
+    public Mono<ResponseEntity<?>> initUpload(@Valid @RequestBody InitRequest req, Principal principal) {
+        log.debug("Received InitRequest: filename={}, fileSize={}", req.getFilename(), req.getFileSize());
+        Mono<ResponseEntity<?>> initialized = blocking(() -> ResponseEntity.ok(newUpload(req, principal)));
+        return initialized
+                .onErrorResume(IllegalArgumentException.class, e -> {
+                    log.debug("Init validation failed: {}", e.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage()));
+                });
+    }
+
+    private InitResponse newUpload(InitRequest req, Principal principal) throws Throwable {
+        String username = getTenantAccountId(principal);
+        String brokenUploadId = req.getBrokenUploadId();
+
+        if (brokenUploadId != null && !brokenUploadId.isEmpty()) {
+            UploadInfo info = uploadService.findUploadInfoByTenantAndUploadId(username, brokenUploadId);
+            if (info != null && info.getChecksum().equals(req.getChecksum())) {
+                Header header = uploadService.readHeader(username, brokenUploadId);
+                InitResponse resp = new InitResponse(brokenUploadId, header.totalChunks, header.chunkSize, header.fileSize,
+                        info.getFilename());
+                resp.setBitsetBytes(header.bitset);
+                return withUploadToken(resp, username);
+            }
+        }
+
+        String uploadId = java.util.UUID.randomUUID().toString();
+        uploadService.registerUploadingFile(username, uploadId, req.getFilename(), req.getFileSize(), req.getChecksum());
+        Header header = uploadService.readHeader(username, uploadId);
+        return withUploadToken(new InitResponse(uploadId, header.totalChunks, header.chunkSize, header.fileSize,
+                req.getFilename(), header.bitset), username);
+    }
+
+    private InitResponse withUploadToken(InitResponse resp, String username) {
+        Long tenantId = uploadService.resolveTenant(username)
+                .orElseThrow(() -> new IllegalArgumentException("Tenant not found: " + username)).id();
+        UploadToken claims = uploadTokenSigner.newClaims(username, tenantId, resp.getUploadId(), resp.getFileSize());
+        resp.setUploadToken(uploadTokenSigner.sign(claims));
+        resp.setUploadTokenExpiresAt(claims.expiresAtMillis());
+        return resp;
+    }
+
+    /**
+     * Rejects requests authenticated with the upload token or pre-signed URL of another upload
+     * or chunk.
+     *
+     * @throws SecurityException if the request carries a token or URL not valid for the upload or chunk
+     */
+    private void checkUploadScope(Principal principal, String uploadId, Integer chunkNumber) {
+        if (!(principal instanceof Authentication authentication)) {
+            return;
+        }
+        if (authentication.getDetails() instanceof UploadToken token && !token.uploadId().equals(uploadId)) {
+            throw new SecurityException("Upload token not valid for upload " + uploadId);
+        }
+        if (authentication.getDetails() instanceof ChunkGrant grant
+                && (chunkNumber == null || !grant.covers(uploadId, chunkNumber))) {
+            throw new SecurityException("Chunk URL not valid for upload " + uploadId + " chunk " + chunkNumber);
+        }
+    }
+
+    /**
+     * Uploads a single chunk sent as a multipart part.
+     *
+     * <p>
+     * As on the servlet server, the multipart request is parsed before the part is written,
+     * so large parts are spooled by the codec first; prefer the {@code PUT} endpoint.
+     *
+     * @param uploadId    Upload session ID
+     * @param chunkNumber Chunk index (0-based)
+     * @param file        Chunk data
+     * @param principal   Authenticated user principal
+     * @return 200, or 202 if the chunk completed an upload assembled in the background; 400 on error
+     */
+    @PostMapping(value = "/chunk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Mono<ResponseEntity<?>> uploadChunk(
+            @RequestPart("uploadId") FormFieldPart uploadId,
+            @RequestPart("chunkNumber") FormFieldPart chunkNumber,
+            @RequestPart("file") FilePart file,
+            Principal principal) {
+        ChunkReceiveEvent receiveEvent = new ChunkReceiveEvent();
+        receiveEvent.begin();
+        int chunk = Integer.parseInt(chunkNumber.value());
+        checkUploadScope(principal, uploadId.value(), chunk);
+        String username = getTenantAccountId(principal);
+        log.debug("uploadChunk called with uploadId={}, chunkNumber={}, fileName={}, username={}",
+                uploadId.value(), chunk, file.filename(), username);
+        return writeChunk(username, uploadId.value(), chunk, -1, file.content())
+                .doFinally(signal -> receiveEvent.commit(uploadId.value(), username, chunk, 0));
+    }
+
+    /**
+     * Uploads a single chunk sent as the raw request body, streamed into the part file.
+     *
+     * <p>
+     * {@code Content-Length} is required and must equal the expected chunk length; a mismatch is
+     * rejected before the body is read.
+     *
+     * @param uploadId    Upload session ID
+     * @param chunkNumber Chunk index (0-based)
+     * @param request     The request whose body is the chunk data
+     * @param principal   Authenticated user principal
+     * @return 200, or 202 if the chunk completed an upload assembled in the background; 400 on error
+     * and 411 without {@code Content-Length}
+     */
+    @PutMapping(value = "/{uploadId}/chunks/{chunkNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Mono<ResponseEntity<?>> putChunk(
+            @PathVariable("uploadId") String uploadId,
+            @PathVariable("chunkNumber") int chunkNumber,
+            ServerHttpRequest request,
+            Principal principal) {
+        ChunkReceiveEvent receiveEvent = new ChunkReceiveEvent();
+        receiveEvent.begin();
+        checkUploadScope(principal, uploadId, chunkNumber);
+        long contentLength = request.getHeaders().getContentLength();
+        String username = getTenantAccountId(principal);
+        log.debug("putChunk called with uploadId={}, chunkNumber={}, contentLength={}, username={}",
+                uploadId, chunkNumber, contentLength, username);
+        if (contentLength < 0) {
+            return Mono.just(ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).body("Content-Length is required"));
+        }
+        return writeChunk(username, uploadId, chunkNumber, contentLength, request.getBody())
+                .doFinally(signal -> receiveEvent.commit(uploadId, username, chunkNumber, contentLength));
+    }
+
+    /**
+     * Streams a chunk body into the part file and builds the response.
+     *
+     * @param declaredLength The announced length of the chunk, negative if unknown
+     */
+    private Mono<ResponseEntity<?>> writeChunk(String username, String uploadId, int chunkNumber,
+                                               long declaredLength, Flux<DataBuffer> body) {
+        // Opening may resolve the tenant and load the upload header on a cold upload
+        return blocking(() -> uploadService.openChunkStream(username, uploadId, chunkNumber, declaredLength))
+                .flatMap(chunk -> stream(chunk, body))
+                .<ResponseEntity<?>>map(completed -> {
+                    log.debug("Chunk upload successful for uploadId={}, chunkNumber={}", uploadId, chunkNumber);
+                    return chunkAccepted(uploadId, completed);
+                })
+                .onErrorResume(e -> Mono.just(chunkRejected(uploadId, chunkNumber, username, e)));
+    }
+
+    /**
+     * Writes a body to a chunk one buffer at a time, then completes the chunk. The chunk is
+     * aborted if the body fails or the request is cancelled.
+     *
+     * @return {@code true} if the chunk completed the upload
+     */
+    private static Mono<Boolean> stream(ChunkStream chunk, Flux<DataBuffer> body) {
+        return body
+                .concatMap(buffer -> write(chunk, buffer), 1)
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .then(Mono.fromFuture(chunk::complete))
+                .doOnError(e -> chunk.abort())
+                .doOnCancel(chunk::abort);
+    }
+
+    /**
+     * Writes the readable bytes of one buffer, released once the part file is done with it,
+     * even if the request is cancelled meanwhile.
+     */
+    private static Mono<Void> write(ChunkStream chunk, DataBuffer buffer) {
+        return Mono.fromFuture(() -> {
+            DataBuffer.ByteBufferIterator pieces = buffer.readableByteBuffers();
+            CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+            while (pieces.hasNext()) {
+                ByteBuffer piece = pieces.next();
+                written = written.thenCompose(previous -> chunk.write(piece));
+            }
+            return written.whenComplete((done, e) -> {
+                pieces.close();
+                DataBufferUtils.release(buffer);
+            });
+        }, true);
+    }
+
+    /**
+     * Builds the response to a chunk that could not be stored, as the servlet controller does.
+     */
+    private ResponseEntity<?> chunkRejected(String uploadId, int chunkNumber, String username, Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (e instanceof IOException) {
+            log.error("Chunk IO error: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Chunk IO error: " + e.getMessage());
+        }
+        if (e instanceof IllegalArgumentException) {
+            log.error("Chunk validation failed: uploadId={}, chunkNumber={}, username={}: {}",
+                    uploadId, chunkNumber, username, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Chunk validation failed: " + e.getMessage());
+        }
+        log.error("Chunk upload system Fail: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Chunk upload system failed: " + e.getMessage());
+    }
+
+    /**
+     * Issues pre-signed URLs for a range of chunks of an existing upload, as the servlet controller does.
+     *
+     * @param uploadId   The upload session ID
+     * @param fromChunk  First chunk index (0-based), 0 by default
+     * @param toChunk    Last chunk index (inclusive), the last chunk of the upload by default
+     * @param ttlSeconds Validity of the URLs, the maximum validity by default
+     * @param request    The request, whose base URL prefixes the chunk URLs
+     * @param principal  Authenticated user principal
+     * @return The range, the expiry time and one URL per chunk, 404 if the user has no such
+     * upload, or 400 for an invalid range
+     */
+    @PostMapping("/{uploadId}/presign")
+    public Mono<ResponseEntity<?>> presignChunks(
+            @PathVariable("uploadId") String uploadId,
+            @RequestParam(value = "fromChunk", required = false) Integer fromChunk,
+            @RequestParam(value = "toChunk", required = false) Integer toChunk,
+            @RequestParam(value = "ttlSeconds", required = false) Long ttlSeconds,
+            ServerHttpRequest request,
+            Principal principal) {
+        checkUploadScope(principal, uploadId, null);
+        String username = getTenantAccountId(principal);
+        String base = UriComponentsBuilder.fromUri(request.getURI())
+                .replacePath(request.getPath().contextPath().value())
+                .replaceQuery(null)
+                .path("/api/upload/{uploadId}/chunks/").buildAndExpand(uploadId).toUriString();
+        return blocking(() -> presign(username, uploadId, fromChunk, toChunk, ttlSeconds, base));
+    }
+
+    private ResponseEntity<?> presign(String username, String uploadId, Integer fromChunk, Integer toChunk,
+                                      Long ttlSeconds, String base) throws Throwable {
+        if (uploadService.findUploadInfoByTenantAndUploadId(username, uploadId) == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("uploadId", uploadId, "status", "NOT_FOUND"));
+        }
+        Header header = uploadService.readHeader(username, uploadId);
+        int first = fromChunk != null ? fromChunk : 0;
+        int last = toChunk != null ? toChunk : header.totalChunks - 1;
+        if (first < 0 || last < first || last >= header.totalChunks) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Invalid chunk range " + first + "-" + last + " for " + header.totalChunks + " chunks");
+        }
+        if (last - first + 1 > maxPresignedChunks) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("At most " + maxPresignedChunks + " chunks can be pre-signed per request");
+        }
+
+        ChunkGrant grant = chunkUrlSigner.newGrant(username, uploadId, first, last,
+                ttlSeconds != null ? ttlSeconds * 1000 : null);
+        String query = chunkUrlSigner.toQuery(grant);
+        List<String> urls = new ArrayList<>(last - first + 1);
+        for (int chunk = first; chunk <= last; chunk++) {
+            urls.add(base + chunk + "?" + query);
+        }
+        log.debug("Pre-signed chunks {}-{} of uploadId={} for username={} until {}",
+                first, last, uploadId, username, grant.expiresAtMillis());
+        return ResponseEntity.ok(Map.of("uploadId", uploadId, "fromChunk", first, "toChunk", last,
+                "expiresAt", grant.expiresAtMillis(), "urls", urls));
+    }
+
+    /**
+     * @return 202 with upload status {@code FINALIZING} if the chunk completed an upload that is
+     * assembled in the background, 200 otherwise
+     */
+    private ResponseEntity<?> chunkAccepted(String uploadId, boolean completed) {
+        if (completed && uploadService.isAsyncFinalization()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("status", "ok", "uploadId", uploadId, "uploadStatus", UploadInfo.STATUS_FINALIZING));
+        }
+        return ResponseEntity.ok(Map.of("status", "ok", "uploadId", uploadId));
+    }
+
+    private String getTenantAccountId(Principal principal) {
+        return principal != null ? principal.getName() : "unknown";
+    }
+
+    /**
+     * Gets the current status of an upload session: {@code IN_PROGRESS}, {@code FINALIZING},
+     * {@code COMPLETED}, {@code FAILED} or {@code TIMED_OUT}.
+     *
+     * @param uploadId The upload session ID
+     * @return The upload ID and status, or 404 if the user has no such upload
+     */
+    @GetMapping("/{uploadId}/status")
+    public Mono<ResponseEntity<?>> getStatus(@PathVariable("uploadId") String uploadId, Principal principal) {
+        checkUploadScope(principal, uploadId, null);
+        String username = getTenantAccountId(principal);
+        return blocking(() -> {
+            String status = uploadService.getUploadStatus(username, uploadId);
+            if (status == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("uploadId", uploadId, "status", "NOT_FOUND"));
+            }
+            return ResponseEntity.ok(Map.of("uploadId", uploadId, "status", status));
+        });
+    }
+
+    /**
+     * Aborts an active upload session.
+     *
+     * @param uploadId The upload session ID to abort
+     * @return No content on success
+     */
+    @DeleteMapping("/{uploadId}")
+    public Mono<ResponseEntity<?>> abort(@PathVariable("uploadId") String uploadId, Principal principal) {
+        Mono<ResponseEntity<?>> deleted = blocking(() -> {
+            uploadService.deleteUploadFile(principal.getName(), uploadId);
+            return ResponseEntity.noContent().build();
+        });
+        return deleted.onErrorResume(e -> Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    @ExceptionHandler(SecurityException.class)
+    public ResponseEntity<String> handleSecurityException(SecurityException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    /**
+     * Runs a call that reads the database or the file system on the bounded elastic scheduler,
+     * off the event loop.
+     */
+    private static <R> Mono<R> blocking(BlockingCall<R> call) {
+        return Mono.defer(() -> {
+            try {
+                return Mono.justOrEmpty(call.call());
+            } catch (Throwable e) {
+                return Mono.error(e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @FunctionalInterface
+    private interface BlockingCall<R> {
+        R call() throws Throwable;
+    }
+}
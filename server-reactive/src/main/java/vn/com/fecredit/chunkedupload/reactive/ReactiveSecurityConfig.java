@@ -0,0 +1,137 @@
+package vn.com.fecredit.chunkedupload.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import vn.com.fecredit.chunkedupload.manager.TenantResolutionCache;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
+import vn.com.fecredit.chunkedupload.service.ChunkedUploadService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+/**
+ * Security of the reactive server, with the same rules as the servlet {@code SecurityConfig}.
+ *
+ * <p>
+ * Requests are authenticated by, in order:
+ * <ul>
+ * <li>An upload token, on the chunk and status endpoints</li>
+ * <li>A pre-signed chunk URL, on {@code PUT} chunk requests</li>
+ * <li>HTTP Basic credentials, checked off the event loop</li>
+ * </ul>
+ * No security context is stored between requests.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, UploadTokenSigner uploadTokenSigner,
+                                                         ChunkUrlSigner chunkUrlSigner) {
+        ServerAuthenticationEntryPoint entryPoint = customAuthenticationEntryPoint();
+        return http
+            .cors(withDefaults())
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                .pathMatchers("/api/upload/users").permitAll()
+                .pathMatchers("/actuator/health").permitAll()
+                .pathMatchers("/actuator/prometheus").hasRole("METRICS")
+                .anyExchange().authenticated()
+            )
+            .httpBasic(withDefaults())
+            .addFilterBefore(authenticationFilter(new UploadTokenAuthenticationConverter(uploadTokenSigner),
+                    UploadTokenAuthenticationConverter.TOKEN_ENDPOINTS, entryPoint), SecurityWebFiltersOrder.HTTP_BASIC)
+            .addFilterBefore(authenticationFilter(new PresignedChunkAuthenticationConverter(chunkUrlSigner),
+                    PresignedChunkAuthenticationConverter.PRESIGNED_CHUNKS, entryPoint), SecurityWebFiltersOrder.HTTP_BASIC)
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(entryPoint))
+            .build();
+    }
+
+    /**
+     * @return A filter authenticating the matching requests with what the converter verified;
+     * a failed verification is answered by the entry point
+     */
+    private static AuthenticationWebFilter authenticationFilter(ServerAuthenticationConverter converter,
+                                                                ServerWebExchangeMatcher matcher,
+                                                                ServerAuthenticationEntryPoint entryPoint) {
+        // The converters only return authentications they verified, accepted as they are
+        ReactiveAuthenticationManager verified = Mono::just;
+        AuthenticationWebFilter filter = new AuthenticationWebFilter(verified);
+        filter.setServerAuthenticationConverter(converter);
+        filter.setRequiresAuthenticationMatcher(matcher);
+        filter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(entryPoint));
+        filter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+        return filter;
+    }
+
+    @Bean
+    CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(Arrays.asList("*"));
+        configuration.setAllowedMethods(Arrays.asList("*"));
+        configuration.setAllowedHeaders(Arrays.asList("*"));
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+
+    @Bean
+    public ServerAuthenticationEntryPoint customAuthenticationEntryPoint() {
+        return (exchange, authException) -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            String message = "{\"error\":\"Unauthorized: " + authException.getMessage() + "\"}";
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8))));
+        };
+    }
+
+    /**
+     * Loads users through the tenant cache of the upload service. A cache miss reads the tenant
+     * accounts, so the lookup runs on the bounded elastic scheduler rather than on the event loop.
+     * The accounts listed in {@code chunkedupload.metrics.scrape-users} also have the
+     * {@code METRICS} role, required to scrape {@code /actuator/prometheus}.
+     */
+    @Bean
+    public ReactiveUserDetailsService userDetailsService(ChunkedUploadService chunkedUploadService,
+                                                         @Value("${chunkedupload.metrics.scrape-users:}") String[] scrapeUsers) {
+        Set<String> metricsUsers = Arrays.stream(scrapeUsers).map(String::trim).collect(Collectors.toSet());
+        return username -> Mono.fromCallable(() -> chunkedUploadService.resolveTenant(username)
+                        .map(TenantResolutionCache.Tenant::account)
+                        .map(account -> User.withUsername(account.getUsername()).password(account.getPassword())
+                                .roles(metricsUsers.contains(account.getUsername()) ? new String[]{"USER", "METRICS"} : new String[]{"USER"}).build())
+                        .orElse(null))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
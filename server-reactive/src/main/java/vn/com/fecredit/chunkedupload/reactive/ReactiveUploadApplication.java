@@ -0,0 +1,52 @@
+package vn.com.fecredit.chunkedupload.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import vn.com.fecredit.chunkedupload.config.CredentialsConfig;
+
+/**
+ * Entry point of the reactive upload server.
+ *
+ * <p>
+ * Shares everything but the web layer with the servlet server:
+ * <ul>
+ * <li>The upload service, its scheduled flushes and the session timeout, from the {@code service} package</li>
+ * <li>The JPA entities and repositories, from the {@code model} package</li>
+ * <li>The upload token and chunk URL signers and the password encoder, from {@link CredentialsConfig}</li>
+ * </ul>
+ * The servlet controller and security are not scanned. Every class of this package only applies
+ * to a reactive application, so the servlet server ignores them when both are on one classpath.
+ */
+@SpringBootApplication(scanBasePackages = {
+        "vn.com.fecredit.chunkedupload.reactive",
+        "vn.com.fecredit.chunkedupload.service",
+        "vn.com.fecredit.chunkedupload.model"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EntityScan("vn.com.fecredit.chunkedupload.model")
+@EnableJpaRepositories("vn.com.fecredit.chunkedupload.model")
+@EnableScheduling
+@Import(CredentialsConfig.class)
+public class ReactiveUploadApplication {
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ReactiveUploadApplication.class);
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.run(args);
+    }
+
+    /**
+     * Serves on Netty even when Tomcat is on the classpath too, e.g. next to the servlet server in the load test.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,77 @@
+package vn.com.fecredit.chunkedupload.reactive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import vn.com.fecredit.chunkedupload.security.UploadToken;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
+
+/**
+ * Authenticates chunk and status requests carrying an upload token, as the servlet
+ * {@code UploadTokenAuthenticationFilter} does.
+ *
+ * <p>
+ * Applies to {@link #TOKEN_ENDPOINTS} with an {@code Authorization: Bearer} header:
+ * <ul>
+ * <li>The token is verified from its signature and expiry only, without database access</li>
+ * <li>An invalid or expired token, or a body larger than the upload, fails the authentication</li>
+ * <li>The claims are set as the authentication details, to scope the request to its upload</li>
+ * </ul>
+ * Requests without a bearer token are left to the other authentication methods.
+ */
+public class UploadTokenAuthenticationConverter implements ServerAuthenticationConverter {
+    private static final Logger log = LoggerFactory.getLogger(UploadTokenAuthenticationConverter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+    /** Allowance for the multipart framing around a chunk, on top of the upload size. */
+    private static final long MULTIPART_OVERHEAD = 64 * 1024;
+
+    public static final ServerWebExchangeMatcher TOKEN_ENDPOINTS = new OrServerWebExchangeMatcher(
+            ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST, "/api/upload/chunk"),
+            ServerWebExchangeMatchers.pathMatchers(HttpMethod.PUT, "/api/upload/*/chunks/*"),
+            ServerWebExchangeMatchers.pathMatchers(HttpMethod.GET, "/api/upload/*/status"));
+
+    private final UploadTokenSigner signer;
+
+    /**
+     * @param signer Verifies the tokens
+     */
+    public UploadTokenAuthenticationConverter(UploadTokenSigner signer) {
+        this.signer = signer;
+    }
+
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        String authorization = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return Mono.empty();
+        }
+
+        UploadToken claims;
+        try {
+            claims = signer.verify(authorization.substring(BEARER_PREFIX.length()).trim());
+        } catch (SecurityException e) {
+            log.debug("Rejected upload token: {}", e.getMessage());
+            return Mono.error(new BadCredentialsException(e.getMessage()));
+        }
+        if (headers.getContentLength() > claims.fileSize() + MULTIPART_OVERHEAD) {
+            return Mono.error(new BadCredentialsException("Request larger than the upload the token was issued for"));
+        }
+
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                claims.username(), null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        authentication.setDetails(claims);
+        return Mono.just(authentication);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * The reactive upload server: the {@code /api/upload} contract of the servlet server on Spring WebFlux and Netty.
+ */
+package vn.com.fecredit.chunkedupload.reactive;
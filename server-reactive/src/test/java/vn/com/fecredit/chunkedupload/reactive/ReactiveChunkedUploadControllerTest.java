@@ -0,0 +1,185 @@
+package vn.com.fecredit.chunkedupload.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import vn.com.fecredit.chunkedupload.model.TenantAccount;
+import vn.com.fecredit.chunkedupload.model.TenantAccountRepository;
+import vn.com.fecredit.chunkedupload.model.UploadInfoHistoryRepository;
+import vn.com.fecredit.chunkedupload.model.UploadInfoRepository;
+import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of {@link ReactiveChunkedUploadController} on Netty, through the same requests as the servlet controller tests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=never",
+        "chunkedupload.chunk-size=65536",
+        "chunkedupload.inprogress-dir=build/test-uploads/in-progress",
+        "chunkedupload.complete-dir=build/test-uploads/complete"
+})
+@AutoConfigureWebTestClient
+class ReactiveChunkedUploadControllerTest {
+    private static final int CHUNK_SIZE = 65536;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private WebTestClient webClient;
+    @Autowired
+    private TenantAccountRepository repo;
+    @Autowired
+    private UploadInfoRepository uploadInfoRepo;
+    @Autowired
+    private UploadInfoHistoryRepository uploadInfoHistoryRepo;
+
+    @BeforeEach
+    void setupTestUser() {
+        uploadInfoHistoryRepo.deleteAll();
+        uploadInfoRepo.deleteAll();
+        repo.deleteAll();
+
+        TenantAccount user = new TenantAccount();
+        user.setTenantId("testTenant");
+        user.setUsername("user");
+        user.setPassword("{bcrypt}$2a$10$Lu4NwC5fbHT7kXV0o0PdDuX2NGsz0U/4ipCCa3GezK5hHSOguhtaG");
+        repo.save(user);
+    }
+
+    @Test
+    void testChunksAreStreamedWithTheUploadToken() throws Exception {
+        byte[] fileData = new byte[CHUNK_SIZE * 2 + 100];
+        new Random(21).nextBytes(fileData);
+        JsonNode upload = init("streamed.bin", fileData.length, ChecksumUtil.generateChecksum(fileData));
+        JsonNode other = init("other.bin", fileData.length, "checksum");
+        String uploadId = upload.get("uploadId").asText();
+        String token = upload.get("uploadToken").asText();
+
+        // The token of another upload is rejected
+        webClient.put().uri("/api/upload/{id}/chunks/0", uploadId)
+                .header("Authorization", "Bearer " + other.get("uploadToken").asText())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[CHUNK_SIZE])
+                .exchange()
+                .expectStatus().isUnauthorized();
+        // A wrong Content-Length is rejected before the body is read
+        webClient.put().uri("/api/upload/{id}/chunks/0", uploadId)
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[10])
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // Each chunk arrives as several buffers, the last one completes the upload
+        for (int chunk = 2; chunk >= 0; chunk--) {
+            int from = chunk * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, fileData.length);
+            WebTestClient.ResponseSpec response = webClient.put().uri("/api/upload/{id}/chunks/{chunk}", uploadId, chunk)
+                    .header("Authorization", "Bearer " + token)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(to - from)
+                    .body(buffers(fileData, from, to, 4096), DataBuffer.class)
+                    .exchange();
+            if (chunk == 0) {
+                response.expectStatus().isAccepted().expectBody().jsonPath("$.uploadStatus").isEqualTo("FINALIZING");
+            } else {
+                response.expectStatus().isOk();
+            }
+        }
+
+        // The checksum is verified on assembly
+        assertEquals("COMPLETED", awaitFinalization(uploadId, token));
+    }
+
+    @Test
+    void testChunkUploadWithPresignedUrl() throws Exception {
+        String uploadId = init("presigned.bin", CHUNK_SIZE + 20L, "checksum").get("uploadId").asText();
+
+        webClient.post().uri("/api/upload/{id}/presign?toChunk=2", uploadId)
+                .headers(headers -> headers.setBasicAuth("user", "password"))
+                .exchange()
+                .expectStatus().isBadRequest();
+        JsonNode presigned = json(webClient.post().uri("/api/upload/{id}/presign?toChunk=0", uploadId)
+                .headers(headers -> headers.setBasicAuth("user", "password"))
+                .exchange()
+                .expectStatus().isOk());
+        String url = presigned.get("urls").get(0).asText();
+
+        // Chunks outside the signed range and tampered signatures are rejected
+        webClient.put().uri(URI.create(url.replace("/chunks/0?", "/chunks/1?")))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[20])
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webClient.put().uri(URI.create(url.replace("&to=0&", "&to=1&")))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[CHUNK_SIZE])
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        // No credentials are needed for a chunk in the signed range
+        webClient.put().uri(URI.create(url))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .bodyValue(new byte[CHUNK_SIZE])
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    private JsonNode init(String filename, long fileSize, String checksum) throws Exception {
+        String initJson = "{\"fileSize\":" + fileSize + ", \"filename\":\"" + filename + "\", \"checksum\":\"" + checksum + "\"}";
+        JsonNode response = json(webClient.post().uri("/api/upload/init")
+                .headers(headers -> headers.setBasicAuth("user", "password"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(initJson)
+                .exchange()
+                .expectStatus().isOk());
+        assertTrue(response.has("uploadToken"));
+        return response;
+    }
+
+    private static JsonNode json(WebTestClient.ResponseSpec response) throws Exception {
+        return MAPPER.readTree(response.expectBody(String.class).returnResult().getResponseBody());
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] data, int from, int to, int bufferSize) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = from; offset < to; offset += bufferSize) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(data, offset, Math.min(offset + bufferSize, to))));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    /**
+     * Polls the status of an upload until its background finalization is over.
+     *
+     * @return The final status of the upload
+     */
+    private String awaitFinalization(String uploadId, String token) throws Exception {
+        String status = "FINALIZING";
+        for (int attempt = 0; attempt < 100 && "FINALIZING".equals(status); attempt++) {
+            Thread.sleep(50);
+            status = json(webClient.get().uri("/api/upload/{id}/status", uploadId)
+                    .header("Authorization", "Bearer " + token)
+                    .exchange()
+                    .expectStatus().isOk()).get("status").asText();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,72 @@
+package vn.com.fecredit.chunkedupload.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+import vn.com.fecredit.chunkedupload.security.HmacSha256;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
+
+/**
+ * Credentials shared by the servlet server and the reactive server of the {@code server-reactive} module:
+ * the signers of the upload tokens and pre-signed chunk URLs, and the encoder of the tenant passwords.
+ *
+ * <p>
+ * Kept apart from the web security of each server, so that both accept the tokens and URLs
+ * issued by the other when they share {@code chunkedupload.token.secret}.
+ */
+@Configuration
+public class CredentialsConfig {
+    private static final Logger log = LoggerFactory.getLogger(CredentialsConfig.class);
+
+    /**
+     * Key signing the upload tokens and pre-signed chunk URLs.
+     *
+     * <p>
+     * Instances behind the same load balancer must share {@code chunkedupload.token.secret}
+     * (Base64, 32 bytes recommended). When it is not set, a random key is generated: tokens
+     * and URLs are then only valid on this instance and until it restarts, after which clients
+     * fall back to their credentials.
+     */
+    @Bean
+    public HmacSha256 uploadSigningKey(@Value("${chunkedupload.token.secret:}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("chunkedupload.token.secret is not set; upload tokens are signed with a random key valid until restart");
+            return new HmacSha256(HmacSha256.generateKey());
+        }
+        return HmacSha256.fromBase64(secret);
+    }
+
+    /**
+     * Signs the upload tokens returned by upload initialization, which authorize the chunk
+     * requests of that upload without a password hash per chunk.
+     */
+    @Bean
+    public UploadTokenSigner uploadTokenSigner(HmacSha256 uploadSigningKey,
+                                               @Value("${chunkedupload.token.ttl-ms:3600000}") long ttlMillis) {
+        return new UploadTokenSigner(uploadSigningKey, ttlMillis);
+    }
+
+    /**
+     * Signs the pre-signed chunk URLs, which let processes without tenant credentials send
+     * chunks of an existing upload.
+     */
+    @Bean
+    public ChunkUrlSigner chunkUrlSigner(HmacSha256 uploadSigningKey,
+                                         @Value("${chunkedupload.presign.max-ttl-ms:900000}") long maxTtlMillis) {
+        return new ChunkUrlSigner(uploadSigningKey, maxTtlMillis);
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        java.util.Map<String, org.springframework.security.crypto.password.PasswordEncoder> encoders = new java.util.HashMap<>();
+        encoders.put("bcrypt", new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder());
+        org.springframework.security.crypto.password.PasswordEncoder delegating = new org.springframework.security.crypto.password.DelegatingPasswordEncoder("bcrypt", encoders);
+        log.debug("Configured PasswordEncoder {} with default scheme bcrypt and prefixes {}",
+                delegating.getClass().getSimpleName(), encoders.keySet());
+        return delegating;
+    }
+}
@@ -0,0 +1,108 @@
+package vn.com.fecredit.chunkedupload.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+import vn.com.fecredit.chunkedupload.security.ChunkGrant;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates raw chunk requests sent to a pre-signed chunk URL.
+ *
+ * <p>
+ * Requests to {@code PUT /api/upload/{uploadId}/chunks/{chunkNumber}} with a {@code signature}
+ * query parameter and no {@code Authorization} header are authenticated from the URL alone:
+ * <ul>
+ * <li>The signature over the tenant, upload ID, chunk range and expiry is checked with the
+ * signing key; no account or upload is looked up</li>
+ * <li>The chunk number in the path must be in the signed range</li>
+ * <li>The verified grant becomes the authentication details, so that the controller can check
+ * the request again against it</li>
+ * <li>An invalid, expired or out-of-range URL is answered with 401</li>
+ * </ul>
+ */
+public class PresignedChunkAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(PresignedChunkAuthenticationFilter.class);
+    private static final Pattern CHUNK_PATH = Pattern.compile("^/api/upload/([^/]+)/chunks/(\\d+)$");
+
+    private final ChunkUrlSigner signer;
+    private final AuthenticationEntryPoint entryPoint;
+
+    /**
+     * @param signer     Verifies the URL signatures
+     * @param entryPoint Answers requests with an invalid URL
+     */
+    public PresignedChunkAuthenticationFilter(ChunkUrlSigner signer, AuthenticationEntryPoint entryPoint) {
+        this.signer = signer;
+        this.entryPoint = entryPoint;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.PUT.matches(request.getMethod())
+                || request.getParameter(ChunkUrlSigner.PARAM_SIGNATURE) == null
+                || request.getHeader(HttpHeaders.AUTHORIZATION) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Matcher path = CHUNK_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+        if (!path.matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ChunkGrant grant;
+        try {
+            String uploadId = path.group(1);
+            grant = signer.verify(
+                    request.getParameter(ChunkUrlSigner.PARAM_TENANT),
+                    uploadId,
+                    Integer.parseInt(request.getParameter(ChunkUrlSigner.PARAM_FROM)),
+                    Integer.parseInt(request.getParameter(ChunkUrlSigner.PARAM_TO)),
+                    Long.parseLong(request.getParameter(ChunkUrlSigner.PARAM_EXPIRES)),
+                    request.getParameter(ChunkUrlSigner.PARAM_SIGNATURE));
+            if (!grant.covers(uploadId, Integer.parseInt(path.group(2)))) {
+                throw new SecurityException("Chunk not covered by the chunk URL");
+            }
+        } catch (NumberFormatException e) {
+            reject(request, response, "Malformed chunk URL");
+            return;
+        } catch (SecurityException e) {
+            reject(request, response, e.getMessage());
+            return;
+        }
+
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                grant.username(), null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        authentication.setDetails(grant);
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, String message)
+            throws IOException, ServletException {
+        log.debug("Rejected chunk URL {}: {}", request.getRequestURI(), message);
+        SecurityContextHolder.clearContext();
+        entryPoint.commence(request, response, new BadCredentialsException(message));
+    }
+}
@@ -1,6 +1,7 @@
 package vn.com.fecredit.chunkedupload.config;
 
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -8,32 +9,43 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import vn.com.fecredit.chunkedupload.model.TenantAccountRepository;
+import vn.com.fecredit.chunkedupload.manager.TenantResolutionCache;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
+import vn.com.fecredit.chunkedupload.service.ChunkedUploadService;
 
 import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
-
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, UploadTokenSigner uploadTokenSigner,
+                                                   ChunkUrlSigner chunkUrlSigner) throws Exception {
         http
             .cors(withDefaults()) // Enable CORS and use the CorsConfigurationSource bean
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() // Allow all CORS pre-flight OPTIONS requests
                 .requestMatchers("/api/upload/users").permitAll() // **THE FIX IS HERE: Allow public access to the user list**
+                .requestMatchers("/actuator/health").permitAll() // Probes
+                .requestMatchers("/actuator/prometheus").hasRole("METRICS") // Metrics are tagged with tenant names
                 .anyRequest().authenticated() // All other requests must be authenticated
             )
             .httpBasic(withDefaults())
+            .addFilterBefore(new UploadTokenAuthenticationFilter(uploadTokenSigner, customAuthenticationEntryPoint()),
+                    BasicAuthenticationFilter.class)
+            .addFilterBefore(new PresignedChunkAuthenticationFilter(chunkUrlSigner, customAuthenticationEntryPoint()),
+                    BasicAuthenticationFilter.class)
             .exceptionHandling(ex -> ex.authenticationEntryPoint(customAuthenticationEntryPoint()));
         return http.build();
     }
@@ -59,29 +71,23 @@ public class SecurityConfig {
         };
     }
 
+    /**
+     * Loads users through the tenant cache of the upload service, so that authenticating
+     * each chunk request does not query the tenant accounts.
+     *
+     * <p>
+     * Every account has the {@code USER} role. The accounts listed in
+     * {@code chunkedupload.metrics.scrape-users} also have the {@code METRICS} role,
+     * required to scrape {@code /actuator/prometheus}.
+     */
     @Bean
-    public UserDetailsService userDetailsService(TenantAccountRepository tenantAccountRepository) {
-        return username -> {
-            System.out.println("[DEBUG] Authentication attempt - Username: " + username);
-            return tenantAccountRepository.findByUsername(username).map(account -> {
-                System.out.println("[DEBUG] Found user in database:" +
-                    "\n  Username: " + account.getUsername() +
-                    "\n  Password hash: " + account.getPassword() +
-                    "\n  Tenant ID: " + account.getTenantId());
-                return org.springframework.security.core.userdetails.User.withUsername(account.getUsername()).password(account.getPassword()).roles("USER").build();
-            }).orElseThrow(() -> new org.springframework.security.core.userdetails.UsernameNotFoundException("User not found: " + username));
-        };
-    }
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        java.util.Map<String, org.springframework.security.crypto.password.PasswordEncoder> encoders = new java.util.HashMap<>();
-        encoders.put("bcrypt", new org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder());
-        org.springframework.security.crypto.password.PasswordEncoder delegating = new org.springframework.security.crypto.password.DelegatingPasswordEncoder("bcrypt", encoders);
-        System.out.println("[DEBUG] Configured PasswordEncoder:" +
-            "\n  Type: " + delegating.getClass().getSimpleName() +
-            "\n  Default scheme: bcrypt" +
-            "\n  Supported prefixes: " + encoders.keySet());
-        return delegating;
+    public UserDetailsService userDetailsService(ChunkedUploadService chunkedUploadService,
+                                                 @Value("${chunkedupload.metrics.scrape-users:}") String[] scrapeUsers) {
+        Set<String> metricsUsers = Arrays.stream(scrapeUsers).map(String::trim).collect(Collectors.toSet());
+        return username -> chunkedUploadService.resolveTenant(username)
+                .map(TenantResolutionCache.Tenant::account)
+                .map(account -> org.springframework.security.core.userdetails.User.withUsername(account.getUsername()).password(account.getPassword())
+                        .roles(metricsUsers.contains(account.getUsername()) ? new String[]{"USER", "METRICS"} : new String[]{"USER"}).build())
+                .orElseThrow(() -> new org.springframework.security.core.userdetails.UsernameNotFoundException("User not found: " + username));
     }
 }
@@ -0,0 +1,102 @@
+package vn.com.fecredit.chunkedupload.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import vn.com.fecredit.chunkedupload.security.UploadToken;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
+
+import java.io.IOException;
+
+/**
+ * Authenticates chunk and status requests carrying an upload token.
+ *
+ * <p>
+ * Requests with {@code Authorization: Bearer <token>} on the chunk and status endpoints are
+ * authenticated from the token alone:
+ * <ul>
+ * <li>No account lookup and no password hash; the token signature and expiry are checked</li>
+ * <li>The token claims become the authentication details, so that the controller can check
+ * that the request targets the upload the token was issued for</li>
+ * <li>A body larger than the upload the token was issued for is rejected before it is read</li>
+ * <li>An invalid or expired token is answered with 401; the client then falls back to its
+ * credentials</li>
+ * </ul>
+ * Requests without a bearer token are left to HTTP Basic authentication.
+ */
+public class UploadTokenAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(UploadTokenAuthenticationFilter.class);
+    private static final String BEARER_PREFIX = "Bearer ";
+    /** Allowance for the multipart framing around a chunk, on top of the upload size. */
+    private static final long MULTIPART_OVERHEAD = 64 * 1024;
+
+    private static final RequestMatcher TOKEN_ENDPOINTS = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/upload/chunk", HttpMethod.POST.name()),
+            new AntPathRequestMatcher("/api/upload/*/chunks/*", HttpMethod.PUT.name()),
+            new AntPathRequestMatcher("/api/upload/*/status", HttpMethod.GET.name()));
+
+    private final UploadTokenSigner signer;
+    private final AuthenticationEntryPoint entryPoint;
+
+    /**
+     * @param signer     Verifies the tokens
+     * @param entryPoint Answers requests with an invalid token
+     */
+    public UploadTokenAuthenticationFilter(UploadTokenSigner signer, AuthenticationEntryPoint entryPoint) {
+        this.signer = signer;
+        this.entryPoint = entryPoint;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !TOKEN_ENDPOINTS.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        UploadToken claims;
+        try {
+            claims = signer.verify(authorization.substring(BEARER_PREFIX.length()).trim());
+        } catch (SecurityException e) {
+            log.debug("Rejected upload token: {}", e.getMessage());
+            SecurityContextHolder.clearContext();
+            entryPoint.commence(request, response, new BadCredentialsException(e.getMessage()));
+            return;
+        }
+        if (request.getContentLengthLong() > claims.fileSize() + MULTIPART_OVERHEAD) {
+            entryPoint.commence(request, response,
+                    new BadCredentialsException("Request larger than the upload the token was issued for"));
+            return;
+        }
+
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                claims.username(), null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+        authentication.setDetails(claims);
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+}
@@ -1,21 +1,33 @@
 package vn.com.fecredit.chunkedupload.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import vn.com.fecredit.chunkedupload.jfr.ChunkReceiveEvent;
 import vn.com.fecredit.chunkedupload.model.Header;
 import vn.com.fecredit.chunkedupload.model.InitRequest;
 import vn.com.fecredit.chunkedupload.model.InitResponse;
 import vn.com.fecredit.chunkedupload.model.UploadInfo;
+import vn.com.fecredit.chunkedupload.security.ChunkGrant;
+import vn.com.fecredit.chunkedupload.security.ChunkUrlSigner;
+import vn.com.fecredit.chunkedupload.security.UploadToken;
+import vn.com.fecredit.chunkedupload.security.UploadTokenSigner;
 import vn.com.fecredit.chunkedupload.service.ChunkedUploadService;
 
 import java.io.IOException;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -25,7 +37,8 @@ import java.util.Map;
  * Exposes endpoints for:
  * <ul>
  * <li>Initializing or resuming upload sessions</li>
- * <li>Uploading file chunks</li>
+ * <li>Uploading file chunks, as multipart parts or raw octet-stream bodies</li>
+ * <li>Issuing pre-signed URLs for chunks of an upload</li>
  * <li>Checking upload status</li>
  * <li>Aborting uploads</li>
  * <li>Listing users (for demo/multi-tenant support)</li>
@@ -43,6 +56,12 @@ public class ChunkedUploadController {
     private ChunkedUploadService uploadService;
     @Autowired
     private vn.com.fecredit.chunkedupload.model.TenantAccountRepository tenantAccountRepository;
+    @Autowired
+    private UploadTokenSigner uploadTokenSigner;
+    @Autowired
+    private ChunkUrlSigner chunkUrlSigner;
+    @Value("${chunkedupload.presign.max-chunks:1024}")
+    private int maxPresignedChunks;
 
     /**
      * Lists all users (for demo or multi-tenant support).
@@ -95,14 +114,53 @@ public class ChunkedUploadController {
                 InitResponse resp = new InitResponse(brokenUploadId, header.totalChunks, header.chunkSize, header.fileSize,
                         info.getFilename());
                 resp.setBitsetBytes(header.bitset);
-                return resp;
+                return withUploadToken(resp, username);
             }
         }
 
         String uploadId = java.util.UUID.randomUUID().toString();
         uploadService.registerUploadingFile(username, uploadId, req.getFilename(), req.getFileSize(), req.getChecksum());
         Header header = uploadService.readHeader(username, uploadId);
-        return new InitResponse(uploadId, header.totalChunks, header.chunkSize, header.fileSize, req.getFilename(), header.bitset);
+        return withUploadToken(new InitResponse(uploadId, header.totalChunks, header.chunkSize, header.fileSize,
+                req.getFilename(), header.bitset), username);
+    }
+
+    /**
+     * Adds the token authorizing the chunk and status requests of the upload to an init response.
+     *
+     * @param resp     The init response
+     * @param username The tenant owning the upload
+     * @return The same response
+     */
+    private InitResponse withUploadToken(InitResponse resp, String username) {
+        Long tenantId = uploadService.resolveTenant(username)
+                .orElseThrow(() -> new IllegalArgumentException("Tenant not found: " + username)).id();
+        UploadToken claims = uploadTokenSigner.newClaims(username, tenantId, resp.getUploadId(), resp.getFileSize());
+        resp.setUploadToken(uploadTokenSigner.sign(claims));
+        resp.setUploadTokenExpiresAt(claims.expiresAtMillis());
+        return resp;
+    }
+
+    /**
+     * Rejects requests authenticated with the upload token or pre-signed URL of another upload
+     * or chunk.
+     *
+     * @param principal   Authenticated user principal
+     * @param uploadId    The upload the request targets
+     * @param chunkNumber The chunk the request sends, or {@code null} if it sends none
+     * @throws SecurityException if the request carries a token or URL not valid for the upload or chunk
+     */
+    private void checkUploadScope(Principal principal, String uploadId, Integer chunkNumber) {
+        if (!(principal instanceof Authentication authentication)) {
+            return;
+        }
+        if (authentication.getDetails() instanceof UploadToken token && !token.uploadId().equals(uploadId)) {
+            throw new SecurityException("Upload token not valid for upload " + uploadId);
+        }
+        if (authentication.getDetails() instanceof ChunkGrant grant
+                && (chunkNumber == null || !grant.covers(uploadId, chunkNumber))) {
+            throw new SecurityException("Chunk URL not valid for upload " + uploadId + " chunk " + chunkNumber);
+        }
     }
 
     /**
@@ -121,6 +179,9 @@ public class ChunkedUploadController {
             @RequestParam(value = "chunkNumber") int chunkNumber,
             @RequestPart(value = "file") MultipartFile file,
             Principal principal) throws Throwable {
+        // Starts once the multipart request was parsed: the upload of the part itself is not included
+        ChunkReceiveEvent receiveEvent = new ChunkReceiveEvent();
+        receiveEvent.begin();
         log.debug("uploadChunk called with uploadId={}, chunkNumber={}, fileName={}, fileSize={}, principal={}",
                 uploadId, chunkNumber, file != null ? file.getOriginalFilename() : "null",
                 file != null ? file.getSize() : -1,
@@ -136,13 +197,20 @@ public class ChunkedUploadController {
             log.warn("uploadChunk: chunkNumber is negative: {}", chunkNumber);
         }
 
+        checkUploadScope(principal, uploadId, chunkNumber);
         String username = getTenantAccountId(principal);
         log.debug("uploadChunk: resolved username={}", username);
 
         try {
             log.debug("uploadChunk: about to call uploadService.writeChunk with username={}, uploadId={}, chunkNumber={}, fileSize={}",
                     username, uploadId, chunkNumber, file != null ? file.getSize() : -1);
-            uploadService.writeChunk(username, uploadId, chunkNumber, file.getBytes());
+            // Stream the part straight into the part file instead of copying it onto the heap
+            boolean completed;
+            try (java.io.InputStream in = file.getInputStream()) {
+                completed = uploadService.writeChunk(username, uploadId, chunkNumber, in);
+            }
+            log.debug("Chunk upload successful for uploadId={}, chunkNumber={}", uploadId, chunkNumber);
+            return chunkAccepted(uploadId, completed);
         } catch (IOException ioe) {
             log.error("Chunk IO error: {}", ioe.getMessage(), ioe);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -160,8 +228,139 @@ public class ChunkedUploadController {
                     uploadId, chunkNumber, file != null ? file.getOriginalFilename() : "null",
                     file != null ? file.getSize() : -1, username);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Chunk upload system failed: " + throwable.getMessage());
+        } finally {
+            receiveEvent.commit(uploadId, username, chunkNumber, file != null ? file.getSize() : 0);
+        }
+    }
+
+    /**
+     * Uploads a single chunk sent as the raw request body.
+     *
+     * <p>
+     * Compared to {@link #uploadChunk(String, int, MultipartFile, Principal)}:
+     * <ul>
+     * <li>The body is the chunk itself, without multipart framing to build or parse</li>
+     * <li>The body is streamed into the part file without being spooled to a temporary file</li>
+     * <li>{@code Content-Length} is required and must equal the expected chunk length; a
+     * mismatch is rejected before the body is read</li>
+     * </ul>
+     *
+     * @param uploadId    Upload session ID
+     * @param chunkNumber Chunk index (0-based)
+     * @param request     The request whose body is the chunk data
+     * @param principal   Authenticated user principal
+     * @return ResponseEntity with status or error
+     */
+    @PutMapping(value = "/{uploadId}/chunks/{chunkNumber}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> putChunk(
+            @PathVariable("uploadId") String uploadId,
+            @PathVariable("chunkNumber") int chunkNumber,
+            HttpServletRequest request,
+            Principal principal) {
+        ChunkReceiveEvent receiveEvent = new ChunkReceiveEvent();
+        receiveEvent.begin();
+        checkUploadScope(principal, uploadId, chunkNumber);
+        long contentLength = request.getContentLengthLong();
+        String username = getTenantAccountId(principal);
+        log.debug("putChunk called with uploadId={}, chunkNumber={}, contentLength={}, username={}",
+                uploadId, chunkNumber, contentLength, username);
+        if (contentLength < 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).body("Content-Length is required");
+        }
+
+        try (java.io.InputStream in = request.getInputStream()) {
+            boolean completed = uploadService.writeChunk(username, uploadId, chunkNumber, in, contentLength);
+            log.debug("Chunk upload successful for uploadId={}, chunkNumber={}", uploadId, chunkNumber);
+            return chunkAccepted(uploadId, completed);
+        } catch (IOException ioe) {
+            log.error("Chunk IO error: {}", ioe.getMessage(), ioe);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Chunk IO error: " + ioe.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("Chunk validation failed: uploadId={}, chunkNumber={}, contentLength={}, username={}: {}",
+                    uploadId, chunkNumber, contentLength, username, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Chunk validation failed: " + e.getMessage());
+        } catch (Throwable throwable) {
+            log.error("Chunk upload system Fail: {}", throwable.getMessage(), throwable);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Chunk upload system failed: " + throwable.getMessage());
+        } finally {
+            receiveEvent.commit(uploadId, username, chunkNumber, contentLength);
+        }
+    }
+
+    /**
+     * Issues pre-signed URLs for a range of chunks of an existing upload.
+     *
+     * <p>
+     * Each URL is the {@code PUT} chunk endpoint of one chunk, with a query string carrying the
+     * tenant, the range, the expiry and their signature:
+     * <ul>
+     * <li>The URLs can be handed to a process without tenant credentials; it sends each chunk
+     * as the raw body of a {@code PUT} to its URL, without an {@code Authorization} header</li>
+     * <li>The server verifies the signature and range only, without account or upload lookups</li>
+     * <li>The URLs expire after {@code ttlSeconds}, capped to {@code chunkedupload.presign.max-ttl-ms}</li>
+     * </ul>
+     *
+     * @param uploadId   The upload session ID
+     * @param fromChunk  First chunk index (0-based), 0 by default
+     * @param toChunk    Last chunk index (inclusive), the last chunk of the upload by default
+     * @param ttlSeconds Validity of the URLs, the maximum validity by default
+     * @param principal  Authenticated user principal
+     * @return ResponseEntity with the range, the expiry time and one URL per chunk, 404 if the
+     * user has no such upload, or 400 for an invalid range
+     */
+    @PostMapping("/{uploadId}/presign")
+    public ResponseEntity<?> presignChunks(
+            @PathVariable("uploadId") String uploadId,
+            @RequestParam(value = "fromChunk", required = false) Integer fromChunk,
+            @RequestParam(value = "toChunk", required = false) Integer toChunk,
+            @RequestParam(value = "ttlSeconds", required = false) Long ttlSeconds,
+            Principal principal) throws Throwable {
+        checkUploadScope(principal, uploadId, null);
+        String username = getTenantAccountId(principal);
+        if (uploadService.findUploadInfoByTenantAndUploadId(username, uploadId) == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("uploadId", uploadId, "status", "NOT_FOUND"));
+        }
+        Header header = uploadService.readHeader(username, uploadId);
+        int first = fromChunk != null ? fromChunk : 0;
+        int last = toChunk != null ? toChunk : header.totalChunks - 1;
+        if (first < 0 || last < first || last >= header.totalChunks) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Invalid chunk range " + first + "-" + last + " for " + header.totalChunks + " chunks");
+        }
+        if (last - first + 1 > maxPresignedChunks) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("At most " + maxPresignedChunks + " chunks can be pre-signed per request");
+        }
+
+        ChunkGrant grant = chunkUrlSigner.newGrant(username, uploadId, first, last,
+                ttlSeconds != null ? ttlSeconds * 1000 : null);
+        String query = chunkUrlSigner.toQuery(grant);
+        String base = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/upload/{uploadId}/chunks/").buildAndExpand(uploadId).toUriString();
+        List<String> urls = new ArrayList<>(last - first + 1);
+        for (int chunk = first; chunk <= last; chunk++) {
+            urls.add(base + chunk + "?" + query);
+        }
+        log.debug("Pre-signed chunks {}-{} of uploadId={} for username={} until {}",
+                first, last, uploadId, username, grant.expiresAtMillis());
+        return ResponseEntity.ok(Map.of("uploadId", uploadId, "fromChunk", first, "toChunk", last,
+                "expiresAt", grant.expiresAtMillis(), "urls", urls));
+    }
+
+    /**
+     * Builds the response to a stored chunk.
+     *
+     * @param uploadId  Upload session ID
+     * @param completed Whether the chunk completed the upload
+     * @return 202 with upload status {@code FINALIZING} if the chunk completed an upload that is
+     * assembled in the background, 200 otherwise
+     */
+    private ResponseEntity<?> chunkAccepted(String uploadId, boolean completed) {
+        if (completed && uploadService.isAsyncFinalization()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(Map.of("status", "ok", "uploadId", uploadId, "uploadStatus", UploadInfo.STATUS_FINALIZING));
         }
-        log.debug("Chunk upload successful for uploadId={}, chunkNumber={}", uploadId, chunkNumber);
         return ResponseEntity.ok(Map.of("status", "ok", "uploadId", uploadId));
     }
 
@@ -179,16 +378,27 @@ public class ChunkedUploadController {
     /**
      * Gets the current status of an upload session.
      *
+     * <p>
+     * The status is one of:
+     * <ul>
+     * <li>{@code IN_PROGRESS}: chunks are still expected</li>
+     * <li>{@code FINALIZING}: every chunk was received and the file is being assembled</li>
+     * <li>{@code COMPLETED}: the file was assembled and its checksum verified</li>
+     * <li>{@code FAILED}: assembly or checksum verification failed</li>
+     * <li>{@code TIMED_OUT}: the session expired before every chunk was received</li>
+     * </ul>
+     *
      * @param uploadId The upload session ID
-     * @return ResponseEntity containing session status information
+     * @return ResponseEntity containing the upload ID and status, or 404 if the user has no such upload
      */
     @GetMapping("/{uploadId}/status")
-    public ResponseEntity<?> getStatus(@PathVariable("uploadId") String uploadId, Principal principal) throws Throwable {
-        UploadInfo uploadInfo = uploadService.findUploadInfoByTenantAndUploadId(uploadId, principal.getName());
-        if (uploadInfo != null) {
-            return ResponseEntity.ok("No file uploading in progress for the request: %s".formatted(uploadId));
+    public ResponseEntity<?> getStatus(@PathVariable("uploadId") String uploadId, Principal principal) {
+        checkUploadScope(principal, uploadId, null);
+        String status = uploadService.getUploadStatus(getTenantAccountId(principal), uploadId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("uploadId", uploadId, "status", "NOT_FOUND"));
         }
-        return ResponseEntity.ok("The uploading file is in progress for the request: %s".formatted(uploadId));
+        return ResponseEntity.ok(Map.of("uploadId", uploadId, "status", status));
     }
 
     /**
@@ -8,6 +8,7 @@ import vn.com.fecredit.chunkedupload.model.interfaces.ITenantAccount;
 // Force update to resolve serialization issue
 @Entity
 @Table(name = "tenants")
+@EntityListeners(TenantAccountListener.class)
 @Data
 public class TenantAccount implements ITenantAccount {
 
@@ -0,0 +1,41 @@
+package vn.com.fecredit.chunkedupload.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import vn.com.fecredit.chunkedupload.service.ChunkedUploadService;
+
+/**
+ * Keeps the tenant cache of {@link ChunkedUploadService} consistent with the tenant accounts.
+ *
+ * <p>
+ * Registered on {@link TenantAccount} and created by Hibernate through the Spring bean container:
+ * <ul>
+ * <li>A created or deleted account invalidates its username</li>
+ * <li>An updated account invalidates the whole cache, since the username itself may have changed</li>
+ * <li>The service is looked up on each event, so the listener can be created while the
+ * entity manager factory the service depends on is still being built</li>
+ * </ul>
+ */
+@Component
+public class TenantAccountListener {
+
+    private final ObjectProvider<ChunkedUploadService> chunkedUploadService;
+
+    public TenantAccountListener(ObjectProvider<ChunkedUploadService> chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    @PostPersist
+    @PostRemove
+    public void onCreatedOrDeleted(TenantAccount account) {
+        chunkedUploadService.ifAvailable(service -> service.invalidateTenant(account.getUsername()));
+    }
+
+    @PostUpdate
+    public void onUpdated(TenantAccount account) {
+        chunkedUploadService.ifAvailable(service -> service.getTenantCache().invalidateAll());
+    }
+}
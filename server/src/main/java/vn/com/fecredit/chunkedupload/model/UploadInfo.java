@@ -14,7 +14,11 @@ import java.time.LocalDateTime;
 public class UploadInfo implements IUploadInfo {
 
     public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    // Every chunk received, assembly pending on the finalization executor
+    public static final String STATUS_FINALIZING = "FINALIZING";
     public static final String STATUS_COMPLETED = "COMPLETED";
+    // Assembly or checksum verification failed; the part file is kept until the session timeout
+    public static final String STATUS_FAILED = "FAILED";
     public static final String STATUS_TIMED_OUT = "TIMED_OUT";
 
     @Id
@@ -53,12 +53,14 @@ public class UploadInfoHistory {
     // Status constants
     public static final String STATUS_COMPLETED = "COMPLETED";
     public static final String STATUS_TIMED_OUT = "TIMED_OUT";
+    // Assembly failed, or never completed after a restart
+    public static final String STATUS_FAILED = "FAILED";
 
     /**
      * Creates an UploadInfoHistory instance from an UploadInfo instance.
      * 
      * @param uploadInfo The UploadInfo to convert
-     * @param completionStatus The final status (COMPLETED or TIMED_OUT)
+     * @param completionStatus The final status (COMPLETED, TIMED_OUT or FAILED)
      * @return A new UploadInfoHistory instance
      */
     public static UploadInfoHistory fromUploadInfo(UploadInfo uploadInfo, String completionStatus) {
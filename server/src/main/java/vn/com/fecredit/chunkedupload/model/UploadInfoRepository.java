@@ -1,9 +1,13 @@
 package vn.com.fecredit.chunkedupload.model;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import vn.com.fecredit.chunkedupload.port.intefaces.IUploadInfoPort;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +34,29 @@ public interface UploadInfoRepository extends JpaRepository<UploadInfo, Long>, I
      */
     List<UploadInfo> findByStatus(String status);
 
+    /**
+     * Find upload info records by status, with their tenant loaded.
+     * Used to resume work on uploads outside of a request.
+     *
+     * @param status The status to filter by
+     * @return List of upload info records with the specified status
+     */
+    @Query("SELECT u FROM UploadInfo u JOIN FETCH u.tenant WHERE u.status = :status")
+    List<UploadInfo> findByStatusEagerly(String status);
+
+    /**
+     * Sets the last update time of several uploads in one statement, without loading them.
+     * Only the timestamp column is written, so the status of the uploads is left as is.
+     *
+     * @param uploadIds          The upload IDs to update
+     * @param lastUpdateDateTime The time to record
+     * @return The number of upload info records updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadInfo u SET u.lastUpdateDateTime = :lastUpdateDateTime WHERE u.uploadId IN :uploadIds")
+    int updateLastUpdateDateTimeByUploadIdIn(Collection<String> uploadIds, LocalDateTime lastUpdateDateTime);
+
     /**
      * Find upload info records by tenant and status.
      * 
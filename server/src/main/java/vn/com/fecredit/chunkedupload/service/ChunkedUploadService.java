@@ -2,7 +2,13 @@ package vn.com.fecredit.chunkedupload.service;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +16,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
 import vn.com.fecredit.chunkedupload.core.AbstractChunkedUpload;
+import vn.com.fecredit.chunkedupload.manager.CacheStats;
+import vn.com.fecredit.chunkedupload.manager.FinalizationExecutor;
+import vn.com.fecredit.chunkedupload.manager.PartFileChannelCache;
+import vn.com.fecredit.chunkedupload.manager.TenantResolutionCache;
+import vn.com.fecredit.chunkedupload.manager.UploadHeartbeatRegistry;
+import vn.com.fecredit.chunkedupload.manager.UploadInfoCache;
+import vn.com.fecredit.chunkedupload.manager.UploadSessionRegistry;
 import vn.com.fecredit.chunkedupload.model.Header;
 import vn.com.fecredit.chunkedupload.model.TenantAccount;
 import vn.com.fecredit.chunkedupload.model.TenantAccountRepository;
@@ -22,6 +35,8 @@ import vn.com.fecredit.chunkedupload.model.UploadInfoRepository;
 public class ChunkedUploadService extends AbstractChunkedUpload<TenantAccount, UploadInfo, UploadInfoRepository, TenantAccountRepository> {
     private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
     private static final int PART_FILE_HEADER_FIXED_SIZE = 20; // Magic(4) + totalChunks(4) + chunkSize(4) + fileSize(8)
+    // Upload IDs per UPDATE statement, below the IN-list limits of common databases
+    private static final int HEARTBEAT_BATCH_SIZE = 500;
 
     private final UploadInfoHistoryRepository uploadInfoHistoryRepository;
 
@@ -37,6 +52,264 @@ public class ChunkedUploadService extends AbstractChunkedUpload<TenantAccount, U
         this.uploadInfoHistoryRepository = uploadInfoHistoryRepository;
     }
 
+    /**
+     * Configures the cache of open part-file channels shared by all uploads.
+     *
+     * @param maxOpenChannels   Maximum number of part files kept open between chunks
+     * @param idleTimeoutMillis Idle time after which an unused part file is closed
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureChannelCache(
+            @Value("${chunkedupload.channel-cache.max-open:256}") int maxOpenChannels,
+            @Value("${chunkedupload.channel-cache.idle-timeout-ms:60000}") long idleTimeoutMillis) {
+        setChannelCache(new PartFileChannelCache(maxOpenChannels, idleTimeoutMillis));
+        log.info("Part file channel cache configured: maxOpen={}, idleTimeoutMs={}", maxOpenChannels, idleTimeoutMillis);
+    }
+
+    /**
+     * Configures the group-commit policy of the in-memory upload headers.
+     *
+     * @param flushEveryChunks    Number of received chunks after which the header is written to the part file
+     * @param flushIntervalMillis Maximum time a received chunk stays unrecorded in the part file
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureSessionRegistry(
+            @Value("${chunkedupload.header-flush.every-chunks:64}") int flushEveryChunks,
+            @Value("${chunkedupload.header-flush.interval-ms:1000}") long flushIntervalMillis) {
+        setSessionRegistry(new UploadSessionRegistry(flushEveryChunks, flushIntervalMillis));
+        log.info("Header group commit configured: everyChunks={}, intervalMs={}", flushEveryChunks, flushIntervalMillis);
+    }
+
+    /**
+     * Configures checksum verification: computed while chunks arrive, or by re-reading the assembled file.
+     *
+     * @param incremental {@code true} to keep a running checksum per upload
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureChecksum(@Value("${chunkedupload.checksum.incremental:true}") boolean incremental) {
+        setIncrementalChecksum(incremental);
+        log.info("Checksum verification configured: incremental={}", incremental);
+    }
+
+    /**
+     * Configures the cache of tenant accounts resolved by username, used by chunk writes and authentication.
+     * Accounts are invalidated when they are saved or deleted through JPA.
+     *
+     * @param maxEntries Maximum number of cached usernames
+     * @param ttlMillis  Time after which a cached account is read again, bounding staleness for changes made outside the application
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureTenantCache(
+            @Value("${chunkedupload.tenant-cache.max-entries:10000}") int maxEntries,
+            @Value("${chunkedupload.tenant-cache.ttl-ms:300000}") long ttlMillis) {
+        setTenantCache(new TenantResolutionCache<>(maxEntries, ttlMillis));
+        log.info("Tenant cache configured: maxEntries={}, ttlMs={}", maxEntries, ttlMillis);
+    }
+
+    /**
+     * Configures the cache of upload info of active uploads, which serves chunk writes,
+     * status queries and assembly without reading the upload info back.
+     *
+     * @param maxEntries        Maximum number of cached uploads
+     * @param idleTimeoutMillis Idle time after which the upload info of an upload is dropped and read again on next use
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureUploadInfoCache(
+            @Value("${chunkedupload.upload-info-cache.max-entries:10000}") int maxEntries,
+            @Value("${chunkedupload.upload-info-cache.idle-timeout-ms:600000}") long idleTimeoutMillis) {
+        setUploadInfoCache(new UploadInfoCache<>(maxEntries, idleTimeoutMillis));
+        log.info("Upload info cache configured: maxEntries={}, idleTimeoutMs={}", maxEntries, idleTimeoutMillis);
+    }
+
+    /**
+     * Configures how chunk activity is persisted: in batches every {@code flushIntervalMillis}
+     * instead of loading and saving the upload info on every chunk.
+     *
+     * @param batched             {@code false} to update the upload info on every chunk
+     * @param flushIntervalMillis Interval between two batched updates
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureHeartbeat(
+            @Value("${chunkedupload.heartbeat.batched:true}") boolean batched,
+            @Value("${chunkedupload.heartbeat.flush-interval-ms:5000}") long flushIntervalMillis) {
+        setHeartbeatRegistry(batched ? new UploadHeartbeatRegistry(flushIntervalMillis) : null);
+        log.info("Upload heartbeat configured: batched={}, flushIntervalMs={}", batched, flushIntervalMillis);
+    }
+
+    /**
+     * Configures where complete uploads are assembled.
+     *
+     * <p>
+     * With asynchronous finalization:
+     * <ul>
+     * <li>The request carrying the last chunk returns once the upload is recorded as
+     * {@link UploadInfo#STATUS_FINALIZING} and handed to the finalization executor</li>
+     * <li>The outcome is reported by {@link #getUploadStatus(String, String)}:
+     * {@link UploadInfo#STATUS_COMPLETED} or {@link UploadInfo#STATUS_FAILED}</li>
+     * <li>Uploads still finalizing when the application stops are resumed on the next start</li>
+     * </ul>
+     *
+     * @param async                {@code false} to assemble on the request thread of the last chunk
+     * @param maxConcurrentPerDisk Maximum number of assemblies running at the same time on one disk
+     * @param queueCapacityPerDisk Maximum number of assemblies waiting on one disk; beyond it the request thread assembles
+     * @param virtualThreads       {@code true} to assemble on virtual threads, as requests are handled
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureFinalization(
+            @Value("${chunkedupload.finalization.async:true}") boolean async,
+            @Value("${chunkedupload.finalization.max-concurrent-per-disk:2}") int maxConcurrentPerDisk,
+            @Value("${chunkedupload.finalization.queue-capacity-per-disk:1024}") int queueCapacityPerDisk,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        setFinalizationExecutor(async ? new FinalizationExecutor(maxConcurrentPerDisk, queueCapacityPerDisk, virtualThreads) : null);
+        log.info("Finalization configured: async={}, maxConcurrentPerDisk={}, queueCapacityPerDisk={}, virtualThreads={}",
+                async, maxConcurrentPerDisk, queueCapacityPerDisk, virtualThreads);
+    }
+
+    /**
+     * Runs the completion of asynchronous chunk writes and the blocking steps of the asynchronous
+     * API on one new virtual thread per task when virtual threads are enabled, instead of the
+     * common fork-join pool, whose few threads a blocking step would hold.
+     *
+     * @param virtualThreads {@code true} when requests are handled on virtual threads
+     */
+    @org.springframework.beans.factory.annotation.Autowired
+    public void configureAsyncExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            setAsyncExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            log.info("Asynchronous chunk writes run on virtual threads");
+        }
+    }
+
+    /**
+     * Publishes the chunk write, lock wait, checksum and assembly timings, the active uploads
+     * and the cache statistics to the meter registry scraped at {@code /actuator/prometheus}.
+     *
+     * @param meterRegistry The registry of the application, absent when metrics are disabled
+     */
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void configureMetrics(MeterRegistry meterRegistry) {
+        MicrometerUploadMetrics metrics = new MicrometerUploadMetrics(meterRegistry);
+        metrics.bind(this);
+        setMetrics(metrics);
+        log.info("Upload metrics published to {}", meterRegistry.getClass().getSimpleName());
+    }
+
+    /** @return {@code true} if complete uploads are assembled in the background */
+    public boolean isAsyncFinalization() {
+        return getFinalizationExecutor() != null;
+    }
+
+    /**
+     * Resumes the finalization of uploads that were still finalizing when the application stopped.
+     */
+    @org.springframework.context.event.EventListener(org.springframework.boot.context.event.ApplicationReadyEvent.class)
+    public void resumeFinalizations() {
+        for (UploadInfo info : getIUploadInfoPort().findByStatusEagerly(UploadInfo.STATUS_FINALIZING)) {
+            String uploadId = info.getUploadId();
+            try {
+                if (resumeFinalization(info.getTenant().getUsername(), uploadId)) {
+                    log.info("Resumed finalization of uploadId={}", uploadId);
+                } else {
+                    // The missing chunks have to be sent again
+                    updateStatus(uploadId, UploadInfo.STATUS_IN_PROGRESS);
+                }
+            } catch (Throwable e) {
+                log.error("Failed to resume finalization of uploadId={}: {}", uploadId, e.getMessage(), e);
+                updateStatus(uploadId, UploadInfo.STATUS_FAILED);
+            }
+        }
+    }
+
+    /**
+     * Returns the state of an upload of a tenant.
+     *
+     * @param username The tenant username
+     * @param uploadId The upload ID
+     * @return {@link UploadInfo#STATUS_IN_PROGRESS}, {@link UploadInfo#STATUS_FINALIZING} or
+     * {@link UploadInfo#STATUS_FAILED} while the upload is active, then the status of its history
+     * record; {@code null} if the tenant has no such upload
+     */
+    public String getUploadStatus(String username, String uploadId) {
+        UploadInfo info = findUploadInfoByTenantAndUploadId(username, uploadId);
+        if (info != null) {
+            return isFinalizing(uploadId) ? UploadInfo.STATUS_FINALIZING : info.getStatus();
+        }
+        return resolveTenant(username)
+                .flatMap(tenant -> uploadInfoHistoryRepository.findByUploadId(uploadId)
+                        .filter(history -> history.getTenant() != null && tenant.id().equals(history.getTenant().getId())))
+                .map(UploadInfoHistory::getStatus)
+                .orElse(null);
+    }
+
+    /**
+     * Writes the headers of uploads that received chunks but no further chunk
+     * since the flush interval elapsed.
+     */
+    @org.springframework.scheduling.annotation.Scheduled(fixedDelayString = "${chunkedupload.header-flush.interval-ms:1000}")
+    public void flushHeaders() {
+        int flushed = flushDueSessions();
+        if (flushed > 0) {
+            log.debug("Flushed {} upload headers", flushed);
+        }
+    }
+
+    /**
+     * Persists the last update time of the uploads that received chunks since the previous run.
+     */
+    @org.springframework.scheduling.annotation.Scheduled(fixedDelayString = "${chunkedupload.heartbeat.flush-interval-ms:5000}")
+    public void persistHeartbeats() {
+        int persisted = flushHeartbeats();
+        if (persisted > 0) {
+            log.debug("Persisted activity of {} uploads", persisted);
+        }
+    }
+
+    /**
+     * Closes part-file channels that have not been used within the idle timeout,
+     * even when no further chunk arrives to trigger the eviction.
+     */
+    @org.springframework.scheduling.annotation.Scheduled(fixedDelayString = "${chunkedupload.channel-cache.idle-timeout-ms:60000}")
+    public void evictIdleChannels() {
+        int evicted = getChannelCache().evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle part file channels", evicted);
+        }
+    }
+
+    /**
+     * Drops expired tenant accounts and reports the tenant cache hit rate.
+     */
+    @org.springframework.scheduling.annotation.Scheduled(fixedDelayString = "${chunkedupload.tenant-cache.ttl-ms:300000}")
+    public void evictExpiredTenants() {
+        getTenantCache().evictExpired();
+        CacheStats stats = getTenantCache().getStats();
+        log.info("Tenant cache: size={}, hits={}, misses={}, evictions={}, hitRate={}",
+                stats.size(), stats.hitCount(), stats.missCount(), stats.evictionCount(), String.format("%.3f", stats.hitRate()));
+    }
+
+    /**
+     * Drops the upload info of uploads that received no chunk within the idle timeout.
+     */
+    @org.springframework.scheduling.annotation.Scheduled(fixedDelayString = "${chunkedupload.upload-info-cache.idle-timeout-ms:600000}")
+    public void evictIdleUploadInfo() {
+        int evicted = getUploadInfoCache().evictIdle();
+        CacheStats stats = getUploadInfoCache().getStats();
+        log.info("Upload info cache: size={}, hits={}, misses={}, evictions={}, hitRate={}, evictedNow={}",
+                stats.size(), stats.hitCount(), stats.missCount(), stats.evictionCount(), String.format("%.3f", stats.hitRate()), evicted);
+    }
+
+    @jakarta.annotation.PreDestroy
+    public void closeChannels() {
+        // Let pending assemblies finish before their channels are closed
+        setFinalizationExecutor(null);
+        flushHeartbeats();
+        flushAllSessions();
+        getChannelCache().close();
+        if (getAsyncExecutor() != ForkJoinPool.commonPool()) {
+            getAsyncExecutor().shutdown();
+        }
+    }
+
     @Override
     protected UploadInfo createUploadInfo(String username, String uploadId, Header header, String fileName, String checksum) throws Throwable {
         UploadInfo info = new UploadInfo();
@@ -47,8 +320,8 @@ public class ChunkedUploadService extends AbstractChunkedUpload<TenantAccount, U
         info.setStatus(UploadInfo.STATUS_IN_PROGRESS);
         info.setFilename(fileName);
         info.setTenant(
-            (TenantAccount) getITenantAccountPort()
-                .findByUsername(username)
+            resolveTenant(username)
+                .map(TenantResolutionCache.Tenant::account)
                 .orElseThrow(() -> new IllegalStateException("Tenant not found for username: " + username))
         );
         log.info("Persisting UploadInfo of class: " + info.getClass().getName());
@@ -64,9 +337,50 @@ public class ChunkedUploadService extends AbstractChunkedUpload<TenantAccount, U
     @Override
     protected void updateLastUpdateDateTime(UploadInfo uploadInfo) {
         uploadInfo.setLastUpdateDateTime(LocalDateTime.now());
+        if (isFinalizing(uploadInfo.getUploadId())) {
+            // Loaded by a chunk write that raced with the last chunk: do not revert the persisted state
+            uploadInfo.setStatus(UploadInfo.STATUS_FINALIZING);
+        }
         log.debug("Updated lastUpdateDateTime for uploadId={}", uploadInfo.getUploadId());
     }
 
+    @Override
+    protected void saveLastUpdateDateTimes(Set<String> uploadIds, LocalDateTime lastUpdateDateTime) {
+        List<String> ids = new ArrayList<>(uploadIds);
+        for (int from = 0; from < ids.size(); from += HEARTBEAT_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + HEARTBEAT_BATCH_SIZE, ids.size()));
+            getIUploadInfoPort().updateLastUpdateDateTimeByUploadIdIn(batch, lastUpdateDateTime);
+        }
+        // Keep cached upload info in line with the bulk update, which bypasses the entities
+        for (String uploadId : ids) {
+            getUploadInfoCache().getIfPresent(uploadId).ifPresent(info -> info.setLastUpdateDateTime(lastUpdateDateTime));
+        }
+    }
+
+    @Override
+    protected void onFinalizationScheduled(String uploadId) {
+        updateStatus(uploadId, UploadInfo.STATUS_FINALIZING);
+    }
+
+    @Override
+    protected void onFinalizationFailed(String uploadId, Throwable cause) {
+        updateStatus(uploadId, UploadInfo.STATUS_FAILED);
+    }
+
+    private void updateStatus(String uploadId, String status) {
+        try {
+            // Through the cache, so that the cached upload info carries the new status
+            java.util.Optional.ofNullable(getUploadInfo(uploadId)).ifPresent(info -> {
+                info.setStatus(status);
+                info.setLastUpdateDateTime(LocalDateTime.now());
+                saveUploadInfo(info);
+                log.info("Upload status changed: uploadId={}, status={}", uploadId, status);
+            });
+        } catch (Exception e) {
+            log.warn("Failed to record status {} for uploadId={}: {}", status, uploadId, e.getMessage());
+        }
+    }
+
     @Override
     protected void moveToHistory(UploadInfo uploadInfo) {
         try {
@@ -83,10 +397,12 @@ public class ChunkedUploadService extends AbstractChunkedUpload<TenantAccount, U
 
     // Idempotent abort/delete for upload session
     public void deleteUploadFile(String username, String uploadId) {
+        releaseUploadResources(uploadId);
         try {
             UploadInfo info = findUploadInfoByTenantAndUploadId(username, uploadId);
             if (info != null) {
                 getIUploadInfoPort().delete(info);
+                removeUploadInfo(uploadId);
                 log.info("Deleted upload info for uploadId={} user={}", uploadId, username);
             } else {
                 log.info("No upload info found for uploadId={} user={}, abort is idempotent", uploadId, username);
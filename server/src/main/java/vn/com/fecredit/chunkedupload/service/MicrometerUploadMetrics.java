@@ -0,0 +1,153 @@
+package vn.com.fecredit.chunkedupload.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import vn.com.fecredit.chunkedupload.manager.CacheStats;
+import vn.com.fecredit.chunkedupload.manager.UploadMetrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the measurements of the upload pipeline to a Micrometer registry, scraped at
+ * {@code /actuator/prometheus}.
+ *
+ * <p>
+ * Meters:
+ * <ul>
+ * <li>{@code chunkedupload.chunk.write} timer per {@code phase}: {@code disk} (chunk data),
+ * {@code header} (bitset and header flush) and {@code db} (activity of the upload)</li>
+ * <li>{@code chunkedupload.ingested.bytes} counter per {@code tenant}</li>
+ * <li>{@code chunkedupload.lock.wait} timer per {@code lock}: {@code part-file} and {@code assembly}</li>
+ * <li>{@code chunkedupload.checksum} timer and {@code chunkedupload.checksum.bytes} counter;
+ * throughput is the rate of the bytes over the rate of the timer sum</li>
+ * <li>{@code chunkedupload.assembly} timer per {@code outcome}</li>
+ * <li>{@code chunkedupload.timeout.cleanup} counter per {@code outcome}</li>
+ * <li>{@code chunkedupload.uploads.active} and {@code chunkedupload.uploads.finalizing} gauges</li>
+ * <li>{@code chunkedupload.cache.*} hits, misses, evictions and size per {@code cache}</li>
+ * </ul>
+ *
+ * <p>
+ * Every meter of the chunk path is created up front, except one counter per tenant created on
+ * its first chunk, so recording a chunk is a few lock-free updates and no registry lookup.
+ */
+public class MicrometerUploadMetrics implements UploadMetrics {
+    private final MeterRegistry registry;
+    private final Timer diskWrite;
+    private final Timer headerUpdate;
+    private final Timer activityUpdate;
+    private final Timer partFileLockWait;
+    private final Timer assemblyLockWait;
+    private final Timer checksum;
+    private final Counter checksumBytes;
+    private final Timer assemblySucceeded;
+    private final Timer assemblyFailed;
+    private final Counter timeoutsCleaned;
+    private final Counter timeoutsFailed;
+    private final ConcurrentHashMap<String, Counter> ingestedBytes = new ConcurrentHashMap<>();
+
+    public MicrometerUploadMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        diskWrite = histogram("chunkedupload.chunk.write", "Chunk write time by phase", "phase", "disk");
+        headerUpdate = histogram("chunkedupload.chunk.write", "Chunk write time by phase", "phase", "header");
+        activityUpdate = histogram("chunkedupload.chunk.write", "Chunk write time by phase", "phase", "db");
+        partFileLockWait = histogram("chunkedupload.lock.wait", "Time waited for a lock", "lock", LOCK_PART_FILE);
+        assemblyLockWait = histogram("chunkedupload.lock.wait", "Time waited for a lock", "lock", LOCK_ASSEMBLY);
+        checksum = histogram("chunkedupload.checksum", "Time spent hashing payload bytes");
+        checksumBytes = Counter.builder("chunkedupload.checksum.bytes")
+                .description("Payload bytes hashed")
+                .baseUnit("bytes")
+                .register(registry);
+        assemblySucceeded = histogram("chunkedupload.assembly", "Assembly time of complete uploads", "outcome", "success");
+        assemblyFailed = histogram("chunkedupload.assembly", "Assembly time of complete uploads", "outcome", "failure");
+        timeoutsCleaned = timeoutCounter("cleaned");
+        timeoutsFailed = timeoutCounter("failed");
+    }
+
+    /**
+     * Registers the gauges reading the state of an upload service.
+     *
+     * @param service The service whose uploads and caches are observed
+     */
+    public void bind(ChunkedUploadService service) {
+        Gauge.builder("chunkedupload.uploads.active", service, s -> s.getSessionRegistry().size())
+                .description("Uploads receiving chunks, with an in-memory session")
+                .register(registry);
+        Gauge.builder("chunkedupload.uploads.finalizing", service, ChunkedUploadService::getFinalizingCount)
+                .description("Complete uploads waiting for or undergoing assembly")
+                .register(registry);
+        bindCache("tenant", () -> service.getTenantCache().getStats());
+        bindCache("upload-info", () -> service.getUploadInfoCache().getStats());
+        bindCache("channel", () -> new CacheStats(service.getChannelCache().getHitCount(),
+                service.getChannelCache().getMissCount(), service.getChannelCache().getEvictionCount(),
+                service.getChannelCache().size()));
+    }
+
+    private void bindCache(String cache, Supplier<CacheStats> stats) {
+        FunctionCounter.builder("chunkedupload.cache.hits", stats, s -> s.get().hitCount())
+                .tag("cache", cache).register(registry);
+        FunctionCounter.builder("chunkedupload.cache.misses", stats, s -> s.get().missCount())
+                .tag("cache", cache).register(registry);
+        FunctionCounter.builder("chunkedupload.cache.evictions", stats, s -> s.get().evictionCount())
+                .tag("cache", cache).register(registry);
+        Gauge.builder("chunkedupload.cache.size", stats, s -> s.get().size())
+                .tag("cache", cache).register(registry);
+    }
+
+    @Override
+    public void chunkWritten(String username, long bytes, long diskWriteNanos, long headerUpdateNanos) {
+        diskWrite.record(diskWriteNanos, TimeUnit.NANOSECONDS);
+        headerUpdate.record(headerUpdateNanos, TimeUnit.NANOSECONDS);
+        ingestedBytes.computeIfAbsent(username, tenant -> Counter.builder("chunkedupload.ingested.bytes")
+                .description("Chunk bytes written")
+                .baseUnit("bytes")
+                .tag("tenant", tenant)
+                .register(registry)).increment(bytes);
+    }
+
+    @Override
+    public void activityRecorded(long nanos) {
+        activityUpdate.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void lockWaited(String lock, long nanos) {
+        (LOCK_ASSEMBLY.equals(lock) ? assemblyLockWait : partFileLockWait).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void checksumComputed(long bytes, long nanos) {
+        checksum.record(nanos, TimeUnit.NANOSECONDS);
+        checksumBytes.increment(bytes);
+    }
+
+    @Override
+    public void assembled(long fileSize, long nanos, boolean success) {
+        (success ? assemblySucceeded : assemblyFailed).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void timeoutCleanup(int cleaned, int failed) {
+        timeoutsCleaned.increment(cleaned);
+        timeoutsFailed.increment(failed);
+    }
+
+    private Timer histogram(String name, String description, String... tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter timeoutCounter(String outcome) {
+        return Counter.builder("chunkedupload.timeout.cleanup")
+                .description("Timed-out uploads processed by the cleanup")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -2,10 +2,12 @@ package vn.com.fecredit.chunkedupload.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
 import vn.com.fecredit.chunkedupload.model.UploadInfo;
 import vn.com.fecredit.chunkedupload.model.UploadInfoHistory;
 import vn.com.fecredit.chunkedupload.model.UploadInfoHistoryRepository;
@@ -16,11 +18,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Service responsible for managing upload session timeouts and cleanup.
  * Runs in the background every 5 minutes to check for timed-out uploads.
+ *
+ * <p>
+ * Uploads not updated within the timeout are moved to history and their files deleted:
+ * <ul>
+ * <li>{@code IN_PROGRESS} uploads as {@code TIMED_OUT}</li>
+ * <li>{@code FAILED} uploads, whose part file was kept for inspection, as {@code FAILED}</li>
+ * <li>{@code FINALIZING} uploads that are not being assembled by this instance, e.g. whose
+ * finalization was not resumed after a restart, as {@code FAILED}</li>
+ * </ul>
  */
 @Service
 public class UploadSessionTimeoutService {
@@ -31,6 +43,7 @@ public class UploadSessionTimeoutService {
     private final UploadInfoHistoryRepository uploadInfoHistoryRepository;
     private final int timeoutMinutes;
     private final Path inProgressDir;
+    private ChunkedUploadService chunkedUploadService;
 
     public UploadSessionTimeoutService(
             UploadInfoRepository uploadInfoRepository,
@@ -45,6 +58,17 @@ public class UploadSessionTimeoutService {
         log.info("Upload session timeout service initialized with timeout: {} minutes", timeoutMinutes);
     }
 
+    /**
+     * Sets the upload service whose in-memory resources (open part-file channels)
+     * are released when a session times out. Optional so the service can run standalone.
+     *
+     * @param chunkedUploadService The upload service
+     */
+    @Autowired(required = false)
+    public void setChunkedUploadService(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
     /**
      * Cleanup task that runs every 5 minutes to check for timed-out upload sessions.
      * Checks for part files and UploadInfo records that haven't been updated within the timeout period.
@@ -54,22 +78,32 @@ public class UploadSessionTimeoutService {
         log.debug("Starting cleanup of timed-out upload sessions");
         
         try {
+            if (chunkedUploadService != null) {
+                // Chunk activity is persisted in batches: record the latest before judging uploads idle
+                chunkedUploadService.flushHeartbeats();
+            }
             LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(timeoutMinutes);
             
             // Find all upload sessions that haven't been updated within the timeout period
             List<UploadInfo> timedOutUploads = uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(
                 cutoffTime, UploadInfo.STATUS_IN_PROGRESS);
+            // Failed uploads are never retried, and neither are finalizations that were not resumed
+            List<UploadInfo> failedUploads = new ArrayList<>(uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(
+                cutoffTime, UploadInfo.STATUS_FAILED));
+            for (UploadInfo uploadInfo : uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(
+                    cutoffTime, UploadInfo.STATUS_FINALIZING)) {
+                if (chunkedUploadService == null || !chunkedUploadService.isFinalizing(uploadInfo.getUploadId())) {
+                    failedUploads.add(uploadInfo);
+                }
+            }
             
-            log.info("Found {} timed-out upload sessions (older than {} minutes)", 
-                    timedOutUploads.size(), timeoutMinutes);
+            log.info("Found {} timed-out upload sessions and {} failed uploads (older than {} minutes)", 
+                    timedOutUploads.size(), failedUploads.size(), timeoutMinutes);
             
-            for (UploadInfo uploadInfo : timedOutUploads) {
-                try {
-                    cleanupTimedOutUpload(uploadInfo);
-                } catch (Exception e) {
-                    log.error("Failed to cleanup timed-out upload: uploadId={}, error={}", 
-                            uploadInfo.getUploadId(), e.getMessage(), e);
-                }
+            int failed = cleanupUploads(timedOutUploads, UploadInfoHistory.STATUS_TIMED_OUT)
+                    + cleanupUploads(failedUploads, UploadInfoHistory.STATUS_FAILED);
+            if (chunkedUploadService != null) {
+                chunkedUploadService.getMetrics().timeoutCleanup(timedOutUploads.size() + failedUploads.size() - failed, failed);
             }
             
             log.debug("Completed cleanup of timed-out upload sessions");
@@ -79,26 +113,51 @@ public class UploadSessionTimeoutService {
         }
     }
 
+    /**
+     * Cleans up uploads, continuing after failures.
+     *
+     * @param uploads       The uploads to clean up
+     * @param historyStatus The status of their history records
+     * @return The number of uploads that could not be cleaned up
+     */
+    private int cleanupUploads(List<UploadInfo> uploads, String historyStatus) {
+        int failed = 0;
+        for (UploadInfo uploadInfo : uploads) {
+            try {
+                cleanupUpload(uploadInfo, historyStatus);
+            } catch (Exception e) {
+                failed++;
+                log.error("Failed to cleanup timed-out upload: uploadId={}, error={}", 
+                        uploadInfo.getUploadId(), e.getMessage(), e);
+            }
+        }
+        return failed;
+    }
+
     /**
      * Cleanup a single timed-out upload session.
      * 
-     * @param uploadInfo The timed-out upload session to cleanup
+     * @param uploadInfo    The timed-out upload session to cleanup
+     * @param historyStatus The status of its history record
      */
-    private void cleanupTimedOutUpload(UploadInfo uploadInfo) {
+    private void cleanupUpload(UploadInfo uploadInfo, String historyStatus) {
         String uploadId = uploadInfo.getUploadId();
         
         try {
-            // Move to history with TIMED_OUT status
-            UploadInfoHistory history = UploadInfoHistory.fromUploadInfo(uploadInfo, UploadInfoHistory.STATUS_TIMED_OUT);
+            // Move to history with the final status
+            UploadInfoHistory history = UploadInfoHistory.fromUploadInfo(uploadInfo, historyStatus);
             uploadInfoHistoryRepository.save(history);
             
             // Delete the original upload info
             uploadInfoRepository.delete(uploadInfo);
             
-            // Delete the part file if it exists
+            // Close the cached part file channel, then delete the part file if it exists
+            if (chunkedUploadService != null) {
+                chunkedUploadService.releaseUploadResources(uploadId);
+            }
             deletePartFile(uploadInfo);
             
-            log.info("Successfully cleaned up timed-out upload: uploadId={}", uploadId);
+            log.info("Successfully cleaned up timed-out upload: uploadId={}, status={}", uploadId, historyStatus);
             
         } catch (Exception e) {
             log.error("Failed to cleanup timed-out upload: uploadId={}, error={}", uploadId, e.getMessage(), e);
@@ -125,6 +184,12 @@ public class UploadSessionTimeoutService {
                 log.debug("Part file not found (already deleted): {}", partFilePath);
             }
             
+            // Uploads in the split layout keep their header in a sidecar file
+            Path headerFilePath = PartFileLayout.headerPathOf(partFilePath);
+            if (Files.deleteIfExists(headerFilePath)) {
+                log.debug("Deleted header file: {}", headerFilePath);
+            }
+
             // Also try to delete any lock files
             Path lockFilePath = partFilePath.resolveSibling(partFilePath.getFileName() + ".lock");
             if (Files.exists(lockFilePath)) {
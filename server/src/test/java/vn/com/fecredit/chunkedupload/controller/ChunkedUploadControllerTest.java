@@ -155,8 +155,10 @@ public class ChunkedUploadControllerTest {
                         .with(httpBasic("user", "password"))
                         .param("uploadId", uploadId)
                         .param("chunkNumber", "1"))
-                .andExpect(status().isOk())
-                .andExpect(jsonPath("$.status").value("ok"));
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("ok"))
+                .andExpect(jsonPath("$.uploadStatus").value("FINALIZING"));
+        org.junit.jupiter.api.Assertions.assertEquals("COMPLETED", awaitFinalization(uploadId));
 
         // Clean up files after test
         Files.deleteIfExists(Paths.get("uploads/in-progress/" + uploadId + ".part"));
@@ -170,6 +172,151 @@ public class ChunkedUploadControllerTest {
         }
     }
 
+    @Test
+    public void testOctetStreamChunkUpload() throws Exception {
+        // Same flow as testInitAndUploadFlow, with raw chunk bodies instead of multipart parts
+        int fileSize = 524288+20;
+        String initJson = "{\"totalChunks\":2, \"chunkSize\":524288, \"fileSize\":" + fileSize + ", \"filename\":\"testfile.txt\", \"checksum\":\"ced0ea64c49a29b3e4e840df03bec51b967441578a5054175dbbba13cb5168cf\"}";
+        String res = mockMvc.perform(post("/api/upload/init")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(initJson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String uploadId = new com.fasterxml.jackson.databind.ObjectMapper().readTree(res).get("uploadId").asText();
+
+        // Content-Length that does not match the chunk is rejected
+        mockMvc.perform(put("/api/upload/" + uploadId + "/chunks/0")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[1000]))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(put("/api/upload/" + uploadId + "/chunks/0")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[524288]))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/upload/" + uploadId + "/chunks/1")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[20]))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("ok"));
+
+        // The file is assembled in the background
+        org.junit.jupiter.api.Assertions.assertEquals("COMPLETED", awaitFinalization(uploadId));
+
+        try (Stream<Path> stream = Files.list(Paths.get("uploads/complete"))) {
+            stream.filter(path -> path.getFileName().toString().startsWith(uploadId + "_")).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (Exception ignored) {
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testChunkUploadWithUploadToken() throws Exception {
+        String initJson = "{\"fileSize\":1024, \"filename\":\"token.txt\", \"checksum\":\"checksum\"}";
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        com.fasterxml.jackson.databind.JsonNode first = mapper.readTree(mockMvc.perform(post("/api/upload/init")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(initJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uploadToken").exists())
+                .andReturn().getResponse().getContentAsString());
+        com.fasterxml.jackson.databind.JsonNode second = mapper.readTree(mockMvc.perform(post("/api/upload/init")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(initJson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        String uploadId = first.get("uploadId").asText();
+        String token = first.get("uploadToken").asText();
+
+        // The token of another upload is rejected
+        mockMvc.perform(put("/api/upload/" + uploadId + "/chunks/0")
+                        .header("Authorization", "Bearer " + second.get("uploadToken").asText())
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[1024]))
+                .andExpect(status().isUnauthorized());
+        // A tampered token is rejected
+        mockMvc.perform(put("/api/upload/" + uploadId + "/chunks/0")
+                        .header("Authorization", "Bearer x" + token)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[1024]))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(put("/api/upload/" + uploadId + "/chunks/0")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[1024]))
+                .andExpect(status().is2xxSuccessful());
+        mockMvc.perform(get("/api/upload/" + uploadId + "/status")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testChunkUploadWithPresignedUrl() throws Exception {
+        String initJson = "{\"fileSize\":" + (524288 + 20) + ", \"filename\":\"presigned.txt\", \"checksum\":\"checksum\"}";
+        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
+        String uploadId = mapper.readTree(mockMvc.perform(post("/api/upload/init")
+                        .with(httpBasic("user", "password"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(initJson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("uploadId").asText();
+
+        mockMvc.perform(post("/api/upload/" + uploadId + "/presign").param("toChunk", "2")
+                        .with(httpBasic("user", "password")))
+                .andExpect(status().isBadRequest());
+        com.fasterxml.jackson.databind.JsonNode presigned = mapper.readTree(mockMvc.perform(
+                        post("/api/upload/" + uploadId + "/presign").param("toChunk", "0")
+                                .with(httpBasic("user", "password")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.urls.length()").value(1))
+                .andReturn().getResponse().getContentAsString());
+        String url = presigned.get("urls").get(0).asText();
+
+        // Chunks outside the signed range and tampered signatures are rejected
+        mockMvc.perform(put(java.net.URI.create(url.replace("/chunks/0?", "/chunks/1?")))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[20]))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(put(java.net.URI.create(url.replace("&to=0&", "&to=1&")))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[524288]))
+                .andExpect(status().isUnauthorized());
+
+        // No credentials are needed for a chunk in the signed range
+        mockMvc.perform(put(java.net.URI.create(url))
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[524288]))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Polls the status of an upload until its background finalization is over.
+     *
+     * @return The final status of the upload
+     */
+    private String awaitFinalization(String uploadId) throws Exception {
+        String status = "FINALIZING";
+        for (int attempt = 0; attempt < 100 && "FINALIZING".equals(status); attempt++) {
+            Thread.sleep(50);
+            String res = mockMvc.perform(get("/api/upload/" + uploadId + "/status")
+                            .with(httpBasic("user", "password")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            status = new com.fasterxml.jackson.databind.ObjectMapper().readTree(res).get("status").asText();
+        }
+        return status;
+    }
+
     /**
      * Tests the upload of a large file to ensure the system can handle it.
      * This test simulates the upload of a 100MB file, split into 100 chunks of 1MB each.
@@ -349,7 +496,8 @@ public class ChunkedUploadControllerTest {
         String uploadId = jsonNode.get("uploadId").asText();
         mockMvc.perform(get("/api/upload/" + uploadId + "/status")
                         .with(httpBasic("user", "password")))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("IN_PROGRESS"));
         Files.deleteIfExists(Paths.get("uploads/in-progress/" + uploadId + ".part"));
     }
 
@@ -357,7 +505,7 @@ public class ChunkedUploadControllerTest {
     public void testStatusInvalidUploadId() throws Exception {
         mockMvc.perform(get("/api/upload/invalid-id/status")
                         .with(httpBasic("user", "password")))
-                .andExpect(status().isOk());
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.core.io.ByteArrayResource;
@@ -27,9 +28,13 @@ import java.util.Random;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false) // Register the Prometheus registry, disabled in tests by default
 @TestPropertySource(properties = {
     "logging.level.org.springframework.web.client=TRACE",
-    "logging.level.org.apache.http=TRACE"
+    "logging.level.org.apache.http=TRACE",
+    // Completed files and history are checked right after the last chunk
+    "chunkedupload.finalization.async=false",
+    "chunkedupload.metrics.scrape-users=user"
 })
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class ChunkedUploadControllerRealIntegrationTest {
@@ -181,6 +186,31 @@ public class ChunkedUploadControllerRealIntegrationTest {
             found = stream.anyMatch(p -> p.getFileName().toString().contains(filePath.getFileName().toString()));
         }
         assertTrue(found, "Completed file should exist in complete folder");
+
+        // The upload is reported on the Prometheus endpoint, scraped by an account with the metrics role
+        String prometheusUrl = "http://localhost:" + port + "/actuator/prometheus";
+        ResponseEntity<String> scrapeResponse = restTemplate().exchange(prometheusUrl, HttpMethod.GET,
+                new HttpEntity<>(authHeaders("user", "password")), String.class);
+        assertEquals(HttpStatus.OK, scrapeResponse.getStatusCode());
+        String scrape = scrapeResponse.getBody();
+        assertNotNull(scrape);
+        assertTrue(scrape.contains("chunkedupload_ingested_bytes_total{application=\"chunked-upload\",tenant=\"user\"} 525088"), scrape);
+        assertTrue(scrape.contains("chunkedupload_chunk_write_seconds_bucket"), "Chunk write latency is a histogram");
+        assertTrue(scrape.contains("chunkedupload_assembly_seconds_count{application=\"chunked-upload\",outcome=\"success\"} 1"));
+
+        // Anonymous clients and other tenants cannot scrape the tenant names
+        try {
+            restTemplate().getForObject(prometheusUrl, String.class);
+            fail("Expected HttpClientErrorException$Unauthorized");
+        } catch (org.springframework.web.client.HttpClientErrorException.Unauthorized ex) {
+            // Expected
+        }
+        try {
+            restTemplate().exchange(prometheusUrl, HttpMethod.GET, new HttpEntity<>(authHeaders("user1", "password1")), String.class);
+            fail("Expected HttpClientErrorException$Forbidden");
+        } catch (org.springframework.web.client.HttpClientErrorException.Forbidden ex) {
+            // Expected
+        }
     }
 
     private Path createTempFile(Path filePath, int expectedFileSize) throws IOException {
@@ -11,10 +11,12 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.http.*;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.web.client.RestTemplate;
 import vn.com.fecredit.chunkedupload.model.*;
 import vn.com.fecredit.chunkedupload.model.util.ChecksumUtil;
+import vn.com.fecredit.chunkedupload.service.ChunkedUploadService;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -27,6 +29,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Completed files and history are checked right after the last chunk
+@TestPropertySource(properties = "chunkedupload.finalization.async=false")
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class UploadSessionManagementIntegrationTest {
 
@@ -39,6 +43,9 @@ public class UploadSessionManagementIntegrationTest {
     @Autowired
     private UploadInfoHistoryRepository uploadInfoHistoryRepo;
 
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
     @LocalServerPort
     private int port;
 
@@ -208,6 +215,8 @@ public class UploadSessionManagementIntegrationTest {
 
         assertEquals(HttpStatus.OK, chunkResponse.getStatusCode());
 
+        // Chunk activity is persisted in batches
+        chunkedUploadService.persistHeartbeats();
         UploadInfo updatedUploadInfo = uploadInfoRepo.findByUploadId(uploadId).get();
         LocalDateTime updatedTime = updatedUploadInfo.getLastUpdateDateTime();
 
@@ -276,4 +276,24 @@ public class ChunkedUploadServiceTest {
             history.getCompletionDateTime() != null
         ));
     }
+
+    @Test
+    public void testPersistHeartbeats_BatchesActiveUploads() {
+        // Given
+        chunkedUploadService.setHeartbeatRegistry(new vn.com.fecredit.chunkedupload.manager.UploadHeartbeatRegistry());
+        chunkedUploadService.getHeartbeatRegistry().record("upload-1");
+        chunkedUploadService.getHeartbeatRegistry().record("upload-2");
+        chunkedUploadService.getHeartbeatRegistry().record("upload-1");
+
+        // When
+        chunkedUploadService.persistHeartbeats();
+        chunkedUploadService.persistHeartbeats();
+
+        // Then: one UPDATE for both uploads, nothing loaded or saved, nothing left for the second run
+        verify(uploadInfoRepository, times(1)).updateLastUpdateDateTimeByUploadIdIn(
+            argThat(ids -> ids.size() == 2 && ids.containsAll(java.util.List.of("upload-1", "upload-2"))),
+            any(LocalDateTime.class));
+        verify(uploadInfoRepository, never()).findByUploadId(any());
+        verify((JpaRepository) uploadInfoRepository, never()).save(any(UploadInfo.class));
+    }
 }
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import vn.com.fecredit.chunkedupload.manager.PartFileLayout;
 import vn.com.fecredit.chunkedupload.model.*;
 
 import java.io.IOException;
@@ -17,6 +18,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -80,6 +82,12 @@ public class UploadSessionTimeoutServiceTest {
             30, // 30-minute timeout
             tempDir.toString()
         );
+
+        // No failed or stuck finalizing uploads unless a test says otherwise
+        lenient().when(uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_FAILED)))
+            .thenReturn(Arrays.asList());
+        lenient().when(uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_FINALIZING)))
+            .thenReturn(Arrays.asList());
     }
 
     @Test
@@ -93,6 +101,8 @@ public class UploadSessionTimeoutServiceTest {
 
         // Then
         verify(uploadInfoRepository).findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_IN_PROGRESS));
+        verify(uploadInfoRepository).findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_FAILED));
+        verify(uploadInfoRepository).findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_FINALIZING));
         verifyNoMoreInteractions(uploadInfoRepository, uploadInfoHistoryRepository);
     }
 
@@ -187,6 +197,60 @@ public class UploadSessionTimeoutServiceTest {
         verify(uploadInfoHistoryRepository).save(any(UploadInfoHistory.class));
     }
 
+    @Test
+    public void testCleanupTimedOutSessions_FailedUploads() throws IOException {
+        // Given - A failed upload keeps its part file, and a finalization that never resumed
+        UploadInfo failedUpload = new UploadInfo();
+        failedUpload.setId(5L);
+        failedUpload.setUploadId("failed-upload-321");
+        failedUpload.setFilename("failed-file.txt");
+        failedUpload.setStatus(UploadInfo.STATUS_FAILED);
+        failedUpload.setLastUpdateDateTime(LocalDateTime.now().minusMinutes(35));
+        failedUpload.setTenant(testTenant);
+
+        UploadInfo finalizingUpload = new UploadInfo();
+        finalizingUpload.setId(6L);
+        finalizingUpload.setUploadId("finalizing-upload-654");
+        finalizingUpload.setFilename("finalizing-file.txt");
+        finalizingUpload.setStatus(UploadInfo.STATUS_FINALIZING);
+        finalizingUpload.setLastUpdateDateTime(LocalDateTime.now().minusMinutes(45));
+        finalizingUpload.setTenant(testTenant);
+
+        Path tenantDir = tempDir.resolve("1");
+        Files.createDirectories(tenantDir);
+        Path failedPart = Files.createFile(tenantDir.resolve("failed-upload-321.part"));
+        Path failedHeader = Files.createFile(PartFileLayout.headerPathOf(failedPart));
+        Path finalizingPart = Files.createFile(tenantDir.resolve("finalizing-upload-654.part"));
+        Path finalizingLock = Files.createFile(tenantDir.resolve("finalizing-upload-654.part.lock"));
+
+        when(uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_IN_PROGRESS)))
+            .thenReturn(Arrays.asList());
+        when(uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_FAILED)))
+            .thenReturn(Arrays.asList(failedUpload));
+        when(uploadInfoRepository.findByLastUpdateDateTimeBeforeAndStatus(any(LocalDateTime.class), eq(UploadInfo.STATUS_FINALIZING)))
+            .thenReturn(Arrays.asList(finalizingUpload));
+
+        when(uploadInfoHistoryRepository.save(any(UploadInfoHistory.class)))
+            .thenReturn(new UploadInfoHistory());
+
+        // When
+        timeoutService.cleanupTimedOutSessions();
+
+        // Then - Both move to history as FAILED and their files are deleted
+        verify(uploadInfoHistoryRepository).save(argThat(history ->
+            history.getUploadId().equals(failedUpload.getUploadId()) &&
+            history.getStatus().equals(UploadInfoHistory.STATUS_FAILED)));
+        verify(uploadInfoHistoryRepository).save(argThat(history ->
+            history.getUploadId().equals(finalizingUpload.getUploadId()) &&
+            history.getStatus().equals(UploadInfoHistory.STATUS_FAILED)));
+        verify(uploadInfoRepository).delete(failedUpload);
+        verify(uploadInfoRepository).delete(finalizingUpload);
+        assertFalse(Files.exists(failedPart));
+        assertFalse(Files.exists(failedHeader));
+        assertFalse(Files.exists(finalizingPart));
+        assertFalse(Files.exists(finalizingLock));
+    }
+
     @Test
     public void testCleanupTimedOutSessions_ExceptionHandling() {
         // Given